@@ -113,6 +113,13 @@ public class AnalyzerModuleConfig extends ModuleConfig {
     @Setter
     private String meterAnalyzerActiveFiles = Const.EMPTY_STRING;
 
+    /**
+     * The counter series of MAL increase/rate/irate functions not updated in this period are evicted. Unit is minute.
+     */
+    @Getter
+    @Setter
+    private int meterCounterWindowIdleTimeout = 15;
+
     /**
      * Sample the trace segment if the segment has span(s) tagged as error status, and ignore the sampleRate
      * configuration.
@@ -21,8 +21,10 @@ package org.apache.skywalking.oap.server.analyzer.provider;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
 import org.apache.skywalking.oap.meter.analyzer.v2.MalConverterRegistry;
+import org.apache.skywalking.oap.meter.analyzer.v2.dsl.counter.CounterWindow;
 import org.apache.skywalking.oap.meter.analyzer.v2.prometheus.rule.Rule;
 import org.apache.skywalking.oap.meter.analyzer.v2.prometheus.rule.Rules;
 import org.apache.skywalking.oap.server.analyzer.module.AnalyzerModule;
@@ -53,6 +55,8 @@ import org.apache.skywalking.oap.server.library.module.ModuleStartException;
 import org.apache.skywalking.oap.server.library.module.ServiceNotProvidedException;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
 public class AnalyzerModuleProvider extends ModuleProvider {
     @Getter
@@ -140,6 +144,19 @@ public class AnalyzerModuleProvider extends ModuleProvider {
 
         segmentParserService.setListenerManager(listenerManager());
 
+        MetricsCreator metricsCreator = getManager().find(TelemetryModule.NAME)
+                                                    .provider()
+                                                    .getService(MetricsCreator.class);
+        CounterWindow.INSTANCE.setIdleTimeout(TimeUnit.MINUTES.toMillis(moduleConfig.getMeterCounterWindowIdleTimeout()));
+        CounterWindow.INSTANCE.setSeriesGauge(metricsCreator.createGauge(
+            "meter_counter_window_series", "The number of counter series held by MAL increase/rate/irate functions",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        ));
+        CounterWindow.INSTANCE.setEvictedSeriesCounter(metricsCreator.createCounter(
+            "meter_counter_window_evicted_series", "The number of idle counter series evicted from MAL increase/rate/irate functions",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        ));
+
         processService.start(loadMeterRules());
     }
 
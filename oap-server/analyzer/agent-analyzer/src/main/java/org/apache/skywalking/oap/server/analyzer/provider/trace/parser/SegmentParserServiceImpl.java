@@ -19,7 +19,6 @@
 package org.apache.skywalking.oap.server.analyzer.provider.trace.parser;
 
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
@@ -31,12 +30,17 @@ import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
 public class SegmentParserServiceImpl implements ISegmentParserService {
     private final ModuleManager moduleManager;
     private final AnalyzerModuleConfig config;
-    @Setter
-    private SegmentParserListenerManager listenerManager;
+    /**
+     * Shared by all threads, the listeners of the analyzer are kept per thread.
+     */
+    private volatile TraceAnalyzer traceAnalyzer;
+
+    public void setListenerManager(SegmentParserListenerManager listenerManager) {
+        this.traceAnalyzer = new TraceAnalyzer(moduleManager, listenerManager, config);
+    }
 
     @Override
     public void send(SegmentObject segment) {
-        final TraceAnalyzer traceAnalyzer = new TraceAnalyzer(moduleManager, listenerManager, config);
         traceAnalyzer.doAnalysis(segment);
     }
 }
@@ -20,13 +20,13 @@ package org.apache.skywalking.oap.server.analyzer.provider.trace.parser;
 
 import java.util.ArrayList;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
 import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
 import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
 import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListenerFactory;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.EntryAnalysisListener;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.ExitAnalysisListener;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.FirstAnalysisListener;
@@ -34,91 +34,129 @@ import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.SegmentListener;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
+/**
+ * TraceAnalyzer traverses the segments and notifies the listeners created by the {@link AnalysisListenerFactory}s.
+ * The listeners keep the state of the analyzing segment, so every thread has its own listeners, which are reset and
+ * reused for the next segment.
+ */
 @Slf4j
-@RequiredArgsConstructor
 public class TraceAnalyzer {
     private final ModuleManager moduleManager;
     private final SegmentParserListenerManager listenerManager;
     private final AnalyzerModuleConfig config;
-    private List<AnalysisListener> analysisListeners = new ArrayList<>();
+    private final ThreadLocal<Listeners> threadListeners;
+
+    public TraceAnalyzer(final ModuleManager moduleManager,
+                         final SegmentParserListenerManager listenerManager,
+                         final AnalyzerModuleConfig config) {
+        this.moduleManager = moduleManager;
+        this.listenerManager = listenerManager;
+        this.config = config;
+        this.threadListeners = ThreadLocal.withInitial(this::createListeners);
+    }
 
     public void doAnalysis(SegmentObject segmentObject) {
-        if (segmentObject.getSpansList().size() == 0) {
+        if (segmentObject.getSpansCount() == 0) {
             return;
         }
 
-        createSpanListeners();
-
-        notifySegmentListener(segmentObject);
-
-        segmentObject.getSpansList().forEach(spanObject -> {
-            if (spanObject.getSpanId() == 0) {
-                notifyFirstListener(spanObject, segmentObject);
+        final Listeners listeners = threadListeners.get();
+        try {
+            for (final SegmentListener listener : listeners.segmentListeners) {
+                listener.parseSegment(segmentObject);
             }
 
-            if (SpanType.Exit.equals(spanObject.getSpanType())) {
-                notifyExitListener(spanObject, segmentObject);
-            } else if (SpanType.Entry.equals(spanObject.getSpanType())) {
-                notifyEntryListener(spanObject, segmentObject);
-            } else if (SpanType.Local.equals(spanObject.getSpanType())) {
-                notifyLocalListener(spanObject, segmentObject);
-            } else {
-                log.error("span type value was unexpected, span type name: {}", spanObject.getSpanType()
-                                                                                          .name());
+            final List<SpanObject> spans = segmentObject.getSpansList();
+            for (int i = 0; i < spans.size(); i++) {
+                final SpanObject spanObject = spans.get(i);
+                if (spanObject.getSpanId() == 0) {
+                    for (final FirstAnalysisListener listener : listeners.firstListeners) {
+                        listener.parseFirst(spanObject, segmentObject);
+                    }
+                }
+
+                final SpanType spanType = spanObject.getSpanType();
+                if (SpanType.Exit.equals(spanType)) {
+                    for (final ExitAnalysisListener listener : listeners.exitListeners) {
+                        listener.parseExit(spanObject, segmentObject);
+                    }
+                } else if (SpanType.Entry.equals(spanType)) {
+                    for (final EntryAnalysisListener listener : listeners.entryListeners) {
+                        listener.parseEntry(spanObject, segmentObject);
+                    }
+                } else if (SpanType.Local.equals(spanType)) {
+                    for (final LocalAnalysisListener listener : listeners.localListeners) {
+                        listener.parseLocal(spanObject, segmentObject);
+                    }
+                } else {
+                    log.error("span type value was unexpected, span type name: {}", spanType.name());
+                }
             }
-        });
-
-        notifyListenerToBuild();
-    }
-
-    private void notifyListenerToBuild() {
-        analysisListeners.forEach(AnalysisListener::build);
-    }
 
-    private void notifyExitListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Exit)) {
-                ((ExitAnalysisListener) listener).parseExit(span, segmentObject);
+            for (final AnalysisListener listener : listeners.listeners) {
+                listener.build();
             }
-        });
+        } finally {
+            resetListeners(listeners);
+        }
     }
 
-    private void notifyEntryListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Entry)) {
-                ((EntryAnalysisListener) listener).parseEntry(span, segmentObject);
-            }
-        });
+    private Listeners createListeners() {
+        final List<AnalysisListenerFactory> factories = new ArrayList<>(listenerManager.getSpanListenerFactories());
+        final AnalysisListener[] listeners = new AnalysisListener[factories.size()];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = factories.get(i).create(moduleManager, config);
+        }
+        return new Listeners(factories, listeners);
     }
 
-    private void notifyLocalListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Local)) {
-                ((LocalAnalysisListener) listener).parseLocal(span, segmentObject);
+    /**
+     * Reset the listeners for the next segment, the listeners not supporting reset are replaced by new ones.
+     */
+    private void resetListeners(Listeners listeners) {
+        boolean replaced = false;
+        for (int i = 0; i < listeners.listeners.length; i++) {
+            if (!listeners.listeners[i].reset()) {
+                listeners.listeners[i] = listeners.factories.get(i).create(moduleManager, config);
+                replaced = true;
             }
-        });
+        }
+        if (replaced) {
+            threadListeners.set(new Listeners(listeners.factories, listeners.listeners));
+        }
     }
 
-    private void notifyFirstListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.First)) {
-                ((FirstAnalysisListener) listener).parseFirst(span, segmentObject);
-            }
-        });
-    }
+    /**
+     * The listeners of a thread, and their dispatch tables of every {@link AnalysisListener.Point}.
+     */
+    private static class Listeners {
+        private final List<AnalysisListenerFactory> factories;
+        private final AnalysisListener[] listeners;
+        private final EntryAnalysisListener[] entryListeners;
+        private final ExitAnalysisListener[] exitListeners;
+        private final LocalAnalysisListener[] localListeners;
+        private final FirstAnalysisListener[] firstListeners;
+        private final SegmentListener[] segmentListeners;
+
+        private Listeners(List<AnalysisListenerFactory> factories, AnalysisListener[] listeners) {
+            this.factories = factories;
+            this.listeners = listeners;
+            this.entryListeners = filter(listeners, AnalysisListener.Point.Entry, new EntryAnalysisListener[0]);
+            this.exitListeners = filter(listeners, AnalysisListener.Point.Exit, new ExitAnalysisListener[0]);
+            this.localListeners = filter(listeners, AnalysisListener.Point.Local, new LocalAnalysisListener[0]);
+            this.firstListeners = filter(listeners, AnalysisListener.Point.First, new FirstAnalysisListener[0]);
+            this.segmentListeners = filter(listeners, AnalysisListener.Point.Segment, new SegmentListener[0]);
+        }
 
-    private void notifySegmentListener(SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Segment)) {
-                ((SegmentListener) listener).parseSegment(segmentObject);
+        @SuppressWarnings("unchecked")
+        private static <T> T[] filter(AnalysisListener[] listeners, AnalysisListener.Point point, T[] type) {
+            final List<T> result = new ArrayList<>(listeners.length);
+            for (final AnalysisListener listener : listeners) {
+                if (listener.containsPoint(point)) {
+                    result.add((T) listener);
+                }
             }
-        });
-    }
-
-    private void createSpanListeners() {
-        listenerManager.getSpanListenerFactories()
-                       .forEach(
-                           spanListenerFactory -> analysisListeners.add(
-                               spanListenerFactory.create(moduleManager, config)));
+            return result.toArray(type);
+        }
     }
 }
@@ -33,6 +33,16 @@ public interface AnalysisListener {
      */
     boolean containsPoint(Point point);
 
+    /**
+     * Clear the state of the analyzed segment after {@link #build()}, so the listener could be reused for the next
+     * segment in the same thread. The points of the listener should not change.
+     *
+     * @return false if the listener can't be reused, then a new one is created by the factory.
+     */
+    default boolean reset() {
+        return false;
+    }
+
     /**
      * Analysis point when the analysis core traverses the segment
      */
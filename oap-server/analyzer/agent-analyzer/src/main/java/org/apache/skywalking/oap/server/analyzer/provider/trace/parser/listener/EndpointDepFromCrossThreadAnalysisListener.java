@@ -133,6 +133,12 @@ public class EndpointDepFromCrossThreadAnalysisListener extends CommonAnalysisLi
         });
     }
 
+    @Override
+    public boolean reset() {
+        depBuilders.clear();
+        return true;
+    }
+
     public static class Factory implements AnalysisListenerFactory {
         private final SourceReceiver sourceReceiver;
         private final NamingControl namingControl;
@@ -301,6 +301,14 @@ public class RPCAnalysisListener extends CommonAnalysisListener implements Entry
         });
     }
 
+    @Override
+    public boolean reset() {
+        callingInTraffic.clear();
+        callingOutTraffic.clear();
+        logicEndpointBuilders.clear();
+        return true;
+    }
+
     /**
      * Logic endpoint could represent through an entry span or local span. It has special meaning from API
      * perspective. But it is an actual RPC call.
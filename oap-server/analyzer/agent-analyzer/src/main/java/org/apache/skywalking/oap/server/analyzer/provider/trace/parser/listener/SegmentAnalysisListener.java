@@ -54,7 +54,7 @@ public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnal
     private final SearchableTracesTagsWatcher searchableTagKeys;
     private final SegmentStatusAnalyzer segmentStatusAnalyzer;
 
-    private final Segment segment = new Segment();
+    private Segment segment = new Segment();
     private SAMPLE_STATUS sampleStatus = SAMPLE_STATUS.UNKNOWN;
     private String serviceName = Const.EMPTY_STRING;
     private String serviceId = Const.EMPTY_STRING;
@@ -194,6 +194,24 @@ public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnal
         });
     }
 
+    /**
+     * The segment source has been forwarded to the source receiver, a new one is required for the next segment.
+     */
+    @Override
+    public boolean reset() {
+        segment = new Segment();
+        sampleStatus = SAMPLE_STATUS.UNKNOWN;
+        serviceName = Const.EMPTY_STRING;
+        serviceId = Const.EMPTY_STRING;
+        endpointId = Const.EMPTY_STRING;
+        endpointName = Const.EMPTY_STRING;
+        startTimestamp = 0;
+        endTimestamp = 0;
+        duration = 0;
+        isError = false;
+        return true;
+    }
+
     private enum SAMPLE_STATUS {
         UNKNOWN, SAMPLED, IGNORE
     }
@@ -57,6 +57,12 @@ public class VirtualServiceAnalysisListener implements ExitAnalysisListener, Loc
         return point == Point.Local || point == Point.Exit || point == Point.Entry;
     }
 
+    @Override
+    public boolean reset() {
+        virtualServiceProcessors.forEach(VirtualServiceProcessor::reset);
+        return true;
+    }
+
     @Override
     public void parseExit(SpanObject span, SegmentObject segmentObject) {
         virtualServiceProcessors.forEach(p -> p.prepareVSIfNecessary(span, segmentObject));
@@ -139,4 +139,9 @@ public class VirtualDatabaseProcessor implements VirtualServiceProcessor {
     public void emitTo(Consumer<Source> consumer) {
         recordList.forEach(consumer);
     }
+
+    @Override
+    public void reset() {
+        recordList.clear();
+    }
 }
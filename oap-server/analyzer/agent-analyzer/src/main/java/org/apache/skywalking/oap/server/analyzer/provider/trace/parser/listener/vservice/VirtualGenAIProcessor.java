@@ -58,4 +58,9 @@ public class VirtualGenAIProcessor implements VirtualServiceProcessor {
             }
         }
     }
+
+    @Override
+    public void reset() {
+        recordList.clear();
+    }
 }
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.provider.trace.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.skywalking.apm.network.common.v3.KeyStringValuePair;
+import org.apache.skywalking.apm.network.language.agent.v3.RefType;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentReference;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanLayer;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
+import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.TraceSamplingPolicyWatcher;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.UninstrumentedGatewaysConfig;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.EndpointDepFromCrossThreadAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.EntryAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.ExitAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.FirstAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.LocalAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.RPCAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.SegmentAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.SegmentListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.TraceSegmentSampler;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.VirtualServiceAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.strategy.SegmentStatusStrategy;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.vservice.VirtualMQProcessor;
+import org.apache.skywalking.oap.server.core.CoreModuleConfig;
+import org.apache.skywalking.oap.server.core.analysis.DispatcherDetectorListener;
+import org.apache.skywalking.oap.server.core.cache.NetworkAddressAliasCache;
+import org.apache.skywalking.oap.server.core.config.NamingControl;
+import org.apache.skywalking.oap.server.core.config.SearchableTracesTagsWatcher;
+import org.apache.skywalking.oap.server.core.config.group.EndpointNameGrouping;
+import org.apache.skywalking.oap.server.core.source.ISource;
+import org.apache.skywalking.oap.server.core.source.SourceReceiver;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the {@link TraceAnalyzer} reusing the listeners per thread with the previous implementation, which created
+ * the listeners for every segment and checked the points of every listener for every span.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class TraceAnalyzerBenchmark {
+
+    private static final int SEGMENTS = 1024;
+
+    private final BlackholeSourceReceiver sourceReceiver = new BlackholeSourceReceiver();
+    private final SegmentObject[] segments = new SegmentObject[SEGMENTS];
+    private PerSegmentTraceAnalyzer perSegmentAnalyzer;
+    private TraceAnalyzer traceAnalyzer;
+
+    public TraceAnalyzerBenchmark() {
+        final AnalyzerModuleConfig config = new AnalyzerModuleConfig();
+        config.setUninstrumentedGatewaysConfig(new UninstrumentedGatewaysConfig(null));
+        final TraceSegmentSampler sampler = new TraceSegmentSampler(new TraceSamplingPolicyWatcher(config, null));
+        final NamingControl namingControl = new NamingControl(70, 100, 150, new EndpointNameGrouping());
+        final NetworkAddressAliasCache aliasCache = new NetworkAddressAliasCache(new CoreModuleConfig());
+        final SearchableTracesTagsWatcher searchableTags = new SearchableTracesTagsWatcher(
+            "http.method,http.status_code,rpc.status_code,db.type,db.instance,mq.queue,mq.topic,mq.broker", null);
+
+        final SegmentParserListenerManager listenerManager = new SegmentParserListenerManager();
+        listenerManager.add((moduleManager, moduleConfig) -> new RPCAnalysisListener(
+            sourceReceiver, config, aliasCache, namingControl));
+        listenerManager.add((moduleManager, moduleConfig) -> new EndpointDepFromCrossThreadAnalysisListener(
+            sourceReceiver, config, namingControl));
+        listenerManager.add((moduleManager, moduleConfig) -> new SegmentAnalysisListener(
+            sourceReceiver, sampler, true, namingControl, searchableTags,
+            SegmentStatusStrategy.FROM_SPAN_STATUS.getExceptionAnalyzer()
+        ));
+        listenerManager.add((moduleManager, moduleConfig) -> new VirtualServiceAnalysisListener(
+            sourceReceiver, new ArrayList<>(Collections.singletonList(new VirtualMQProcessor(namingControl)))));
+
+        perSegmentAnalyzer = new PerSegmentTraceAnalyzer(listenerManager, config);
+        traceAnalyzer = new TraceAnalyzer(null, listenerManager, config);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = buildSegment(i);
+        }
+    }
+
+    /**
+     * An entry span referencing the upstream, with RPC, HTTP and MQ exit spans and local spans, tagged like the
+     * segments reported by the Java agent.
+     */
+    private static SegmentObject buildSegment(int i) {
+        final long startTime = 1_700_000_000_000L + i * 10L;
+        final String service = "service-" + (i % 20);
+        final SegmentObject.Builder segment = SegmentObject.newBuilder()
+                                                           .setTraceId("trace-" + i)
+                                                           .setTraceSegmentId("segment-" + i)
+                                                           .setService(service)
+                                                           .setServiceInstance("instance-" + (i % 60) + "@" + service);
+        segment.addSpans(SpanObject.newBuilder()
+                                   .setSpanId(0)
+                                   .setParentSpanId(-1)
+                                   .setSpanType(SpanType.Entry)
+                                   .setSpanLayer(SpanLayer.Http)
+                                   .setComponentId(1)
+                                   .setOperationName("/api/orders/" + (i % 50))
+                                   .setStartTime(startTime)
+                                   .setEndTime(startTime + 120)
+                                   .addRefs(SegmentReference.newBuilder()
+                                                            .setRefType(RefType.CrossProcess)
+                                                            .setTraceId("trace-" + i)
+                                                            .setParentTraceSegmentId("parent-" + i)
+                                                            .setParentService("gateway")
+                                                            .setParentServiceInstance("gateway-instance")
+                                                            .setParentEndpoint("/gateway/orders")
+                                                            .setNetworkAddressUsedAtPeer("10.0.0." + (i % 20) + ":8080"))
+                                   .addTags(tag("http.method", "GET"))
+                                   .addTags(tag("url", "http://10.0.0." + (i % 20) + ":8080/api/orders/" + i))
+                                   .addTags(tag("http.status_code", "200")));
+        segment.addSpans(SpanObject.newBuilder()
+                                   .setSpanId(1)
+                                   .setParentSpanId(0)
+                                   .setSpanType(SpanType.Local)
+                                   .setSpanLayer(SpanLayer.Unknown)
+                                   .setOperationName("OrderService.query")
+                                   .setStartTime(startTime + 5)
+                                   .setEndTime(startTime + 100));
+        segment.addSpans(SpanObject.newBuilder()
+                                   .setSpanId(2)
+                                   .setParentSpanId(1)
+                                   .setSpanType(SpanType.Exit)
+                                   .setSpanLayer(SpanLayer.RPCFramework)
+                                   .setComponentId(23)
+                                   .setOperationName("org.apache.skywalking.InventoryService.check")
+                                   .setPeer("inventory:20880")
+                                   .setStartTime(startTime + 10)
+                                   .setEndTime(startTime + 40)
+                                   .addTags(tag("rpc.status_code", "OK")));
+        segment.addSpans(SpanObject.newBuilder()
+                                   .setSpanId(3)
+                                   .setParentSpanId(1)
+                                   .setSpanType(SpanType.Exit)
+                                   .setSpanLayer(SpanLayer.Http)
+                                   .setComponentId(2)
+                                   .setOperationName("/api/users")
+                                   .setPeer("users:8080")
+                                   .setStartTime(startTime + 40)
+                                   .setEndTime(startTime + 70)
+                                   .addTags(tag("http.method", "POST"))
+                                   .addTags(tag("http.status_code", "200")));
+        segment.addSpans(SpanObject.newBuilder()
+                                   .setSpanId(4)
+                                   .setParentSpanId(1)
+                                   .setSpanType(SpanType.Exit)
+                                   .setSpanLayer(SpanLayer.MQ)
+                                   .setComponentId(40)
+                                   .setOperationName("Kafka/orders/Producer")
+                                   .setPeer("kafka:9092")
+                                   .setStartTime(startTime + 70)
+                                   .setEndTime(startTime + 80)
+                                   .addTags(tag("mq.broker", "kafka:9092"))
+                                   .addTags(tag("mq.topic", "orders")));
+        segment.addSpans(SpanObject.newBuilder()
+                                   .setSpanId(5)
+                                   .setParentSpanId(0)
+                                   .setSpanType(SpanType.Local)
+                                   .setSpanLayer(SpanLayer.Unknown)
+                                   .setOperationName("OrderService.render")
+                                   .setStartTime(startTime + 100)
+                                   .setEndTime(startTime + 115));
+        return segment.build();
+    }
+
+    private static KeyStringValuePair tag(String key, String value) {
+        return KeyStringValuePair.newBuilder().setKey(key).setValue(value).build();
+    }
+
+    @Benchmark
+    public void perSegmentListeners(Blackhole bh) {
+        sourceReceiver.blackhole = bh;
+        for (SegmentObject segment : segments) {
+            perSegmentAnalyzer.doAnalysis(segment);
+        }
+    }
+
+    @Benchmark
+    public void reusedListeners(Blackhole bh) {
+        sourceReceiver.blackhole = bh;
+        for (SegmentObject segment : segments) {
+            traceAnalyzer.doAnalysis(segment);
+        }
+    }
+
+    private static class BlackholeSourceReceiver implements SourceReceiver {
+        private Blackhole blackhole;
+
+        @Override
+        public void receive(ISource source) {
+            blackhole.consume(source);
+        }
+
+        @Override
+        public DispatcherDetectorListener getDispatcherDetectorListener() {
+            return null;
+        }
+    }
+
+    /**
+     * The trace analyzer before the listeners were reused, kept as the baseline.
+     */
+    private static class PerSegmentTraceAnalyzer {
+        private final SegmentParserListenerManager listenerManager;
+        private final AnalyzerModuleConfig config;
+
+        private PerSegmentTraceAnalyzer(SegmentParserListenerManager listenerManager, AnalyzerModuleConfig config) {
+            this.listenerManager = listenerManager;
+            this.config = config;
+        }
+
+        private void doAnalysis(SegmentObject segmentObject) {
+            final List<AnalysisListener> analysisListeners = new ArrayList<>();
+            listenerManager.getSpanListenerFactories()
+                           .forEach(factory -> analysisListeners.add(factory.create(null, config)));
+
+            analysisListeners.forEach(listener -> {
+                if (listener.containsPoint(AnalysisListener.Point.Segment)) {
+                    ((SegmentListener) listener).parseSegment(segmentObject);
+                }
+            });
+            segmentObject.getSpansList().forEach(span -> {
+                if (span.getSpanId() == 0) {
+                    analysisListeners.forEach(listener -> {
+                        if (listener.containsPoint(AnalysisListener.Point.First)) {
+                            ((FirstAnalysisListener) listener).parseFirst(span, segmentObject);
+                        }
+                    });
+                }
+                if (SpanType.Exit.equals(span.getSpanType())) {
+                    analysisListeners.forEach(listener -> {
+                        if (listener.containsPoint(AnalysisListener.Point.Exit)) {
+                            ((ExitAnalysisListener) listener).parseExit(span, segmentObject);
+                        }
+                    });
+                } else if (SpanType.Entry.equals(span.getSpanType())) {
+                    analysisListeners.forEach(listener -> {
+                        if (listener.containsPoint(AnalysisListener.Point.Entry)) {
+                            ((EntryAnalysisListener) listener).parseEntry(span, segmentObject);
+                        }
+                    });
+                } else if (SpanType.Local.equals(span.getSpanType())) {
+                    analysisListeners.forEach(listener -> {
+                        if (listener.containsPoint(AnalysisListener.Point.Local)) {
+                            ((LocalAnalysisListener) listener).parseLocal(span, segmentObject);
+                        }
+                    });
+                }
+            });
+            analysisListeners.forEach(AnalysisListener::build);
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(".*" + getClass().getSimpleName() + ".*")
+                .jvmArgsAppend("-Xmx512m", "-Xms512m")
+                .build()).run();
+    }
+}
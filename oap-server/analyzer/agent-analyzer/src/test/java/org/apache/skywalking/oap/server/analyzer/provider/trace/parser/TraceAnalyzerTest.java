@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.provider.trace.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.skywalking.apm.network.common.v3.KeyStringValuePair;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanLayer;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
+import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.UninstrumentedGatewaysConfig;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.LocalAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.RPCAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.SegmentAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.TraceSegmentSampler;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.strategy.SegmentStatusStrategy;
+import org.apache.skywalking.oap.server.core.CoreModuleConfig;
+import org.apache.skywalking.oap.server.core.analysis.DispatcherDetectorListener;
+import org.apache.skywalking.oap.server.core.cache.NetworkAddressAliasCache;
+import org.apache.skywalking.oap.server.core.config.NamingControl;
+import org.apache.skywalking.oap.server.core.config.SearchableTracesTagsWatcher;
+import org.apache.skywalking.oap.server.core.config.group.EndpointNameGrouping;
+import org.apache.skywalking.oap.server.core.source.Endpoint;
+import org.apache.skywalking.oap.server.core.source.ISource;
+import org.apache.skywalking.oap.server.core.source.Segment;
+import org.apache.skywalking.oap.server.core.source.SourceReceiver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TraceAnalyzerTest {
+    private final List<ISource> sources = new ArrayList<>();
+    private final AtomicInteger createdLocalListeners = new AtomicInteger();
+    private final AtomicInteger parsedLocalSpans = new AtomicInteger();
+    private TraceAnalyzer traceAnalyzer;
+
+    @BeforeEach
+    public void setUp() {
+        final SourceReceiver sourceReceiver = new SourceReceiver() {
+            @Override
+            public void receive(ISource source) {
+                sources.add(source);
+            }
+
+            @Override
+            public DispatcherDetectorListener getDispatcherDetectorListener() {
+                return null;
+            }
+        };
+        final AnalyzerModuleConfig config = new AnalyzerModuleConfig();
+        config.setUninstrumentedGatewaysConfig(new UninstrumentedGatewaysConfig(null));
+        final NamingControl namingControl = new NamingControl(70, 100, 150, new EndpointNameGrouping());
+        final TraceSegmentSampler sampler = mock(TraceSegmentSampler.class);
+        when(sampler.shouldSample(any(), anyInt())).thenReturn(true);
+
+        final SegmentParserListenerManager listenerManager = new SegmentParserListenerManager();
+        listenerManager.add((moduleManager, moduleConfig) -> new RPCAnalysisListener(
+            sourceReceiver, config, new NetworkAddressAliasCache(new CoreModuleConfig()), namingControl));
+        listenerManager.add((moduleManager, moduleConfig) -> new SegmentAnalysisListener(
+            sourceReceiver, sampler, false, namingControl, new SearchableTracesTagsWatcher("http.method", null),
+            SegmentStatusStrategy.FROM_SPAN_STATUS.getExceptionAnalyzer()
+        ));
+        // A listener not supporting reset, which is replaced after every segment.
+        listenerManager.add((moduleManager, moduleConfig) -> {
+            createdLocalListeners.incrementAndGet();
+            return new LocalAnalysisListener() {
+                @Override
+                public void parseLocal(SpanObject span, SegmentObject segmentObject) {
+                    parsedLocalSpans.incrementAndGet();
+                }
+
+                @Override
+                public void build() {
+                }
+
+                @Override
+                public boolean containsPoint(Point point) {
+                    return AnalysisListener.Point.Local.equals(point);
+                }
+            };
+        });
+        traceAnalyzer = new TraceAnalyzer(null, listenerManager, config);
+    }
+
+    @Test
+    public void testListenersResetBetweenSegments() {
+        traceAnalyzer.doAnalysis(buildSegment("segment-1", "/api/a"));
+        traceAnalyzer.doAnalysis(buildSegment("segment-2", "/api/b"));
+
+        final List<String> endpoints = sources.stream()
+                                              .filter(source -> source instanceof Endpoint)
+                                              .map(source -> ((Endpoint) source).getName())
+                                              .collect(Collectors.toList());
+        Assertions.assertEquals(List.of("/api/a", "/api/b"), endpoints);
+
+        final List<Segment> segments = sources.stream()
+                                              .filter(source -> source instanceof Segment)
+                                              .map(source -> (Segment) source)
+                                              .collect(Collectors.toList());
+        Assertions.assertEquals(2, segments.size());
+        Assertions.assertEquals("segment-1", segments.get(0).getSegmentId());
+        Assertions.assertEquals("segment-2", segments.get(1).getSegmentId());
+        Assertions.assertEquals(1, segments.get(1).getTags().size());
+
+        Assertions.assertEquals(2, parsedLocalSpans.get());
+        Assertions.assertEquals(3, createdLocalListeners.get());
+    }
+
+    @Test
+    public void testEmptySegmentIgnored() {
+        traceAnalyzer.doAnalysis(SegmentObject.newBuilder().setTraceSegmentId("segment-1").build());
+        Assertions.assertTrue(sources.isEmpty());
+    }
+
+    private SegmentObject buildSegment(String segmentId, String endpoint) {
+        return SegmentObject.newBuilder()
+                            .setTraceId("trace-" + segmentId)
+                            .setTraceSegmentId(segmentId)
+                            .setService("service")
+                            .setServiceInstance("instance")
+                            .addSpans(SpanObject.newBuilder()
+                                                .setSpanId(0)
+                                                .setParentSpanId(-1)
+                                                .setSpanType(SpanType.Entry)
+                                                .setSpanLayer(SpanLayer.Http)
+                                                .setOperationName(endpoint)
+                                                .setStartTime(1_700_000_000_000L)
+                                                .setEndTime(1_700_000_000_100L)
+                                                .addTags(KeyStringValuePair.newBuilder()
+                                                                           .setKey("http.method")
+                                                                           .setValue("GET")))
+                            .addSpans(SpanObject.newBuilder()
+                                                .setSpanId(1)
+                                                .setParentSpanId(0)
+                                                .setSpanType(SpanType.Local)
+                                                .setOperationName("local")
+                                                .setStartTime(1_700_000_000_010L)
+                                                .setEndTime(1_700_000_000_020L))
+                            .build();
+    }
+}
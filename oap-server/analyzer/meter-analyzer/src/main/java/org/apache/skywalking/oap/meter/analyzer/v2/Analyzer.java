@@ -221,6 +221,10 @@ public class Analyzer {
         createMetric(ctx.getScopeType(), metricType.literal, ctx.getDownsampling());
     }
 
+    /**
+     * The names of the input sample families referenced by the expression.
+     */
+    @Getter
     private List<String> samples;
 
     @Getter
@@ -190,8 +190,18 @@ public class MetricConvert {
         }
         this.analyzers = prepared;
         this.registeredMetricNames = Collections.unmodifiableSet(registered);
+        final Set<String> samples = new LinkedHashSet<>();
+        prepared.forEach(a -> samples.addAll(a.getSamples()));
+        this.inputSamples = Collections.unmodifiableSet(samples);
     }
 
+    /**
+     * The names of the sample families referenced by the analyzers of this convert, see {@link MetricConvertIndex}.
+     * {@link #toMeter} is a no-op if none of them is present.
+     */
+    @Getter
+    private final Set<String> inputSamples;
+
     /**
      * Metric names that completed phase-2 register on this instance — the set the caller would
      * unregister to undo a successful apply. Same as {@code analyzers.stream().map(getMetricName)}
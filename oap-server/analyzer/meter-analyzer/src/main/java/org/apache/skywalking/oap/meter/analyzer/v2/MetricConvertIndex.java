@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.v2;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.meter.analyzer.v2.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.v2.prometheus.PrometheusMetricConverter;
+
+/**
+ * MetricConvertIndex is an inverted index from the input sample names of the MAL expressions, see {@link
+ * MetricConvert#getInputSamples()}, to the converts referencing them.
+ *
+ * <p>The receivers hosting many rule files use it to run only the converts whose input samples are present in a
+ * request, rather than broadcasting every request to every convert, and to drop the metrics that no convert
+ * references before converting them into {@link SampleFamily}s.
+ *
+ * <p>The index is immutable, the receivers rebuild it when the converts are changed.
+ */
+public final class MetricConvertIndex {
+    public static final MetricConvertIndex EMPTY = new MetricConvertIndex(new ArrayList<>());
+
+    private final MetricConvert[] converts;
+    private final Map<String, int[]> convertsBySample;
+
+    /**
+     * @param converts in the order to be executed.
+     */
+    public MetricConvertIndex(final Collection<MetricConvert> converts) {
+        this.converts = converts.toArray(new MetricConvert[0]);
+        final Map<String, List<Integer>> index = new HashMap<>();
+        for (int i = 0; i < this.converts.length; i++) {
+            for (final String sample : this.converts[i].getInputSamples()) {
+                index.computeIfAbsent(sample, k -> new ArrayList<>()).add(i);
+            }
+        }
+        this.convertsBySample = new HashMap<>(index.size() * 2);
+        index.forEach((sample, ordinals) -> convertsBySample.put(
+            sample, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public boolean isEmpty() {
+        return converts.length == 0;
+    }
+
+    /**
+     * @param metricName the original name of the Prometheus or OpenTelemetry metric.
+     * @return true if any convert references the metric, or the {@code _count} and {@code _sum} sample families of
+     * it as a histogram or summary.
+     */
+    public boolean isReferenced(final String metricName) {
+        final String name = PrometheusMetricConverter.escapedName(metricName);
+        return convertsBySample.containsKey(name)
+            || convertsBySample.containsKey(name + "_count")
+            || convertsBySample.containsKey(name + "_sum");
+    }
+
+    /**
+     * Run the converts referencing any of the given sample families, in the order of the converts.
+     */
+    public void toMeter(final ImmutableMap<String, SampleFamily> sampleFamilies) {
+        if (sampleFamilies.isEmpty()) {
+            return;
+        }
+        final BitSet matched = new BitSet(converts.length);
+        for (final String sample : sampleFamilies.keySet()) {
+            final int[] ordinals = convertsBySample.get(sample);
+            if (ordinals != null) {
+                for (final int ordinal : ordinals) {
+                    matched.set(ordinal);
+                }
+            }
+        }
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            converts[i].toMeter(sampleFamilies);
+        }
+    }
+}
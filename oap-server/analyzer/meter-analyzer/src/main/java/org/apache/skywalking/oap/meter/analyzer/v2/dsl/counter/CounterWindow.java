@@ -22,67 +22,276 @@ import com.google.common.collect.ImmutableMap;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.AccessLevel;
-import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
-import lombok.ToString;
+import lombok.Setter;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
 
 /**
  * CounterWindow stores a series of counter samples in order to calculate the increase
  * or instant rate of increase.
  *
+ * The samples of every series are kept in a sorted ring buffer of primitive arrays. The series not updated in
+ * {@link #idleTimeout} are evicted, the next sample of an evicted series is treated as the first one.
  */
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-@ToString
-@EqualsAndHashCode
 public class CounterWindow {
 
     public static final CounterWindow INSTANCE = new CounterWindow();
 
-    private final Map<ID, Tuple2<Long, Double>> lastElementMap = new ConcurrentHashMap<>();
-    private final Map<ID, Queue<Tuple2<Long, Double>>> windows = new ConcurrentHashMap<>();
+    private static final int EVICTION_CHECK_SAMPLING = 256;
+
+    /**
+     * The series grouped by the metric name, then the labels.
+     */
+    private final Map<String, Map<ImmutableMap<String, String>, Series>> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextEvictionTime = new AtomicLong();
+    /**
+     * The series not updated in this period are evicted. Unit is ms.
+     */
+    @Setter
+    private volatile long idleTimeout = TimeUnit.MINUTES.toMillis(15);
+    /**
+     * The number of series in the window, nullable.
+     */
+    @Setter
+    private volatile GaugeMetrics seriesGauge;
+    /**
+     * The counter of evicted series, nullable.
+     */
+    @Setter
+    private volatile CounterMetrics evictedSeriesCounter;
 
     public Tuple2<Long, Double> increase(String name, ImmutableMap<String, String> labels, Double value, long windowSize, long now) {
-        ID id = new ID(name, labels);
-        Queue<Tuple2<Long, Double>> window = windows.computeIfAbsent(id, unused -> new PriorityQueue<>());
-        synchronized (window) {
-            window.offer(Tuple.of(now, value));
-            long waterLevel = now - windowSize;
-            Tuple2<Long, Double> peek = window.peek();
-            if (peek._1 > waterLevel) {
-                return peek;
+        while (true) {
+            final Series series = series(name, labels);
+            synchronized (series) {
+                if (series.evicted) {
+                    // Evicted after being fetched, retry with the new series.
+                    continue;
+                }
+                return increase(series, value, windowSize, now);
             }
+        }
+    }
 
-            Tuple2<Long, Double> result = peek;
-            while (peek._1 < waterLevel) {
-                result = window.poll();
-                peek = window.element();
-            }
+    private Tuple2<Long, Double> increase(Series series, Double value, long windowSize, long now) {
+        series.accessed = true;
+        series.offer(now, value);
+        long waterLevel = now - windowSize;
+        if (series.firstTimestamp() > waterLevel) {
+            return series.first();
+        }
 
-            // Choose the closed slot to the expected timestamp
-            if (waterLevel - result._1 <= peek._1 - waterLevel) {
-                return result;
-            }
+        long resultTimestamp = series.firstTimestamp();
+        double resultValue = series.firstValue();
+        while (series.firstTimestamp() < waterLevel) {
+            resultTimestamp = series.firstTimestamp();
+            resultValue = series.firstValue();
+            series.poll();
+        }
 
-            return peek;
+        // Choose the closed slot to the expected timestamp
+        if (waterLevel - resultTimestamp <= series.firstTimestamp() - waterLevel) {
+            return Tuple.of(resultTimestamp, resultValue);
         }
+
+        return series.first();
     }
 
     public Tuple2<Long, Double> pop(String name, ImmutableMap<String, String> labels, Double value, long now) {
-        ID id = new ID(name, labels);
+        while (true) {
+            final Series series = series(name, labels);
+            synchronized (series) {
+                if (series.evicted) {
+                    // Evicted after being fetched, retry with the new series.
+                    continue;
+                }
+                return pop(series, value, now);
+            }
+        }
+    }
 
-        Tuple2<Long, Double> element = Tuple.of(now, value);
-        Tuple2<Long, Double> result = lastElementMap.put(id, element);
-        if (result == null) {
-            return element;
+    private Tuple2<Long, Double> pop(Series series, Double value, long now) {
+        series.accessed = true;
+        if (!series.hasLast) {
+            series.hasLast = true;
+            series.lastTimestamp = now;
+            series.lastValue = value;
+            return Tuple.of(now, value);
         }
+        Tuple2<Long, Double> result = Tuple.of(series.lastTimestamp, series.lastValue);
+        series.lastTimestamp = now;
+        series.lastValue = value;
         return result;
     }
 
     public void reset() {
+        final long size = size();
         windows.clear();
+        nextEvictionTime.set(0);
+        final GaugeMetrics gauge = seriesGauge;
+        if (gauge != null) {
+            gauge.dec(size);
+        }
+    }
+
+    /**
+     * @return the number of series in the window.
+     */
+    public long size() {
+        long size = 0;
+        for (final Map<ImmutableMap<String, String>, Series> series : windows.values()) {
+            size += series.size();
+        }
+        return size;
+    }
+
+    private Series series(String name, ImmutableMap<String, String> labels) {
+        // Reading the clock costs more than the window itself, check the eviction by a sample of calls.
+        if (ThreadLocalRandom.current().nextInt(EVICTION_CHECK_SAMPLING) == 0) {
+            evictIdleSeries(System.currentTimeMillis());
+        }
+
+        Map<ImmutableMap<String, String>, Series> seriesOfName = windows.get(name);
+        if (seriesOfName == null) {
+            seriesOfName = windows.computeIfAbsent(name, ignored -> new ConcurrentHashMap<>());
+        }
+        Series series = seriesOfName.get(labels);
+        if (series == null) {
+            series = seriesOfName.computeIfAbsent(labels, ignored -> {
+                final GaugeMetrics gauge = seriesGauge;
+                if (gauge != null) {
+                    gauge.inc();
+                }
+                return new Series();
+            });
+        }
+        return series;
+    }
+
+    /**
+     * Sweep the series at most once in {@link #idleTimeout}. The series not accessed since the previous sweep are
+     * evicted, so an evicted series has been idle for at least one {@link #idleTimeout}. The series is removed and
+     * marked as evicted while holding its lock, the writers having fetched it retry with a new series.
+     */
+    void evictIdleSeries(long currentTime) {
+        final long evictionTime = nextEvictionTime.get();
+        if (currentTime < evictionTime) {
+            return;
+        }
+        if (!nextEvictionTime.compareAndSet(evictionTime, currentTime + idleTimeout)) {
+            return;
+        }
+        long evicted = 0;
+        for (final Map<ImmutableMap<String, String>, Series> seriesOfName : windows.values()) {
+            for (final Map.Entry<ImmutableMap<String, String>, Series> entry : seriesOfName.entrySet()) {
+                final Series series = entry.getValue();
+                synchronized (series) {
+                    if (series.accessed) {
+                        series.accessed = false;
+                        continue;
+                    }
+                    if (seriesOfName.remove(entry.getKey(), series)) {
+                        series.evicted = true;
+                        evicted++;
+                    }
+                }
+            }
+        }
+        if (evicted == 0) {
+            return;
+        }
+        final GaugeMetrics gauge = seriesGauge;
+        if (gauge != null) {
+            gauge.dec(evicted);
+        }
+        final CounterMetrics counter = evictedSeriesCounter;
+        if (counter != null) {
+            counter.inc(evicted);
+        }
+    }
+
+    /**
+     * The samples of one series sorted by the timestamp then the value, in a ring buffer.
+     */
+    private static class Series {
+        private long[] timestamps = new long[4];
+        private double[] values = new double[4];
+        private int head;
+        private int size;
+
+        private boolean hasLast;
+        private long lastTimestamp;
+        private double lastValue;
+
+        /**
+         * Whether the series is accessed since the previous sweep of {@link #evictIdleSeries(long)}.
+         */
+        private boolean accessed;
+        /**
+         * Whether the series is removed from the window, the samples must not be written into it anymore.
+         */
+        private boolean evicted;
+
+        private void offer(long timestamp, double value) {
+            if (size == timestamps.length) {
+                grow();
+            }
+            final int mask = timestamps.length - 1;
+            int i = size - 1;
+            // Samples mostly arrive in order, the loop stops at the first comparison.
+            while (i >= 0) {
+                final int index = (head + i) & mask;
+                final long t = timestamps[index];
+                if (t < timestamp || (t == timestamp && Double.compare(values[index], value) <= 0)) {
+                    break;
+                }
+                final int next = (index + 1) & mask;
+                timestamps[next] = t;
+                values[next] = values[index];
+                i--;
+            }
+            final int index = (head + i + 1) & mask;
+            timestamps[index] = timestamp;
+            values[index] = value;
+            size++;
+        }
+
+        private void poll() {
+            head = (head + 1) & (timestamps.length - 1);
+            size--;
+        }
+
+        private long firstTimestamp() {
+            return timestamps[head];
+        }
+
+        private double firstValue() {
+            return values[head];
+        }
+
+        private Tuple2<Long, Double> first() {
+            return Tuple.of(timestamps[head], values[head]);
+        }
+
+        private void grow() {
+            final int capacity = timestamps.length;
+            final long[] newTimestamps = new long[capacity << 1];
+            final double[] newValues = new double[capacity << 1];
+            for (int i = 0; i < size; i++) {
+                final int index = (head + i) & (capacity - 1);
+                newTimestamps[i] = timestamps[index];
+                newValues[i] = values[index];
+            }
+            timestamps = newTimestamps;
+            values = newValues;
+            head = 0;
+        }
     }
 }
@@ -141,7 +141,7 @@ public class PrometheusMetricConverter {
     }
 
     // Returns the escaped name of the given one, with "." and "/" replaced by "_"
-    protected static String escapedName(final String name) {
+    public static String escapedName(final String name) {
         try {
             return ESCAPED_METRICS_NAME_CACHE.get(name);
         } catch (ExecutionException e) {
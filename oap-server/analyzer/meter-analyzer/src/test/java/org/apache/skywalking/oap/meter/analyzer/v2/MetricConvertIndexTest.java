@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.v2;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import org.apache.skywalking.oap.meter.analyzer.v2.dsl.SampleFamily;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetricConvertIndexTest {
+    @Test
+    public void testReferencedMetrics() {
+        final MetricConvertIndex index = new MetricConvertIndex(Arrays.asList(
+            convert("node_cpu_seconds_total"),
+            convert("http_server_duration_count", "http_server_duration_sum")
+        ));
+
+        assertTrue(index.isReferenced("node_cpu_seconds_total"));
+        assertTrue(index.isReferenced("node.cpu.seconds.total"));
+        assertTrue(index.isReferenced("http.server.duration"));
+        assertFalse(index.isReferenced("node_memory_bytes"));
+        assertTrue(MetricConvertIndex.EMPTY.isEmpty());
+    }
+
+    @Test
+    public void testOnlyMatchedConvertsRun() {
+        final MetricConvert cpu = convert("node_cpu_seconds_total");
+        final MetricConvert memory = convert("node_memory_bytes");
+        final MetricConvert both = convert("node_memory_bytes", "node_cpu_seconds_total");
+        final MetricConvertIndex index = new MetricConvertIndex(Arrays.asList(cpu, memory, both));
+
+        final ImmutableMap<String, SampleFamily> sampleFamilies = ImmutableMap.of(
+            "node_cpu_seconds_total", SampleFamily.EMPTY, "unknown", SampleFamily.EMPTY);
+        index.toMeter(sampleFamilies);
+
+        final InOrder inOrder = inOrder(cpu, both);
+        inOrder.verify(cpu).toMeter(sampleFamilies);
+        inOrder.verify(both).toMeter(sampleFamilies);
+        verify(memory, never()).toMeter(any());
+    }
+
+    private static MetricConvert convert(final String... samples) {
+        final MetricConvert convert = mock(MetricConvert.class);
+        when(convert.getInputSamples()).thenReturn(ImmutableSet.copyOf(samples));
+        return convert;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.skywalking.oap.meter.analyzer.v2.dsl.counter;
+
+import com.google.common.collect.ImmutableMap;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the ring buffer based {@link CounterWindow} with the previous priority queue based implementation, on
+ * {@code increase('PT1M')} of series scraped every 15 seconds. Run with the GC profiler to see the allocation rate.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class CounterWindowBenchmark {
+
+    private static final int SERIES = 1000;
+    private static final long WINDOW = 60_000;
+    private static final long INTERVAL = 15_000;
+
+    private final ImmutableMap<String, String>[] labels = createLabels();
+    private final PriorityQueueCounterWindow priorityQueueWindow = new PriorityQueueCounterWindow();
+    private long timestamp;
+
+    @SuppressWarnings("unchecked")
+    private static ImmutableMap<String, String>[] createLabels() {
+        ImmutableMap<String, String>[] labels = new ImmutableMap[SERIES];
+        for (int i = 0; i < SERIES; i++) {
+            labels[i] = ImmutableMap.of("service", "service-" + i % 10, "instance", "instance-" + i);
+        }
+        return labels;
+    }
+
+    @Benchmark
+    public void increaseRingBuffer(Blackhole bh) {
+        timestamp += INTERVAL;
+        for (ImmutableMap<String, String> label : labels) {
+            bh.consume(CounterWindow.INSTANCE.increase("metric", label, (double) timestamp, WINDOW, timestamp));
+        }
+    }
+
+    @Benchmark
+    public void increasePriorityQueue(Blackhole bh) {
+        timestamp += INTERVAL;
+        for (ImmutableMap<String, String> label : labels) {
+            bh.consume(priorityQueueWindow.increase("metric", label, (double) timestamp, WINDOW, timestamp));
+        }
+    }
+
+    /**
+     * The priority queue based counter window before the ring buffer, kept as the baseline.
+     */
+    private static class PriorityQueueCounterWindow {
+        private final Map<ID, Queue<Tuple2<Long, Double>>> windows = new ConcurrentHashMap<>();
+
+        private Tuple2<Long, Double> increase(String name, ImmutableMap<String, String> labels, Double value,
+                                              long windowSize, long now) {
+            Queue<Tuple2<Long, Double>> window = windows.computeIfAbsent(new ID(name, labels), unused -> new PriorityQueue<>());
+            synchronized (window) {
+                window.offer(Tuple.of(now, value));
+                long waterLevel = now - windowSize;
+                Tuple2<Long, Double> peek = window.peek();
+                if (peek._1 > waterLevel) {
+                    return peek;
+                }
+
+                Tuple2<Long, Double> result = peek;
+                while (peek._1 < waterLevel) {
+                    result = window.poll();
+                    peek = window.element();
+                }
+
+                if (waterLevel - result._1 <= peek._1 - waterLevel) {
+                    return result;
+                }
+
+                return peek;
+            }
+        }
+    }
+
+    private static class ID {
+        private final String name;
+        private final ImmutableMap<String, String> labels;
+
+        private ID(String name, ImmutableMap<String, String> labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ID)) {
+                return false;
+            }
+            ID id = (ID) o;
+            return name.equals(id.name) && labels.equals(id.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, labels);
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(".*" + getClass().getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Xmx512m", "-Xms512m")
+                .build()).run();
+    }
+}
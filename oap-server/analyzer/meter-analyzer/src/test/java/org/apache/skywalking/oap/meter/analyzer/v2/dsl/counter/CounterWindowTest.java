@@ -25,6 +25,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.Instant.parse;
 
@@ -94,4 +95,34 @@ public class CounterWindowTest {
 
         Assertions.assertArrayEquals(new double[] {0, 1d, 2d, 3d, 4d, 0d, 1d, 2d}, actuals, 0.d);
     }
+
+    @Test
+    public void testIdleSeriesEvicted() {
+        CounterWindow.INSTANCE.reset();
+        CounterWindow.INSTANCE.setIdleTimeout(10);
+        // Later than the sampled sweeps triggered by the calls, which read the current time.
+        final long now = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        try {
+            CounterWindow.INSTANCE.increase("idle", ImmutableMap.of("k", "v"), 1d, 60_000, 1000);
+            CounterWindow.INSTANCE.increase("active", ImmutableMap.of("k", "v"), 1d, 60_000, 1000);
+            CounterWindow.INSTANCE.evictIdleSeries(now);
+            Assertions.assertEquals(2, CounterWindow.INSTANCE.size());
+
+            CounterWindow.INSTANCE.increase("active", ImmutableMap.of("k", "v"), 2d, 60_000, 2000);
+            // Not due yet.
+            CounterWindow.INSTANCE.evictIdleSeries(now + 5);
+            Assertions.assertEquals(2, CounterWindow.INSTANCE.size());
+            CounterWindow.INSTANCE.evictIdleSeries(now + 10);
+            Assertions.assertEquals(1, CounterWindow.INSTANCE.size());
+
+            // The evicted series starts over, the current sample is the first one.
+            Tuple2<Long, Double> increase = CounterWindow.INSTANCE.increase(
+                "idle", ImmutableMap.of("k", "v"), 5d, 60_000, 2000);
+            Assertions.assertEquals(2000L, increase._1);
+            Assertions.assertEquals(5d, increase._2, 0.d);
+        } finally {
+            CounterWindow.INSTANCE.setIdleTimeout(TimeUnit.MINUTES.toMillis(15));
+            CounterWindow.INSTANCE.reset();
+        }
+    }
 }
@@ -23,6 +23,7 @@ import java.util.List;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEColumn;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
 import org.apache.skywalking.mqe.rt.operation.aggregatelabels.AggregateLabelsFunc;
@@ -75,6 +76,28 @@ public class AggregateLabelsOp {
             if (mqeValuesList.isEmpty()) {
                 return;
             }
+            if (mqeValuesList.stream().allMatch(MQEValues::isColumnar)) {
+                MQEColumn combineTo = mqeValuesList.get(0).getColumn();
+                for (int i = 0; i < combineTo.size(); i++) {
+                    AggregateLabelsFunc aggregateLabelsFunc = factory.getAggregateLabelsFunc();
+                    for (MQEValues mqeValues : mqeValuesList) {
+                        MQEColumn toCombine = mqeValues.getColumn();
+                        if (!toCombine.isEmptyValue(i)) {
+                            aggregateLabelsFunc.combine(toCombine.getValue(i));
+                        }
+                    }
+                    Double result = aggregateLabelsFunc.getResult();
+                    if (result != null) {
+                        combineTo.setValue(i, result);
+                    } else {
+                        combineTo.setEmptyValue(i);
+                    }
+                }
+                MQEValues mqeValues = new MQEValues(combineTo);
+                mqeValues.getMetric().setLabels(labels);
+                expResult.getResults().add(mqeValues);
+                return;
+            }
             List<MQEValue> combineTo = mqeValuesList.get(0).getValues();
             for (int i = 0; i < combineTo.size(); i++) {
                 AggregateLabelsFunc aggregateLabelsFunc = factory.getAggregateLabelsFunc();
@@ -26,10 +26,12 @@ import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.function.Function;
 import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResultType;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEColumn;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
 
@@ -38,43 +40,33 @@ public class AggregationOp {
                                                    int opType) throws IllegalExpressionException {
         switch (opType) {
             case MQEParser.AVG:
-                return aggregateResult(result, mqeValues -> mqeValues.getValues()
-                                                                     .stream()
-                                                                     .filter(mqeValue -> !mqeValue.isEmptyValue())
-                                                                     .flatMapToDouble(mqeValue -> DoubleStream.of(
-                                                                         mqeValue.getDoubleValue()))
-                                                                     .average());
+                return aggregateResult(result, mqeValues -> nonEmptyValues(mqeValues).average());
             case MQEParser.COUNT:
-                return aggregateResult(result, mqeValues -> OptionalDouble.of(
-                    mqeValues.getValues().stream().filter(mqeValue -> !mqeValue.isEmptyValue()).count()));
+                return aggregateResult(result, mqeValues -> OptionalDouble.of(nonEmptyValues(mqeValues).count()));
             case MQEParser.LATEST:
                 if (result.getType() != ExpressionResultType.TIME_SERIES_VALUES) {
                     throw new IllegalExpressionException("LATEST can only be used in time series result.");
                 }
                 return selectResult(result, mqeValues -> Streams.findLast(mqeValues.getValues()
                                                                                    .stream()
-                                                                                   .filter(mqeValue -> !mqeValue.isEmptyValue())));
+                                                                                   .filter(mqeValue -> !mqeValue.isEmptyValue())),
+                                    (selected, value) -> true);
             case MQEParser.MAX:
                 return selectResult(result, mqeValues -> mqeValues.getValues()
                                                                   .stream()
                                                                   .filter(mqeValue -> !mqeValue.isEmptyValue())
                                                                   .max(Comparator.comparingDouble(
-                                                                      MQEValue::getDoubleValue)));
+                                                                      MQEValue::getDoubleValue)),
+                                    (selected, value) -> value > selected);
             case MQEParser.MIN:
                 return selectResult(result, mqeValues -> mqeValues.getValues()
                                                                   .stream()
                                                                   .filter(mqeValue -> !mqeValue.isEmptyValue())
                                                                   .min(Comparator.comparingDouble(
-                                                                      MQEValue::getDoubleValue)));
+                                                                      MQEValue::getDoubleValue)),
+                                    (selected, value) -> value < selected);
             case MQEParser.SUM:
-                return aggregateResult(result, mqeValues -> OptionalDouble.of(mqeValues.getValues()
-                                                                                       .stream()
-                                                                                       .filter(
-                                                                                           mqeValue -> !mqeValue.isEmptyValue())
-                                                                                       .flatMapToDouble(
-                                                                                           mqeValue -> DoubleStream.of(
-                                                                                               mqeValue.getDoubleValue()))
-                                                                                       .sum()));
+                return aggregateResult(result, mqeValues -> OptionalDouble.of(nonEmptyValues(mqeValues).sum()));
             default:
                 throw new IllegalExpressionException("Unsupported aggregation operation.");
         }
@@ -101,9 +93,11 @@ public class AggregationOp {
     }
 
     private static ExpressionResult selectResult(ExpressionResult result,
-                                                 Function<MQEValues, Optional<MQEValue>> aggregator) {
+                                                 Function<MQEValues, Optional<MQEValue>> aggregator,
+                                                 ColumnSelector columnSelector) {
         for (MQEValues resultValues : result.getResults()) {
-            Optional<MQEValue> resultValue = aggregator.apply(resultValues);
+            Optional<MQEValue> resultValue = resultValues.isColumnar() ?
+                selectColumn(resultValues.getColumn(), columnSelector) : aggregator.apply(resultValues);
             List<MQEValue> mqeValueList = new ArrayList<>(1);
             if (resultValue.isPresent()) {
                 mqeValueList.add(resultValue.get());
@@ -117,4 +111,47 @@ public class AggregationOp {
         result.setType(ExpressionResultType.SINGLE_VALUE);
         return result;
     }
+
+    private static DoubleStream nonEmptyValues(MQEValues mqeValues) {
+        if (mqeValues.isColumnar()) {
+            MQEColumn column = mqeValues.getColumn();
+            return IntStream.range(0, column.size())
+                            .filter(i -> !column.isEmptyValue(i))
+                            .mapToDouble(column::getValue);
+        }
+        return mqeValues.getValues()
+                        .stream()
+                        .filter(mqeValue -> !mqeValue.isEmptyValue())
+                        .mapToDouble(MQEValue::getDoubleValue);
+    }
+
+    private static Optional<MQEValue> selectColumn(MQEColumn column, ColumnSelector selector) {
+        int selected = -1;
+        for (int i = 0; i < column.size(); i++) {
+            if (column.isEmptyValue(i)) {
+                continue;
+            }
+            if (selected < 0 || selector.replace(column.getValue(selected), column.getValue(i))) {
+                selected = i;
+            }
+        }
+        if (selected < 0) {
+            return Optional.empty();
+        }
+        MQEValue mqeValue = new MQEValue();
+        mqeValue.setId(column.getIds()[selected]);
+        mqeValue.setDoubleValue(column.getValue(selected));
+        return Optional.of(mqeValue);
+    }
+
+    /**
+     * Select the point of a {@link MQEColumn}, consistent with the selection of the {@link MQEValue} list.
+     */
+    @FunctionalInterface
+    private interface ColumnSelector {
+        /**
+         * @return true if the selected value should be replaced by the latter value.
+         */
+        boolean replace(double selected, double value);
+    }
 }
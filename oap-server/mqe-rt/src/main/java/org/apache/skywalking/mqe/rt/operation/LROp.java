@@ -26,6 +26,7 @@ import java.util.Set;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResultType;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEColumn;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
 import org.apache.skywalking.oap.server.core.query.type.KeyValue;
@@ -162,15 +163,20 @@ public interface LROp {
             singleResult.getResults().get(0).getValues().size() != 1) {
             throw new IllegalExpressionException("Many to One, single result is empty or has more than one value.");
         }
+        double single = singleResult.getResults().get(0).getValues().get(0).getDoubleValue();
         for (MQEValues mqeValues : manyResult.getResults()) {
+            if (mqeValues.isColumnar()) {
+                MQEColumn column = mqeValues.getColumn();
+                for (int i = 0; i < column.size(); i++) {
+                    if (!column.isEmptyValue(i)) {
+                        column.setValue(i, calculate.apply(column.getValue(i), single, opType));
+                    }
+                }
+                continue;
+            }
             for (MQEValue mqeValue : mqeValues.getValues()) {
                 if (!mqeValue.isEmptyValue()) {
-                    double newValue = calculate.apply(
-                        mqeValue.getDoubleValue(), singleResult.getResults()
-                                                               .get(0)
-                                                               .getValues()
-                                                               .get(0)
-                                                               .getDoubleValue(), opType);
+                    double newValue = calculate.apply(mqeValue.getDoubleValue(), single, opType);
                     mqeValue.setDoubleValue(newValue);
                 }
             }
@@ -186,17 +192,20 @@ public interface LROp {
             singleResult.getResults().get(0).getValues().size() != 1) {
             throw new IllegalExpressionException("One to Many, single result is empty or has more than one value.");
         }
+        double single = singleResult.getResults().get(0).getValues().get(0).getDoubleValue();
         for (MQEValues mqeValues : manyResult.getResults()) {
+            if (mqeValues.isColumnar()) {
+                MQEColumn column = mqeValues.getColumn();
+                for (int i = 0; i < column.size(); i++) {
+                    if (!column.isEmptyValue(i)) {
+                        column.setValue(i, calculate.apply(single, column.getValue(i), opType));
+                    }
+                }
+                continue;
+            }
             for (MQEValue mqeValue : mqeValues.getValues()) {
                 if (!mqeValue.isEmptyValue()) {
-                    double newValue = calculate.apply(
-                        singleResult.getResults()
-                                    .get(0)
-                                    .getValues()
-                                    .get(0)
-                                    .getDoubleValue(),
-                        mqeValue.getDoubleValue(), opType
-                    );
+                    double newValue = calculate.apply(single, mqeValue.getDoubleValue(), opType);
                     mqeValue.setDoubleValue(newValue);
                 }
             }
@@ -212,6 +221,13 @@ public interface LROp {
         }
         MQEValues mqeValuesL = seriesLeft.getResults().get(0);
         MQEValues mqeValuesR = seriesRight.getResults().get(0);
+        if (mqeValuesL.isColumnar() && mqeValuesR.isColumnar()) {
+            if (mqeValuesL.getColumn().size() != mqeValuesR.getColumn().size()) {
+                throw new IllegalExpressionException("Series No Labeled, left and right series value size not equal.");
+            }
+            columnBinaryOp(mqeValuesL.getColumn(), mqeValuesR.getColumn(), mqeValuesL.getColumn(), opType, calculate);
+            return seriesLeft;
+        }
         if (mqeValuesL.getValues().size() != mqeValuesR.getValues().size()) {
             throw new IllegalExpressionException("Series No Labeled, left and right series value size not equal.");
         }
@@ -239,6 +255,13 @@ public interface LROp {
         }
         MQEValues mqeValuesR = seriesRight.getResults().get(0);
         for (MQEValues mqeValuesL : seriesLeft.getResults()) {
+            if (mqeValuesL.isColumnar() && mqeValuesR.isColumnar()) {
+                if (mqeValuesL.getColumn().size() != mqeValuesR.getColumn().size()) {
+                    throw new IllegalExpressionException("Series Labeled with No Labeled, left and right series value size not equal.");
+                }
+                columnBinaryOp(mqeValuesL.getColumn(), mqeValuesR.getColumn(), mqeValuesL.getColumn(), opType, calculate);
+                continue;
+            }
             if (mqeValuesL.getValues().size() != mqeValuesR.getValues().size()) {
                 throw new IllegalExpressionException("Series Labeled with No Labeled, left and right series value size not equal.");
             }
@@ -266,15 +289,22 @@ public interface LROp {
         }
         MQEValues mqeValuesL = seriesLeft.getResults().get(0);
         for (MQEValues mqeValuesR : seriesRight.getResults()) {
+            if (mqeValuesL.isColumnar() && mqeValuesR.isColumnar()) {
+                if (mqeValuesL.getColumn().size() != mqeValuesR.getColumn().size()) {
+                    throw new IllegalExpressionException("Series No Labeled with Labeled, left and right series value size not equal.");
+                }
+                columnBinaryOp(mqeValuesL.getColumn(), mqeValuesR.getColumn(), mqeValuesR.getColumn(), opType, calculate);
+                continue;
+            }
             if (mqeValuesL.getValues().size() != mqeValuesR.getValues().size()) {
                 throw new IllegalExpressionException("Series No Labeled with Labeled, left and right series value size not equal.");
             }
             for (int i = 0; i < mqeValuesL.getValues().size(); i++) {
-                //reserve left metric info
+                //reserve right metric info
                 MQEValue valueL = mqeValuesL.getValues().get(i);
                 MQEValue valueR = mqeValuesR.getValues().get(i);
                 if (valueL.isEmptyValue() || valueR.isEmptyValue()) {
-                    valueL.setEmptyValue(true);
+                    valueR.setEmptyValue(true);
                     continue;
                 }
                 double newValue = calculate.apply(valueL.getDoubleValue(), valueR.getDoubleValue(), opType);
@@ -288,15 +318,30 @@ public interface LROp {
     private static ExpressionResult seriesLabeledWithLabeled(ExpressionResult seriesLeft,
                                                              ExpressionResult seriesRight,
                                                              int opType, LROp calculate) throws IllegalExpressionException {
-        Map<Set<KeyValue>, List<MQEValue>> labelMapR = new HashMap<>();
+        Map<Set<KeyValue>, MQEValues> labelMapR = new HashMap<>();
         seriesRight.getResults().forEach(mqeValuesR -> {
-            labelMapR.put(new HashSet<>(mqeValuesR.getMetric().getLabels()), mqeValuesR.getValues());
+            labelMapR.put(new HashSet<>(mqeValuesR.getMetric().getLabels()), mqeValuesR);
         });
         for (MQEValues mqeValuesL : seriesLeft.getResults()) {
+            MQEValues matchedR = labelMapR.get(new HashSet<>(mqeValuesL.getMetric().getLabels()));
+            if (mqeValuesL.isColumnar() && (matchedR == null || matchedR.isColumnar())) {
+                MQEColumn columnL = mqeValuesL.getColumn();
+                if (matchedR == null) {
+                    for (int i = 0; i < columnL.size(); i++) {
+                        columnL.setEmptyValue(i);
+                    }
+                } else {
+                    if (matchedR.getColumn().size() != columnL.size()) {
+                        throw new IllegalExpressionException("Series Labeled with Labeled, left and right series value size not equal.");
+                    }
+                    columnBinaryOp(columnL, matchedR.getColumn(), columnL, opType, calculate);
+                }
+                continue;
+            }
+            List<MQEValue> mqeValuesR = matchedR == null ? null : matchedR.getValues();
             for (int i = 0; i < mqeValuesL.getValues().size(); i++) {
                 //reserve left metric info, if right metric not exist, set empty value
                 MQEValue valueL = mqeValuesL.getValues().get(i);
-                List<MQEValue> mqeValuesR = labelMapR.get(new HashSet<>(mqeValuesL.getMetric().getLabels()));
                 if (mqeValuesR == null) {
                     valueL.setEmptyValue(true);
                 } else {
@@ -316,4 +361,21 @@ public interface LROp {
 
         return seriesLeft;
     }
+
+    /**
+     * Calculate the points of the columns in the same position into the target column, which is one of them. The
+     * point is empty if it's empty in either column.
+     */
+    private static void columnBinaryOp(MQEColumn left,
+                                       MQEColumn right,
+                                       MQEColumn target,
+                                       int opType, LROp calculate) throws IllegalExpressionException {
+        for (int i = 0; i < target.size(); i++) {
+            if (left.isEmptyValue(i) || right.isEmptyValue(i)) {
+                target.setEmptyValue(i);
+                continue;
+            }
+            target.setValue(i, calculate.apply(left.getValue(i), right.getValue(i), opType));
+        }
+    }
 }
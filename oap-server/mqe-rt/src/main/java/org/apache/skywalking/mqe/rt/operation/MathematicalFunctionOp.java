@@ -24,6 +24,7 @@ import java.util.function.Function;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEColumn;
 
 public class MathematicalFunctionOp {
     public static ExpressionResult doFunction0Op(ExpressionResult expResult,
@@ -56,6 +57,15 @@ public class MathematicalFunctionOp {
 
     private static ExpressionResult transResult(ExpressionResult expResult, Function<Double, Double> calculator) {
         expResult.getResults().forEach(resultValues -> {
+            if (resultValues.isColumnar()) {
+                MQEColumn column = resultValues.getColumn();
+                for (int i = 0; i < column.size(); i++) {
+                    if (!column.isEmptyValue(i)) {
+                        column.setValue(i, calculator.apply(column.getValue(i)));
+                    }
+                }
+                return;
+            }
             resultValues.getValues().forEach(mqeValue -> {
                 if (!mqeValue.isEmptyValue()) {
                     double newValue = calculator.apply(mqeValue.getDoubleValue());
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.mqe.rt;
+
+import java.util.List;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.mqe.rt.operation.AggregateLabelsOp;
+import org.apache.skywalking.mqe.rt.operation.AggregationOp;
+import org.apache.skywalking.mqe.rt.operation.BinaryOp;
+import org.apache.skywalking.mqe.rt.operation.CompareOp;
+import org.apache.skywalking.mqe.rt.operation.MathematicalFunctionOp;
+import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The operations on the columnar values should have the same results as on the {@link MQEValue} list.
+ */
+public class ColumnarValuesTest {
+
+    private final MockData mockData = new MockData();
+
+    @Test
+    public void binaryOpTest() throws Exception {
+        ExpressionResult columnar = BinaryOp.doBinaryOp(
+            mockData.toColumnar(mockData.newSeriesLabeledResult(100, 0, 101, 301)),
+            mockData.toColumnar(mockData.newSeriesNoLabeledResult(0, 3)), MQEParser.MUL);
+        assertTrue(columnar.getResults().get(0).isColumnar());
+        assertSameResult(
+            BinaryOp.doBinaryOp(
+                mockData.newSeriesLabeledResult(100, 0, 101, 301),
+                mockData.newSeriesNoLabeledResult(0, 3), MQEParser.MUL),
+            columnar
+        );
+
+        assertSameResult(
+            BinaryOp.doBinaryOp(
+                mockData.newSeriesNoLabeledResult(100, 300),
+                mockData.newSeriesNoLabeledResult(10, 0), MQEParser.SUB),
+            BinaryOp.doBinaryOp(
+                mockData.toColumnar(mockData.newSeriesNoLabeledResult(100, 300)),
+                mockData.toColumnar(mockData.newSeriesNoLabeledResult(10, 0)), MQEParser.SUB)
+        );
+
+        assertSameResult(
+            BinaryOp.doBinaryOp(
+                mockData.newSeriesLabeledResult(100, 300, 101, 0),
+                mockData.newSeriesLabeledResult(1, 2, 3, 4), MQEParser.ADD),
+            BinaryOp.doBinaryOp(
+                mockData.toColumnar(mockData.newSeriesLabeledResult(100, 300, 101, 0)),
+                mockData.toColumnar(mockData.newSeriesLabeledResult(1, 2, 3, 4)), MQEParser.ADD)
+        );
+
+        // the columnar series with the values list
+        assertSameResult(
+            BinaryOp.doBinaryOp(
+                mockData.newSeriesLabeledResult(100, 300, 101, 0),
+                mockData.newSeriesLabeledResult(1, 2, 3, 4), MQEParser.ADD),
+            BinaryOp.doBinaryOp(
+                mockData.toColumnar(mockData.newSeriesLabeledResult(100, 300, 101, 0)),
+                mockData.newSeriesLabeledResult(1, 2, 3, 4), MQEParser.ADD)
+        );
+
+        assertSameResult(
+            BinaryOp.doBinaryOp(mockData.newSingleResult(1000), mockData.newSeriesNoLabeledResult(0, 10), MQEParser.DIV),
+            BinaryOp.doBinaryOp(
+                mockData.newSingleResult(1000), mockData.toColumnar(mockData.newSeriesNoLabeledResult(0, 10)),
+                MQEParser.DIV
+            )
+        );
+    }
+
+    @Test
+    public void noLabeledWithLabeledTest() throws Exception {
+        ExpressionResult result = BinaryOp.doBinaryOp(
+            mockData.newSeriesNoLabeledResult(0, 300),
+            mockData.newSeriesLabeledResult(100, 300, 101, 301), MQEParser.SUB);
+        assertTrue(result.getResults().get(0).getValues().get(0).isEmptyValue());
+        assertEquals(-1, result.getResults().get(1).getValues().get(1).getDoubleValue());
+        assertSameResult(
+            result,
+            BinaryOp.doBinaryOp(
+                mockData.toColumnar(mockData.newSeriesNoLabeledResult(0, 300)),
+                mockData.toColumnar(mockData.newSeriesLabeledResult(100, 300, 101, 301)), MQEParser.SUB)
+        );
+    }
+
+    @Test
+    public void compareOpTest() throws Exception {
+        assertSameResult(
+            CompareOp.doCompareOP(
+                mockData.newSeriesLabeledResult(), mockData.newSingleResult(200), MQEParser.GT),
+            CompareOp.doCompareOP(
+                mockData.toColumnar(mockData.newSeriesLabeledResult()), mockData.newSingleResult(200), MQEParser.GT)
+        );
+    }
+
+    @Test
+    public void aggregateLabelsOpTest() throws Exception {
+        for (int func : new int[] {
+            MQEParser.AVG,
+            MQEParser.SUM,
+            MQEParser.MAX,
+            MQEParser.MIN
+        }) {
+            for (List<String> labels : List.of(List.<String>of(), List.of("label"), List.of("label2"))) {
+                ExpressionResult columnar = AggregateLabelsOp.doAggregateLabelsOp(
+                    mockData.toColumnar(mockData.newSeriesLabeledResult(100, 0, 0, 301)), func, labels);
+                assertTrue(columnar.getResults().get(0).isColumnar());
+                assertSameResult(
+                    AggregateLabelsOp.doAggregateLabelsOp(
+                        mockData.newSeriesLabeledResult(100, 0, 0, 301), func, labels),
+                    columnar
+                );
+            }
+        }
+    }
+
+    @Test
+    public void aggregationOpTest() throws Exception {
+        for (int op : new int[] {
+            MQEParser.AVG,
+            MQEParser.COUNT,
+            MQEParser.LATEST,
+            MQEParser.MAX,
+            MQEParser.MIN,
+            MQEParser.SUM
+        }) {
+            assertSameResult(
+                AggregationOp.doAggregationOp(mockData.newSeriesLabeledResult(100, 300, 0, 0), op),
+                AggregationOp.doAggregationOp(
+                    mockData.toColumnar(mockData.newSeriesLabeledResult(100, 300, 0, 0)), op)
+            );
+        }
+        ExpressionResult max = AggregationOp.doAggregationOp(
+            mockData.toColumnar(mockData.newSeriesNoLabeledResult(300, 300)), MQEParser.MAX);
+        assertEquals("100", max.getResults().get(0).getValues().get(0).getId());
+    }
+
+    @Test
+    public void mathematicalFunctionOpTest() throws Exception {
+        assertSameResult(
+            MathematicalFunctionOp.doFunction1Op(mockData.newSeriesLabeledResult(1.234, 0, 2.345, 3.456),
+                                                 MQEParser.ROUND, 1),
+            MathematicalFunctionOp.doFunction1Op(
+                mockData.toColumnar(mockData.newSeriesLabeledResult(1.234, 0, 2.345, 3.456)), MQEParser.ROUND, 1)
+        );
+    }
+
+    @Test
+    public void materializeTest() {
+        ExpressionResult result = mockData.toColumnar(mockData.newSeriesLabeledResult(100, 0, 101, 301));
+        MQEValues first = result.getResults().get(0);
+        MQEValues second = result.getResults().get(1);
+        assertSame(first.getColumn().getIds(), second.getColumn().getIds());
+
+        List<MQEValue> values = first.getValues();
+        assertFalse(first.isColumnar());
+        assertNull(first.getColumn());
+        assertEquals("100", values.get(0).getId());
+        assertEquals(100, values.get(0).getDoubleValue());
+        assertTrue(values.get(1).isEmptyValue());
+        assertSame(values, first.getValues());
+    }
+
+    private static void assertSameResult(ExpressionResult expected, ExpressionResult actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.isLabeledResult(), actual.isLabeledResult());
+        assertEquals(expected.isBoolResult(), actual.isBoolResult());
+        assertEquals(expected.getResults().size(), actual.getResults().size());
+        for (int i = 0; i < expected.getResults().size(); i++) {
+            MQEValues expectedValues = expected.getResults().get(i);
+            MQEValues actualValues = actual.getResults().get(i);
+            assertEquals(expectedValues.getMetric(), actualValues.getMetric());
+            assertEquals(expectedValues.getValues().size(), actualValues.getValues().size());
+            for (int j = 0; j < expectedValues.getValues().size(); j++) {
+                MQEValue expectedValue = expectedValues.getValues().get(j);
+                MQEValue actualValue = actualValues.getValues().get(j);
+                assertEquals(expectedValue.getId(), actualValue.getId());
+                assertEquals(expectedValue.isEmptyValue(), actualValue.isEmptyValue());
+                if (!expectedValue.isEmptyValue()) {
+                    assertEquals(expectedValue.getDoubleValue(), actualValue.getDoubleValue());
+                }
+            }
+        }
+    }
+}
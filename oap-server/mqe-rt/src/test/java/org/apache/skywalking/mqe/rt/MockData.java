@@ -18,8 +18,10 @@
 
 package org.apache.skywalking.mqe.rt;
 
+import java.util.List;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResultType;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEColumn;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
 import org.apache.skywalking.oap.server.core.query.mqe.Metadata;
@@ -200,6 +202,29 @@ public class MockData {
         return mqeValue;
     }
 
+    /**
+     * Convert the time series values of the result into columns, sharing the IDs like the query of metrics.
+     */
+    public ExpressionResult toColumnar(ExpressionResult result) {
+        String[] ids = null;
+        for (MQEValues mqeValues : result.getResults()) {
+            List<MQEValue> values = mqeValues.getValues();
+            if (ids == null) {
+                ids = values.stream().map(MQEValue::getId).toArray(String[]::new);
+            }
+            MQEColumn column = new MQEColumn(ids);
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i).isEmptyValue()) {
+                    column.setEmptyValue(i);
+                } else {
+                    column.setValue(i, values.get(i).getDoubleValue());
+                }
+            }
+            mqeValues.setColumn(column);
+        }
+        return result;
+    }
+
     public Metadata newMetadata(String key, String value) {
         Metadata metadata = new Metadata();
         metadata.getLabels().add(new KeyValue(key, value));
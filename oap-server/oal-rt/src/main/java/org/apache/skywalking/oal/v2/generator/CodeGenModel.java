@@ -403,6 +403,49 @@ public class CodeGenModel {
          * is generated and meaningless to operators.
          */
         private String sourceText;
+
+        /**
+         * Static field of the dispatcher holding the right operand, set by the
+         * generator for the array literals which would be allocated in every check.
+         */
+        private String constantField;
+
+        /**
+         * Static matcher field of the dispatcher, e.g. {@code EQUAL_MATCH} for the
+         * {@code EqualMatch} class. The matchers are stateless, one instance per
+         * dispatcher class serves all checks.
+         */
+        public String getMatcherField() {
+            final String simpleName = expressionObject.substring(expressionObject.lastIndexOf('.') + 1);
+            final StringBuilder field = new StringBuilder();
+            for (int i = 0; i < simpleName.length(); i++) {
+                final char c = simpleName.charAt(i);
+                if (i > 0 && Character.isUpperCase(c)) {
+                    field.append('_');
+                }
+                field.append(Character.toUpperCase(c));
+            }
+            return field.toString();
+        }
+
+        /**
+         * The matcher call of this filter. The same filter of different metrics
+         * builds the same condition, which is how the dispatcher shares the check.
+         */
+        public String getCondition() {
+            return getMatcherField() + ".match(" + left + ", " + getRightOperand() + ")";
+        }
+
+        /**
+         * @return the right operand in the generated code.
+         */
+        public String getRightOperand() {
+            return constantField != null ? constantField : right;
+        }
+
+        void setConstantField(String constantField) {
+            this.constantField = constantField;
+        }
     }
 
     /**
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -88,6 +89,8 @@ public class OALClassGeneratorV2 {
         "hashCode",
         "remoteHashCode",
         "equals",
+        "identityHash",
+        "identityEquals",
         "serialize",
         "deserialize",
         "getMeta",
@@ -414,6 +417,7 @@ public class OALClassGeneratorV2 {
     private Class generateDispatcherClass(String scopeName, DispatcherContextV2 dispatcherContext) throws OALCompileException {
         String className = dispatcherClassName(scopeName, false);
         CtClass dispatcherClass = classPool.makeClass(dispatcherClassName(scopeName, true));
+        prepareDispatcher(dispatcherContext);
 
         try {
             CtClass dispatcherInterface = classPool.get(DISPATCHER_INTERFACE);
@@ -443,6 +447,16 @@ public class OALClassGeneratorV2 {
             throw new OALCompileException(e.getMessage(), e);
         }
 
+        // The stateless matchers and the array operands of the filters, shared by all checks.
+        for (String staticField : dispatcherContext.getStaticFields().values()) {
+            try {
+                dispatcherClass.addField(CtField.make(staticField, dispatcherClass));
+            } catch (CannotCompileException e) {
+                log.error("Can't add field " + staticField + " on " + className + ".", e);
+                throw new OALCompileException(e.getMessage(), e);
+            }
+        }
+
         // OAL gate is PER-METRIC: one GateHolder per do<Metric>() in the dispatcher.
         // Each metric's session sees only its own rule's pipeline — the other
         // metrics on the same source dispatcher don't fire any probes because
@@ -520,8 +534,8 @@ public class OALClassGeneratorV2 {
         }
 
         // Generate do<Metric>() per metric. Two FTL paths:
-        //   - dispatcher/doMetrics.ftl           — pre-SWIP-13 logic, byte-identical
-        //                                          to a build without dsl-debugging
+        //   - dispatcher/doMetrics.ftl           — no probes, the filters are fused
+        //                                          into the decision tree of dispatch()
         //   - dispatcher/doMetricsWithDebug.ftl  — same logic + per-stage probe call
         //                                          sites guarded on this.debug.isGateOn()
         // Each FTL takes the CodeGenModel as-is — no extra context fields, no model
@@ -593,6 +607,61 @@ public class OALClassGeneratorV2 {
         return targetClass;
     }
 
+    /**
+     * Collect the static fields of the dispatcher, and fuse the filters of its metrics into a decision tree. The
+     * metrics of one source usually share the filters, e.g. {@code detectPoint == DetectPoint.SERVER}, so the adjacent
+     * metrics whose filters start with the same conditions are in the same branch, and the shared conditions are checked
+     * once per source. The metrics are dispatched in the script order, and the filters of a metric are still checked in
+     * order, each one only after the previous ones pass. The metrics after a source decorator don't share the checks
+     * before it, as the decorator could change the filtered fields.
+     * <p>
+     * The debug template checks the filters in do&lt;Metric&gt;() to capture each of them, so all metrics stay at the
+     * root when the injection is enabled.
+     */
+    private void prepareDispatcher(DispatcherContextV2 ctx) {
+        final boolean fuseFilters = !DSLDebugCodegenSwitch.isInjectionEnabled();
+        final Map<String, String> constantFields = new HashMap<>();
+        for (CodeGenModel metric : ctx.getMetrics()) {
+            final List<CodeGenModel.FilterExpressionV2> expressions =
+                new ArrayList<>(metric.getFilters().getFilterExpressions());
+            for (Object arg : metric.getEntranceMethod().getArgsExpressions()) {
+                if (arg instanceof CodeGenModel.FilterExpressionV2) {
+                    expressions.add((CodeGenModel.FilterExpressionV2) arg);
+                }
+            }
+            for (CodeGenModel.FilterExpressionV2 expression : expressions) {
+                final String matcher = expression.getExpressionObject();
+                ctx.getStaticFields().putIfAbsent(
+                    expression.getMatcherField(),
+                    "private static final " + matcher + " " + expression.getMatcherField() + " = new " + matcher + "();"
+                );
+                final String right = expression.getRight();
+                if (right.startsWith("new ")) {
+                    String field = constantFields.get(right);
+                    if (field == null) {
+                        field = "FILTER_VALUES_" + constantFields.size();
+                        constantFields.put(right, field);
+                        ctx.getStaticFields().put(field, "private static final Object[] " + field + " = " + right + ";");
+                    }
+                    expression.setConstantField(field);
+                }
+            }
+
+            final List<String> conditions = new ArrayList<>();
+            if (fuseFilters) {
+                for (CodeGenModel.FilterExpressionV2 filter : metric.getFilters().getFilterExpressions()) {
+                    conditions.add(filter.getCondition());
+                }
+            }
+            ctx.getDispatchTree().add(metric, conditions, 0);
+            if (metric.getSourceDecorator() != null) {
+                // The decorator changes the source, the filters of the following metrics are checked against the
+                // decorated source, rather than sharing the checks before it.
+                ctx.getDispatchTree().seal();
+            }
+        }
+    }
+
     /**
      * Wraps the dispatcher's generated method bodies + GateHolder fields
      * as a compilable class envelope. Renders the {@code debug_<metric>}
@@ -606,6 +675,12 @@ public class OALClassGeneratorV2 {
         sb.append("public class ").append(ctClass.getSimpleName())
           .append(" implements org.apache.skywalking.oap.server.core.analysis.SourceDispatcher<")
           .append(ctx.getSourcePackage()).append(ctx.getSourceName()).append("> {\n\n");
+        if (!ctx.getStaticFields().isEmpty()) {
+            for (String staticField : ctx.getStaticFields().values()) {
+                sb.append("    ").append(staticField).append('\n');
+            }
+            sb.append('\n');
+        }
         if (DSLDebugCodegenSwitch.isInjectionEnabled()) {
             // The .java generated source file must compile cleanly for IDE source-attach. Final
             // fields without initializers and stub method bodies would both
@@ -742,6 +817,11 @@ public class OALClassGeneratorV2 {
         private String packageName;
         private String sourceDecorator;
         private List<CodeGenModel> metrics = new ArrayList<>();
+        /**
+         * Declarations of the static fields, keyed by the field names.
+         */
+        private final Map<String, String> staticFields = new LinkedHashMap<>();
+        private final DispatchBranchV2 dispatchTree = new DispatchBranchV2(null, null);
 
         public String getSourcePackage() {
             return sourcePackage;
@@ -782,5 +862,75 @@ public class OALClassGeneratorV2 {
         public void setMetrics(List<CodeGenModel> metrics) {
             this.metrics = metrics;
         }
+
+        public Map<String, String> getStaticFields() {
+            return staticFields;
+        }
+
+        public DispatchBranchV2 getDispatchTree() {
+            return dispatchTree;
+        }
+    }
+
+    /**
+     * A branch of the decision tree in the dispatch method. The metrics of a branch are dispatched when the conditions
+     * from the root to it all pass. The children are the metrics and the sub-branches in the order of the OAL script,
+     * a metric joins the last sub-branch only, so the metrics are always dispatched in the script order.
+     */
+    public static class DispatchBranchV2 {
+        private final String condition;
+        private final CodeGenModel metric;
+        private final List<DispatchBranchV2> children = new ArrayList<>();
+        private boolean sealed;
+
+        DispatchBranchV2(String condition, CodeGenModel metric) {
+            this.condition = condition;
+            this.metric = metric;
+        }
+
+        /**
+         * Add the metric under the conditions from the index, sharing the last sub-branch if it checks the same
+         * condition.
+         */
+        void add(CodeGenModel metric, List<String> conditions, int index) {
+            if (index == conditions.size()) {
+                children.add(new DispatchBranchV2(null, metric));
+                return;
+            }
+            final String next = conditions.get(index);
+            DispatchBranchV2 branch = children.isEmpty() ? null : children.get(children.size() - 1);
+            if (branch == null || branch.metric != null || branch.sealed || !next.equals(branch.condition)) {
+                branch = new DispatchBranchV2(next, null);
+                children.add(branch);
+            }
+            branch.add(metric, conditions, index + 1);
+        }
+
+        /**
+         * Stop the following metrics joining the existing branches.
+         */
+        void seal() {
+            for (DispatchBranchV2 child : children) {
+                if (child.metric == null && !child.sealed) {
+                    child.sealed = true;
+                    child.seal();
+                }
+            }
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+
+        /**
+         * @return the metric dispatched by this node, null if this node is a branch.
+         */
+        public CodeGenModel getMetric() {
+            return metric;
+        }
+
+        public List<DispatchBranchV2> getChildren() {
+            return children;
+        }
     }
 }
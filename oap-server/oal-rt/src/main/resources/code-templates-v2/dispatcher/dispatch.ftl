@@ -1,6 +1,20 @@
-public void dispatch(org.apache.skywalking.oap.server.core.source.ISource source) {
-${sourcePackage}${sourceName} _source = (${sourcePackage}${sourceName})source;
-<#list metrics as metric>
-    do${metric.metricsName}(_source);
+<#--
+  The metrics are dispatched by the decision tree of their filters, see
+  OALClassGeneratorV2#prepareDispatcher. The filters shared by the adjacent
+  metrics are checked once per source, the metrics keep the script order.
+-->
+<#macro dispatchBranch branch>
+<#list branch.children as child>
+<#if child.metric??>
+    do${child.metric.metricsName}(source);
+<#else>
+    if (${child.condition}) {
+    <@dispatchBranch branch=child/>
+    }
+</#if>
 </#list>
+</#macro>
+public void dispatch(org.apache.skywalking.oap.server.core.source.ISource iSource) {
+${sourcePackage}${sourceName} source = (${sourcePackage}${sourceName})iSource;
+<@dispatchBranch branch=dispatchTree/>
 }
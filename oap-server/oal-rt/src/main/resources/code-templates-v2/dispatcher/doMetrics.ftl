@@ -1,13 +1,6 @@
 private void do${metricsName}(${sourcePackage}${from.sourceName} source) {
 
-<#if filters.filterExpressions??>
-    <#list filters.filterExpressions as filterExpression>
-        if (!new ${filterExpression.expressionObject}().match(${filterExpression.left}, ${filterExpression.right})) {
-        return;
-        }
-    </#list>
-</#if>
-
+<#--The filters are checked by the dispatch method-->
 ${metricsClassPackage}${metricsName}Metrics metrics = new ${metricsClassPackage}${metricsName}Metrics();
 <#if sourceDecorator??>
     source.decorate("${sourceDecorator}");
@@ -25,9 +18,9 @@ metrics.${entryMethod.methodName}(
     <#if entryMethod.argTypes[arg_index] < 3>
         ${arg}
     <#else>
-        new ${arg.expressionObject}().match(${arg.left}, ${arg.right})
+        ${arg.condition}
     </#if><#if arg_has_next>, </#if>
 </#list>);
 
-org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor.getInstance().in(metrics);
+org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor.getInstance().inL0(metrics);
 }
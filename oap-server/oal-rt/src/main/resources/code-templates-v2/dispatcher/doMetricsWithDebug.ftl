@@ -23,7 +23,7 @@ if (this.debug_${tableName}.isGateOn()) {
     <#list filters.filterExpressions as filterExpression>
         {
             boolean _filterMatch_${filterExpression_index} =
-                new ${filterExpression.expressionObject}().match(${filterExpression.left}, ${filterExpression.right});
+                ${filterExpression.condition};
             if (this.debug_${tableName}.isGateOn()) {
                 // Fire on every filter check, with continueOn = match result. Operators
                 // see both "this filter let this source through" (continueOn=true) and
@@ -65,7 +65,7 @@ metrics.${entryMethod.methodName}(
     <#if entryMethod.argTypes[arg_index] < 3>
         ${arg}
     <#else>
-        new ${arg.expressionObject}().match(${arg.left}, ${arg.right})
+        ${arg.condition}
     </#if><#if arg_has_next>, </#if>
 </#list>);
 
@@ -79,5 +79,5 @@ if (this.debug_${tableName}.isGateOn()) {
         this.debug_${tableName}, "${tableName}", ${sourceLine}, metrics);
 }
 
-org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor.getInstance().in(metrics);
+org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor.getInstance().inL0(metrics);
 }
@@ -0,0 +1,24 @@
+public boolean identityEquals(org.apache.skywalking.oap.server.core.analysis.metrics.Metrics obj) {
+if (this == obj)
+return true;
+if (obj == null)
+return false;
+if (getClass() != obj.getClass())
+return false;
+
+${metricsClassPackage}${metricsName}Metrics metrics = (${metricsClassPackage}${metricsName}Metrics)obj;
+if (getTimeBucket() != metrics.getTimeBucket())
+return false;
+<#list fieldsFromSource as sourceField>
+    <#if sourceField.isID()>
+        <#if sourceField.getTypeName() == "java.lang.String">
+            if (!java.util.Objects.equals(${sourceField.fieldName}, metrics.${sourceField.fieldName}))
+        <#else>
+            if (${sourceField.fieldName} != metrics.${sourceField.fieldName})
+        </#if>
+        return false;
+    </#if>
+</#list>
+
+return true;
+}
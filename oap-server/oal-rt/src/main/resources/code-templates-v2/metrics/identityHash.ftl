@@ -0,0 +1,13 @@
+protected long identityHash0() {
+long result = getTimeBucket();
+<#list fieldsFromSource as sourceField>
+    <#if sourceField.isID()>
+        <#if sourceField.getTypeName() == "java.lang.String">
+            result = combineIdentityHash(result, ${sourceField.fieldName});
+        <#else>
+            result = combineIdentityHash(result, (long)${sourceField.fieldName});
+        </#if>
+    </#if>
+</#list>
+return mixIdentityHash(result);
+}
@@ -179,9 +179,12 @@ public class OALClassGeneratorV2Test {
         setEntityId.invoke(instance2, "test-service");
         assertEquals(instance1.hashCode(), instance2.hashCode());
         assertEquals(instance1, instance2);
+        assertEquals(((Metrics) instance1).identityHash(), ((Metrics) instance2).identityHash());
+        assertTrue(((Metrics) instance1).identityEquals((Metrics) instance2));
 
         setEntityId.invoke(instance2, "different-service");
         assertFalse(instance1.equals(instance2));
+        assertFalse(((Metrics) instance1).identityEquals((Metrics) instance2));
 
         // Test serialize/deserialize
         Method serializeMethod = respTimeClass.getMethod("serialize");
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oal.v2.generator;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import javassist.ClassPool;
+import org.apache.skywalking.oal.v2.model.MetricDefinition;
+import org.apache.skywalking.oal.v2.parser.OALScriptParserV2;
+import org.apache.skywalking.oap.server.core.analysis.Layer;
+import org.apache.skywalking.oap.server.core.analysis.SourceDecoratorManager;
+import org.apache.skywalking.oap.server.core.analysis.SourceDispatcher;
+import org.apache.skywalking.oap.server.core.analysis.metrics.ApdexMetrics;
+import org.apache.skywalking.oap.server.core.oal.rt.OALDefine;
+import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
+import org.apache.skywalking.oap.server.core.source.Endpoint;
+import org.apache.skywalking.oap.server.core.source.EndpointDecorator;
+import org.apache.skywalking.oap.server.core.source.ISource;
+import org.apache.skywalking.oap.server.core.source.RequestType;
+import org.apache.skywalking.oap.server.core.source.Service;
+import org.apache.skywalking.oap.server.core.source.ServiceDecorator;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilderFactory;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Dispatch the sources through the generated {@code ServiceDispatcher} and {@code EndpointDispatcher}, which are
+ * generated from the Service and Endpoint rules of core.oal, plus the rules of the HTTP endpoints sharing their
+ * filters. The metrics are not registered to the stream processor, so they are dropped after the dispatch.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class OALDispatcherBenchmark {
+    private static final String SOURCE_PACKAGE = "org.apache.skywalking.oap.server.core.source.";
+    private static final String METRICS_PACKAGE = "org.apache.skywalking.oap.server.core.source.oal.rt.metrics.";
+    private static final String[] CORE_OAL_PATHS = {
+        "../server-starter/src/main/resources/oal/core.oal",
+        "oap-server/server-starter/src/main/resources/oal/core.oal"
+    };
+    private static final String HTTP_ENDPOINT_OAL =
+        "endpoint_http_cpm = from(Endpoint.*).filter(type == RequestType.HTTP).cpm();\n"
+            + "endpoint_http_resp_time = from(Endpoint.latency).filter(type == RequestType.HTTP).longAvg();\n"
+            + "endpoint_http_5xx = from(Endpoint.*).filter(type == RequestType.HTTP)"
+            + ".filter(httpResponseStatusCode >= 500).count();\n"
+            + "endpoint_http_4xx = from(Endpoint.*).filter(type == RequestType.HTTP)"
+            + ".filter(httpResponseStatusCode >= 400).filter(httpResponseStatusCode < 500).count();\n";
+
+    private SourceDispatcher<ISource> serviceDispatcher;
+    private SourceDispatcher<ISource> endpointDispatcher;
+    private long sequence;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        final DefaultScopeDefine.Listener listener = new DefaultScopeDefine.Listener();
+        listener.notify(Service.class);
+        listener.notify(Endpoint.class);
+        final SourceDecoratorManager decoratorManager = new SourceDecoratorManager();
+        decoratorManager.addIfAsSourceDecorator(ServiceDecorator.class);
+        decoratorManager.addIfAsSourceDecorator(EndpointDecorator.class);
+        ApdexMetrics.setDICT(name -> 500);
+
+        final List<MetricDefinition> metrics = new ArrayList<>();
+        try (Reader reader = new FileReader(coreOAL())) {
+            metrics.addAll(OALScriptParserV2.parse(reader, "core.oal").getMetrics());
+        }
+        metrics.addAll(OALScriptParserV2.parse(HTTP_ENDPOINT_OAL, "http-endpoint.oal").getMetrics());
+
+        final MetricDefinitionEnricher enricher = new MetricDefinitionEnricher(SOURCE_PACKAGE, METRICS_PACKAGE);
+        final List<CodeGenModel> models = new ArrayList<>();
+        for (final MetricDefinition metric : metrics) {
+            final String source = metric.getSource().getName();
+            if ("Service".equals(source) || "Endpoint".equals(source)) {
+                models.add(enricher.enrich(metric));
+            }
+        }
+
+        final OALClassGeneratorV2 generator = new OALClassGeneratorV2(
+            new OALDefine("oal/core.oal", SOURCE_PACKAGE, "") {
+            }, new ClassPool(true));
+        generator.setStorageBuilderFactory(new StorageBuilderFactory.Default());
+        final List<Class> dispatcherClasses = new ArrayList<>();
+        generator.generateClassAtRuntime(models, new ArrayList<>(), new ArrayList<>(), dispatcherClasses);
+        for (final Class dispatcherClass : dispatcherClasses) {
+            final SourceDispatcher<ISource> dispatcher =
+                (SourceDispatcher<ISource>) dispatcherClass.getDeclaredConstructor().newInstance();
+            if ("ServiceDispatcher".equals(dispatcherClass.getSimpleName())) {
+                serviceDispatcher = dispatcher;
+            } else if ("EndpointDispatcher".equals(dispatcherClass.getSimpleName())) {
+                endpointDispatcher = dispatcher;
+            }
+        }
+    }
+
+    private static File coreOAL() {
+        for (final String path : CORE_OAL_PATHS) {
+            final File file = new File(path);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        throw new IllegalStateException("core.oal is not found");
+    }
+
+    @Benchmark
+    public void service() {
+        final long i = sequence++;
+        final Service service = new Service();
+        service.setTimeBucket(202401010000L + i % 60);
+        service.setName("service-" + i % 100);
+        service.setLayer(Layer.GENERAL);
+        service.setServiceInstanceName("instance-" + i % 10);
+        service.setEndpointName("/api/" + i % 50);
+        service.setLatency((int) (i % 1000));
+        service.setStatus(i % 10 != 0);
+        service.setHttpResponseStatusCode(i % 10 != 0 ? 200 : 500);
+        service.setType(i % 4 == 0 ? RequestType.MQ : RequestType.HTTP);
+        serviceDispatcher.dispatch(service);
+    }
+
+    @Benchmark
+    public void endpoint() {
+        final long i = sequence++;
+        final Endpoint endpoint = new Endpoint();
+        endpoint.setTimeBucket(202401010000L + i % 60);
+        endpoint.setName("/api/" + i % 50);
+        endpoint.setServiceName("service-" + i % 100);
+        endpoint.setServiceLayer(Layer.GENERAL);
+        endpoint.setServiceInstanceName("instance-" + i % 10);
+        endpoint.setLatency((int) (i % 1000));
+        endpoint.setStatus(i % 10 != 0);
+        endpoint.setHttpResponseStatusCode(i % 10 != 0 ? 200 : (i % 20 == 0 ? 404 : 500));
+        endpoint.setType(i % 4 == 0 ? RequestType.gRPC : RequestType.HTTP);
+        endpoint.prepare();
+        endpointDispatcher.dispatch(endpoint);
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                       .include(".*" + getClass().getSimpleName() + ".*")
+                       .jvmArgsAppend("-Xmx512m", "-Xms512m")
+                       .build()).run();
+    }
+}
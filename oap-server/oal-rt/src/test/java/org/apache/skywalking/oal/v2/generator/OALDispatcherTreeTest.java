@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oal.v2.generator;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.oal.v2.model.MetricDefinition;
+import org.apache.skywalking.oal.v2.parser.OALScriptParserV2;
+import org.apache.skywalking.oap.server.core.analysis.Layer;
+import org.apache.skywalking.oap.server.core.analysis.SourceDispatcher;
+import org.apache.skywalking.oap.server.core.analysis.worker.MetricsAggregateWorker;
+import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
+import org.apache.skywalking.oap.server.core.oal.rt.OALDefine;
+import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
+import org.apache.skywalking.oap.server.core.source.RequestType;
+import org.apache.skywalking.oap.server.core.source.Service;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilderFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Dispatch the sources through a generated dispatcher, whose filters are fused into the decision tree of the dispatch
+ * method. The generated metrics are routed to the mocked entry workers, seeded into the stream processor by
+ * reflection, to record the dispatched metrics in order.
+ */
+public class OALDispatcherTreeTest {
+
+    private static final String SOURCE_PACKAGE = "org.apache.skywalking.oap.server.core.source.";
+    private static final String METRICS_PACKAGE = "org.apache.skywalking.oap.server.core.source.oal.rt.metrics.";
+
+    private static final List<Class> METRICS_CLASSES = new ArrayList<>();
+    private static SourceDispatcher<Service> DISPATCHER;
+
+    private final List<String> dispatched = new ArrayList<>();
+
+    @BeforeAll
+    @SuppressWarnings("unchecked")
+    public static void generateDispatcher() throws Exception {
+        try {
+            new DefaultScopeDefine.Listener().notify(Service.class);
+        } catch (RuntimeException e) {
+            // Already registered by a sibling test.
+        }
+
+        // The HTTP metrics share the type filter, the error metric adds the status filter after it.
+        String oal = "tree_service_http_resp_time = from(Service.latency).filter(type == RequestType.HTTP).longAvg();\n" +
+            "tree_service_http_cpm = from(Service.*).filter(type == RequestType.HTTP).cpm();\n" +
+            "tree_service_http_error_cpm = from(Service.*).filter(type == RequestType.HTTP).filter(status == false).cpm();\n" +
+            "tree_service_cpm = from(Service.*).cpm();\n" +
+            "tree_service_mq_cpm = from(Service.*).filter(type == RequestType.MQ).cpm();";
+
+        OALClassGeneratorV2 generator = new OALClassGeneratorV2(new TreeOALDefine());
+        generator.setStorageBuilderFactory(new StorageBuilderFactory.Default());
+        generator.prepareRTTempFolder();
+        MetricDefinitionEnricher enricher = new MetricDefinitionEnricher(SOURCE_PACKAGE, METRICS_PACKAGE);
+
+        OALScriptParserV2 parser = OALScriptParserV2.parse(oal);
+        List<CodeGenModel> codeGenModels = new ArrayList<>();
+        for (MetricDefinition metric : parser.getMetrics()) {
+            codeGenModels.add(enricher.enrich(metric));
+        }
+        List<Class> dispatcherClasses = new ArrayList<>();
+        generator.generateClassAtRuntime(codeGenModels, parser.getDisabledSources(), METRICS_CLASSES, dispatcherClasses);
+
+        assertEquals(1, dispatcherClasses.size());
+        DISPATCHER = (SourceDispatcher<Service>) dispatcherClasses.get(0).getDeclaredConstructor().newInstance();
+    }
+
+    @BeforeEach
+    public void seedEntryWorkers() throws Exception {
+        for (Class<?> metricsClass : METRICS_CLASSES) {
+            final MetricsAggregateWorker worker = mock(MetricsAggregateWorker.class);
+            doAnswer(invocation -> dispatched.add(metricsClass.getSimpleName())).when(worker).in(any());
+            entryWorkers().put(metricsClass, worker);
+        }
+    }
+
+    @AfterAll
+    public static void removeEntryWorkers() throws Exception {
+        for (Class<?> metricsClass : METRICS_CLASSES) {
+            entryWorkers().remove(metricsClass);
+        }
+    }
+
+    @Test
+    public void testDispatchInScriptOrder() {
+        final CountingService source = new CountingService(RequestType.HTTP, false);
+        DISPATCHER.dispatch(source);
+
+        assertEquals(List.of(
+            "TreeServiceHttpRespTimeMetrics",
+            "TreeServiceHttpCpmMetrics",
+            "TreeServiceHttpErrorCpmMetrics",
+            "TreeServiceCpmMetrics"
+        ), dispatched);
+    }
+
+    @Test
+    public void testFailedFilterSkipsItsMetricOnly() {
+        DISPATCHER.dispatch(new CountingService(RequestType.HTTP, true));
+        assertEquals(List.of(
+            "TreeServiceHttpRespTimeMetrics",
+            "TreeServiceHttpCpmMetrics",
+            "TreeServiceCpmMetrics"
+        ), dispatched);
+
+        dispatched.clear();
+        DISPATCHER.dispatch(new CountingService(RequestType.MQ, true));
+        assertEquals(List.of(
+            "TreeServiceCpmMetrics",
+            "TreeServiceMqCpmMetrics"
+        ), dispatched);
+    }
+
+    @Test
+    public void testSharedFilterCheckedOnce() {
+        final CountingService source = new CountingService(RequestType.HTTP, false);
+        DISPATCHER.dispatch(source);
+
+        // Once by the fused HTTP branch, once by the MQ metric after the unfiltered one.
+        assertEquals(2, source.typeReads.get());
+        assertEquals(1, source.statusReads.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Class<?>, MetricsAggregateWorker> entryWorkers() throws Exception {
+        final Field field = MetricsStreamProcessor.class.getDeclaredField("entryWorkers");
+        field.setAccessible(true);
+        return (Map<Class<?>, MetricsAggregateWorker>) field.get(MetricsStreamProcessor.getInstance());
+    }
+
+    /**
+     * Count the reads of the filtered fields.
+     */
+    private static class CountingService extends Service {
+        private final AtomicInteger typeReads = new AtomicInteger();
+        private final AtomicInteger statusReads = new AtomicInteger();
+
+        private CountingService(RequestType type, boolean status) {
+            setName("service");
+            setLayer(Layer.GENERAL);
+            setTimeBucket(202401010000L);
+            setType(type);
+            setStatus(status);
+        }
+
+        @Override
+        public RequestType getType() {
+            typeReads.incrementAndGet();
+            return super.getType();
+        }
+
+        @Override
+        public boolean isStatus() {
+            statusReads.incrementAndGet();
+            return super.isStatus();
+        }
+    }
+
+    /**
+     * Uses "Tree" catalog to generate the dispatcher apart from the other tests, e.g. TreeServiceDispatcher.
+     */
+    private static class TreeOALDefine extends OALDefine {
+        protected TreeOALDefine() {
+            super("tree.oal", "org.apache.skywalking.oap.server.core.source", "Tree");
+        }
+    }
+}
@@ -87,7 +87,7 @@ class OALSourceAttributionTest {
      * class-level coordinate still names their rule.
      */
     private static final Set<String> TEMPLATED_METHODS = new HashSet<>(Arrays.asList(
-        "id0", "hashCode", "remoteHashCode", "equals", "serialize", "deserialize",
+        "id0", "hashCode", "remoteHashCode", "equals", "identityHash0", "identityEquals", "serialize", "deserialize",
         "getMeta", "toHour", "toDay", "appendDebugFields"));
 
     private static ClassPool CLASS_POOL;
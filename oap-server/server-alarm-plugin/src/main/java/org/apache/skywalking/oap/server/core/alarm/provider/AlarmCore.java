@@ -21,16 +21,27 @@ package org.apache.skywalking.oap.server.core.alarm.provider;
 import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.apache.skywalking.oap.server.core.alarm.AlarmRecoveryMessage;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.server.pool.CustomThreadFactory;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 import org.joda.time.LocalDateTime;
 import org.joda.time.Minutes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -41,11 +52,32 @@ import java.util.stream.Collectors;
 public class AlarmCore {
     private static final Logger LOGGER = LoggerFactory.getLogger(AlarmCore.class);
 
+    /**
+     * The max number of windows evaluated in one task of the evaluation threads.
+     */
+    private static final int EVALUATION_BATCH_SIZE = 256;
+
     private LocalDateTime lastExecuteTime;
     private AlarmRulesWatcher alarmRulesWatcher;
+    private final ModuleManager moduleManager;
+    /**
+     * Null if there is only one evaluation thread, the rules are checked in the scheduler thread.
+     */
+    private final ExecutorService evaluationExecutor;
+    private ScheduledExecutorService scheduler;
+    private HistogramMetrics evaluationLatency;
+    private CounterMetrics evaluatedWindows;
 
     AlarmCore(AlarmRulesWatcher alarmRulesWatcher) {
+        this(alarmRulesWatcher, null, 1);
+    }
+
+    AlarmCore(AlarmRulesWatcher alarmRulesWatcher, ModuleManager moduleManager, int evaluationThreads) {
         this.alarmRulesWatcher = alarmRulesWatcher;
+        this.moduleManager = moduleManager;
+        final int threads = evaluationThreads > 0 ? evaluationThreads : Runtime.getRuntime().availableProcessors();
+        this.evaluationExecutor = threads > 1 ?
+            Executors.newFixedThreadPool(threads, new CustomThreadFactory("AlarmCore-evaluation")) : null;
     }
 
     /**
@@ -55,27 +87,20 @@ public class AlarmCore {
      * @return the matched running rule list, or null if not found.
      */
     public List<RunningRule> findRunningRule(String metricsName) {
-        List<RunningRule> runningRules = new ArrayList<>();
-        for (Map.Entry<String, Set<String>> entry : alarmRulesWatcher.getExprMetricsMap().entrySet()) {
-            if (entry.getValue().contains(metricsName)) {
-                List<RunningRule> found = alarmRulesWatcher.getRunningContext().get(entry.getKey());
-                if (found != null) {
-                    runningRules.addAll(found);
-                }
-            }
-        }
-        return runningRules.size() > 0 ? runningRules : null;
+        return alarmRulesWatcher.getMetricsRunningRules().get(metricsName);
     }
 
     public void start(List<AlarmCallback> allCallbacks) {
         LocalDateTime now = LocalDateTime.now();
         lastExecuteTime = now;
-        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "AlarmCore")).scheduleAtFixedRate(() -> {
+        initTelemetry();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "AlarmCore"));
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "AlarmCore-shutdown"));
+        scheduler.scheduleAtFixedRate(() -> {
             try {
-                final List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
                 LocalDateTime checkTime = LocalDateTime.now();
                 int minutes = Minutes.minutesBetween(lastExecuteTime, checkTime).getMinutes();
-                boolean[] hasExecute = new boolean[]{false};
+                final List<RunningRule> checkingRules = new ArrayList<>();
                 alarmRulesWatcher.getRunningContext().values().forEach(ruleList -> ruleList.forEach(runningRule -> {
                     if (minutes > 0) {
                         runningRule.moveTo(checkTime);
@@ -83,15 +108,15 @@ public class AlarmCore {
                          * Don't run in the first quarter per min, avoid to trigger false alarm.
                          */
                         if (checkTime.getSecondOfMinute() > 15) {
-                            hasExecute[0] = true;
-                            alarmMessageList.addAll(runningRule.check());
+                            checkingRules.add(runningRule);
                         }
                     }
                 }));
                 // Set the last execute time, and make sure the second is `00`, such as: 18:30:00
-                if (hasExecute[0]) {
+                if (!checkingRules.isEmpty()) {
                     lastExecuteTime = checkTime.withSecondOfMinute(0).withMillisOfSecond(0);
                 }
+                final List<AlarmMessage> alarmMessageList = check(checkingRules);
 
                 if (!alarmMessageList.isEmpty()) {
                     List<AlarmMessage> alarmFiringMessageList = getAlarmFiringMessageList(alarmMessageList);
@@ -121,6 +146,78 @@ public class AlarmCore {
         }, 10, 10, TimeUnit.SECONDS);
     }
 
+    /**
+     * Stop the scheduler and the evaluation threads.
+     */
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (evaluationExecutor != null) {
+            evaluationExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Check the rules, the windows of them are evaluated in the {@link #evaluationExecutor} by batches if there are
+     * multiple evaluation threads.
+     */
+    List<AlarmMessage> check(List<RunningRule> runningRules) throws InterruptedException, ExecutionException {
+        if (runningRules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final long startTime = System.nanoTime();
+        final List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
+        long windows = 0;
+        if (evaluationExecutor == null) {
+            for (RunningRule runningRule : runningRules) {
+                final List<RunningRule.Window> checkingWindows = runningRule.prepareCheck();
+                windows += checkingWindows.size();
+                alarmMessageList.addAll(runningRule.check(checkingWindows));
+            }
+        } else {
+            final List<Callable<List<AlarmMessage>>> tasks = new ArrayList<>();
+            for (RunningRule runningRule : runningRules) {
+                final List<RunningRule.Window> checkingWindows = runningRule.prepareCheck();
+                windows += checkingWindows.size();
+                for (int i = 0; i < checkingWindows.size(); i += EVALUATION_BATCH_SIZE) {
+                    final List<RunningRule.Window> batch = checkingWindows.subList(
+                        i, Math.min(i + EVALUATION_BATCH_SIZE, checkingWindows.size()));
+                    tasks.add(() -> runningRule.check(batch));
+                }
+            }
+            for (Future<List<AlarmMessage>> future : evaluationExecutor.invokeAll(tasks)) {
+                alarmMessageList.addAll(future.get());
+            }
+        }
+        if (evaluationLatency != null) {
+            evaluationLatency.observe((System.nanoTime() - startTime) / 1.0E9D);
+            evaluatedWindows.inc(windows);
+        }
+        return alarmMessageList;
+    }
+
+    private void initTelemetry() {
+        try {
+            final MetricsCreator metricsCreator = moduleManager.find(TelemetryModule.NAME)
+                                                               .provider()
+                                                               .getService(MetricsCreator.class);
+            evaluatedWindows = metricsCreator.createCounter(
+                "alarm_evaluated_windows", "The number of the alarm windows evaluated",
+                MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+            );
+            evaluationLatency = metricsCreator.createHistogramMetric(
+                "alarm_evaluation_latency", "The latency of evaluating all the alarm rules in one round",
+                MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE, 0.1, 0.5, 1, 5, 10, 30, 60
+            );
+        } catch (Throwable e) {
+            // Telemetry module not loaded (e.g., bare-mock test harness), evaluate without metrics.
+            LOGGER.debug("Alarm evaluation metrics are not available", e);
+            evaluatedWindows = null;
+            evaluationLatency = null;
+        }
+    }
+
     public static List<AlarmMessage> getAlarmFiringMessageList(List<AlarmMessage> alarmMessageList) {
         return alarmMessageList
                 .stream()
@@ -16,19 +16,22 @@
  *
  */
 
-package org.apache.skywalking.oap.meter.analyzer.v2.dsl.counter;
+package org.apache.skywalking.oap.server.core.alarm.provider;
 
-import com.google.common.collect.ImmutableMap;
-import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.skywalking.oap.server.library.module.ModuleConfig;
 
-@RequiredArgsConstructor
-@EqualsAndHashCode
-@ToString
-class ID {
-
-    private final String name;
-
-    private final ImmutableMap<String, String> labels;
+/**
+ * The Configuration of alarm module.
+ */
+@Getter
+@Setter
+public class AlarmModuleConfig extends ModuleConfig {
+    /**
+     * The number of threads evaluating the alarm windows in parallel. The windows of all rules are split into
+     * batches for these threads. 1 keeps evaluating in the alarm scheduler thread, as the previous releases. 0 means
+     * the number of available processors.
+     */
+    private int evaluationThreads = 1;
 }
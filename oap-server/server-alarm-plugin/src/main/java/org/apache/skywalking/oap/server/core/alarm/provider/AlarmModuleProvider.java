@@ -35,9 +35,11 @@ import org.apache.skywalking.oap.server.library.module.ModuleProvider;
 import org.apache.skywalking.oap.server.library.module.ModuleStartException;
 import org.apache.skywalking.oap.server.library.module.ServiceNotProvidedException;
 import org.apache.skywalking.oap.server.library.util.ResourceUtils;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 
 public class AlarmModuleProvider extends ModuleProvider {
 
+    private AlarmModuleConfig moduleConfig = new AlarmModuleConfig();
     private NotifyHandler notifyHandler;
     @Getter
     private AlarmRulesWatcher alarmRulesWatcher;
@@ -54,13 +56,23 @@ public class AlarmModuleProvider extends ModuleProvider {
 
     @Override
     public ConfigCreator newConfigCreator() {
-        return null;
+        return new ConfigCreator<AlarmModuleConfig>() {
+            @Override
+            public Class type() {
+                return AlarmModuleConfig.class;
+            }
+
+            @Override
+            public void onInitialized(final AlarmModuleConfig initialized) {
+                moduleConfig = initialized;
+            }
+        };
     }
 
     @Override
     public void prepare() throws ServiceNotProvidedException, ModuleStartException {
         alarmRulesWatcher = new AlarmRulesWatcher(new Rules(), this, getManager());
-        notifyHandler = new NotifyHandler(alarmRulesWatcher, getManager());
+        notifyHandler = new NotifyHandler(alarmRulesWatcher, getManager(), moduleConfig);
         this.registerServiceImplementation(MetricsNotify.class, notifyHandler);
         this.registerServiceImplementation(AlarmRulesWatcherService.class, alarmRulesWatcher);
         this.registerServiceImplementation(AlarmStatusWatcherService.class, new AlarmStatusWatcher(getManager()));
@@ -95,7 +107,8 @@ public class AlarmModuleProvider extends ModuleProvider {
     public String[] requiredModules() {
         return new String[] {
             CoreModule.NAME,
-            ConfigurationModule.NAME
+            ConfigurationModule.NAME,
+            TelemetryModule.NAME
         };
     }
 }
@@ -57,6 +57,11 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher implements AlarmRules
     private volatile Map<AlarmRule, RunningRule> alarmRuleRunningRuleMap;
     @Getter
     private volatile Map<String, Set<String>> exprMetricsMap;
+    /**
+     * The running rules indexed by the names of the metrics included in their expressions.
+     */
+    @Getter
+    private volatile Map<String, List<RunningRule>> metricsRunningRules;
     private volatile Rules rules;
     private volatile String settingsString;
     private final ReentrantLock lock;
@@ -68,6 +73,7 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher implements AlarmRules
         this.runningContext = new HashMap<>();
         this.alarmRuleRunningRuleMap = new HashMap<>();
         this.exprMetricsMap = new HashMap<>();
+        this.metricsRunningRules = new HashMap<>();
         this.settingsString = null;
         this.lock = new ReentrantLock();
         this.notifiedByDynamicConfig = new AtomicBoolean(false);
@@ -113,6 +119,7 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher implements AlarmRules
         Map<AlarmRule, RunningRule> newAlarmRuleRunningRuleMap = new HashMap<>();
         Map<String, List<RunningRule>> newRunningContext = new HashMap<>();
         Map<String, Set<String>> newExprMetricsMap = new HashMap<>();
+        Map<String, List<RunningRule>> newMetricsRunningRules = new HashMap<>();
 
         newRules.getRules().forEach(rule -> {
             /*
@@ -129,12 +136,17 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher implements AlarmRules
             List<RunningRule> runningRules = newRunningContext.computeIfAbsent(expression, key -> new ArrayList<>());
 
             runningRules.add(runningRule);
+
+            rule.getIncludeMetrics().forEach(
+                metricsName -> newMetricsRunningRules.computeIfAbsent(metricsName, key -> new ArrayList<>())
+                                                     .add(runningRule));
         });
 
         this.rules = newRules;
         this.runningContext = newRunningContext;
         this.alarmRuleRunningRuleMap = newAlarmRuleRunningRuleMap;
         this.exprMetricsMap = newExprMetricsMap;
+        this.metricsRunningRules = newMetricsRunningRules;
         log.debug("Update alarm rules to {}", rules);
     }
 
@@ -29,11 +29,6 @@ import org.apache.skywalking.oap.server.core.alarm.AlarmStatusWatcherService;
 import org.apache.skywalking.oap.server.core.alarm.provider.status.AlarmRuleDetail;
 import org.apache.skywalking.oap.server.core.alarm.provider.status.AlarmRuleList;
 import org.apache.skywalking.oap.server.core.alarm.provider.status.AlarmRunningContext;
-import org.apache.skywalking.oap.server.core.analysis.metrics.DoubleValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.IntValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LabeledValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
 public class AlarmStatusWatcher implements AlarmStatusWatcherService {
@@ -147,25 +142,16 @@ public class AlarmStatusWatcher implements AlarmStatusWatcherService {
                 AlarmRunningContext.WindowValue windowValue = new AlarmRunningContext.WindowValue();
                 runningContext.getWindowValues().add(windowValue);
                 windowValue.setIndex(i);
-                Map<String, Metrics> m = values.get(i);
-                if (null != m) {
-                    m.forEach((name, metric) -> {
-                        AlarmRunningContext.Metric metricValue = new AlarmRunningContext.Metric();
-                        metricValue.setTimeBucket(metric.getTimeBucket());
-                        metricValue.setName(name);
-                        String value = "";
-                        if (metric instanceof LongValueHolder) {
-                            value = Long.toString(((LongValueHolder) metric).getValue());
-                        } else if (metric instanceof IntValueHolder) {
-                            value = Integer.toString(((IntValueHolder) metric).getValue());
-                        } else if (metric instanceof DoubleValueHolder) {
-                            value = Double.toString(((DoubleValueHolder) metric).getValue());
-                        } else if (metric instanceof LabeledValueHolder) {
-                            value = ((LabeledValueHolder) metric).getValue().toString();
-                        }
-                        metricValue.setValue(value);
-                        windowValue.getMetrics().add(metricValue);
-                    });
+                for (String name : values.getMetricsNames()) {
+                    WindowValues.Column column = values.getColumn(name);
+                    if (!column.hasValue(i)) {
+                        continue;
+                    }
+                    AlarmRunningContext.Metric metricValue = new AlarmRunningContext.Metric();
+                    metricValue.setTimeBucket(column.getTimeBucket(i));
+                    metricValue.setName(name);
+                    metricValue.setValue(column.valueToString(i));
+                    windowValue.getMetrics().add(metricValue);
                 }
             }
         });
@@ -61,8 +61,12 @@ public class NotifyHandler implements MetricsNotify {
     private MetadataQueryService metadataQueryService;
 
     public NotifyHandler(AlarmRulesWatcher alarmRulesWatcher, ModuleManager manager) {
+        this(alarmRulesWatcher, manager, new AlarmModuleConfig());
+    }
+
+    public NotifyHandler(AlarmRulesWatcher alarmRulesWatcher, ModuleManager manager, AlarmModuleConfig config) {
         this.alarmRulesWatcher = alarmRulesWatcher;
-        core = new AlarmCore(alarmRulesWatcher);
+        core = new AlarmCore(alarmRulesWatcher, manager, config.getEvaluationThreads());
         this.manager = manager;
     }
 
@@ -127,6 +131,12 @@ public class NotifyHandler implements MetricsNotify {
             return;
         }
 
+        // Look up the rules before decoding the entity and resolving its layers, most metrics have no rule.
+        List<RunningRule> runningRules = core.findRunningRule(meta.getMetricsName());
+        if (runningRules == null) {
+            return;
+        }
+
         MetaInAlarm metaInAlarm;
         if (DefaultScopeDefine.inServiceCatalog(scope)) {
             final String serviceId = meta.getId();
@@ -225,12 +235,14 @@ public class NotifyHandler implements MetricsNotify {
             return;
         }
 
-        List<RunningRule> runningRules = core.findRunningRule(meta.getMetricsName());
-        if (runningRules == null) {
-            return;
+        // The entity is shared by all rules, as the key of their windows.
+        AlarmEntity entity = new AlarmEntity(
+            metaInAlarm.getScope(), metaInAlarm.getScopeId(), metaInAlarm.getName(), metaInAlarm.getId0(),
+            metaInAlarm.getId1(), metaInAlarm.getLayers()
+        );
+        for (RunningRule rule : runningRules) {
+            rule.in(metaInAlarm, entity, metrics);
         }
-
-        runningRules.forEach(rule -> rule.in(metaInAlarm, metrics));
     }
 
     public void init(AlarmCallback... callbacks) {
@@ -20,8 +20,6 @@ package org.apache.skywalking.oap.server.core.alarm.provider;
 
 import com.google.gson.JsonObject;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
@@ -33,12 +31,8 @@ import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.apache.skywalking.oap.server.core.alarm.AlarmRecoveryMessage;
 import org.apache.skywalking.oap.server.core.alarm.MetaInAlarm;
 import org.apache.skywalking.oap.server.core.alarm.provider.expr.rt.AlarmMQEVisitor;
+import org.apache.skywalking.oap.server.core.analysis.data.TimeBucketSegmentedMap;
 import org.apache.skywalking.oap.server.core.analysis.manual.searchtag.Tag;
-import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
-import org.apache.skywalking.oap.server.core.analysis.metrics.DoubleValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.IntValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LabeledValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResultType;
@@ -53,9 +47,8 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -75,6 +68,7 @@ import static org.apache.skywalking.oap.server.core.query.type.debugging.Debuggi
 @Getter
 public class RunningRule {
     private static DateTimeFormatter TIME_BUCKET_FORMATTER = DateTimeFormat.forPattern("yyyyMMddHHmm");
+    private static final int MAX_UNMATCHED_NAMES = 100_000;
 
     private final String ruleName;
     private final int period;
@@ -82,10 +76,30 @@ public class RunningRule {
     private final int silencePeriod;
     private final int recoveryObservationPeriod;
     private final Map<AlarmEntity, Window> windows;
+    /**
+     * The windows indexed by the latest time bucket of their metrics, to find the expired windows without checking
+     * every window.
+     */
+    private final TimeBucketSegmentedMap<AlarmEntity, Window> windowIndex;
+    /**
+     * The time bucket of the first minute in the windows since the latest {@link #moveTo(LocalDateTime)}, 0 if the
+     * windows have not been moved.
+     */
+    private volatile long windowStartTimeBucket;
     private final List<String> includeNames;
     private final List<String> excludeNames;
     private final Pattern includeNamesRegex;
     private final Pattern excludeNamesRegex;
+    /**
+     * The include and exclude names for matching, empty if not set.
+     */
+    private final Set<String> includeNameSet;
+    private final Set<String> excludeNameSet;
+    /**
+     * The entity names not matching the include/exclude regexes, to skip the regex matching of the known names. The
+     * matched names don't need cache, as their entities have windows.
+     */
+    private final Set<String> unmatchedNames;
     private final AlarmMessageFormatter formatter;
     private final List<Tag> tags;
     private final Set<String> hooks;
@@ -101,6 +115,7 @@ public class RunningRule {
         this.includeMetrics = alarmRule.getIncludeMetrics();
         // Init the empty window for alarming rule.
         windows = new ConcurrentHashMap<>();
+        windowIndex = new TimeBucketSegmentedMap<>();
         period = alarmRule.getPeriod();
         this.silencePeriod = alarmRule.getSilencePeriod();
         this.recoveryObservationPeriod = alarmRule.getRecoveryObservationPeriod();
@@ -110,6 +125,9 @@ public class RunningRule {
                 Pattern.compile(alarmRule.getIncludeNamesRegex()) : null;
         this.excludeNamesRegex = StringUtil.isNotEmpty(alarmRule.getExcludeNamesRegex()) ?
                 Pattern.compile(alarmRule.getExcludeNamesRegex()) : null;
+        this.includeNameSet = CollectionUtils.isNotEmpty(includeNames) ? new HashSet<>(includeNames) : Collections.emptySet();
+        this.excludeNameSet = CollectionUtils.isNotEmpty(excludeNames) ? new HashSet<>(excludeNames) : Collections.emptySet();
+        this.unmatchedNames = ConcurrentHashMap.newKeySet();
         this.formatter = new AlarmMessageFormatter(alarmRule.getMessage());
         this.tags = alarmRule.getTags()
                 .entrySet()
@@ -133,6 +151,16 @@ public class RunningRule {
      * @param metrics includes the values.
      */
     public void in(MetaInAlarm meta, Metrics metrics) {
+        in(meta, new AlarmEntity(
+                meta.getScope(), meta.getScopeId(), meta.getName(), meta.getId0(), meta.getId1(),
+                meta.getLayers()), metrics);
+    }
+
+    /**
+     * Same as {@link #in(MetaInAlarm, Metrics)}, with the entity of the meta built by the caller and shared by the
+     * rules of the metrics.
+     */
+    public void in(MetaInAlarm meta, AlarmEntity entity, Metrics metrics) {
         if (!includeMetrics.contains(meta.getMetricsName())) {
             //Don't match rule, exit.
             if (log.isTraceEnabled()) {
@@ -141,44 +169,60 @@ public class RunningRule {
             return;
         }
 
-        final String metaName = meta.getName();
-        if (!validate(metaName, includeNames, excludeNames, includeNamesRegex, excludeNamesRegex)) {
-            return;
+        // The entity of an existing window has been validated.
+        Window window = windows.get(entity);
+        if (window == null) {
+            if (!validate(entity.getName())) {
+                return;
+            }
+            window = windows.computeIfAbsent(entity, ignored -> new Window(entity, this.period,
+                    this.silencePeriod, this.recoveryObservationPeriod, this.additionalPeriod));
         }
-
-        AlarmEntity entity = new AlarmEntity(
-                meta.getScope(), meta.getScopeId(), meta.getName(), meta.getId0(), meta.getId1(),
-                meta.getLayers());
-
-        Window window = windows.computeIfAbsent(entity, ignored -> new Window(entity, this.period,
-                this.silencePeriod, this.recoveryObservationPeriod, this.additionalPeriod));
         window.add(meta.getMetricsName(), metrics);
+        if (window.moveIndexTo(metrics.getTimeBucket())) {
+            windowIndex.put(metrics.getTimeBucket(), entity, window);
+        }
     }
 
     /**
      * Validate target whether matching rules which is included list, excludes list, include regular expression or
      * exclude regular expression.
      */
-    private boolean validate(String target, List<String> includeList, List<String> excludeList,
-                             Pattern includeRegex, Pattern excludeRegex) {
-        if (CollectionUtils.isNotEmpty(includeList)) {
-            if (!includeList.contains(target)) {
+    private boolean validate(String target) {
+        if (!includeNameSet.isEmpty()) {
+            if (!includeNameSet.contains(target)) {
                 if (log.isTraceEnabled()) {
-                    log.trace("{} isn't in the including list {}", target, includeList);
+                    log.trace("{} isn't in the including list {}", target, includeNames);
                 }
                 return false;
             }
         }
 
-        if (CollectionUtils.isNotEmpty(excludeList)) {
-            if (excludeList.contains(target)) {
+        if (!excludeNameSet.isEmpty()) {
+            if (excludeNameSet.contains(target)) {
                 if (log.isTraceEnabled()) {
-                    log.trace("{} is in the excluding list {}", target, excludeList);
+                    log.trace("{} is in the excluding list {}", target, excludeNames);
                 }
                 return false;
             }
         }
 
+        if (includeNamesRegex == null && excludeNamesRegex == null) {
+            return true;
+        }
+        if (unmatchedNames.contains(target)) {
+            return false;
+        }
+        if (!matchRegex(target, includeNamesRegex, excludeNamesRegex)) {
+            if (unmatchedNames.size() < MAX_UNMATCHED_NAMES) {
+                unmatchedNames.add(target);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean matchRegex(String target, Pattern includeRegex, Pattern excludeRegex) {
         if (includeRegex != null) {
             if (!includeRegex.matcher(target).matches()) {
                 if (log.isTraceEnabled()) {
@@ -217,6 +261,7 @@ public class RunningRule {
     public void resetWindows() {
         windows.values().forEach(Window::reset);
         windows.clear();
+        windowIndex.clear();
     }
 
     /**
@@ -228,31 +273,63 @@ public class RunningRule {
         // Truncate targetTime to minute, make sure the second is `00` and milliseconds is `00` such as: 18:30:00.000
         final LocalDateTime target = targetTime.withSecondOfMinute(0).withMillisOfSecond(0);
         windows.values().forEach(window -> window.moveTo(target));
+        windowStartTimeBucket = Long.parseLong(
+            TIME_BUCKET_FORMATTER.print(target.minusMinutes(period + additionalPeriod - 1)));
     }
 
     /**
      * Check the conditions, decide to whether trigger alarm.
      */
     public List<AlarmMessage> check() {
+        return check(prepareCheck());
+    }
+
+    /**
+     * Remove the expired windows.
+     *
+     * @return the windows to check, which could be checked by {@link #check(List)} in batches concurrently.
+     */
+    public List<Window> prepareCheck() {
+        removeExpiredWindows();
+        return new ArrayList<>(windows.values());
+    }
+
+    /**
+     * Check the conditions of the given windows of this rule, decide to whether trigger alarm.
+     */
+    public List<AlarmMessage> check(List<Window> checkingWindows) {
         List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
-        List<AlarmEntity> expiredEntityList = new ArrayList<>();
+        for (Window window : checkingWindows) {
+            Optional<AlarmMessage> alarmMessageOptional = window.checkAlarm();
+            alarmMessageOptional.ifPresent(alarmMessageList::add);
+        }
+        return alarmMessageList;
+    }
 
-        windows.forEach((alarmEntity, window) -> {
+    /**
+     * Only the windows whose latest metrics are older than the window range could be expired, find them through the
+     * {@link #windowIndex} rather than checking every window.
+     */
+    private void removeExpiredWindows() {
+        final long startTimeBucket = windowStartTimeBucket;
+        if (startTimeBucket == 0) {
+            return;
+        }
+        windowIndex.removeBefore(startTimeBucket, (alarmEntity, window) -> {
+            if (windows.get(alarmEntity) != window) {
+                return;
+            }
             if (window.isExpired()) {
-                expiredEntityList.add(alarmEntity);
+                windows.remove(alarmEntity, window);
                 if (log.isTraceEnabled()) {
                     log.trace("RuleName:{} AlarmEntity {} {} {} expired", ruleName, alarmEntity.getName(),
                             alarmEntity.getId0(), alarmEntity.getId1());
                 }
-                return;
+            } else if (window.moveIndexTo(startTimeBucket)) {
+                // The window is ahead of the rule, such as receiving metrics in the future, check it again later.
+                windowIndex.put(startTimeBucket, alarmEntity, window);
             }
-
-            Optional<AlarmMessage> alarmMessageOptional = window.checkAlarm();
-            alarmMessageOptional.ifPresent(alarmMessageList::add);
         });
-
-        expiredEntityList.forEach(windows::remove);
-        return alarmMessageList;
     }
 
     public enum State {
@@ -279,13 +356,24 @@ public class RunningRule {
         private final int period;
         @Getter
         private final AlarmStateMachine stateMachine;
-        private LinkedList<Map<String, Metrics>> values;
+        private WindowValues values;
         private ReentrantLock lock = new ReentrantLock();
         @Getter
         private AlarmMessage lastAlarmMessage;
         @Getter
         private JsonObject mqeMetricsSnapshot;
         private AlarmEntity entity;
+        /**
+         * The latest time bucket of this window in the {@link #windowIndex}.
+         */
+        private long indexedTimeBucket;
+        /**
+         * Increased when the values of the window change, by adding metrics or sliding non-empty values. The
+         * expression is evaluated again only when the version has changed since the last evaluation.
+         */
+        private long version;
+        private long evaluatedVersion = -1;
+        private boolean evaluatedMatch;
 
         public Window(AlarmEntity entity, int period, int silencePeriod, int recoveryObservationPeriod,
                       int additionalPeriod) {
@@ -307,22 +395,17 @@ public class RunningRule {
                     if (minutes <= 0) {
                         return;
                     }
-                    if (minutes > values.size()) {
-                        // re-init
-                        init();
-                    } else {
-                        for (int i = 0; i < minutes; i++) {
-                            values.removeFirst();
-                            values.addLast(null);
-                        }
+                    if (!isExpired()) {
+                        version++;
                     }
+                    values.shift(minutes);
                 }
                 endTime = current;
             } finally {
                 lock.unlock();
             }
             if (log.isTraceEnabled()) {
-                log.trace("Move window {}", transformValues(values));
+                log.trace("Move window {}", values);
             }
         }
 
@@ -356,19 +439,16 @@ public class RunningRule {
                     return;
                 }
                 int index = values.size() - minutes - 1;
-                Map<String, Metrics> metricsMap = values.get(index);
-                if (metricsMap == null) {
-                    metricsMap = new HashMap<>();
-                    metricsMap.put(metricsName, metrics);
-                    values.set(index, metricsMap);
-                } else {
-                    metricsMap.put(metricsName, metrics);
+                if (!values.put(index, metricsName, metrics)) {
+                    log.warn("Unsupported metrics {}", metrics);
+                    return;
                 }
+                version++;
             } finally {
                 this.lock.unlock();
             }
             if (log.isTraceEnabled()) {
-                log.trace("Add metric {} to window {}", metrics, transformValues(this.values));
+                log.trace("Add metric {} to window {}", metrics, this.values);
             }
         }
 
@@ -417,6 +497,21 @@ public class RunningRule {
 
         private boolean isMatch() {
             this.lock.lock();
+            try {
+                if (evaluatedVersion != version) {
+                    evaluatedMatch = evaluate();
+                    evaluatedVersion = version;
+                } else if (log.isTraceEnabled()) {
+                    log.trace("RuleName {} AlarmEntity {} {} {} unchanged since the last evaluation", ruleName,
+                            entity.getName(), entity.getId0(), entity.getId1());
+                }
+                return evaluatedMatch;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private boolean evaluate() {
             int isMatch = 0;
             try {
                 TRACE_CONTEXT.set(new DebuggingTraceContext(expression, false, false));
@@ -468,23 +563,31 @@ public class RunningRule {
                 this.mqeMetricsSnapshot = visitor.getMqeMetricsSnapshot();
                 return isMatch == 1;
             } finally {
-                this.lock.unlock();
                 TRACE_CONTEXT.remove();
             }
         }
 
-        public boolean isExpired() {
-            if (this.values != null) {
-                for (Map<String, Metrics> value : this.values) {
-                    if (value != null) {
-                        return false;
-                    }
+        /**
+         * @return true if the given time bucket is later than the indexed one, and the window should be indexed by it.
+         */
+        private boolean moveIndexTo(long timeBucket) {
+            lock.lock();
+            try {
+                if (timeBucket <= indexedTimeBucket) {
+                    return false;
                 }
+                indexedTimeBucket = timeBucket;
+                return true;
+            } finally {
+                lock.unlock();
             }
-            return true;
         }
 
-        public void scanWindowValues(Consumer<LinkedList<Map<String, Metrics>>> scanFunction) {
+        public boolean isExpired() {
+            return this.values == null || this.values.isEmpty();
+        }
+
+        public void scanWindowValues(Consumer<WindowValues> scanFunction) {
             lock.lock();
             try {
                 scanFunction.accept(values);
@@ -503,6 +606,7 @@ public class RunningRule {
             lock.lock();
             try {
                 init();
+                version++;
                 endTime = null;
                 lastAlarmMessage = null;
                 mqeMetricsSnapshot = null;
@@ -513,9 +617,10 @@ public class RunningRule {
         }
 
         private void init() {
-            values = new LinkedList<>();
-            for (int i = 0; i < size; i++) {
-                values.add(null);
+            if (values == null) {
+                values = new WindowValues(size);
+            } else {
+                values.clear();
             }
         }
 
@@ -639,43 +744,4 @@ public class RunningRule {
         }
 
     }
-
-    private LinkedList<Map<String, TraceLogMetric>> transformValues(LinkedList<Map<String, Metrics>> values) {
-        LinkedList<Map<String, TraceLogMetric>> result = new LinkedList<>();
-        for (Map<String, Metrics> value : values) {
-            if (value == null) {
-                result.add(null);
-                continue;
-            }
-            value.forEach((name, m) -> {
-                Map<String, TraceLogMetric> r = new HashMap<>();
-                result.add(r);
-                if (m instanceof LongValueHolder) {
-                    r.put(name, new TraceLogMetric(m.getTimeBucket(), new Number[]{((LongValueHolder) m).getValue()}));
-                } else if (m instanceof IntValueHolder) {
-                    r.put(name, new TraceLogMetric(m.getTimeBucket(), new Number[]{((IntValueHolder) m).getValue()}));
-                } else if (m instanceof DoubleValueHolder) {
-                    r.put(name, new TraceLogMetric(m.getTimeBucket(), new Number[]{((DoubleValueHolder) m).getValue()}));
-                } else if (m instanceof LabeledValueHolder) {
-                    DataTable dt = ((LabeledValueHolder) m).getValue();
-                    TraceLogMetric l = new TraceLogMetric(
-                            m.getTimeBucket(), dt.sortedValues(Comparator.naturalOrder())
-                            .toArray(new Number[0]));
-                    l.labels = dt.sortedKeys(Comparator.naturalOrder()).toArray(new String[0]);
-                    r.put(name, l);
-                } else {
-                    log.warn("Unsupported metrics {}", m);
-                }
-            });
-        }
-        return result;
-    }
-
-    @RequiredArgsConstructor
-    @ToString
-    private static class TraceLogMetric {
-        private final long timeBucket;
-        private final Number[] value;
-        private String[] labels;
-    }
 }
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm.provider;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DoubleValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.IntValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LabeledValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+
+/**
+ * The values of a {@link RunningRule.Window}, kept in fixed-size ring buffers. The index 0 is the oldest minute of
+ * the window, and the index {@code size - 1} is the end time of the window.
+ * <p>
+ * The values are extracted from the metrics when they are added, one primitive column per metrics name, so the
+ * window doesn't hold the {@link Metrics} objects. This is not thread safe, it is guarded by the lock of the window.
+ */
+public class WindowValues {
+    private static final String[] EMPTY_NAMES = new String[0];
+    private static final Column[] EMPTY_COLUMNS = new Column[0];
+
+    private final int size;
+    /**
+     * The position of the oldest minute in the ring buffers.
+     */
+    private int head;
+    /**
+     * The metrics names and their columns, there are only a few metrics in an alarm rule, a linear search is faster
+     * and smaller than a map.
+     */
+    private String[] names = EMPTY_NAMES;
+    private Column[] columns = EMPTY_COLUMNS;
+
+    public WindowValues(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the names of the metrics added into the window.
+     */
+    public List<String> getMetricsNames() {
+        return Arrays.asList(names);
+    }
+
+    /**
+     * @return the column of the given metrics, null if the metrics has never been added.
+     */
+    public Column getColumn(String metricsName) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(metricsName)) {
+                return columns[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if there is no value in the window.
+     */
+    public boolean isEmpty() {
+        for (Column column : columns) {
+            if (column.filled > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put the value of the metrics at the index of the window.
+     *
+     * @return false if the type of the metrics value is not supported.
+     */
+    boolean put(int index, String metricsName, Metrics metrics) {
+        final Kind kind;
+        if (metrics instanceof LongValueHolder || metrics instanceof IntValueHolder) {
+            kind = Kind.LONG;
+        } else if (metrics instanceof DoubleValueHolder) {
+            kind = Kind.DOUBLE;
+        } else if (metrics instanceof LabeledValueHolder) {
+            kind = Kind.LABELED;
+        } else {
+            return false;
+        }
+        Column column = getColumn(metricsName);
+        if (column == null) {
+            column = new Column(kind);
+            names = Arrays.copyOf(names, names.length + 1);
+            columns = Arrays.copyOf(columns, columns.length + 1);
+            names[names.length - 1] = metricsName;
+            columns[columns.length - 1] = column;
+        } else if (column.kind != kind) {
+            // The metrics has been redefined, the values of the previous type are meaningless.
+            column.reset(kind);
+        }
+        final int position = position(index);
+        switch (kind) {
+            case LONG:
+                column.values[position] = metrics instanceof LongValueHolder ?
+                    ((LongValueHolder) metrics).getValue() : ((IntValueHolder) metrics).getValue();
+                break;
+            case DOUBLE:
+                column.values[position] = Double.doubleToRawLongBits(((DoubleValueHolder) metrics).getValue());
+                break;
+            default:
+                column.labeledValues[position] = ((LabeledValueHolder) metrics).getValue();
+                break;
+        }
+        if (column.timeBuckets[position] == 0) {
+            column.filled++;
+        }
+        column.timeBuckets[position] = metrics.getTimeBucket();
+        return true;
+    }
+
+    /**
+     * Slide the window forward by the given minutes, the oldest values are dropped and the latest minutes are empty.
+     */
+    void shift(int minutes) {
+        if (minutes >= size) {
+            clear();
+            return;
+        }
+        for (int i = 0; i < minutes; i++) {
+            // The oldest position is reused as the latest one.
+            for (Column column : columns) {
+                column.clear(head);
+            }
+            head = (head + 1) % size;
+        }
+    }
+
+    void clear() {
+        for (Column column : columns) {
+            for (int i = 0; i < size; i++) {
+                column.clear(i);
+            }
+        }
+        head = 0;
+    }
+
+    private int position(int index) {
+        final int position = head + index;
+        return position < size ? position : position - size;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            boolean hasValue = false;
+            for (int j = 0; j < names.length; j++) {
+                if (!columns[j].hasValue(i)) {
+                    continue;
+                }
+                builder.append(hasValue ? ", " : "{");
+                builder.append(names[j]).append('=').append(columns[j].getTimeBucket(i))
+                       .append(':').append(columns[j].valueToString(i));
+                hasValue = true;
+            }
+            builder.append(hasValue ? "}" : "null");
+        }
+        return builder.append(']').toString();
+    }
+
+    private enum Kind {
+        LONG,
+        DOUBLE,
+        LABELED
+    }
+
+    /**
+     * The values of one metrics in the window.
+     */
+    public class Column {
+        private Kind kind;
+        /**
+         * The time buckets of the values, 0 if there is no value.
+         */
+        private final long[] timeBuckets;
+        /**
+         * The long values, or the raw bits of the double values.
+         */
+        private long[] values;
+        private DataTable[] labeledValues;
+        private int filled;
+
+        private Column(Kind kind) {
+            this.timeBuckets = new long[size];
+            reset(kind);
+        }
+
+        private void reset(Kind kind) {
+            this.kind = kind;
+            Arrays.fill(timeBuckets, 0);
+            values = kind == Kind.LABELED ? null : new long[size];
+            labeledValues = kind == Kind.LABELED ? new DataTable[size] : null;
+            filled = 0;
+        }
+
+        private void clear(int position) {
+            if (timeBuckets[position] == 0) {
+                return;
+            }
+            timeBuckets[position] = 0;
+            if (labeledValues != null) {
+                labeledValues[position] = null;
+            }
+            filled--;
+        }
+
+        public boolean isLabeled() {
+            return kind == Kind.LABELED;
+        }
+
+        public boolean isEmpty() {
+            return filled == 0;
+        }
+
+        public boolean hasValue(int index) {
+            return timeBuckets[position(index)] != 0;
+        }
+
+        public long getTimeBucket(int index) {
+            return timeBuckets[position(index)];
+        }
+
+        /**
+         * @return the value at the index, only for the non-labeled metrics.
+         */
+        public double getValue(int index) {
+            final long value = values[position(index)];
+            return kind == Kind.DOUBLE ? Double.longBitsToDouble(value) : value;
+        }
+
+        /**
+         * @return the value at the index, only for the labeled metrics.
+         */
+        public DataTable getLabeledValue(int index) {
+            return labeledValues[position(index)];
+        }
+
+        public String valueToString(int index) {
+            switch (kind) {
+                case LONG:
+                    return Long.toString(values[position(index)]);
+                case DOUBLE:
+                    return Double.toString(getValue(index));
+                default:
+                    return String.valueOf(getLabeledValue(index));
+            }
+        }
+    }
+}
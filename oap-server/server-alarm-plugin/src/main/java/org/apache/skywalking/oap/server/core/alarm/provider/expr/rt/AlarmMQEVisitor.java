@@ -22,7 +22,6 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,16 +29,12 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 import org.apache.skywalking.oap.server.core.alarm.provider.AlarmEntity;
+import org.apache.skywalking.oap.server.core.alarm.provider.WindowValues;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResultType;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
 import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
-import org.apache.skywalking.oap.server.core.analysis.metrics.DoubleValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.IntValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LabeledValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.mqe.rt.MQEVisitorBase;
 import org.apache.skywalking.oap.server.core.query.enumeration.Step;
 import org.apache.skywalking.oap.server.core.query.type.KeyValue;
@@ -52,9 +47,7 @@ import org.joda.time.LocalDateTime;
 @Slf4j
 public class AlarmMQEVisitor extends MQEVisitorBase {
     private final AlarmEntity entity;
-    private final LinkedList<Map<String, Metrics>> metricsValues;
-    private final Map<String, Map<String, Double>> commonValuesMap;
-    private final Map<String, Map<String, DataTable>> labeledValuesMap;
+    private final WindowValues windowValues;
     private final int windowSize;
     private final LocalDateTime endTime;
     private final ArrayList<String> windowTimes;
@@ -68,20 +61,17 @@ public class AlarmMQEVisitor extends MQEVisitorBase {
 
     public AlarmMQEVisitor(final ModuleManager moduleManager,
                            final AlarmEntity entity,
-                           final LinkedList<Map<String, Metrics>> metricsValues,
+                           final WindowValues windowValues,
                            final LocalDateTime endTime,
                            final int maxTrendRange) {
         super(moduleManager, Step.MINUTE);
         this.entity = entity;
-        this.metricsValues = metricsValues;
-        this.commonValuesMap = new HashMap<>();
-        this.labeledValuesMap = new HashMap<>();
+        this.windowValues = windowValues;
         this.endTime = endTime;
-        this.windowSize = metricsValues.size();
+        this.windowSize = windowValues.size();
         this.windowTimes = initWindowTimes();
         this.maxTrendRange = maxTrendRange;
         this.mqeMetricsSnapshot = new JsonObject();
-        this.initMetricsValues();
     }
 
     @Override
@@ -109,11 +99,11 @@ public class AlarmMQEVisitor extends MQEVisitorBase {
                                                                      .getType());
                 snapshotMetricName = parent.getText();
             } else {
-                Map<String, Double> timeValues = commonValuesMap.get(metricName);
-                if (CollectionUtils.isEmpty(timeValues)) {
+                WindowValues.Column column = windowValues.getColumn(metricName);
+                if (column == null || column.isLabeled() || column.isEmpty()) {
                     mqeValuesList = buildEmptyMQEValuesList();
                 } else {
-                    mqeValuesList = buildMqeValuesList(timeValues);
+                    mqeValuesList = buildMqeValuesList(column);
                 }
             }
 
@@ -127,7 +117,7 @@ public class AlarmMQEVisitor extends MQEVisitorBase {
                                                                      .getType());
                 snapshotMetricName = parent.getText();
             } else {
-                Map<String, DataTable> timeValues = labeledValuesMap.get(metricName);
+                Map<String, DataTable> timeValues = getLabeledTimeValues(metricName);
                 if (CollectionUtils.isEmpty(timeValues)) {
                     mqeValuesList = buildEmptyMQEValuesList();
                 } else {
@@ -181,54 +171,32 @@ public class AlarmMQEVisitor extends MQEVisitorBase {
         return windowTimes;
     }
 
-    private void initMetricsValues() {
-        for (Map<String, Metrics> metricsMap : metricsValues) {
-            if (metricsMap == null) {
-                continue;
-            }
-            for (Map.Entry<String, Metrics> entry : metricsMap.entrySet()) {
-                String metricName = entry.getKey();
-                Metrics metrics = entry.getValue();
-                if (metrics instanceof LongValueHolder) {
-                    initCommonMetricValues(metricName, ((LongValueHolder) metrics).getValue(), metrics.getTimeBucket());
-                } else if (metrics instanceof IntValueHolder) {
-                    initCommonMetricValues(metricName, ((IntValueHolder) metrics).getValue(), metrics.getTimeBucket());
-                } else if (metrics instanceof DoubleValueHolder) {
-                    initCommonMetricValues(metricName, ((DoubleValueHolder) metrics).getValue(), metrics.getTimeBucket());
-                } else if (metrics instanceof LabeledValueHolder) {
-                    DataTable values = ((LabeledValueHolder) metrics).getValue();
-                    initLabeledMetricValues(metricName, values, metrics.getTimeBucket());
-                } else {
-                    log.warn("Unsupported metrics {}", metricName);
-                    return;
-                }
+    /**
+     * @return the labeled values of the metrics in the window, keyed by the time bucket.
+     */
+    private Map<String, DataTable> getLabeledTimeValues(String metricName) {
+        WindowValues.Column column = windowValues.getColumn(metricName);
+        if (column == null || !column.isLabeled() || column.isEmpty()) {
+            return null;
+        }
+        Map<String, DataTable> timeValues = new HashMap<>();
+        for (int i = 0; i < windowSize; i++) {
+            if (column.hasValue(i)) {
+                timeValues.put(String.valueOf(column.getTimeBucket(i)), column.getLabeledValue(i));
             }
         }
+        return timeValues;
     }
 
-    private void initCommonMetricValues(String metricName, double value, long timeBucket) {
-        Map<String, Double> timeValues = commonValuesMap.computeIfAbsent(
-            metricName, v -> new HashMap<>());
-        timeValues.put(String.valueOf(timeBucket), value);
-    }
-
-    private void initLabeledMetricValues(String metricName,
-                                         DataTable values, long timeBucket) {
-        Map<String, DataTable> timeValues = labeledValuesMap.computeIfAbsent(
-            metricName, v -> new HashMap<>());
-        timeValues.put(String.valueOf(timeBucket), values);
-    }
-
-    private List<MQEValues> buildMqeValuesList(Map<String, Double> timeValues) {
+    private List<MQEValues> buildMqeValuesList(WindowValues.Column column) {
         List<MQEValues> mqeValuesList = new ArrayList<>();
             MQEValues mqeValues = new MQEValues();
-            for (String time : windowTimes) {
-                Double metricValue = timeValues.get(time);
+            for (int i = 0; i < windowSize; i++) {
                 MQEValue mqeValue = new MQEValue();
                 //use timeBucket as id here
-                mqeValue.setId(time);
-                if (metricValue != null) {
-                    mqeValue.setDoubleValue(metricValue);
+                mqeValue.setId(windowTimes.get(i));
+                if (column.hasValue(i)) {
+                    mqeValue.setDoubleValue(column.getValue(i));
                 } else {
                     mqeValue.setEmptyValue(true);
                 }
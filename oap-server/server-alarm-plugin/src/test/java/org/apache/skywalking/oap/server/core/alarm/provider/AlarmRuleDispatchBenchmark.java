@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm.provider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the metrics name index of the running rules with the previous scan of all rule expressions, on finding the
+ * rules of the metrics reaching the alarm. 500 rules are on 500 metrics, half of the arriving metrics have no rule.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class AlarmRuleDispatchBenchmark {
+
+    private static final int RULES = 500;
+
+    private AlarmRulesWatcher watcher;
+    private AlarmCore core;
+    private String[] metricsNames;
+
+    @Setup
+    public void setup() throws Exception {
+        Rules rules = new Rules();
+        for (int i = 0; i < RULES; i++) {
+            ValueColumnMetadata.INSTANCE.putIfAbsent(
+                "metrics_" + i, "value", Column.ValueDataType.COMMON_VALUE, 0,
+                org.apache.skywalking.oap.server.core.query.enumeration.Scope.Service.getScopeId()
+            );
+            AlarmRule rule = new AlarmRule(null);
+            rule.setAlarmRuleName("rule_" + i);
+            rule.setExpression("sum(metrics_" + i + " > 1000) >= 3");
+            rule.setPeriod(10);
+            rule.setTags(new HashMap<>());
+            rules.getRules().add(rule);
+        }
+        watcher = new AlarmRulesWatcher(rules, null, null);
+        core = new AlarmCore(watcher);
+        metricsNames = new String[RULES * 2];
+        for (int i = 0; i < metricsNames.length; i++) {
+            metricsNames[i] = "metrics_" + i;
+        }
+    }
+
+    @Benchmark
+    public void findByIndex(Blackhole bh) {
+        for (String metricsName : metricsNames) {
+            bh.consume(core.findRunningRule(metricsName));
+        }
+    }
+
+    @Benchmark
+    public void findByExpressionScan(Blackhole bh) {
+        for (String metricsName : metricsNames) {
+            bh.consume(findByExpressionScan(metricsName));
+        }
+    }
+
+    /**
+     * The lookup before the metrics name index, kept as the baseline.
+     */
+    private List<RunningRule> findByExpressionScan(String metricsName) {
+        List<RunningRule> runningRules = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : watcher.getExprMetricsMap().entrySet()) {
+            if (entry.getValue().contains(metricsName)) {
+                List<RunningRule> found = watcher.getRunningContext().get(entry.getKey());
+                if (found != null) {
+                    runningRules.addAll(found);
+                }
+            }
+        }
+        return runningRules.size() > 0 ? runningRules : null;
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(".*" + getClass().getSimpleName() + ".*")
+                .jvmArgsAppend("-Xmx512m", "-Xms512m")
+                .build()).run();
+    }
+}
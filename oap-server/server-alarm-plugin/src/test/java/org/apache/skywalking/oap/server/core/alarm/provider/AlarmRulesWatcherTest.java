@@ -166,6 +166,28 @@ public class AlarmRulesWatcherTest {
         assertEquals(1, alarmRulesWatcher.getRunningContext().get("avg(service_percent) < 99").size());
     }
 
+    @Test
+    public void shouldIndexRunningRulesByMetricsName() throws IllegalExpressionException {
+        Rules rules = new Rules();
+        rules.getRules().addAll(Arrays.asList(
+            newAlarmRule("name1", "avg(service_percent) < 80"),
+            newAlarmRule("name2", "avg(service_percent) < 90"),
+            newAlarmRule("name3", "avg(endpoint_percent) < 80")
+        ));
+
+        alarmRulesWatcher = spy(new AlarmRulesWatcher(rules, null, null));
+        assertEquals(2, alarmRulesWatcher.getMetricsRunningRules().get("service_percent").size());
+        assertEquals(1, alarmRulesWatcher.getMetricsRunningRules().get("endpoint_percent").size());
+        assertNull(alarmRulesWatcher.getMetricsRunningRules().get("service_resp_time"));
+
+        Rules updatedRules = new Rules();
+        updatedRules.getRules().add(newAlarmRule("name3", "avg(endpoint_percent) < 80"));
+        alarmRulesWatcher.notify(updatedRules);
+
+        assertNull(alarmRulesWatcher.getMetricsRunningRules().get("service_percent"));
+        assertEquals(1, alarmRulesWatcher.getMetricsRunningRules().get("endpoint_percent").size());
+    }
+
     private AlarmRule newAlarmRule(String name, String expression) throws IllegalExpressionException {
        AlarmRule alarmRule = new AlarmRule(null);
         alarmRule.setAlarmRuleName(name);
@@ -105,7 +105,7 @@ public class NotifyHandlerTest {
         ArgumentCaptor<MetaInAlarm> metaCaptor = ArgumentCaptor.forClass(MetaInAlarm.class);
 
         notifyHandler.notify(metrics);
-        verify(rule).in(metaCaptor.capture(), any());
+        verify(rule).in(metaCaptor.capture(), any(), any());
 
         MetaInAlarm metaInAlarm = metaCaptor.getValue();
 
@@ -132,7 +132,7 @@ public class NotifyHandlerTest {
         ArgumentCaptor<MetaInAlarm> metaCaptor = ArgumentCaptor.forClass(MetaInAlarm.class);
 
         notifyHandler.notify(metrics);
-        verify(rule).in(metaCaptor.capture(), any());
+        verify(rule).in(metaCaptor.capture(), any(), any());
 
         MetaInAlarm metaInAlarm = metaCaptor.getValue();
 
@@ -154,7 +154,7 @@ public class NotifyHandlerTest {
         ArgumentCaptor<MetaInAlarm> metaCaptor = ArgumentCaptor.forClass(MetaInAlarm.class);
 
         notifyHandler.notify(metrics);
-        verify(rule).in(metaCaptor.capture(), any());
+        verify(rule).in(metaCaptor.capture(), any(), any());
 
         MetaInAlarm metaInAlarm = metaCaptor.getValue();
 
@@ -179,7 +179,7 @@ public class NotifyHandlerTest {
         ArgumentCaptor<MetaInAlarm> metaCaptor = ArgumentCaptor.forClass(MetaInAlarm.class);
 
         notifyHandler.notify(metrics);
-        verify(rule).in(metaCaptor.capture(), any());
+        verify(rule).in(metaCaptor.capture(), any(), any());
 
         MetaInAlarm metaInAlarm = metaCaptor.getValue();
 
@@ -205,7 +205,7 @@ public class NotifyHandlerTest {
         ArgumentCaptor<MetaInAlarm> metaCaptor = ArgumentCaptor.forClass(MetaInAlarm.class);
 
         notifyHandler.notify(metrics);
-        verify(rule).in(metaCaptor.capture(), any());
+        verify(rule).in(metaCaptor.capture(), any(), any());
 
         MetaInAlarm metaInAlarm = metaCaptor.getValue();
 
@@ -231,7 +231,7 @@ public class NotifyHandlerTest {
         ArgumentCaptor<MetaInAlarm> metaCaptor = ArgumentCaptor.forClass(MetaInAlarm.class);
 
         notifyHandler.notify(metrics);
-        verify(rule).in(metaCaptor.capture(), any());
+        verify(rule).in(metaCaptor.capture(), any(), any());
 
         MetaInAlarm metaInAlarm = metaCaptor.getValue();
 
@@ -285,7 +285,7 @@ public class NotifyHandlerTest {
 
         rule = mock(RunningRule.class);
 
-        doNothing().when(rule).in(any(MetaInAlarm.class), any(Metrics.class));
+        doNothing().when(rule).in(any(MetaInAlarm.class), any(AlarmEntity.class), any(Metrics.class));
 
         when(core.findRunningRule(anyString())).thenReturn(Lists.newArrayList(rule));
 
@@ -19,6 +19,7 @@
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
 import com.google.common.collect.Lists;
+import com.google.gson.JsonObject;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
@@ -44,6 +45,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.apache.skywalking.oap.server.testing.util.ReflectUtil;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -93,7 +95,7 @@ public class RunningRuleTest {
         RunningRule.Window window = windows.get(getAlarmEntity(123));
         LocalDateTime endTime = ReflectUtil.getInternalState(window, "endTime");
         int additionalPeriod = ReflectUtil.getInternalState(window, "additionalPeriod");
-        LinkedList<Metrics> metricsBuffer = ReflectUtil.getInternalState(window, "values");
+        WindowValues metricsBuffer = ReflectUtil.getInternalState(window, "values");
 
         Assertions.assertTrue(targetTime.equals(endTime.toDateTime()));
         Assertions.assertEquals(5, additionalPeriod);
@@ -364,6 +366,85 @@ public class RunningRuleTest {
         Assertions.assertEquals(1, getAlarmRecoveryMessageList(runningRule.check()).size()); //recovery
     }
 
+    @Test
+    public void testExpiredWindowRemoved() throws IllegalExpressionException {
+        AlarmRule alarmRule = new AlarmRule(null);
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setExpression("sum(endpoint_percent < 75) >= 3");
+        alarmRule.getIncludeMetrics().add("endpoint_percent");
+        alarmRule.setPeriod(3);
+        alarmRule.setTags(new HashMap<>());
+        RunningRule runningRule = new RunningRule(alarmRule, null);
+
+        DateTime startTime = DateTime.now();
+        runningRule.in(getMetaInAlarm(123), getMetrics(TimeBucket.getMinuteTimeBucket(startTime.minusMinutes(2).getMillis()), 70));
+        runningRule.in(getMetaInAlarm(456), getMetrics(TimeBucket.getMinuteTimeBucket(startTime.getMillis()), 70));
+
+        runningRule.moveTo(startTime.toLocalDateTime());
+        runningRule.check();
+        Assertions.assertEquals(2, runningRule.getWindows().size());
+
+        // The window of 123 only has the metrics out of the period.
+        runningRule.moveTo(startTime.plusMinutes(1).toLocalDateTime());
+        runningRule.check();
+        Assertions.assertNull(getWindow(runningRule, 123));
+        Assertions.assertNotNull(getWindow(runningRule, 456));
+
+        runningRule.moveTo(startTime.plusMinutes(3).toLocalDateTime());
+        runningRule.check();
+        Assertions.assertTrue(runningRule.getWindows().isEmpty());
+    }
+
+    @Test
+    public void testUnchangedWindowNotEvaluatedAgain() throws IllegalExpressionException {
+        AlarmRule alarmRule = new AlarmRule(null);
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setExpression("sum(endpoint_percent < 75) >= 1");
+        alarmRule.getIncludeMetrics().add("endpoint_percent");
+        alarmRule.setPeriod(3);
+        alarmRule.setTags(new HashMap<>());
+        RunningRule runningRule = new RunningRule(alarmRule, null);
+
+        DateTime startTime = DateTime.now();
+        runningRule.in(getMetaInAlarm(123), getMetrics(TimeBucket.getMinuteTimeBucket(startTime.getMillis()), 70));
+        runningRule.moveTo(startTime.toLocalDateTime());
+
+        Assertions.assertEquals(1, getAlarmFiringMessageList(runningRule.check()).size());
+        RunningRule.Window window = getWindow(runningRule, 123);
+        JsonObject snapshot = window.getMqeMetricsSnapshot();
+        // Not evaluated again, the state machine still moves on the last result.
+        runningRule.check();
+        Assertions.assertSame(snapshot, window.getMqeMetricsSnapshot());
+        Assertions.assertEquals(RunningRule.State.FIRING, window.getStateMachine().getCurrentState());
+
+        runningRule.moveTo(startTime.plusMinutes(1).toLocalDateTime());
+        runningRule.check();
+        Assertions.assertNotSame(snapshot, window.getMqeMetricsSnapshot());
+    }
+
+    @Test
+    public void testCheckInParallelBatches() throws Exception {
+        AlarmRule alarmRule = new AlarmRule(null);
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setExpression("sum(endpoint_percent < 75) >= 1");
+        alarmRule.getIncludeMetrics().add("endpoint_percent");
+        alarmRule.setPeriod(3);
+        alarmRule.setTags(new HashMap<>());
+        RunningRule runningRule = new RunningRule(alarmRule, null);
+
+        DateTime startTime = DateTime.now();
+        long timeBucket = TimeBucket.getMinuteTimeBucket(startTime.getMillis());
+        for (int i = 0; i < 1000; i++) {
+            runningRule.in(getMetaInAlarm(i), getMetrics(timeBucket, i % 100));
+        }
+        runningRule.moveTo(startTime.toLocalDateTime());
+
+        AlarmCore core = new AlarmCore(new AlarmRulesWatcher(new Rules(), null, null), null, 4);
+        List<AlarmMessage> alarmMessages = core.check(Collections.singletonList(runningRule));
+        Assertions.assertEquals(750, getAlarmFiringMessageList(alarmMessages).size());
+        Assertions.assertEquals(750, alarmMessages.stream().map(AlarmMessage::getId0).distinct().count());
+    }
+
     @Test
     public void testExclude() throws IllegalExpressionException {
         AlarmRule alarmRule = new AlarmRule(null);
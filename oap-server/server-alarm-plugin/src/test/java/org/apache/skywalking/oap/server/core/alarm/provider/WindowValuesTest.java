@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm.provider;
+
+import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DoubleValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LabeledValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class WindowValuesTest {
+
+    @Test
+    public void testShiftAcrossRingBuffer() {
+        WindowValues values = new WindowValues(3);
+        Assertions.assertTrue(values.isEmpty());
+
+        values.put(1, "endpoint_cpm", longMetrics(202401010001L, 10));
+        values.put(2, "endpoint_cpm", longMetrics(202401010002L, 20));
+        WindowValues.Column column = values.getColumn("endpoint_cpm");
+        Assertions.assertFalse(column.hasValue(0));
+        Assertions.assertEquals(10, column.getValue(1));
+        Assertions.assertEquals(20, column.getValue(2));
+
+        // The oldest position is reused by the latest minute.
+        values.shift(1);
+        Assertions.assertEquals(10, column.getValue(0));
+        Assertions.assertEquals(202401010002L, column.getTimeBucket(1));
+        Assertions.assertFalse(column.hasValue(2));
+        values.put(2, "endpoint_cpm", longMetrics(202401010003L, 30));
+        Assertions.assertEquals("[{endpoint_cpm=202401010001:10}, {endpoint_cpm=202401010002:20}, "
+                                    + "{endpoint_cpm=202401010003:30}]", values.toString());
+
+        values.shift(2);
+        Assertions.assertEquals(30, column.getValue(0));
+        Assertions.assertFalse(column.hasValue(1));
+        Assertions.assertFalse(values.isEmpty());
+
+        values.shift(3);
+        Assertions.assertTrue(values.isEmpty());
+        Assertions.assertEquals("[null, null, null]", values.toString());
+    }
+
+    @Test
+    public void testColumnsOfMetrics() {
+        WindowValues values = new WindowValues(2);
+        DoubleValueHolder doubleMetrics = (DoubleValueHolder) mock(
+            Metrics.class, withSettings().extraInterfaces(DoubleValueHolder.class));
+        when(((Metrics) doubleMetrics).getTimeBucket()).thenReturn(202401010001L);
+        when(doubleMetrics.getValue()).thenReturn(0.5);
+        LabeledValueHolder labeledMetrics = (LabeledValueHolder) mock(
+            Metrics.class, withSettings().extraInterfaces(LabeledValueHolder.class));
+        when(((Metrics) labeledMetrics).getTimeBucket()).thenReturn(202401010001L);
+        when(labeledMetrics.getValue()).thenReturn(new DataTable("50,100|99,300"));
+
+        Assertions.assertTrue(values.put(1, "service_sla", (Metrics) doubleMetrics));
+        Assertions.assertTrue(values.put(1, "service_percentile", (Metrics) labeledMetrics));
+        Assertions.assertFalse(values.put(1, "service_unknown", mock(Metrics.class)));
+
+        Assertions.assertEquals(0.5, values.getColumn("service_sla").getValue(1));
+        Assertions.assertFalse(values.getColumn("service_sla").isLabeled());
+        Assertions.assertEquals(300L, values.getColumn("service_percentile").getLabeledValue(1).get("99"));
+        Assertions.assertTrue(values.getColumn("service_percentile").isLabeled());
+        Assertions.assertNull(values.getColumn("service_unknown"));
+
+        values.clear();
+        Assertions.assertTrue(values.isEmpty());
+        Assertions.assertTrue(values.getColumn("service_sla").isEmpty());
+        Assertions.assertNull(values.getColumn("service_percentile").getLabeledValue(1));
+    }
+
+    private Metrics longMetrics(long timeBucket, long value) {
+        Metrics metrics = mock(Metrics.class, withSettings().extraInterfaces(LongValueHolder.class));
+        when(metrics.getTimeBucket()).thenReturn(timeBucket);
+        when(((LongValueHolder) metrics).getValue()).thenReturn(value);
+        return metrics;
+    }
+}
@@ -55,14 +55,49 @@ public class CoreModuleConfig extends ModuleConfig {
     private int maxConcurrentCallsPerConnection;
     private int maxMessageSize;
     private int topNReportPeriod;
+    /**
+     * Merge the top N records, such as the slow statements, of all OAP nodes before persistence. The local top N
+     * records are sent to the node owning the entity, rather than persisted by every node.
+     */
+    private boolean topNClusterMerge = false;
     /**
      * The period of L1 aggregation flush. Unit is ms.
      */
     private long l1FlushPeriod = 500;
+    /**
+     * The max number of metrics merged in every thread of the OAL dispatchers before the L1 aggregation, which is
+     * called L0 aggregation. 0 means disabled.
+     */
+    private int l0AggregationMaxSize = 0;
+    /**
+     * The period of L0 aggregation flush to L1 aggregation. Unit is ms.
+     */
+    private long l0FlushPeriod = 100;
     /**
      * The threshold of session time. Unit is ms. Default value is 70s.
      */
     private long storageSessionTimeout = 70_000;
+    /**
+     * The max number of metrics cached in the session cache of every metrics persistent worker. The oldest time
+     * buckets are evicted once exceeded, and read from the database again when required. 0 means no limit.
+     */
+    private long storageSessionCacheMaxSize = 0;
+    /**
+     * The estimated memory limit, in MB, of the metrics values cached for the queries. Only the values of the time
+     * buckets persisted already are cached, the queries read them from the cache, and only the later time buckets
+     * from the storage. 0 means the metrics queries are not cached, which is the default.
+     */
+    private long metricsQueryCacheMaxMemoryInMB = 0;
+    /**
+     * The extra delay, in seconds, after the persistent period for a time bucket to be sealed and cached by the
+     * metrics query cache. The data of a bucket arriving after it is sealed is hidden until the cached values expire.
+     */
+    private int metricsQueryCacheSealDelayInSeconds = 60;
+    /**
+     * The time, in seconds, to expire the values cached by the metrics query cache after they are fetched from the
+     * storage. It bounds how long the late data of the sealed buckets is hidden.
+     */
+    private int metricsQueryCacheExpireInSeconds = 300;
     private final List<String> downsampling;
     /**
      * The period of doing data persistence. Unit is second.
@@ -91,6 +126,28 @@ public class CoreModuleConfig extends ModuleConfig {
      */
 
     private int remoteTimeout = 20;
+    /**
+     * Compress the messages between OAP nodes with gzip, trading CPU for the inter-node network traffic.
+     */
+    private boolean remoteCompressionEnabled = false;
+    /**
+     * How to route the metrics to the OAP nodes of L2 aggregation.
+     * <p>
+     * consistentHash: a consistent hash ring, only the metrics of the added or removed nodes move to another node when
+     * the cluster changes.
+     * <p>
+     * hashCode: the modulo of the hash code, most of the metrics move to another node when the cluster changes.
+     * <p>
+     * The nodes route the same metrics to different nodes by different algorithms, so every node of the cluster must
+     * use the same value, and switching the algorithm requires a full restart of the cluster rather than a rolling
+     * upgrade. The default keeps the routing of the previous releases.
+     */
+    private String remoteRoutingAlgorithm = "hashCode";
+    /**
+     * The max share of the consistent hash ring owned by an OAP node, in percentage of the average, e.g. 125. The
+     * overloaded part moves to the next nodes on the ring. 0 means not bounded.
+     */
+    private int remoteRoutingLoadBound = 0;
     /**
      * The size of network address alias.
      */
@@ -119,6 +176,11 @@ public class CoreModuleConfig extends ModuleConfig {
      * Thread Count of query the eBPF Profiling data.
      */
     private int maxThreadCountOfQueryEBPFProfilingData = Runtime.getRuntime().availableProcessors();
+    /**
+     * The max count of the stack nodes cached for analyzing the eBPF Profiling data. The analyzed slices of the data
+     * are cached, to be reused by the repeated or overlapped queries. 0 means disabled.
+     */
+    private int maxCachedStackNodesOfEBPFProfilingData = 200000;
     /**
      * Extra model column are the column defined by {@link ScopeDefaultColumn.DefinedByField#requireDynamicActive()} ==
      * true. These columns of model are not required logically in aggregation or further query, and it will cause more
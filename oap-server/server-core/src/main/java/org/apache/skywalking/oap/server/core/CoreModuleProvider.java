@@ -79,6 +79,7 @@ import org.apache.skywalking.oap.server.core.query.HierarchyQueryService;
 import org.apache.skywalking.oap.server.core.query.LogQueryService;
 import org.apache.skywalking.oap.server.core.query.MetadataQueryService;
 import org.apache.skywalking.oap.server.core.query.MetricsMetadataQueryService;
+import org.apache.skywalking.oap.server.core.query.MetricsQueryCache;
 import org.apache.skywalking.oap.server.core.query.MetricsQueryService;
 import org.apache.skywalking.oap.server.core.query.RecordQueryService;
 import org.apache.skywalking.oap.server.core.query.TTLStatusQuery;
@@ -91,6 +92,8 @@ import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
 import org.apache.skywalking.oap.server.core.remote.client.Address;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager;
 import org.apache.skywalking.oap.server.core.remote.health.HealthCheckServiceHandler;
+import org.apache.skywalking.oap.server.core.remote.selector.ConsistentHashSelector;
+import org.apache.skywalking.oap.server.core.remote.selector.HashCodeSelector;
 import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegister;
 import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegisterImpl;
 import org.apache.skywalking.oap.server.core.server.HTTPHandlerRegister;
@@ -304,7 +307,20 @@ public class CoreModuleProvider extends ModuleProvider {
         this.registerServiceImplementation(IWorkerInstanceGetter.class, instancesService);
         this.registerServiceImplementation(IWorkerInstanceSetter.class, instancesService);
 
-        this.registerServiceImplementation(RemoteSenderService.class, new RemoteSenderService(getManager()));
+        final HashCodeSelector hashCodeSelector;
+        switch (moduleConfig.getRemoteRoutingAlgorithm()) {
+            case "consistentHash":
+                hashCodeSelector = new ConsistentHashSelector(moduleConfig.getRemoteRoutingLoadBound());
+                break;
+            case "hashCode":
+                hashCodeSelector = new HashCodeSelector();
+                break;
+            default:
+                throw new ModuleStartException(
+                    "Unknown remote routing algorithm: " + moduleConfig.getRemoteRoutingAlgorithm());
+        }
+        this.registerServiceImplementation(
+            RemoteSenderService.class, new RemoteSenderService(getManager(), hashCodeSelector));
         this.registerServiceImplementation(ModelRegistry.class, storageModels);
         this.registerServiceImplementation(IModelManager.class, storageModels);
         this.registerServiceImplementation(ModelManipulator.class, storageModels);
@@ -315,7 +331,13 @@ public class CoreModuleProvider extends ModuleProvider {
         this.registerServiceImplementation(
             TopologyQueryService.class, new TopologyQueryService(getManager(), storageModels));
         this.registerServiceImplementation(MetricsMetadataQueryService.class, new MetricsMetadataQueryService());
-        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(getManager()));
+        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(
+            getManager(),
+            new MetricsQueryCache(
+                moduleConfig.getMetricsQueryCacheMaxMemoryInMB(), moduleConfig.getPersistentPeriod(),
+                moduleConfig.getMetricsQueryCacheSealDelayInSeconds(), moduleConfig.getMetricsQueryCacheExpireInSeconds()
+            )
+        ));
         this.registerServiceImplementation(TraceQueryService.class, new TraceQueryService(getManager()));
         this.registerServiceImplementation(BrowserLogQueryService.class, new BrowserLogQueryService(getManager()));
         this.registerServiceImplementation(LogQueryService.class, new LogQueryService(getManager()));
@@ -381,6 +403,8 @@ public class CoreModuleProvider extends ModuleProvider {
         } else {
             this.remoteClientManager = new RemoteClientManager(getManager(), moduleConfig.getRemoteTimeout());
         }
+        this.remoteClientManager.setRemoteCompressionEnabled(moduleConfig.isRemoteCompressionEnabled());
+        this.remoteClientManager.setHashCodeSelector(hashCodeSelector);
         this.registerServiceImplementation(RemoteClientManager.class, remoteClientManager);
 
         // Management
@@ -400,9 +424,12 @@ public class CoreModuleProvider extends ModuleProvider {
 
         final MetricsStreamProcessor metricsStreamProcessor = MetricsStreamProcessor.getInstance();
         metricsStreamProcessor.setL1FlushPeriod(moduleConfig.getL1FlushPeriod());
+        metricsStreamProcessor.enableL0Aggregation(moduleConfig.getL0AggregationMaxSize(), moduleConfig.getL0FlushPeriod());
         metricsStreamProcessor.setStorageSessionTimeout(moduleConfig.getStorageSessionTimeout());
+        metricsStreamProcessor.setStorageSessionCacheMaxSize(moduleConfig.getStorageSessionCacheMaxSize());
         RecordStreamProcessor.getInstance().setRecordDataTTL(moduleConfig.getRecordDataTTL());
         TopNStreamProcessor.getInstance().setTopNWorkerReportCycle(moduleConfig.getTopNReportPeriod());
+        TopNStreamProcessor.getInstance().setClusterMerge(moduleConfig.isTopNClusterMerge());
         apdexThresholdConfig = new ApdexThresholdConfig(this);
         ApdexMetrics.setDICT(apdexThresholdConfig);
         loggingConfigWatcher = new LoggingConfigWatcher(this);
@@ -39,4 +39,14 @@ public interface BufferedData<T> {
      * Read all existing buffered data, and clear the memory.
      */
     List<T> read();
+
+    /**
+     * Read all existing buffered data into the given batch, and clear the memory. The implementation could override
+     * this to avoid building a new list in every round.
+     *
+     * @param batch to hold the buffered data.
+     */
+    default void read(List<T> batch) {
+        batch.addAll(read());
+    }
 }
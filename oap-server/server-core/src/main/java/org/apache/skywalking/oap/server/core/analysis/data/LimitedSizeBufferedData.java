@@ -19,18 +19,22 @@
 package org.apache.skywalking.oap.server.core.analysis.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
 import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
 import org.apache.skywalking.oap.server.core.analysis.topn.TopN;
 
 /**
  * LimitedSizeBufferedData is a thread no safe implementation of {@link BufferedData}. It collects limited records of
  * each {@link TopN} which grouped by entityId and timeBucket.
+ * <p>
+ * Each group is a bounded min-heap, the smallest of the top N is the head, so a new record is compared with the head
+ * only, and replaces it in O(log N) when it is larger. The records of each group are read in descending order.
  */
 public class LimitedSizeBufferedData<STORAGE_DATA extends TopN> implements BufferedData<STORAGE_DATA> {
-    private final HashMap<String, LinkedList<STORAGE_DATA>> data;
+    private final HashMap<String, PriorityQueue<STORAGE_DATA>> data;
     private final int limitedSize;
 
     public LimitedSizeBufferedData(int limitedSize) {
@@ -40,44 +44,41 @@ public class LimitedSizeBufferedData<STORAGE_DATA extends TopN> implements Buffe
 
     @Override
     public void accept(final STORAGE_DATA data) {
-        final String topGroupKey = data.getEntityId() + TimeBucket.getMinuteTimeBucket(data.getTimestamp());
-        LinkedList<STORAGE_DATA> storageDataList = this.data.get(topGroupKey);
-        if (storageDataList == null) {
-            storageDataList = new LinkedList<>();
-            this.data.put(topGroupKey, storageDataList);
-        }
-
-        if (storageDataList.size() < limitedSize) {
-            storageDataList.add(data);
+        if (limitedSize <= 0) {
+            // Nothing is kept in the top 0 list.
             return;
         }
-
-        for (int i = 0; i < storageDataList.size(); i++) {
-            STORAGE_DATA storageData = storageDataList.get(i);
-            if (data.compareTo(storageData) <= 0) {
-                if (i == 0) {
-                    // input data is less than the smallest in top N list, ignore
-                } else {
-                    // Remove the smallest in top N list
-                    // add the current data into the right position
-                    storageDataList.add(i, data);
-                    storageDataList.removeFirst();
-                }
-                return;
-            }
+        final String topGroupKey = data.getEntityId() + TimeBucket.getMinuteTimeBucket(data.getTimestamp());
+        PriorityQueue<STORAGE_DATA> topN = this.data.get(topGroupKey);
+        if (topN == null) {
+            topN = new PriorityQueue<>(Math.max(1, Math.min(limitedSize, 16)));
+            this.data.put(topGroupKey, topN);
         }
 
-        // Add the data as biggest in top N list
-        storageDataList.addLast(data);
-        storageDataList.removeFirst();
+        if (topN.size() < limitedSize) {
+            topN.add(data);
+        } else if (data.compareTo(topN.peek()) > 0) {
+            // Replace the smallest in top N list, the input data less than or equal to it is ignored.
+            topN.poll();
+            topN.add(data);
+        }
     }
 
     @Override
     public List<STORAGE_DATA> read() {
+        final List<STORAGE_DATA> collection = new ArrayList<>();
+        read(collection);
+        return collection;
+    }
+
+    @Override
+    public void read(final List<STORAGE_DATA> batch) {
         try {
-            List<STORAGE_DATA> collection = new ArrayList<>();
-            data.values().forEach(collection::addAll);
-            return collection;
+            for (final PriorityQueue<STORAGE_DATA> topN : data.values()) {
+                final int from = batch.size();
+                batch.addAll(topN);
+                batch.subList(from, batch.size()).sort(Collections.reverseOrder());
+            }
         } finally {
             data.clear();
         }
@@ -18,24 +18,52 @@
 
 package org.apache.skywalking.oap.server.core.analysis.data;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
-import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
 
 /**
  * MergableBufferedData is a thread no safe implementation of {@link BufferedData}. {@link Metrics} in this cache would
- * be {@link Metrics#combine(Metrics)} if their {@link Metrics#id()}s are same.
+ * be {@link Metrics#combine(Metrics)} if their {@link Metrics#id()}s are same. The metrics are keyed by {@link
+ * Metrics#identityHash()} and {@link Metrics#identityEquals(Metrics)}, rather than the {@link Metrics#id()}, which
+ * is only built when the metrics is persisted.
+ *
+ * The metrics are kept in an open-addressing table with linear probing. The table keeps its capacity across the
+ * rounds, and is drained into the batch given by the caller, so a round doesn't allocate unless the table grows. The
+ * capacity is halved when a round only uses a small part of it.
  *
  * Concurrency {@link #accept(Metrics)}s and {@link #read()} while {@link #accept(Metrics)} are both not recommended.
  */
 public class MergableBufferedData<METRICS extends Metrics> implements BufferedData<METRICS> {
-    private Map<StorageID, METRICS> buffer;
+    private static final int MIN_CAPACITY = 16;
+
+    private Object[] slots;
+    /**
+     * The {@link Metrics#identityHash()} of the metrics in the same slot, compared before the identity fields.
+     */
+    private long[] hashes;
+    private int size;
+    /**
+     * The table is resized when it is more than half full, to keep the probe sequences short.
+     */
+    private int threshold;
+
+    private final GaugeMetrics sizeGauge;
+    private final GaugeMetrics loadFactorGauge;
 
     public MergableBufferedData() {
-        buffer = new HashMap<>();
+        this(null, null);
+    }
+
+    /**
+     * @param sizeGauge       the number of metrics of the last round, nullable.
+     * @param loadFactorGauge the load factor of the table in the last round, nullable.
+     */
+    public MergableBufferedData(final GaugeMetrics sizeGauge, final GaugeMetrics loadFactorGauge) {
+        this.sizeGauge = sizeGauge;
+        this.loadFactorGauge = loadFactorGauge;
+        allocate(MIN_CAPACITY);
     }
 
     /**
@@ -46,22 +74,98 @@ public class MergableBufferedData<METRICS extends Metrics> implements BufferedDa
      * @param data to be added potentially.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public void accept(final METRICS data) {
-        final StorageID id = data.id();
-        final METRICS existed = buffer.get(id);
-        if (existed == null) {
-            buffer.put(id, data);
-        } else {
-            existed.combine(data);
+        final long hash = data.identityHash();
+        final int mask = slots.length - 1;
+        int index = indexOf(hash) & mask;
+        while (true) {
+            final METRICS existed = (METRICS) slots[index];
+            if (existed == null) {
+                slots[index] = data;
+                hashes[index] = hash;
+                if (++size > threshold) {
+                    resize(slots.length << 1);
+                }
+                return;
+            }
+            if (hashes[index] == hash && existed.identityEquals(data)) {
+                existed.combine(data);
+                return;
+            }
+            index = (index + 1) & mask;
         }
     }
 
     @Override
     public List<METRICS> read() {
-        try {
-            return buffer.values().stream().collect(Collectors.toList());
-        } finally {
-            buffer.clear();
+        final List<METRICS> batch = new ArrayList<>(size);
+        read(batch);
+        return batch;
+    }
+
+    /**
+     * Drain all metrics into the given batch, and clear the table without releasing its capacity.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void read(final List<METRICS> batch) {
+        final int drained = size;
+        final int capacity = slots.length;
+        if (sizeGauge != null) {
+            sizeGauge.setValue(drained);
+        }
+        if (loadFactorGauge != null) {
+            loadFactorGauge.setValue((double) drained / capacity);
+        }
+        if (drained > 0) {
+            for (int i = 0; i < capacity; i++) {
+                if (slots[i] != null) {
+                    batch.add((METRICS) slots[i]);
+                    slots[i] = null;
+                }
+            }
+            size = 0;
+        }
+        // Shrink gradually after the traffic drops, the capacity of a spike is not held forever.
+        if (capacity > MIN_CAPACITY && drained < capacity >> 4) {
+            allocate(capacity >> 1);
         }
     }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    private void allocate(final int capacity) {
+        slots = new Object[capacity];
+        hashes = new long[capacity];
+        threshold = capacity >> 1;
+    }
+
+    private void resize(final int capacity) {
+        final Object[] oldSlots = slots;
+        final long[] oldHashes = hashes;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] == null) {
+                continue;
+            }
+            int index = indexOf(oldHashes[i]) & mask;
+            while (slots[index] != null) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = oldSlots[i];
+            hashes[index] = oldHashes[i];
+        }
+    }
+
+    private static int indexOf(final long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
 }
@@ -79,6 +79,23 @@ public class ReadWriteSafeCache<T> {
     }
 
     public List<T> read() {
+        switchPointers();
+        // Call read method outside of write lock for concurrency read-write.
+        return readBufferPointer.read();
+    }
+
+    /**
+     * Read the buffered data into the given batch, see {@link BufferedData#read(List)}.
+     *
+     * @param batch to hold the buffered data.
+     */
+    public void read(List<T> batch) {
+        switchPointers();
+        // Call read method outside of write lock for concurrency read-write.
+        readBufferPointer.read(batch);
+    }
+
+    private void switchPointers() {
         lock.lock();
         try {
             // Switch the read and write pointers, when there is no writing.
@@ -88,7 +105,5 @@ public class ReadWriteSafeCache<T> {
         } finally {
             lock.unlock();
         }
-        // Call read method outside of write lock for concurrency read-write.
-        return readBufferPointer.read();
     }
 }
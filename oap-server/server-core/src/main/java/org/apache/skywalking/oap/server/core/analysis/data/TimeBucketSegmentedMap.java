@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * TimeBucketSegmentedMap is a thread safe key-value map partitioned by the time bucket. The values of the same time
+ * bucket are kept in one segment, so the expired time buckets are dropped as a whole, the cost doesn't scale with the
+ * number of values in the map.
+ *
+ * The key must be unique in the time bucket only, the same key could exist in several time buckets.
+ *
+ * The idle expiry, see {@link #removeIdle(long, long)}, is tracked per value. A time bucket none of whose values is
+ * accessed is dropped as a whole, the values of the other time buckets are checked one by one, so an idle value
+ * doesn't stay in memory because other values of the same time bucket are still active.
+ *
+ * A value put along with the removal of its time bucket is never written into the removed segment. The removal marks
+ * the segment as dropped under its write lock, and the put, holding the read lock, retries in a new segment of the
+ * time bucket once it finds the segment dropped.
+ */
+public class TimeBucketSegmentedMap<K, V> {
+    private final ConcurrentSkipListMap<Long, Segment<K, V>> segments = new ConcurrentSkipListMap<>();
+
+    public V get(long timeBucket, K key) {
+        final Segment<K, V> segment = segments.get(timeBucket);
+        if (segment == null) {
+            return null;
+        }
+        final Entry<V> entry = segment.values.get(key);
+        if (entry == null) {
+            return null;
+        }
+        final long timestamp = System.currentTimeMillis();
+        entry.lastAccessTimestamp = timestamp;
+        segment.lastAccessTimestamp = timestamp;
+        return entry.value;
+    }
+
+    public V put(long timeBucket, K key, V value) {
+        while (true) {
+            final Segment<K, V> segment = segments.computeIfAbsent(timeBucket, ignored -> new Segment<>());
+            segment.lock.readLock().lock();
+            try {
+                if (!segment.dropped) {
+                    final long timestamp = System.currentTimeMillis();
+                    segment.lastAccessTimestamp = timestamp;
+                    final Entry<V> previous = segment.values.put(key, new Entry<>(value, timestamp));
+                    return previous == null ? null : previous.value;
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+            // The segment is removed from the map before being dropped, retry in a new segment.
+        }
+    }
+
+    public V remove(long timeBucket, K key) {
+        final Segment<K, V> segment = segments.get(timeBucket);
+        if (segment == null) {
+            return null;
+        }
+        final Entry<V> entry = segment.values.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * @return the number of values in all time buckets.
+     */
+    public long size() {
+        long size = 0;
+        for (final Segment<K, V> segment : segments.values()) {
+            size += segment.values.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the oldest time bucket, or null if the map is empty.
+     */
+    public Long firstTimeBucket() {
+        final Map.Entry<Long, Segment<K, V>> first = segments.firstEntry();
+        return first == null ? null : first.getKey();
+    }
+
+    /**
+     * @return the latest time bucket, or null if the map is empty.
+     */
+    public Long lastTimeBucket() {
+        final Map.Entry<Long, Segment<K, V>> last = segments.lastEntry();
+        return last == null ? null : last.getKey();
+    }
+
+    /**
+     * Remove all time buckets older than the given one.
+     *
+     * @param timeBucket exclusive upper bound of the removed time buckets.
+     * @param consumer   receives every removed key and value, nullable.
+     * @return the number of removed values.
+     */
+    public int removeBefore(long timeBucket, BiConsumer<K, V> consumer) {
+        final ConcurrentNavigableMap<Long, Segment<K, V>> expired = segments.headMap(timeBucket);
+        int removed = 0;
+        Iterator<Segment<K, V>> iterator = expired.values().iterator();
+        while (iterator.hasNext()) {
+            final Segment<K, V> segment = iterator.next();
+            iterator.remove();
+            segment.drop();
+            removed += segment.values.size();
+            if (consumer != null) {
+                segment.values.forEach((key, entry) -> consumer.accept(key, entry.value));
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Remove the values which have not been accessed through {@link #get(long, Object)} or
+     * {@link #put(long, Object, Object)} for longer than the given threshold. A time bucket none of whose values is
+     * accessed in the threshold is dropped as a whole, the idle values of the other time buckets are removed one by
+     * one.
+     *
+     * @return the number of removed values.
+     */
+    public int removeIdle(long currentTimeMillis, long idleThreshold) {
+        int removed = 0;
+        Iterator<Segment<K, V>> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            final Segment<K, V> segment = iterator.next();
+            if (currentTimeMillis - segment.lastAccessTimestamp > idleThreshold) {
+                iterator.remove();
+                segment.drop();
+                removed += segment.values.size();
+                continue;
+            }
+            final Iterator<Entry<V>> entries = segment.values.values().iterator();
+            while (entries.hasNext()) {
+                if (currentTimeMillis - entries.next().lastAccessTimestamp > idleThreshold) {
+                    entries.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        Iterator<Segment<K, V>> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            final Segment<K, V> segment = iterator.next();
+            iterator.remove();
+            segment.drop();
+        }
+    }
+
+    private static class Segment<K, V> {
+        private final Map<K, Entry<V>> values = new ConcurrentHashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * The latest access time of any value of the segment.
+         */
+        private volatile long lastAccessTimestamp;
+        /**
+         * True once the segment is removed from the map, no value could be put into it anymore.
+         */
+        private boolean dropped;
+
+        /**
+         * Wait for the puts in progress, and reject the following ones.
+         */
+        private void drop() {
+            lock.writeLock().lock();
+            try {
+                dropped = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private volatile long lastAccessTimestamp;
+
+        private Entry(final V value, final long lastAccessTimestamp) {
+            this.value = value;
+            this.lastAccessTimestamp = lastAccessTimestamp;
+        }
+    }
+}
@@ -19,11 +19,13 @@
 package org.apache.skywalking.oap.server.core.analysis.manual.database;
 
 import java.util.Objects;
+import com.google.common.base.Strings;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.oap.server.core.analysis.Stream;
 import org.apache.skywalking.oap.server.core.analysis.topn.TopN;
 import org.apache.skywalking.oap.server.core.analysis.worker.TopNStreamProcessor;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
 import org.apache.skywalking.oap.server.core.storage.StorageID;
 import org.apache.skywalking.oap.server.core.storage.annotation.BanyanDB;
@@ -68,6 +70,21 @@ public class TopNDatabaseStatement extends TopN {
         return Objects.hash(getEntityId());
     }
 
+    @Override
+    public RemoteData.Builder serialize() {
+        final RemoteData.Builder remoteBuilder = super.serialize();
+        remoteBuilder.addDataStrings(Strings.nullToEmpty(id));
+        remoteBuilder.addDataStrings(Strings.nullToEmpty(statement));
+        return remoteBuilder;
+    }
+
+    @Override
+    public void deserialize(final RemoteData remoteData) {
+        super.deserialize(remoteData);
+        setId(remoteData.getDataStrings(2));
+        setStatement(remoteData.getDataStrings(3));
+    }
+
     public static class Builder implements StorageBuilder<TopNDatabaseStatement> {
         @Override
         public TopNDatabaseStatement storage2Entity(final Convert2Entity converter) {
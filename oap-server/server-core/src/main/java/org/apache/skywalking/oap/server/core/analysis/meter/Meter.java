@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.core.analysis.meter;
 
+import java.util.Objects;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
@@ -78,6 +79,26 @@ public abstract class Meter extends Metrics implements WithMetadata {
      */
     public abstract String getEntityId();
 
+    /**
+     * The meter functions are identified by the entity ID in the time bucket, as their {@link #id0()}s.
+     */
+    @Override
+    protected long identityHash0() {
+        return mixIdentityHash(combineIdentityHash(getTimeBucket(), getEntityId()));
+    }
+
+    @Override
+    public boolean identityEquals(Metrics metrics) {
+        if (this == metrics) {
+            return true;
+        }
+        if (metrics == null || getClass() != metrics.getClass()) {
+            return false;
+        }
+        final Meter meter = (Meter) metrics;
+        return getTimeBucket() == meter.getTimeBucket() && Objects.equals(getEntityId(), meter.getEntityId());
+    }
+
     /**
      * This method is called in {@link MeterSystem#create} process through dynamic Java codes.
      *
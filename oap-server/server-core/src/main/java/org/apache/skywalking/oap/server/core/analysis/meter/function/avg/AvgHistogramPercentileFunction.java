@@ -40,7 +40,6 @@ import org.apache.skywalking.oap.server.core.storage.type.Convert2Storage;
 import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -249,7 +248,7 @@ public abstract class AvgHistogramPercentileFunction extends Meter implements Ac
                     }
 
                     long count = 0;
-                    final List<String> sortedKeys = subDataset.sortedKeys(Comparator.comparingLong(Long::parseLong));
+                    final List<String> sortedKeys = subDataset.sortedNumericKeys();
 
                     int loopIndex = 0;
 
@@ -17,16 +17,17 @@
 
 package org.apache.skywalking.oap.server.core.analysis.metrics;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
-import lombok.EqualsAndHashCode;
-import lombok.ToString;
 import org.apache.skywalking.oap.server.core.Const;
 import org.apache.skywalking.oap.server.core.storage.type.StorageDataComplexObject;
 import org.apache.skywalking.oap.server.library.util.StringUtil;
@@ -34,19 +35,47 @@ import org.apache.skywalking.oap.server.library.util.StringUtil;
 import static org.apache.skywalking.oap.server.core.analysis.metrics.DataLabel.GENERAL_LABEL_NAME;
 
 /**
- * DataTable includes a hashmap to store string key and long value. It enhanced the serialization capability.
+ * DataTable stores string keys and long values in a columnar layout. Keys and values are kept in parallel arrays in
+ * insertion order, and an open-addressing index maps a key to its slot, so accumulating and merging don't box the
+ * values or allocate entry nodes.
+ *
+ * Keys that are plain integers, as used by the histogram and percentile buckets, are also parsed once at insertion,
+ * which lets {@link #sortedNumericKeys()} and {@link #toStorageData()} order them without re-parsing the strings.
+ *
+ * The storage form is `key1,value1|key2,value2`, the same as the previous hashmap based implementation. The same
+ * form is sent between the OAP nodes in {@code RemoteData.dataObjectStrings}, which is the only field the nodes of
+ * the previous versions read during a rolling upgrade.
  */
-@ToString
-@EqualsAndHashCode
 public class DataTable implements StorageDataComplexObject<DataTable> {
-    private HashMap<String, Long> data;
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private String[] keys;
+    private long[] values;
+    /**
+     * The parsed value of every key, valid only while {@link #numericKeys} is true.
+     */
+    private long[] keyNumbers;
+    private boolean numericKeys = true;
+    private int size;
+    /**
+     * Open-addressing index, each slot holds the position of the key in {@link #keys} plus one, 0 means empty.
+     */
+    private int[] index;
+    /**
+     * Positions of the keys ordered by {@link #keyNumbers}, rebuilt lazily after a new key is added.
+     */
+    private int[] numericOrder;
 
     public DataTable() {
-        data = new HashMap<>();
+        this(DEFAULT_CAPACITY);
     }
 
     public DataTable(int initialCapacity) {
-        data = new HashMap<>(initialCapacity);
+        final int capacity = Math.max(initialCapacity, 1);
+        keys = new String[capacity];
+        values = new long[capacity];
+        keyNumbers = new long[capacity];
+        index = new int[indexCapacityFor(capacity)];
     }
 
     public DataTable(String data) {
@@ -55,15 +84,22 @@ public class DataTable implements StorageDataComplexObject<DataTable> {
     }
 
     public Long get(String key) {
-        return data.get(key);
+        final int position = positionOf(key);
+        return position < 0 ? null : values[position];
     }
 
     public void put(String key, Long value) {
-        data.put(key, value);
+        checkValue(key, value);
+        final int position = positionOf(key);
+        if (position < 0) {
+            add(key, value);
+        } else {
+            values[position] = value;
+        }
     }
 
     public void put(DataLabel labels, Long value) {
-        data.put(labels.toString(), value);
+        put(labels.toString(), value);
     }
 
     /**
@@ -77,70 +113,102 @@ public class DataTable implements StorageDataComplexObject<DataTable> {
      * Accumulate the value with existing value in the same given key, and limit the data size.
      */
     public void valueAccumulation(String key, Long value, int maxDataSize) {
-        Long element = data.get(key);
-        if (element == null) {
-            if (maxDataSize > 0 && data.size() >= maxDataSize) {
+        checkValue(key, value);
+        accumulate(key, value, maxDataSize);
+    }
+
+    private void accumulate(String key, long value, int maxDataSize) {
+        final int position = positionOf(key);
+        if (position < 0) {
+            if (maxDataSize > 0 && size >= maxDataSize) {
                 return;
             }
-            element = value;
+            add(key, value);
         } else {
-            element += value;
+            values[position] += value;
         }
-        data.put(key, element);
     }
 
     /**
      * @return the sum of all values.
      */
     public long sumOfValues() {
-        return data.values().stream().mapToLong(element -> element).sum();
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
     }
 
     public boolean keysEqual(DataTable that) {
-        if (this.data.keySet().size() != that.data.keySet().size()) {
+        if (this.size != that.size) {
             return false;
         }
-        return this.data.keySet().equals(that.data.keySet());
+        for (int i = 0; i < size; i++) {
+            if (that.positionOf(keys[i]) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public List<String> sortedKeys(Comparator<String> keyComparator) {
-        return data.keySet().stream().sorted(keyComparator).collect(Collectors.toList());
+        final String[] sorted = Arrays.copyOf(keys, size);
+        Arrays.sort(sorted, keyComparator);
+        return Arrays.asList(sorted);
     }
 
     public List<Long> sortedValues(Comparator<String> keyComparator) {
-        final List<String> collect = data.keySet().stream().sorted(keyComparator).collect(Collectors.toList());
-        List<Long> values = new ArrayList<>(collect.size());
-        collect.forEach(key -> values.add(data.get(key)));
+        final List<String> sortedKeys = sortedKeys(keyComparator);
+        List<Long> values = new ArrayList<>(sortedKeys.size());
+        sortedKeys.forEach(key -> values.add(get(key)));
         return values;
     }
 
+    /**
+     * @return the keys in ascending numeric order. All keys must be integers, such as the buckets of the percentile
+     * and histogram metrics.
+     * @throws NumberFormatException if any key isn't an integer.
+     */
+    public List<String> sortedNumericKeys() {
+        if (!numericKeys) {
+            throw new NumberFormatException("Not all keys of the data table are integers");
+        }
+        final int[] order = numericOrder();
+        final String[] sorted = new String[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = keys[order[i]];
+        }
+        return Arrays.asList(sorted);
+    }
+
     public Set<String> keys() {
-        return data.keySet();
+        return new KeySet();
     }
 
     public boolean hasData() {
-        return !data.isEmpty();
+        return size > 0;
     }
 
     public boolean hasKey(String key) {
-        return data.containsKey(key);
+        return positionOf(key) >= 0;
     }
 
     public int size() {
-        return data.size();
+        return size;
     }
 
     @Override
     public String toStorageData() {
-        StringBuilder builder = new StringBuilder();
-
-        this.data.forEach((key, value) -> {
-            if (builder.length() != 0) {
-                // For the first element.
+        StringBuilder builder = new StringBuilder(size * 8);
+        final int[] order = numericKeys ? numericOrder() : null;
+        for (int i = 0; i < size; i++) {
+            final int position = order == null ? i : order[i];
+            if (i != 0) {
                 builder.append(Const.ARRAY_SPLIT);
             }
-            builder.append(key).append(Const.KEY_VALUE_SPLIT).append(value);
-        });
+            builder.append(keys[position]).append(Const.KEY_VALUE_SPLIT).append(values[position]);
+        }
         return builder.toString();
     }
 
@@ -153,7 +221,7 @@ public class DataTable implements StorageDataComplexObject<DataTable> {
                 String key = keyValue.substring(0, i);
                 String value = keyValue.substring(i + 1);
                 if (StringUtil.isNotEmpty(key) && StringUtil.isNotEmpty(value)) {
-                    this.data.put(key, Long.parseLong(value));
+                    this.put(key, Long.parseLong(value));
                 }
             }
         }
@@ -169,54 +237,42 @@ public class DataTable implements StorageDataComplexObject<DataTable> {
     }
 
     public DataTable append(DataTable dataTable, int maxDataSize) {
-        dataTable.data.forEach((key, value) -> {
-            Long current = this.data.get(key);
-            if (current == null) {
-                if (maxDataSize > 0 && data.size() >= maxDataSize) {
-                    return;
-                }
-                current = value;
-            } else {
-                current += value;
-            }
-            this.data.put(key, current);
-        });
+        for (int i = 0; i < dataTable.size; i++) {
+            accumulate(dataTable.keys[i], dataTable.values[i], maxDataSize);
+        }
         return this;
     }
 
     public DataTable setMaxValue(DataTable dataTable) {
-        dataTable.data.forEach((key, value) -> {
-            Long current = this.data.get(key);
-            if (current == null) {
-                current = value;
-            } else {
-                if (current < value) {
-                    current = value;
-                }
+        for (int i = 0; i < dataTable.size; i++) {
+            final long value = dataTable.values[i];
+            final int position = positionOf(dataTable.keys[i]);
+            if (position < 0) {
+                add(dataTable.keys[i], value);
+            } else if (values[position] < value) {
+                values[position] = value;
             }
-            this.data.put(key, current);
-        });
+        }
         return this;
     }
 
     public DataTable setMinValue(DataTable dataTable) {
-        dataTable.data.forEach((key, value) -> {
-            Long current = this.data.get(key);
-            if (current == null) {
-                current = value;
-            } else {
-                if (current > value) {
-                    current = value;
-                }
+        for (int i = 0; i < dataTable.size; i++) {
+            final long value = dataTable.values[i];
+            final int position = positionOf(dataTable.keys[i]);
+            if (position < 0) {
+                add(dataTable.keys[i], value);
+            } else if (values[position] > value) {
+                values[position] = value;
             }
-            this.data.put(key, current);
-        });
+        }
         return this;
     }
 
     public Map<String, Set<String>> buildLabelIndex() {
         Map<String, Set<String>> labelIndex = new HashMap<>();
-        for (String key : data.keySet()) {
+        for (int i = 0; i < size; i++) {
+            final String key = keys[i];
             if (key.startsWith(Const.LEFT_BRACE)) {
                 String labels = key.substring(1, key.length() - 1);
                 if (StringUtil.isNotEmpty(labels)) {
@@ -231,4 +287,241 @@ public class DataTable implements StorageDataComplexObject<DataTable> {
         }
         return labelIndex;
     }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DataTable)) {
+            return false;
+        }
+        final DataTable that = (DataTable) o;
+        if (this.size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            final int position = that.positionOf(keys[i]);
+            if (position < 0 || that.values[position] != values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as the hash code of a map, independent of the insertion order.
+        int hashCode = 0;
+        for (int i = 0; i < size; i++) {
+            hashCode += keys[i].hashCode() ^ Long.hashCode(values[i]);
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("DataTable(data={");
+        for (int i = 0; i < size; i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(keys[i]).append('=').append(values[i]);
+        }
+        return builder.append("})").toString();
+    }
+
+    /**
+     * The values are kept as primitives, so a null value is rejected instead of being stored.
+     */
+    private static void checkValue(String key, Long value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value of key " + key + " is null");
+        }
+    }
+
+    private int positionOf(String key) {
+        final int mask = index.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (true) {
+            final int position = index[slot] - 1;
+            if (position < 0) {
+                return -1;
+            }
+            if (keys[position].equals(key)) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void add(String key, long value) {
+        if (size == keys.length) {
+            final int capacity = size << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            keyNumbers = Arrays.copyOf(keyNumbers, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        if (numericKeys) {
+            numericKeys = parseNumber(key, size);
+        }
+        size++;
+        numericOrder = null;
+        if (size * 2 > index.length) {
+            rehash(index.length << 1);
+        } else {
+            insertIndex(size - 1);
+        }
+    }
+
+    private void rehash(int capacity) {
+        index = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            insertIndex(i);
+        }
+    }
+
+    private void insertIndex(int position) {
+        final int mask = index.length - 1;
+        int slot = spread(keys[position].hashCode()) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    /**
+     * Parse the key as a decimal integer without throwing, as most labeled keys aren't numbers. Accepts the same keys
+     * as {@link Long#parseLong(String)}, including the leading sign.
+     */
+    private boolean parseNumber(String key, int position) {
+        final int length = key.length();
+        if (length == 0) {
+            return false;
+        }
+        int i = 0;
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        final char first = key.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) {
+                return false;
+            }
+            if (first == '-') {
+                negative = true;
+                limit = Long.MIN_VALUE;
+            }
+            i = 1;
+        }
+        // Accumulate negatively as Long#parseLong does, so Long.MIN_VALUE doesn't overflow.
+        final long multiplyMin = limit / 10;
+        long number = 0;
+        for (; i < length; i++) {
+            final int digit = Character.digit(key.charAt(i), 10);
+            if (digit < 0 || number < multiplyMin) {
+                return false;
+            }
+            number *= 10;
+            if (number < limit + digit) {
+                return false;
+            }
+            number -= digit;
+        }
+        keyNumbers[position] = negative ? number : -number;
+        return true;
+    }
+
+    private int[] numericOrder() {
+        if (numericOrder == null) {
+            final int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            sortByNumber(order, new int[size], 0, size);
+            numericOrder = order;
+        }
+        return numericOrder;
+    }
+
+    private void sortByNumber(int[] order, int[] buffer, int from, int to) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                final int position = order[i];
+                final long number = keyNumbers[position];
+                int j = i - 1;
+                while (j >= from && keyNumbers[order[j]] > number) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = position;
+            }
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        sortByNumber(order, buffer, from, middle);
+        sortByNumber(order, buffer, middle, to);
+        if (keyNumbers[order[middle - 1]] <= keyNumbers[order[middle]]) {
+            // Buckets are usually appended in ascending order, already sorted halves need no merge.
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && keyNumbers[buffer[left]] <= keyNumbers[buffer[right]])) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static int indexCapacityFor(int capacity) {
+        int indexCapacity = 16;
+        while (indexCapacity < capacity * 2) {
+            indexCapacity <<= 1;
+        }
+        return indexCapacity;
+    }
+
+    /**
+     * A read-only view of the keys, in insertion order.
+     */
+    private class KeySet extends AbstractSet<String> {
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int cursor;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < size;
+                }
+
+                @Override
+                public String next() {
+                    if (cursor >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return keys[cursor++];
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            return o instanceof String && positionOf((String) o) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
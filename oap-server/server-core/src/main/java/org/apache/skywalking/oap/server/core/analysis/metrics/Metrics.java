@@ -166,6 +166,69 @@ public abstract class Metrics extends StreamData implements StorageData, ToJson
      */
     protected abstract StorageID id0();
 
+    private boolean identityHashed;
+    private long identityHash;
+
+    /**
+     * @return the hash of the identity of this metrics, consistent with {@link #identityEquals(Metrics)}. The hash is
+     * cached like the {@link #id()}, so the identity fields should not change after it is read.
+     */
+    public long identityHash() {
+        if (!identityHashed) {
+            identityHash = identityHash0();
+            identityHashed = true;
+        }
+        return identityHash;
+    }
+
+    /**
+     * The identity of the metrics in the aggregation buffers, which is the same as {@link #id0()}, but doesn't build
+     * the {@link StorageID}. The default implementation falls back to the {@link StorageID}, the generated OAL metrics
+     * and the meter functions override it with their ID fields.
+     *
+     * @return the 64-bit hash of the fields building {@link #id0()}.
+     */
+    protected long identityHash0() {
+        return mixIdentityHash(id().hashCode());
+    }
+
+    /**
+     * @return true if the given metrics represents the same entity in the same time bucket, i.e. their {@link #id()}s
+     * are same.
+     */
+    public boolean identityEquals(Metrics metrics) {
+        if (this == metrics) {
+            return true;
+        }
+        if (metrics == null || getClass() != metrics.getClass()) {
+            return false;
+        }
+        return id().equals(metrics.id());
+    }
+
+    /**
+     * Fold a field of the identity into the hash, see {@link #identityHash0()}.
+     */
+    protected static long combineIdentityHash(long hash, long value) {
+        return (hash ^ value) * 0x9E3779B97F4A7C15L;
+    }
+
+    protected static long combineIdentityHash(long hash, String value) {
+        return combineIdentityHash(hash, value == null ? 0 : value.hashCode());
+    }
+
+    /**
+     * The finalizer of MurmurHash3, to spread the combined fields over all bits.
+     */
+    protected static long mixIdentityHash(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
     /**
      * Field-by-field JSON payload for the dsl-debugging capture. Built
      * via Gson's {@link JsonObject} — explicit field selection without
@@ -107,7 +107,7 @@ public abstract class PercentileMetrics extends Metrics implements MultiIntValue
             }
 
             long count = 0;
-            final List<String> sortedKeys = dataset.sortedKeys(Comparator.comparingInt(Integer::parseInt));
+            final List<String> sortedKeys = dataset.sortedNumericKeys();
 
             int loopIndex = 0;
             for (String key : sortedKeys) {
@@ -18,7 +18,6 @@
 
 package org.apache.skywalking.oap.server.core.analysis.metrics;
 
-import java.util.Comparator;
 import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
@@ -106,7 +105,7 @@ public abstract class PercentileMetrics2 extends Metrics implements LabeledValue
             }
 
             long count = 0;
-            final List<String> sortedKeys = dataset.sortedKeys(Comparator.comparingInt(Integer::parseInt));
+            final List<String> sortedKeys = dataset.sortedNumericKeys();
 
             int loopIndex = 0;
             for (String key : sortedKeys) {
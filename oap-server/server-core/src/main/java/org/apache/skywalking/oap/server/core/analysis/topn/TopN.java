@@ -18,18 +18,23 @@
 
 package org.apache.skywalking.oap.server.core.analysis.topn;
 
+import com.google.common.base.Strings;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.oap.server.core.analysis.record.Record;
+import org.apache.skywalking.oap.server.core.remote.Deserializable;
+import org.apache.skywalking.oap.server.core.remote.Serializable;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.storage.ComparableStorageData;
 import org.apache.skywalking.oap.server.core.storage.annotation.BanyanDB;
 import org.apache.skywalking.oap.server.core.storage.annotation.Column;
 import org.apache.skywalking.oap.server.core.storage.annotation.ElasticSearch;
 
 /**
- * TopN data.
+ * TopN data. It is serializable to be merged cross OAP nodes, see {@link TopNRemoteData}, the implementations append
+ * their own fields after the common ones.
  */
-public abstract class TopN extends Record implements ComparableStorageData {
+public abstract class TopN extends Record implements ComparableStorageData, Serializable, Deserializable {
     public static final String STATEMENT = "statement";
     public static final String LATENCY = "latency";
     public static final String TRACE_ID = "trace_id";
@@ -61,6 +66,28 @@ public abstract class TopN extends Record implements ComparableStorageData {
     @Override
     public int compareTo(Object o) {
         TopN target = (TopN) o;
-        return (int) (latency - target.latency);
+        return Long.compare(latency, target.latency);
+    }
+
+    @Override
+    public RemoteData.Builder serialize() {
+        final RemoteData.Builder remoteBuilder = RemoteData.newBuilder();
+        remoteBuilder.addDataLongs(getTimeBucket());
+        remoteBuilder.addDataLongs(latency);
+        remoteBuilder.addDataLongs(timestamp);
+        remoteBuilder.addDataStrings(Strings.nullToEmpty(entityId));
+        remoteBuilder.addDataStrings(Strings.nullToEmpty(traceId));
+        // The trace id is optional, the flag keeps the null apart from the empty string.
+        remoteBuilder.addDataIntegers(traceId == null ? 0 : 1);
+        return remoteBuilder;
+    }
+
+    @Override
+    public void deserialize(final RemoteData remoteData) {
+        setTimeBucket(remoteData.getDataLongs(0));
+        setLatency(remoteData.getDataLongs(1));
+        setTimestamp(remoteData.getDataLongs(2));
+        setEntityId(remoteData.getDataStrings(0));
+        setTraceId(remoteData.getDataIntegers(0) == 1 ? remoteData.getDataStrings(1) : null);
     }
 }
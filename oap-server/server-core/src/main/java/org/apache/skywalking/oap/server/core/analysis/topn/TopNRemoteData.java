@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import java.util.Objects;
+import lombok.Getter;
+import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+
+/**
+ * TopNRemoteData carries a {@link TopN} record to the OAP node merging the top N records of its entity. The records
+ * are routed by the entity ID, so the records of one group are always merged in the same node.
+ * <p>
+ * The stream data is created by the remote handler through the default constructor, which doesn't know the TopN
+ * type, so the received {@link RemoteData} is kept and restored by {@link #restore(TopN)}.
+ */
+public class TopNRemoteData extends StreamData {
+    @Getter
+    private TopN topN;
+    private RemoteData remoteData;
+
+    public TopNRemoteData() {
+    }
+
+    public TopNRemoteData(final TopN topN) {
+        this.topN = topN;
+    }
+
+    @Override
+    public int remoteHashCode() {
+        return Objects.hashCode(topN.getEntityId());
+    }
+
+    @Override
+    public RemoteData.Builder serialize() {
+        return topN.serialize();
+    }
+
+    @Override
+    public void deserialize(final RemoteData remoteData) {
+        this.remoteData = remoteData;
+    }
+
+    /**
+     * Restore the received record into the given instance.
+     *
+     * @param topN the empty instance of the TopN type
+     * @return the given instance
+     */
+    public TopN restore(final TopN topN) {
+        topN.deserialize(remoteData);
+        this.topN = topN;
+        return topN;
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.core.analysis.worker;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +76,10 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
     private final long l1FlushPeriod;
     private final AbstractWorker<Metrics> nextWorker;
     private final MergableBufferedData<Metrics> mergeDataCache;
+    /**
+     * Reused by every flush of the L1 handler thread, the merged metrics are only held in it during the flush.
+     */
+    private final List<Metrics> flushBatch = new ArrayList<>();
     private final CounterMetrics abandonCounter;
     private final CounterMetrics aggregationCounter;
     private final Class<? extends Metrics> metricsClass;
@@ -91,7 +96,6 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
                            final Class<? extends Metrics> metricsClass) {
         super(moduleDefineHolder);
         this.nextWorker = nextWorker;
-        this.mergeDataCache = new MergableBufferedData<>();
         this.l1FlushPeriod = l1FlushPeriod;
         this.metricsClass = metricsClass;
         this.modelName = modelName;
@@ -100,6 +104,18 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
         final MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
                                                                 .provider()
                                                                 .getService(MetricsCreator.class);
+        this.mergeDataCache = new MergableBufferedData<>(
+            metricsCreator.createGauge(
+                "metrics_aggregation_buffer_size", "The number of metrics merged in the aggregation buffer of a round.",
+                new MetricsTag.Keys("metricName", "level", "dimensionality"),
+                new MetricsTag.Values(modelName, "1", "minute")
+            ),
+            metricsCreator.createGauge(
+                "metrics_aggregation_buffer_load_factor", "The load factor of the aggregation buffer of a round.",
+                new MetricsTag.Keys("metricName", "level", "dimensionality"),
+                new MetricsTag.Values(modelName, "1", "minute")
+            )
+        );
         abandonCounter = metricsCreator.createCounter(
             "metrics_aggregator_abandon", "The abandon number of rows received in aggregation.",
             new MetricsTag.Keys("metricName", "level", "dimensionality"),
@@ -178,11 +194,20 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
     private void flush() {
         final long currentTime = System.currentTimeMillis();
         if (currentTime - lastSendTime > l1FlushPeriod) {
-            mergeDataCache.read().forEach(nextWorker::in);
+            sendMergedMetrics(flushBatch);
             lastSendTime = currentTime;
         }
     }
 
+    private void sendMergedMetrics(final List<Metrics> batch) {
+        try {
+            mergeDataCache.read(batch);
+            batch.forEach(nextWorker::in);
+        } finally {
+            batch.clear();
+        }
+    }
+
     /**
      * Drain and deregister this worker's L1 handler for hot-remove (MAL/LAL runtime rule
      * removal). Flushes any in-flight merged metrics from {@link #mergeDataCache} to the next
@@ -198,8 +223,9 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
      * same L1 queue — the runtime-rule module serializes via its per-file lock.
      */
     public void drainAndDeregister() {
-        // Unconditional flush: ignore lastSendTime so no merged data is left behind.
-        mergeDataCache.read().forEach(nextWorker::in);
+        // Unconditional flush: ignore lastSendTime so no merged data is left behind. Called by the runtime-rule
+        // thread, so it doesn't share the reusable batch of the L1 handler thread.
+        sendMergedMetrics(new ArrayList<>());
         lastSendTime = System.currentTimeMillis();
         l1Queue.removeHandler(metricsClass);
     }
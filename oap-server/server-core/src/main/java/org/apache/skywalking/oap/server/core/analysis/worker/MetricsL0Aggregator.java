@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+
+/**
+ * MetricsL0Aggregator merges the metrics in the threads generating them, before they are sent into the shared queue
+ * of the L1 aggregation, see {@link MetricsAggregateWorker}. The OAL dispatchers build a metrics object for every
+ * source, while most of them are of the same entities in the same time bucket, merging them in place saves most of
+ * the queue operations and the objects held by the queue.
+ * <p>
+ * Every thread has a small buffer, which is flushed into the L1 aggregation when it reaches the max size, or has
+ * been kept for a flush period. The buffers of the threads not receiving sources anymore are flushed by {@link
+ * #flushIdle()}.
+ * <p>
+ * Once {@link #close()} is called, the metrics are not merged anymore but sent to the L1 aggregation directly, so the
+ * threads still holding this aggregator don't lose their metrics.
+ */
+public class MetricsL0Aggregator {
+    private final int maxSize;
+    private final long flushPeriod;
+    private final Consumer<Metrics> nextStage;
+    private final LongSupplier clock;
+    private final ThreadLocal<Buffer> buffers;
+    /**
+     * All buffers of the threads, to flush the buffers of the idle threads.
+     */
+    private final Set<Buffer> allBuffers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param maxSize     the max number of the metrics merged in the buffer of a thread.
+     * @param flushPeriod the max period of the metrics kept in the buffer of a thread. Unit is ms.
+     * @param nextStage   the L1 aggregation.
+     */
+    public MetricsL0Aggregator(final int maxSize, final long flushPeriod, final Consumer<Metrics> nextStage) {
+        this(maxSize, flushPeriod, nextStage, System::currentTimeMillis);
+    }
+
+    MetricsL0Aggregator(final int maxSize,
+                        final long flushPeriod,
+                        final Consumer<Metrics> nextStage,
+                        final LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.flushPeriod = flushPeriod;
+        this.nextStage = nextStage;
+        this.clock = clock;
+        this.buffers = ThreadLocal.withInitial(() -> {
+            final Buffer buffer = new Buffer(Thread.currentThread(), clock.getAsLong());
+            allBuffers.add(buffer);
+            return buffer;
+        });
+    }
+
+    public void in(final Metrics metrics) {
+        final Buffer buffer = buffers.get();
+        final boolean open;
+        List<Metrics> batch = null;
+        // Only contended with the flush of the idle buffers.
+        buffer.lock.lock();
+        try {
+            // Checked under the lock, so the metrics are never left in a buffer already flushed by the close.
+            open = !closed;
+            if (open) {
+                final MergableBufferedData<Metrics> data = buffer.data.computeIfAbsent(
+                    metrics.getClass(), clazz -> new MergableBufferedData<>());
+                final int merged = data.size();
+                data.accept(metrics);
+                buffer.size += data.size() - merged;
+                if (buffer.size >= maxSize || clock.getAsLong() - buffer.lastFlushTime >= flushPeriod) {
+                    batch = drain(buffer);
+                }
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+        if (!open) {
+            nextStage.accept(metrics);
+            return;
+        }
+        if (batch != null) {
+            batch.forEach(nextStage);
+        }
+    }
+
+    /**
+     * Flush the buffers which are not flushed in the last flush period, as their threads stop receiving the sources.
+     * The buffers of the terminated threads are dropped after being flushed.
+     */
+    public void flushIdle() {
+        flush(false);
+    }
+
+    /**
+     * Flush the buffers of all threads, such as at shutdown.
+     */
+    public void flushAll() {
+        flush(true);
+    }
+
+    /**
+     * Stop merging the metrics and flush the buffers of all threads. The metrics received after closing are sent to
+     * the L1 aggregation directly.
+     */
+    public void close() {
+        closed = true;
+        flush(true);
+    }
+
+    private void flush(final boolean all) {
+        final long now = clock.getAsLong();
+        for (final Buffer buffer : allBuffers) {
+            if (!all && now - buffer.lastFlushTime < flushPeriod && buffer.owner.isAlive()) {
+                continue;
+            }
+            final List<Metrics> batch;
+            buffer.lock.lock();
+            try {
+                batch = drain(buffer);
+            } finally {
+                buffer.lock.unlock();
+            }
+            // Out of the lock, as the L1 aggregation could block the producers when its queue is full.
+            batch.forEach(nextStage);
+            if (!buffer.owner.isAlive()) {
+                allBuffers.remove(buffer);
+            }
+        }
+    }
+
+    /**
+     * Move the merged metrics out of the buffer, should be called with the lock of the buffer held.
+     */
+    private List<Metrics> drain(final Buffer buffer) {
+        buffer.lastFlushTime = clock.getAsLong();
+        if (buffer.size == 0) {
+            return Collections.emptyList();
+        }
+        final List<Metrics> batch = new ArrayList<>(buffer.size);
+        buffer.size = 0;
+        for (final MergableBufferedData<Metrics> data : buffer.data.values()) {
+            data.read(batch);
+        }
+        return batch;
+    }
+
+    private static class Buffer {
+        private final Thread owner;
+        private final ReentrantLock lock = new ReentrantLock();
+        /**
+         * The metrics are merged by the classes, as the metrics of an entity share the same identity hash.
+         */
+        private final Map<Class<?>, MergableBufferedData<Metrics>> data = new IdentityHashMap<>();
+        private int size;
+        private volatile long lastFlushTime;
+
+        private Buffer(final Thread owner, final long lastFlushTime) {
+            this.owner = owner;
+            this.lastFlushTime = lastFlushTime;
+        }
+    }
+}
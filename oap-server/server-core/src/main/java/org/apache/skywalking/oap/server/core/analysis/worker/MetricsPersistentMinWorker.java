@@ -84,11 +84,11 @@ public class MetricsPersistentMinWorker extends MetricsPersistentWorker {
     MetricsPersistentMinWorker(ModuleDefineHolder moduleDefineHolder, Model model, IMetricsDAO metricsDAO,
                                AbstractWorker<Metrics> nextAlarmWorker, AbstractWorker<ExportEvent> nextExportWorker,
                                MetricsTransWorker transWorker, boolean supportUpdate,
-                               long storageSessionTimeout, int metricsDataTTL, MetricStreamKind kind,
-                               Class<? extends Metrics> metricsClass) {
+                               long storageSessionTimeout, long storageSessionCacheMaxSize, int metricsDataTTL,
+                               MetricStreamKind kind, Class<? extends Metrics> metricsClass) {
         super(
             moduleDefineHolder, model, metricsDAO, nextAlarmWorker, nextExportWorker, transWorker, supportUpdate,
-            storageSessionTimeout, metricsDataTTL, kind
+            storageSessionTimeout, storageSessionCacheMaxSize, metricsDataTTL, kind
         );
 
         this.l2Queue = BatchQueueManager.getOrCreate(L2_QUEUE_NAME, L2_QUEUE_CONFIG);
@@ -79,6 +79,22 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * The metrics persistent collection cached size
      */
     private final GaugeMetrics collectionCachedSizeGauge;
+    /**
+     * Reused by every round, the metrics are only held in it while the batch requests are being built.
+     */
+    private final List<Metrics> lastCollection = new ArrayList<>();
+    /**
+     * The number of metrics in the session cache.
+     */
+    private final GaugeMetrics sessionCacheSizeGauge;
+    /**
+     * The counter of metrics removed from the session cache due to expiry.
+     */
+    private final CounterMetrics expiredCacheCounter;
+    /**
+     * The counter of metrics evicted from the session cache due to the size limit.
+     */
+    private final CounterMetrics evictedCacheCounter;
     /**
      * The counter for the round of persistent.
      */
@@ -108,11 +124,14 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     protected MetricsPersistentWorker(ModuleDefineHolder moduleDefineHolder, Model model, IMetricsDAO metricsDAO,
                                   AbstractWorker<Metrics> nextAlarmWorker, AbstractWorker<ExportEvent> nextExportWorker,
                                   MetricsTransWorker transWorker, boolean supportUpdate,
-                                  long storageSessionTimeout, int metricsDataTTL, MetricStreamKind kind) {
-        super(moduleDefineHolder, new ReadWriteSafeCache<>(new MergableBufferedData(), new MergableBufferedData()));
+                                  long storageSessionTimeout, long storageSessionCacheMaxSize,
+                                  int metricsDataTTL, MetricStreamKind kind) {
+        super(moduleDefineHolder, new ReadWriteSafeCache<>(
+            newMergeBuffer(moduleDefineHolder, model), newMergeBuffer(moduleDefineHolder, model)));
         this.model = model;
         this.storageSessionTimeout = storageSessionTimeout;
-        this.sessionCache = new MetricsSessionCache(storageSessionTimeout, supportUpdate);
+        this.sessionCache = new MetricsSessionCache(
+            storageSessionTimeout, supportUpdate, model.isTimeRelativeID(), storageSessionCacheMaxSize);
         this.metricsDAO = metricsDAO;
         this.nextAlarmWorker = Optional.ofNullable(nextAlarmWorker);
         this.nextExportWorker = Optional.ofNullable(nextExportWorker);
@@ -143,6 +162,42 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             new MetricsTag.Keys("metricName", "dimensionality", "kind"),
             new MetricsTag.Values(model.getName(), model.getDownsampling().getName(), kind.name())
         );
+        sessionCacheSizeGauge = metricsCreator.createGauge(
+            "metrics_persistent_session_cache_size", "The number of metrics in the session cache.",
+            new MetricsTag.Keys("metricName", "dimensionality"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName())
+        );
+        expiredCacheCounter = metricsCreator.createCounter(
+            "metrics_persistent_session_cache_removed", "The number of metrics removed from the session cache.",
+            new MetricsTag.Keys("metricName", "dimensionality", "reason"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName(), "expired")
+        );
+        evictedCacheCounter = metricsCreator.createCounter(
+            "metrics_persistent_session_cache_removed", "The number of metrics removed from the session cache.",
+            new MetricsTag.Keys("metricName", "dimensionality", "reason"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName(), "oversize")
+        );
+    }
+
+    /**
+     * Both buffers of the read/write cache report to the same gauges, as only one of them is read in a round.
+     */
+    private static MergableBufferedData<Metrics> newMergeBuffer(ModuleDefineHolder moduleDefineHolder, Model model) {
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        return new MergableBufferedData<>(
+            metricsCreator.createGauge(
+                "metrics_aggregation_buffer_size", "The number of metrics merged in the aggregation buffer of a round.",
+                new MetricsTag.Keys("metricName", "level", "dimensionality"),
+                new MetricsTag.Values(model.getName(), "2", model.getDownsampling().getName())
+            ),
+            metricsCreator.createGauge(
+                "metrics_aggregation_buffer_load_factor", "The load factor of the aggregation buffer of a round.",
+                new MetricsTag.Keys("metricName", "level", "dimensionality"),
+                new MetricsTag.Values(model.getName(), "2", model.getDownsampling().getName())
+            )
+        );
     }
 
     /**
@@ -153,11 +208,12 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                             IMetricsDAO metricsDAO,
                             boolean supportUpdate,
                             long storageSessionTimeout,
+                            long storageSessionCacheMaxSize,
                             int metricsDataTTL,
                             MetricStreamKind kind) {
         this(moduleDefineHolder, model, metricsDAO,
              null, null, null,
-             supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+             supportUpdate, storageSessionTimeout, storageSessionCacheMaxSize, metricsDataTTL, kind
         );
         // For a down-sampling metrics, we prolong the session timeout for 4 times, nearly 5 minutes.
         sessionCache.setTimeoutThreshold(storageSessionTimeout * 4);
@@ -198,9 +254,17 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * hot-remove, where any pending data must be submitted to storage before the worker is
      * dropped — regardless of whether this tick would otherwise be a skip-tick.
      */
-    private List<PrepareRequest> buildBatchRequestsUnconditionally() {
-        final List<Metrics> lastCollection = getCache().read();
+    private synchronized List<PrepareRequest> buildBatchRequestsUnconditionally() {
+        // Synchronized as the hot-remove drain could run along with the persistence timer, they share the batch.
+        try {
+            getCache().read(lastCollection);
+            return prepareBatchRequests(lastCollection);
+        } finally {
+            lastCollection.clear();
+        }
+    }
 
+    private List<PrepareRequest> prepareBatchRequests(final List<Metrics> lastCollection) {
         long start = System.currentTimeMillis();
         if (lastCollection.size() == 0) {
             return Collections.emptyList();
@@ -355,7 +419,9 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
 
     @Override
     public void endOfRound() {
-        sessionCache.removeExpired();
+        expiredCacheCounter.inc(sessionCache.removeExpired());
+        evictedCacheCounter.inc(sessionCache.evictOversize());
+        sessionCacheSizeGauge.setValue(sessionCache.size());
     }
 
     /**
@@ -397,6 +463,12 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             return null;
         }
 
+        // The time bucket had been evicted from the cache due to the size limit,
+        // the metrics could exist in the database.
+        if (sessionCache.isEvicted(metrics)) {
+            return null;
+        }
+
         // When
         // (1) the time bucket of the server's latest stability status is provided
         //     1.1 The OAP has booted successfully
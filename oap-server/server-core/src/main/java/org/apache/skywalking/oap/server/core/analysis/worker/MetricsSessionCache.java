@@ -24,7 +24,9 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.AccessLevel;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.analysis.MetricsExtension;
+import org.apache.skywalking.oap.server.core.analysis.data.TimeBucketSegmentedMap;
 import org.apache.skywalking.oap.server.core.analysis.manual.service.ServiceTraffic;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.storage.IMetricsDAO;
@@ -41,38 +43,85 @@ import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
  * 1. Metrics is read from the Database through {@link MetricsPersistentWorker}.loadFromStorage
  * 2. The built {@link InsertRequest} executed successfully.
  *
- * There are two cases to remove metrics from the cache.
+ * There are three cases to remove metrics from the cache.
  * 1. The metrics expired.
  * 2. The built {@link UpdateRequest} executed failure, which could be caused
  * (1) Database error. (2) No data updated, such as the counter of update statement is 0 in JDBC.
+ * 3. The cache holds more metrics than the max size, the oldest time buckets are evicted. The latest time bucket is
+ * never evicted, even if it holds more metrics than the max size on its own.
+ *
+ * For the model with time relative ID, the cache is segmented by the time bucket of metrics, so the idle or evicted
+ * time buckets are dropped as a whole, only the metrics of the active time buckets are checked one by one. The time bucket of the latest eviction
+ * is kept, the worker reads the metrics of the evicted time buckets from the database again rather than treating them
+ * as new ones. For other models, the metrics are checked one by one, and the new metrics are not cached once the
+ * cache is full, the missing ones are always read from the database.
  *
  * @since 9.4.0 Created this from MetricsPersistentWorker.sessionCache.
  */
+@Slf4j
 public class MetricsSessionCache {
+    /**
+     * The segments of the time relative ID model, key is the time bucket of the metrics in the segment.
+     */
+    private final TimeBucketSegmentedMap<Metrics, Metrics> segments;
+    /**
+     * The cache of the model without time relative ID.
+     */
     private final Map<Metrics, Metrics> sessionCache;
     @Setter(AccessLevel.PACKAGE)
     private long timeoutThreshold;
     private final boolean supportUpdate;
+    private final boolean timeRelativeID;
+    /**
+     * The max number of metrics in the cache, 0 means no limit.
+     */
+    private final long maxSize;
+    /**
+     * The latest time bucket evicted due to the size limit.
+     */
+    private volatile long evictedTimeBucket = 0;
+    /**
+     * The latest time bucket reported as oversize, to log the warning once per time bucket.
+     */
+    private long oversizeTimeBucket = 0;
 
-    public MetricsSessionCache(long timeoutThreshold, final boolean supportUpdate) {
+    public MetricsSessionCache(long timeoutThreshold, final boolean supportUpdate,
+                               final boolean timeRelativeID, final long maxSize) {
         // Due to the cache would be updated depending on final storage implementation,
         // the map/cache could be updated concurrently.
         // Set to ConcurrentHashMap in order to avoid HashMap deadlock.
         // Since 9.3.0
         this.sessionCache = new ConcurrentHashMap<>(100);
+        this.segments = new TimeBucketSegmentedMap<>();
         this.timeoutThreshold = timeoutThreshold;
         this.supportUpdate = supportUpdate;
+        this.timeRelativeID = timeRelativeID;
+        this.maxSize = maxSize;
     }
 
     Metrics get(Metrics metrics) {
+        if (timeRelativeID) {
+            return segments.get(metrics.getTimeBucket(), metrics);
+        }
         return sessionCache.get(metrics);
     }
 
     public Metrics remove(Metrics metrics) {
+        if (timeRelativeID) {
+            return segments.remove(metrics.getTimeBucket(), metrics);
+        }
         return sessionCache.remove(metrics);
     }
 
     public void put(Metrics metrics) {
+        if (timeRelativeID) {
+            segments.put(metrics.getTimeBucket(), metrics, metrics);
+            return;
+        }
+        if (maxSize > 0 && sessionCache.size() >= maxSize && !sessionCache.containsKey(metrics)) {
+            // The missing metrics are read from the database, no need to evict the cached ones.
+            return;
+        }
         sessionCache.put(metrics, metrics);
     }
 
@@ -94,15 +143,82 @@ public class MetricsSessionCache {
         // Don't add into the cache. Rely on multiGet from Database.
     }
 
-    void removeExpired() {
-        Iterator<Metrics> iterator = sessionCache.values().iterator();
+    /**
+     * @return true if the time bucket of the metrics had been evicted due to the size limit, the metrics should be
+     * read from the database rather than treated as new.
+     */
+    boolean isEvicted(Metrics metrics) {
+        return timeRelativeID && metrics.getTimeBucket() <= evictedTimeBucket;
+    }
+
+    /**
+     * @return the number of metrics in the cache.
+     */
+    long size() {
+        if (timeRelativeID) {
+            return segments.size();
+        }
+        return sessionCache.size();
+    }
+
+    /**
+     * Remove the metrics not updated in {@link #timeoutThreshold}. For the time relative ID model, a time bucket none of
+     * whose metrics is read or updated is removed as a whole, the idle metrics of the other time buckets are removed one
+     * by one.
+     *
+     * @return the number of removed metrics.
+     */
+    int removeExpired() {
         long timestamp = System.currentTimeMillis();
+        if (timeRelativeID) {
+            return segments.removeIdle(timestamp, timeoutThreshold);
+        }
+        int removed = 0;
+        Iterator<Metrics> iterator = sessionCache.values().iterator();
         while (iterator.hasNext()) {
             Metrics metrics = iterator.next();
 
             if (metrics.isExpired(timestamp, timeoutThreshold)) {
                 iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Evict the oldest time buckets until the cache size is under {@link #maxSize}. The latest time bucket is kept even
+     * if it is oversize, as evicting it would send every following metrics of the live time bucket to the database.
+     *
+     * @return the number of evicted metrics.
+     */
+    int evictOversize() {
+        if (!timeRelativeID || maxSize <= 0) {
+            return 0;
+        }
+        int evicted = 0;
+        long size = size();
+        while (size > maxSize) {
+            final Long oldest = segments.firstTimeBucket();
+            final Long latest = segments.lastTimeBucket();
+            if (oldest == null || latest == null) {
+                break;
+            }
+            if (oldest >= latest) {
+                if (oversizeTimeBucket != latest) {
+                    oversizeTimeBucket = latest;
+                    log.warn(
+                        "The metrics session cache holds {} metrics of time bucket {}, over the max size {}, "
+                            + "the latest time bucket is kept in the cache.", size, latest, maxSize);
+                }
+                break;
             }
+            // Mark before dropping, the metrics of this time bucket must be read from the database since now.
+            evictedTimeBucket = Math.max(evictedTimeBucket, oldest);
+            final int segmentSize = segments.removeBefore(oldest + 1, null);
+            evicted += segmentSize;
+            size -= segmentSize;
         }
+        return evicted;
     }
 }
@@ -45,6 +45,7 @@ import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
 import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+import org.apache.skywalking.oap.server.library.util.RunnableWithExceptionProtection;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -52,6 +53,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -132,11 +136,77 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
      */
     @Setter
     private long storageSessionTimeout = 70_000;
+    /**
+     * The max number of metrics cached in the session cache of every persistent worker. 0 means no limit.
+     */
+    @Setter
+    private long storageSessionCacheMaxSize = 0;
+
+    /**
+     * The L0 aggregation of the OAL dispatchers, null means disabled.
+     */
+    private volatile MetricsL0Aggregator l0Aggregator;
+    private ScheduledExecutorService l0Flusher;
 
     public static MetricsStreamProcessor getInstance() {
         return PROCESSOR;
     }
 
+    /**
+     * Enable the L0 aggregation of the metrics generated by the OAL dispatchers, see {@link MetricsL0Aggregator}.
+     *
+     * @param maxSize     the max number of the metrics merged in every thread, 0 means disabled.
+     * @param flushPeriod the max period of the metrics kept in every thread. Unit is ms.
+     */
+    public synchronized void enableL0Aggregation(int maxSize, long flushPeriod) {
+        if (maxSize <= 0 || l0Aggregator != null) {
+            return;
+        }
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(maxSize, flushPeriod, this::in);
+        l0Flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "MetricsL0AggregationFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        l0Flusher.scheduleWithFixedDelay(
+            new RunnableWithExceptionProtection(
+                aggregator::flushIdle,
+                t -> log.error("Flush the L0 aggregation failure.", t)
+            ), flushPeriod, flushPeriod, TimeUnit.MILLISECONDS
+        );
+        l0Aggregator = aggregator;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::disableL0Aggregation, "MetricsL0Aggregation-shutdown"));
+    }
+
+    /**
+     * Stop the flusher of the L0 aggregation, the following metrics go to the L1 aggregation directly, and the metrics
+     * kept in the threads are flushed.
+     */
+    public synchronized void disableL0Aggregation() {
+        final MetricsL0Aggregator aggregator = l0Aggregator;
+        if (aggregator == null) {
+            return;
+        }
+        l0Aggregator = null;
+        l0Flusher.shutdownNow();
+        l0Flusher = null;
+        // The threads which read the aggregator before it is removed send the metrics to the L1 aggregation directly.
+        aggregator.close();
+    }
+
+    /**
+     * The entrance of the OAL dispatchers, the metrics are merged in the current thread before {@link #in(Metrics)},
+     * if the L0 aggregation is enabled.
+     */
+    public void inL0(Metrics metrics) {
+        final MetricsL0Aggregator aggregator = l0Aggregator;
+        if (aggregator == null) {
+            in(metrics);
+            return;
+        }
+        aggregator.in(metrics);
+    }
+
     @Override
     public void in(Metrics metrics) {
         MetricsAggregateWorker worker = entryWorkers.get(metrics.getClass());
@@ -319,7 +389,7 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
 
         MetricsPersistentMinWorker minutePersistentWorker = new MetricsPersistentMinWorker(
             moduleDefineHolder, model, metricsDAO, alarmNotifyWorker, exportWorker, transWorker,
-            supportUpdate, storageSessionTimeout, metricsDataTTL, kind, metricsClass
+            supportUpdate, storageSessionTimeout, storageSessionCacheMaxSize, metricsDataTTL, kind, metricsClass
         );
         persistentWorkers.add(minutePersistentWorker);
 
@@ -334,7 +404,7 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
                                                        int metricsDataTTL) {
         MetricsPersistentWorker persistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO,
-            supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+            supportUpdate, storageSessionTimeout, storageSessionCacheMaxSize, metricsDataTTL, kind
         );
         persistentWorkers.add(persistentWorker);
 
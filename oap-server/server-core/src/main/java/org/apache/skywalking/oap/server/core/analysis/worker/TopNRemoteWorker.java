@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.analysis.data.LimitedSizeBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.ReadWriteSafeCache;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopN;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRemoteData;
+import org.apache.skywalking.oap.server.core.remote.RemoteSenderService;
+import org.apache.skywalking.oap.server.core.remote.selector.Selector;
+import org.apache.skywalking.oap.server.library.batchqueue.BatchQueue;
+import org.apache.skywalking.oap.server.library.batchqueue.BatchQueueManager;
+import org.apache.skywalking.oap.server.library.batchqueue.HandlerConsumer;
+import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
+import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+
+/**
+ * TopNRemoteWorker is the L1 of the top N records merged cross the cluster. It keeps the local top N records of each
+ * group, and forwards them to the {@link TopNWorker} of the OAP node owning the entity in every persistence round,
+ * so only the top N records of this node are sent, rather than all of them.
+ */
+@Slf4j
+public class TopNRemoteWorker extends PersistenceWorker<TopN> {
+    private static final String TOPN_L1_QUEUE_NAME = "TOPN_L1_AGGREGATION";
+
+    private final RemoteSenderService remoteSender;
+    private final String remoteReceiverWorkerName;
+    private final BatchQueue<TopN> topNQueue;
+    private final List<TopN> lastCollection = new ArrayList<>();
+
+    TopNRemoteWorker(ModuleDefineHolder moduleDefineHolder, int topNSize, String remoteReceiverWorkerName,
+                     Class<? extends TopN> topNClass) {
+        super(
+            moduleDefineHolder,
+            new ReadWriteSafeCache<>(new LimitedSizeBufferedData<>(topNSize), new LimitedSizeBufferedData<>(topNSize))
+        );
+        this.remoteSender = moduleDefineHolder.find(CoreModule.NAME).provider().getService(RemoteSenderService.class);
+        this.remoteReceiverWorkerName = remoteReceiverWorkerName;
+        this.topNQueue = BatchQueueManager.getOrCreate(TOPN_L1_QUEUE_NAME, TopNWorker.TOPN_QUEUE_CONFIG);
+
+        topNQueue.addHandler(topNClass, new TopNHandler());
+    }
+
+    /**
+     * Send the local top N records to the L2 nodes. Nothing is persisted by this worker.
+     */
+    @Override
+    public synchronized List<PrepareRequest> buildBatchRequests() {
+        try {
+            getCache().read(lastCollection);
+            for (final TopN record : lastCollection) {
+                try {
+                    remoteSender.send(remoteReceiverWorkerName, new TopNRemoteData(record), Selector.HashCode);
+                } catch (Throwable t) {
+                    log.error(t.getMessage(), t);
+                }
+            }
+        } finally {
+            lastCollection.clear();
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void endOfRound() {
+    }
+
+    @Override
+    public void in(TopN n) {
+        topNQueue.produce(n);
+    }
+
+    private class TopNHandler implements HandlerConsumer<TopN> {
+        @Override
+        public void consume(List<TopN> data) {
+            onWork(data);
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.skywalking.oap.server.core.analysis.Stream;
 import org.apache.skywalking.oap.server.core.analysis.StreamProcessor;
 import org.apache.skywalking.oap.server.core.analysis.record.Record;
 import org.apache.skywalking.oap.server.core.analysis.topn.TopN;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRemoteData;
 import org.apache.skywalking.oap.server.core.storage.IRecordDAO;
 import org.apache.skywalking.oap.server.core.storage.StorageBuilderFactory;
 import org.apache.skywalking.oap.server.core.storage.StorageDAO;
@@ -42,24 +43,34 @@ import org.apache.skywalking.oap.server.core.storage.model.Model;
 import org.apache.skywalking.oap.server.core.storage.model.ModelRegistry;
 import org.apache.skywalking.oap.server.core.storage.model.StorageManipulationOpt;
 import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
+import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 
 /**
  * TopN is a special process, which hold a certain size of windows, and cache all top N records, save to the persistence
  * in low frequency.
+ * <p>
+ * When {@link #clusterMerge} is activated, every node keeps its local top N records in the {@link TopNRemoteWorker},
+ * and the {@link TopNWorker} of the node owning the entity merges them into the cluster-wide top N records.
  */
 public class TopNStreamProcessor implements StreamProcessor<TopN> {
 
     private static final TopNStreamProcessor PROCESSOR = new TopNStreamProcessor();
 
     @Getter
-    private List<TopNWorker> persistentWorkers = new ArrayList<>();
-    private Map<Class<? extends Record>, TopNWorker> workers = new HashMap<>();
+    private List<PersistenceWorker<TopN>> persistentWorkers = new ArrayList<>();
+    private Map<Class<? extends Record>, PersistenceWorker<TopN>> workers = new HashMap<>();
     @Getter
     private int topNWorkerReportCycle = 10;
     @Setter
     @Getter
     private int topSize = 50;
+    /**
+     * Merge the top N records of all OAP nodes before persistence, rather than persisting the top N of every node.
+     */
+    @Setter
+    @Getter
+    private boolean clusterMerge = false;
 
     public static TopNStreamProcessor getInstance() {
         return PROCESSOR;
@@ -100,12 +111,29 @@ public class TopNStreamProcessor implements StreamProcessor<TopN> {
         TopNWorker persistentWorker = new TopNWorker(
             moduleDefineHolder, model, topSize, topNWorkerReportCycle * 60 * 1000L, recordDAO, topNClass);
         persistentWorkers.add(persistentWorker);
-        workers.put(topNClass, persistentWorker);
+        if (!clusterMerge) {
+            workers.put(topNClass, persistentWorker);
+            return;
+        }
+
+        final String remoteReceiverWorkerName = stream.name() + "_topn_rec";
+        IWorkerInstanceSetter workerInstanceSetter = moduleDefineHolder.find(CoreModule.NAME)
+                                                                       .provider()
+                                                                       .getService(IWorkerInstanceSetter.class);
+        // The kind only decides how the remote handler instantiates the received data. TopNRemoteData is created by its
+        // no-arg constructor, which is the OAL way, whatever the source of the records is. MAL requires a meter prototype.
+        workerInstanceSetter.put(
+            remoteReceiverWorkerName, persistentWorker.remoteReceiver(), MetricStreamKind.OAL, TopNRemoteData.class);
+
+        TopNRemoteWorker remoteWorker = new TopNRemoteWorker(
+            moduleDefineHolder, topSize, remoteReceiverWorkerName, topNClass);
+        persistentWorkers.add(remoteWorker);
+        workers.put(topNClass, remoteWorker);
     }
 
     @Override
     public void in(TopN topN) {
-        TopNWorker worker = workers.get(topN.getClass());
+        PersistenceWorker<TopN> worker = workers.get(topN.getClass());
         if (worker != null) {
             worker.in(topN);
         }
@@ -25,8 +25,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.analysis.data.LimitedSizeBufferedData;
 import org.apache.skywalking.oap.server.core.analysis.data.ReadWriteSafeCache;
 import org.apache.skywalking.oap.server.core.analysis.topn.TopN;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRemoteData;
 import org.apache.skywalking.oap.server.core.storage.IRecordDAO;
 import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.batchqueue.BatchQueue;
 import org.apache.skywalking.oap.server.library.batchqueue.BatchQueueConfig;
 import org.apache.skywalking.oap.server.library.batchqueue.BatchQueueManager;
@@ -43,11 +45,14 @@ import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
  * <p>All TopN types share a single {@link BatchQueue} with fixed threads.
  * The {@code typeHash()} partition selector ensures same TopN class lands on the same partition,
  * so each worker's {@link LimitedSizeBufferedData} is only accessed by one drain thread.
+ *
+ * <p>When the top N records are merged cross the cluster, this worker is the L2 of {@link TopNRemoteWorker}, and
+ * receives the records through {@link #remoteReceiver()}.
  */
 @Slf4j
 public class TopNWorker extends PersistenceWorker<TopN> {
     private static final String TOPN_QUEUE_NAME = "TOPN_PERSISTENCE";
-    private static final BatchQueueConfig<TopN> TOPN_QUEUE_CONFIG =
+    static final BatchQueueConfig<TopN> TOPN_QUEUE_CONFIG =
         BatchQueueConfig.<TopN>builder()
             .threads(ThreadPolicy.fixed(1))
             .partitions(PartitionPolicy.adaptive())
@@ -60,6 +65,7 @@ public class TopNWorker extends PersistenceWorker<TopN> {
     private final IRecordDAO recordDAO;
     private final Model model;
     private final BatchQueue<TopN> topNQueue;
+    private final Class<? extends TopN> topNClass;
     private long reportPeriod;
     private volatile long lastReportTimestamp;
 
@@ -75,6 +81,7 @@ public class TopNWorker extends PersistenceWorker<TopN> {
         this.lastReportTimestamp = System.currentTimeMillis();
         // Top N persistent works per 10 minutes default.
         this.reportPeriod = reportPeriod;
+        this.topNClass = topNClass;
 
         topNQueue.addHandler(topNClass, new TopNHandler());
     }
@@ -116,6 +123,25 @@ public class TopNWorker extends PersistenceWorker<TopN> {
         topNQueue.produce(n);
     }
 
+    /**
+     * @return the worker receiving the records from the {@link TopNRemoteWorker}s of the cluster.
+     */
+    AbstractWorker<TopNRemoteData> remoteReceiver() {
+        return new AbstractWorker<TopNRemoteData>(getModuleDefineHolder()) {
+            @Override
+            public void in(final TopNRemoteData remoteData) {
+                final TopN topN;
+                try {
+                    topN = remoteData.restore(topNClass.getDeclaredConstructor().newInstance());
+                } catch (Exception e) {
+                    log.error("Can't restore the {} record from the remote data.", topNClass.getSimpleName(), e);
+                    return;
+                }
+                TopNWorker.this.in(topN);
+            }
+        };
+    }
+
     private class TopNHandler implements HandlerConsumer<TopN> {
         @Override
         public void consume(List<TopN> data) {
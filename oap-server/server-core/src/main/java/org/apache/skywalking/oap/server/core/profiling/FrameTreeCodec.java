@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.profiling;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The storage format of the flame graphs of the profiling data, replacing the JSON of the frame trees. Every frame
+ * name is written once into a dictionary shared by all frames of the tree, and the frames refer to the names by
+ * index, in the pre-order of the tree.
+ * <pre>
+ * VERSION | names count | (name length | UTF-8 name)... | root frame
+ * frame = name index | total | self | children count | children frames...
+ * </pre>
+ * All numbers are unsigned varints. The trees are decoded into the merge builders of the query directly, without
+ * building the trees of every record.
+ */
+public final class FrameTreeCodec {
+    /**
+     * The first byte of the encoded trees, which can't be the first byte of the JSON stored before.
+     */
+    private static final byte VERSION = 1;
+
+    private FrameTreeCodec() {
+    }
+
+    /**
+     * @return true if the data is encoded by this codec, otherwise it is the JSON of the frame tree.
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 0 && data[0] == VERSION;
+    }
+
+    public static <T> byte[] encode(T root, Frames<T> frames) {
+        final Encoder<T> encoder = new Encoder<>(frames);
+        encoder.writeFrame(root);
+
+        final byte[] encodedFrames = encoder.frames.toByteArray();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(encodedFrames.length + encoder.nameList.size() * 32);
+        out.write(VERSION);
+        writeVarint(out, encoder.nameList.size());
+        for (final String name : encoder.nameList) {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(encodedFrames, 0, encodedFrames.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Merge the encoded tree into the given root frame of a merge builder.
+     *
+     * @throws IllegalArgumentException if the data is truncated or malformed, the counts, the lengths and the indexes
+     *                                  are checked against the data before they are used.
+     */
+    public static <F> void decode(byte[] data, F root, FrameMerger<F> merger) {
+        if (!isEncoded(data)) {
+            throw new IllegalArgumentException("Unknown version of the encoded frame tree.");
+        }
+        final Decoder decoder = new Decoder(data);
+        decoder.position = 1;
+        // Every name takes one byte at least, for its length.
+        final String[] names = new String[decoder.readLength(decoder.remaining(), "names count")];
+        for (int i = 0; i < names.length; i++) {
+            final int length = decoder.readLength(decoder.remaining(), "name length");
+            names[i] = new String(data, decoder.position, length, StandardCharsets.UTF_8);
+            decoder.position += length;
+        }
+        // The name of the root is dropped, as the merged tree has its own root.
+        decoder.readLength(names.length - 1, "name index");
+        decoder.mergeFrame(root, names, merger);
+    }
+
+    /**
+     * The accessors of the frame tree to be encoded.
+     */
+    public interface Frames<T> {
+        String name(T frame);
+
+        long total(T frame);
+
+        long self(T frame);
+
+        List<T> children(T frame);
+
+        static <T> Frames<T> of(Function<T, String> name, ToLongFunction<T> total, ToLongFunction<T> self,
+                                Function<T, List<T>> children) {
+            return new Frames<T>() {
+                @Override
+                public String name(final T frame) {
+                    return name.apply(frame);
+                }
+
+                @Override
+                public long total(final T frame) {
+                    return total.applyAsLong(frame);
+                }
+
+                @Override
+                public long self(final T frame) {
+                    return self.applyAsLong(frame);
+                }
+
+                @Override
+                public List<T> children(final T frame) {
+                    return children.apply(frame);
+                }
+            };
+        }
+    }
+
+    /**
+     * Merge the decoded frames into the frames of a merge builder.
+     */
+    public interface FrameMerger<F> {
+        /**
+         * @return the child frame of the given name, created if absent.
+         */
+        F child(F parent, String name);
+
+        void merge(F frame, long total, long self);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static class Encoder<T> {
+        private final Frames<T> accessor;
+        private final Map<String, Integer> names = new HashMap<>();
+        private final List<String> nameList = new ArrayList<>();
+        private final ByteArrayOutputStream frames = new ByteArrayOutputStream(1024);
+
+        private Encoder(final Frames<T> accessor) {
+            this.accessor = accessor;
+        }
+
+        private void writeFrame(T frame) {
+            final String name = accessor.name(frame);
+            Integer index = names.get(name);
+            if (index == null) {
+                index = nameList.size();
+                names.put(name, index);
+                nameList.add(name);
+            }
+            writeVarint(frames, index);
+            writeVarint(frames, accessor.total(frame));
+            writeVarint(frames, accessor.self(frame));
+            final List<T> children = accessor.children(frame);
+            final int size = children == null ? 0 : children.size();
+            writeVarint(frames, size);
+            for (int i = 0; i < size; i++) {
+                writeFrame(children.get(i));
+            }
+        }
+    }
+
+    private static class Decoder {
+        private final byte[] data;
+        private int position;
+
+        private Decoder(final byte[] data) {
+            this.data = data;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) {
+                    throw new IllegalArgumentException("Truncated encoded frame tree at " + position);
+                }
+                final byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in the encoded frame tree at " + position);
+        }
+
+        /**
+         * Read a count, a length or an index, which must be less than or equal to the given max.
+         */
+        private int readLength(long max, String name) {
+            final long value = readVarint();
+            if (value < 0 || value > max) {
+                throw new IllegalArgumentException(
+                    "Malformed encoded frame tree, " + name + " " + value + " is out of [0, " + max + "]");
+            }
+            return (int) value;
+        }
+
+        private int remaining() {
+            return data.length - position;
+        }
+
+        private <F> void mergeFrame(F frame, String[] names, FrameMerger<F> merger) {
+            merger.merge(frame, readVarint(), readVarint());
+            // Every frame takes four bytes at least.
+            final int children = readLength(remaining() / 4, "children count");
+            for (int i = 0; i < children; i++) {
+                final F child = merger.child(frame, names[readLength(names.length - 1, "name index")]);
+                mergeFrame(child, names, merger);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.skywalking.oap.server.core.profiling.asyncprofiler;
 import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import org.apache.skywalking.oap.server.core.analysis.IDManager;
+import org.apache.skywalking.oap.server.core.profiling.FrameTreeCodec;
 import org.apache.skywalking.oap.server.core.profiling.asyncprofiler.storage.JFRProfilingDataRecord;
 import org.apache.skywalking.oap.server.core.query.AsyncProfilerTaskLog;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
@@ -32,6 +33,7 @@ import org.apache.skywalking.oap.server.core.storage.profiling.asyncprofiler.IAs
 import org.apache.skywalking.oap.server.core.storage.profiling.asyncprofiler.IAsyncProfilerTaskQueryDAO;
 import org.apache.skywalking.oap.server.core.storage.profiling.asyncprofiler.IJFRDataQueryDAO;
 import org.apache.skywalking.oap.server.library.jfr.parser.JFRMergeBuilder;
+import org.apache.skywalking.oap.server.library.jfr.type.Frame;
 import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
 import org.apache.skywalking.oap.server.library.jfr.type.JFREventType;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
@@ -92,13 +94,28 @@ public class AsyncProfilerQueryService implements Service {
 
     public AsyncProfilerStackTree queryJFRData(String taskId, List<String> instanceIds, JFREventType eventType) throws IOException {
         List<JFRProfilingDataRecord> jfrDataList = getJFRDataQueryDAO().getByTaskIdAndInstancesAndEvent(taskId, instanceIds, eventType.name());
-        List<FrameTree> trees = jfrDataList.stream()
-                .map(data -> GSON.fromJson(new String(data.getDataBinary()), FrameTree.class))
-                .collect(Collectors.toList());
-        FrameTree resultTree = new JFRMergeBuilder()
-                .merge(trees)
-                .build();
-        return new AsyncProfilerStackTree(eventType, resultTree);
+        JFRMergeBuilder builder = new JFRMergeBuilder();
+        FrameTreeCodec.FrameMerger<Frame> merger = new FrameTreeCodec.FrameMerger<Frame>() {
+            @Override
+            public Frame child(final Frame parent, final String name) {
+                return builder.addChild(parent, name);
+            }
+
+            @Override
+            public void merge(final Frame frame, final long total, final long self) {
+                frame.setTotal(frame.getTotal() + total);
+                frame.setSelf(frame.getSelf() + self);
+            }
+        };
+        for (JFRProfilingDataRecord data : jfrDataList) {
+            if (FrameTreeCodec.isEncoded(data.getDataBinary())) {
+                FrameTreeCodec.decode(data.getDataBinary(), builder.getRoot(), merger);
+            } else {
+                // The records stored in JSON by the previous versions.
+                builder.merge(GSON.fromJson(new String(data.getDataBinary()), FrameTree.class));
+            }
+        }
+        return new AsyncProfilerStackTree(eventType, builder.build());
     }
 
     public List<AsyncProfilerTaskLog> queryAsyncProfilerTaskLogs(String taskId) throws IOException {
@@ -18,14 +18,16 @@
 
 package org.apache.skywalking.oap.server.core.profiling.asyncprofiler.storage;
 
-import com.google.gson.Gson;
 import org.apache.skywalking.oap.server.core.analysis.SourceDispatcher;
 import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
 import org.apache.skywalking.oap.server.core.analysis.worker.RecordStreamProcessor;
+import org.apache.skywalking.oap.server.core.profiling.FrameTreeCodec;
 import org.apache.skywalking.oap.server.core.source.JFRProfilingData;
+import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
 
 public class JFRProfilingDataDispatcher implements SourceDispatcher<JFRProfilingData> {
-    private static final Gson GSON = new Gson();
+    private static final FrameTreeCodec.Frames<FrameTree> FRAMES = FrameTreeCodec.Frames.of(
+        FrameTree::getFrame, FrameTree::getTotal, FrameTree::getSelf, FrameTree::getChildren);
 
     @Override
     public void dispatch(JFRProfilingData source) {
@@ -33,7 +35,7 @@ public class JFRProfilingDataDispatcher implements SourceDispatcher<JFRProfiling
         record.setTaskId(source.getTaskId());
         record.setInstanceId(source.getInstanceId());
         record.setEventType(source.getEventType().toString());
-        record.setDataBinary(GSON.toJson(source.getFrameTree()).getBytes());
+        record.setDataBinary(FrameTreeCodec.encode(source.getFrameTree(), FRAMES));
         record.setUploadTime(source.getUploadTime());
         record.setTimeBucket(TimeBucket.getRecordTimeBucket(source.getUploadTime()));
         RecordStreamProcessor.getInstance().in(record);
@@ -18,6 +18,9 @@
 
 package org.apache.skywalking.oap.server.core.profiling.ebpf.analyze;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,13 +35,21 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -46,25 +57,55 @@ import java.util.stream.Stream;
 
 /**
  * eBPF Profiling Analyzer working on data query and combine them for generate the Flame Graph.
+ * <p>
+ * The query time is split into slices of {@link #FETCH_DATA_DURATION}, each slice is fetched and analyzed as a partial
+ * tree in the fetch thread pool, and merged into the result once it completes, so only the stacks of the slices in
+ * flight are kept in memory. The partial trees of the settled slices are cached, so the repeated or overlapping
+ * queries only fetch the slices not analyzed before.
  */
 @Slf4j
 public class EBPFProfilingAnalyzer {
 
     private static final EBPFProfilingAnalyzeCollector ANALYZE_COLLECTOR = new EBPFProfilingAnalyzeCollector();
     private static final Long FETCH_DATA_DURATION = TimeUnit.SECONDS.toMillis(10);
+    /**
+     * The data uploaded by the eBPF agent is not changed after this duration, so the slices before it could be cached.
+     */
+    private static final long SLICE_SETTLED_DURATION = TimeUnit.MINUTES.toMillis(3);
 
     private final ModuleManager moduleManager;
     protected IEBPFProfilingDataDAO dataDAO;
     private long maxQueryTimeoutInSecond;
     private final ExecutorService fetchDataThreadPool;
+    /**
+     * The max count of slices being fetched by a query at the same time.
+     */
+    private final int maxFetchingSlices;
+    private final Cache<SliceKey, Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>> sliceCache;
 
     public EBPFProfilingAnalyzer(ModuleManager moduleManager, int maxDurationOfQuery, int fetchDataThreadPoolSize) {
+        this(moduleManager, maxDurationOfQuery, fetchDataThreadPoolSize, 0);
+    }
+
+    public EBPFProfilingAnalyzer(ModuleManager moduleManager, int maxDurationOfQuery, int fetchDataThreadPoolSize,
+                                 int maxCachedStackNodes) {
         this.moduleManager = moduleManager;
         this.maxQueryTimeoutInSecond = maxDurationOfQuery;
+        this.maxFetchingSlices = Math.max(1, fetchDataThreadPoolSize);
         final AtomicInteger fetchThreadSeq = new AtomicInteger(0);
         this.fetchDataThreadPool = Executors.newFixedThreadPool(
             fetchDataThreadPoolSize,
             r -> new Thread(r, "EBPFProfiling-" + fetchThreadSeq.incrementAndGet()));
+        if (maxCachedStackNodes > 0) {
+            this.sliceCache = CacheBuilder.newBuilder()
+                                          .maximumWeight(maxCachedStackNodes)
+                                          .<SliceKey, Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>>weigher(
+                                              (key, trees) -> trees.values().stream().mapToInt(EBPFProfilingStackNode::size).sum())
+                                          .expireAfterAccess(Duration.ofMinutes(10))
+                                          .build();
+        } else {
+            this.sliceCache = null;
+        }
     }
 
     /**
@@ -75,29 +116,155 @@ public class EBPFProfilingAnalyzer {
                                             EBPFProfilingAnalyzeAggregateType aggregateType) throws IOException {
         EBPFProfilingAnalyzation analyzation = new EBPFProfilingAnalyzation();
 
-        // query data
-        long queryDataMaxTimestamp = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(maxQueryTimeoutInSecond);
-        final Stream<EBPFProfilingStack> stackStream = buildTimeRanges(ranges).parallelStream().map(r -> {
-            try {
-                return fetchDataThreadPool.submit(() -> getDataDAO().queryData(scheduleIdList, r.getMinTime(), r.getMaxTime()))
-                        .get(queryDataMaxTimestamp - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-            } catch (Exception e) {
-                log.warn(e.getMessage(), e);
-                return Collections.<EBPFProfilingDataRecord>emptyList();
+        final long queryDataMaxTimestamp = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(maxQueryTimeoutInSecond);
+        final long settledTimestamp = System.currentTimeMillis() - SLICE_SETTLED_DURATION;
+        final List<String> scheduleIds = scheduleIdList == null ? null :
+            scheduleIdList.stream().sorted().distinct().collect(Collectors.toList());
+        final Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> trees = new HashMap<>();
+
+        // fetch the slices not cached, at most maxFetchingSlices in flight, and merge them once completed
+        final CompletionService<Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>> fetching =
+            new ExecutorCompletionService<>(fetchDataThreadPool);
+        final Set<Future<Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>>> inFlight = new LinkedHashSet<>();
+        boolean completed = true;
+        try {
+            for (TimeRange range : buildTimeRanges(ranges)) {
+                final SliceKey key = isCacheable(range, settledTimestamp) ?
+                    new SliceKey(scheduleIds, aggregateType, range.getMinTime(), range.getMaxTime()) : null;
+                final Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> cached =
+                    key == null ? null : sliceCache.getIfPresent(key);
+                if (cached != null) {
+                    mergeTrees(trees, cached, true);
+                    continue;
+                }
+                while (inFlight.size() >= maxFetchingSlices) {
+                    if (!mergeCompletedSlice(fetching, inFlight, trees, queryDataMaxTimestamp)) {
+                        completed = false;
+                        break;
+                    }
+                }
+                if (!completed) {
+                    break;
+                }
+                inFlight.add(fetching.submit(() -> {
+                    final Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> slice =
+                        analyzeSlice(scheduleIds, range, aggregateType);
+                    if (key == null || Thread.currentThread().isInterrupted()) {
+                        return slice;
+                    }
+                    // the cached slice is shared, merge the copy of it
+                    sliceCache.put(key, slice);
+                    return copyTrees(slice);
+                }));
+            }
+            while (completed && !inFlight.isEmpty()) {
+                completed = mergeCompletedSlice(fetching, inFlight, trees, queryDataMaxTimestamp);
+            }
+        } finally {
+            // cancel the slices not merged, when the query is timeout or interrupted
+            inFlight.forEach(f -> f.cancel(true));
+        }
+        if (!completed) {
+            analyzation.setTip("Query the eBPF profiling data timeout, the analysis is based on the partial data.");
+        }
+
+        // analyze tree
+        trees.values().forEach(node -> analyzation.getTrees().add(node.buildAnalyzeResult()));
+
+        return analyzation;
+    }
+
+    /**
+     * Wait for the next fetched slice and merge it into the trees.
+     *
+     * @return false if the query is timeout or interrupted.
+     */
+    private boolean mergeCompletedSlice(CompletionService<Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>> fetching,
+                                        Set<Future<Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>>> inFlight,
+                                        Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> trees,
+                                        long queryDataMaxTimestamp) {
+        final Future<Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode>> future;
+        try {
+            future = fetching.poll(queryDataMaxTimestamp - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (future == null) {
+            log.warn("Query the eBPF profiling data timeout, {} slices are not fetched", inFlight.size());
+            return false;
+        }
+        inFlight.remove(future);
+        try {
+            mergeTrees(trees, future.get(), false);
+        } catch (ExecutionException e) {
+            log.warn(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    private void mergeTrees(Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> trees,
+                            Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> slice,
+                            boolean copy) {
+        slice.forEach((symbol, node) -> {
+            final EBPFProfilingStackNode merging = copy ? node.copy() : node;
+            trees.merge(symbol, merging, EBPFProfilingStackNode::combine);
+        });
+    }
+
+    private Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> copyTrees(Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> trees) {
+        final Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> copy = new HashMap<>(trees.size());
+        trees.forEach((symbol, node) -> copy.put(symbol, node.copy()));
+        return copy;
+    }
+
+    /**
+     * Fetch the data of the slice, and combine the stacks as the trees, grouped by the first symbol of the stacks.
+     * The slice is half-open, the records uploaded at the max time belong to the next slice, even if the storage
+     * returns them with an inclusive end time.
+     */
+    private Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> analyzeSlice(List<String> scheduleIdList,
+                                                                                 TimeRange range,
+                                                                                 EBPFProfilingAnalyzeAggregateType aggregateType) throws IOException {
+        final List<EBPFProfilingDataRecord> records = getDataDAO().queryData(scheduleIdList, range.getMinTime(), range.getMaxTime());
+        final Set<EBPFProfilingStack> stacks = new LinkedHashSet<>();
+        for (EBPFProfilingDataRecord record : records) {
+            if (record.getUploadTime() < range.getMinTime() || record.getUploadTime() >= range.getMaxTime()) {
+                continue;
             }
-        }).flatMap(Collection::stream).map(e -> {
             try {
-                return EBPFProfilingStack.deserialize(e, aggregateType);
+                stacks.add(EBPFProfilingStack.deserialize(record, aggregateType));
             } catch (Exception ex) {
                 log.warn("could not deserialize the stack", ex);
-                return null;
             }
-        }).filter(Objects::nonNull).distinct();
+        }
 
-        // analyze tree
-        generateTrees(analyzation, stackStream);
+        final Map<EBPFProfilingStack.Symbol, EBPFProfilingStackNode> trees = new HashMap<>();
+        for (EBPFProfilingStack stack : stacks) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            // stack list cannot be empty
+            if (CollectionUtils.isEmpty(stack.getSymbols())) {
+                continue;
+            }
+            trees.computeIfAbsent(stack.getSymbols().get(0), s -> EBPFProfilingStackNode.newNode())
+                 .accumulateFrom(stack);
+        }
+        return trees;
+    }
 
-        return analyzation;
+    /**
+     * Only the slices aligned with {@link #FETCH_DATA_DURATION} and settled are cached, to be shared by the queries.
+     */
+    private boolean isCacheable(TimeRange range, long settledTimestamp) {
+        return sliceCache != null
+            && range.getMinTime() % FETCH_DATA_DURATION == 0
+            && range.getMaxTime() - range.getMinTime() == FETCH_DATA_DURATION
+            && range.getMaxTime() <= settledTimestamp;
     }
 
     public void generateTrees(EBPFProfilingAnalyzation analyzation, Stream<EBPFProfilingStack> stackStream) {
@@ -111,16 +278,36 @@ public class EBPFProfilingAnalyzer {
         analyzation.getTrees().addAll(stackTrees);
     }
 
+    /**
+     * Merge the overlapped time ranges, and split them into slices.
+     */
     protected List<TimeRange> buildTimeRanges(List<EBPFProfilingAnalyzeTimeRange> timeRanges) {
-        return timeRanges.parallelStream()
-                .map(r -> buildTimeRanges(r.getStart(), r.getEnd()))
-                .filter(Objects::nonNull)
-                .flatMap(Collection::stream)
+        final List<EBPFProfilingAnalyzeTimeRange> sorted = timeRanges.stream()
+                .filter(r -> r.getStart() < r.getEnd())
+                .sorted(Comparator.comparingLong(EBPFProfilingAnalyzeTimeRange::getStart))
                 .collect(Collectors.toList());
+        final List<TimeRange> result = new ArrayList<>();
+        if (sorted.isEmpty()) {
+            return result;
+        }
+        long start = sorted.get(0).getStart();
+        long end = sorted.get(0).getEnd();
+        for (EBPFProfilingAnalyzeTimeRange range : sorted) {
+            if (range.getStart() <= end) {
+                end = Math.max(end, range.getEnd());
+                continue;
+            }
+            result.addAll(buildTimeRanges(start, end));
+            start = range.getStart();
+            end = range.getEnd();
+        }
+        result.addAll(buildTimeRanges(start, end));
+        return result;
     }
 
     /**
-     * Split time ranges to insure the start time and end time is small then {@link #FETCH_DATA_DURATION}
+     * Split time ranges to insure the start time and end time is small then {@link #FETCH_DATA_DURATION}. The slices
+     * are aligned with {@link #FETCH_DATA_DURATION}, so the same slices are built by the overlapped time ranges.
      */
     protected List<TimeRange> buildTimeRanges(long start, long end) {
         if (start >= end) {
@@ -132,7 +319,7 @@ public class EBPFProfilingAnalyzer {
 
         final List<TimeRange> timeRanges = new ArrayList<>();
         do {
-            long batchEnd = Math.min(start + FETCH_DATA_DURATION, end);
+            long batchEnd = Math.min(start - Math.floorMod(start, FETCH_DATA_DURATION) + FETCH_DATA_DURATION, end);
             timeRanges.add(new TimeRange(start, batchEnd));
             start = batchEnd;
         }
@@ -159,4 +346,16 @@ public class EBPFProfilingAnalyzer {
         private final long minTime;
         private final long maxTime;
     }
-}
\ No newline at end of file
+
+    /**
+     * The identity of the cached slice.
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SliceKey {
+        private final List<String> scheduleIdList;
+        private final EBPFProfilingAnalyzeAggregateType aggregateType;
+        private final long minTime;
+        private final long maxTime;
+    }
+}
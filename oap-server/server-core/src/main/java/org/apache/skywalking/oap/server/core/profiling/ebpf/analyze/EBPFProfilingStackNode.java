@@ -142,6 +142,39 @@ public class EBPFProfilingStackNode {
         }
     }
 
+    /**
+     * deep copy the tree, the copy could be combined into other trees without changing this one
+     */
+    public EBPFProfilingStackNode copy() {
+        EBPFProfilingStackNode root = copyNode();
+        LinkedList<Tuple2<EBPFProfilingStackNode, EBPFProfilingStackNode>> stack = new LinkedList<>();
+        stack.add(Tuple.of(root, this));
+        while (!stack.isEmpty()) {
+            Tuple2<EBPFProfilingStackNode, EBPFProfilingStackNode> copyingPair = stack.pop();
+            for (EBPFProfilingStackNode children : copyingPair._2.children) {
+                EBPFProfilingStackNode node = children.copyNode();
+                copyingPair._1.children.add(node);
+                stack.add(Tuple.of(node, children));
+            }
+        }
+        return root;
+    }
+
+    /**
+     * @return the count of nodes in the tree
+     */
+    public int size() {
+        int size = 0;
+        LinkedList<EBPFProfilingStackNode> stack = new LinkedList<>();
+        stack.add(this);
+        while (!stack.isEmpty()) {
+            EBPFProfilingStackNode node = stack.pop();
+            size++;
+            stack.addAll(node.children);
+        }
+        return size;
+    }
+
     /**
      * build GraphQL result, calculate duration and count data using parallels
      */
@@ -185,6 +218,14 @@ public class EBPFProfilingStackNode {
         this.dumpCount += node.dumpCount;
     }
 
+    private EBPFProfilingStackNode copyNode() {
+        EBPFProfilingStackNode node = new EBPFProfilingStackNode();
+        node.codeSignature = this.codeSignature;
+        node.dumpCount = this.dumpCount;
+        node.children = new ArrayList<>(this.children.size());
+        return node;
+    }
+
     private EBPFProfilingStackElement buildElement(int id) {
         EBPFProfilingStackElement element = new EBPFProfilingStackElement();
         element.setId(id);
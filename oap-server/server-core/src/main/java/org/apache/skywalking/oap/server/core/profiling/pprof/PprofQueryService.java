@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.analysis.IDManager;
+import org.apache.skywalking.oap.server.core.profiling.FrameTreeCodec;
 import org.apache.skywalking.oap.server.core.profiling.pprof.storage.PprofProfilingDataRecord;
 import org.apache.skywalking.oap.server.core.query.PprofTaskLog;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
@@ -38,6 +39,7 @@ import org.apache.skywalking.oap.server.core.storage.profiling.pprof.IPprofTaskQ
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.Service;
 import org.apache.skywalking.oap.server.library.pprof.parser.PprofMergeBuilder;
+import org.apache.skywalking.oap.server.library.pprof.type.Frame;
 import org.apache.skywalking.oap.server.library.pprof.type.FrameTree;
 
 @Slf4j
@@ -92,16 +94,28 @@ public class PprofQueryService implements Service {
     public PprofStackTree queryPprofData(String taskId, List<String> instanceIds) throws IOException {
         List<PprofProfilingDataRecord> pprofDataList = getPprofDataQueryDAO().getByTaskIdAndInstances(
             taskId, instanceIds);
-        List<FrameTree> trees = pprofDataList.stream()
-                                             .map(data -> GSON.fromJson(
-                                                 new String(data.getDataBinary()),
-                                                 FrameTree.class
-                                             ))
-                                             .collect(Collectors.toList());
-        FrameTree resultTree = new PprofMergeBuilder()
-            .merge(trees)
-            .build();
-        return new PprofStackTree(resultTree);
+        PprofMergeBuilder builder = new PprofMergeBuilder();
+        FrameTreeCodec.FrameMerger<Frame> merger = new FrameTreeCodec.FrameMerger<Frame>() {
+            @Override
+            public Frame child(final Frame parent, final String name) {
+                return builder.addChild(parent, name);
+            }
+
+            @Override
+            public void merge(final Frame frame, final long total, final long self) {
+                frame.setTotal(frame.getTotal() + total);
+                frame.setSelf(frame.getSelf() + self);
+            }
+        };
+        for (PprofProfilingDataRecord data : pprofDataList) {
+            if (FrameTreeCodec.isEncoded(data.getDataBinary())) {
+                FrameTreeCodec.decode(data.getDataBinary(), builder.getRoot(), merger);
+            } else {
+                // The records stored in JSON by the previous versions.
+                builder.merge(GSON.fromJson(new String(data.getDataBinary()), FrameTree.class));
+            }
+        }
+        return new PprofStackTree(builder.build());
     }
 
     public List<PprofTaskLog> queryPprofTaskLogs(String taskId) throws IOException {
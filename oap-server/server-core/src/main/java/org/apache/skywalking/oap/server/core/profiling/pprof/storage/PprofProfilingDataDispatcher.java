@@ -18,21 +18,23 @@
 
 package org.apache.skywalking.oap.server.core.profiling.pprof.storage;
 
-import com.google.gson.Gson;
 import org.apache.skywalking.oap.server.core.analysis.SourceDispatcher;
 import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
 import org.apache.skywalking.oap.server.core.analysis.worker.RecordStreamProcessor;
+import org.apache.skywalking.oap.server.core.profiling.FrameTreeCodec;
 import org.apache.skywalking.oap.server.core.source.PprofProfilingData;
+import org.apache.skywalking.oap.server.library.pprof.type.FrameTree;
 
 public class PprofProfilingDataDispatcher implements SourceDispatcher<PprofProfilingData> {
-    private static final Gson GSON = new Gson();
+    private static final FrameTreeCodec.Frames<FrameTree> FRAMES = FrameTreeCodec.Frames.of(
+        FrameTree::getSignature, FrameTree::getTotal, FrameTree::getSelf, FrameTree::getChildren);
 
     @Override
     public void dispatch(PprofProfilingData source) {
         PprofProfilingDataRecord record = new PprofProfilingDataRecord();
         record.setTaskId(source.getTaskId());
         record.setInstanceId(source.getInstanceId());
-        record.setDataBinary(GSON.toJson(source.getFrameTree()).getBytes());
+        record.setDataBinary(FrameTreeCodec.encode((FrameTree) source.getFrameTree(), FRAMES));
         record.setUploadTime(source.getUploadTime());
         record.setTimeBucket(TimeBucket.getRecordTimeBucket(source.getUploadTime()));
         RecordStreamProcessor.getInstance().in(record);
@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.Bucket;
+import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.KeyValue;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.storage.annotation.InspectQueryContext;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * The cache of the metrics values in the sealed time buckets. The metrics of a time bucket are persisted in the
+ * {@code persistentPeriod} after the bucket ends, and are expected not to change after the seal delay, so the values
+ * of the sealed buckets are cached per series, keyed by the metrics, entity and downsampling. A query reads the sealed
+ * buckets of its window from the cache, and only fetches the missing head of the window from the storage.
+ * <p>
+ * The data of a bucket arriving after it is sealed, or persisted by another OAP node later, is not visible to the
+ * queries reading the cached values. The cached values expire in a fixed time after they are fetched, however the
+ * window is extended, to bound how long such data is hidden.
+ * <p>
+ * The memory of the cached values is estimated, the least recently used series are evicted when the estimation
+ * exceeds the limit.
+ */
+public class MetricsQueryCache {
+    /**
+     * {@code null} if the cache is disabled.
+     */
+    private final Cache<Key, Window> windows;
+    private final long sealDelayInMillis;
+    private final long expireInMillis;
+    private final LongSupplier clock;
+
+    /**
+     * @param maxMemoryInMB      the estimated memory limit of the cached values, 0 means disabled.
+     * @param persistentPeriod   the period of persisting the metrics in seconds, see {@code
+     *                           CoreModuleConfig#persistentPeriod}
+     * @param sealDelayInSeconds the extra delay after the persistent period to seal a time bucket, for the late data
+     *                           and the storage to refresh the persisted metrics.
+     * @param expireInSeconds    the time to expire the cached values after they are fetched from the storage.
+     */
+    public MetricsQueryCache(final long maxMemoryInMB,
+                             final int persistentPeriod,
+                             final int sealDelayInSeconds,
+                             final int expireInSeconds) {
+        this(maxMemoryInMB * 1024 * 1024, persistentPeriod, sealDelayInSeconds, expireInSeconds,
+             System::currentTimeMillis
+        );
+    }
+
+    MetricsQueryCache(final long maxMemoryInBytes,
+                      final int persistentPeriod,
+                      final int sealDelayInSeconds,
+                      final int expireInSeconds,
+                      final LongSupplier clock) {
+        this.expireInMillis = TimeUnit.SECONDS.toMillis(expireInSeconds);
+        this.windows = maxMemoryInBytes > 0 && expireInMillis > 0 ?
+            CacheBuilder.newBuilder()
+                        .maximumWeight(maxMemoryInBytes)
+                        .weigher((Key key, Window window) -> window.weight)
+                        .expireAfterWrite(expireInMillis, TimeUnit.MILLISECONDS)
+                        .ticker(new Ticker() {
+                            @Override
+                            public long read() {
+                                return TimeUnit.MILLISECONDS.toNanos(clock.getAsLong());
+                            }
+                        })
+                        .build() : null;
+        this.sealDelayInMillis = TimeUnit.SECONDS.toMillis(persistentPeriod + sealDelayInSeconds);
+        this.clock = clock;
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(Duration duration) throws IOException;
+    }
+
+    public MetricsValues readMetricsValues(final MetricsCondition condition,
+                                           final Duration duration,
+                                           final Reader<MetricsValues> reader) throws IOException {
+        return read(new Key(Kind.VALUES, condition, Collections.emptyList(), duration), duration, reader,
+                    new ValuesCodec());
+    }
+
+    public List<MetricsValues> readLabeledMetricsValues(final MetricsCondition condition,
+                                                        final List<KeyValue> labels,
+                                                        final Duration duration,
+                                                        final Reader<List<MetricsValues>> reader) throws IOException {
+        final List<KeyValue> queryLabels = labels == null ? Collections.emptyList() :
+            labels.stream().map(label -> new KeyValue(label.getKey(), label.getValue())).collect(Collectors.toList());
+        return read(new Key(Kind.LABELED_VALUES, condition, queryLabels, duration), duration, reader,
+                    new LabeledValuesCodec(condition));
+    }
+
+    public HeatMap readHeatMap(final MetricsCondition condition,
+                               final Duration duration,
+                               final Reader<HeatMap> reader) throws IOException {
+        return read(new Key(Kind.HEAT_MAP, condition, Collections.emptyList(), duration), duration, reader,
+                    new HeatMapCodec(condition));
+    }
+
+    private <T, P> T read(final Key key,
+                          final Duration duration,
+                          final Reader<T> reader,
+                          final Codec<T, P> codec) throws IOException {
+        // The foreign metrics are decoded by the caller-supplied metadata, which is not part of the key.
+        if (windows == null || InspectQueryContext.get(key.metricName) != null) {
+            return reader.read(duration);
+        }
+        final Step step = duration.getStep();
+        final List<PointOfTime> points = duration.assembleDurationPoints();
+        final int sealed = countSealed(step, points);
+        if (sealed == 0) {
+            return reader.read(duration);
+        }
+        final long[] timeBuckets = points.stream().mapToLong(PointOfTime::getPoint).toArray();
+
+        final long now = clock.getAsLong();
+        Window cached = windows.getIfPresent(key);
+        if (cached != null && now - cached.fetchTime >= expireInMillis) {
+            // The window has been extended since the former buckets are fetched, renew it as a whole.
+            cached = null;
+        }
+        final int offset = cached == null ? -1 : Arrays.binarySearch(cached.timeBuckets, timeBuckets[0]);
+        // The number of the leading points read from the cache.
+        final int hit = offset < 0 ? 0 : Math.min(sealed, cached.timeBuckets.length - offset);
+        if (hit == timeBuckets.length) {
+            return codec.compose(cached.values(offset, hit), points);
+        }
+
+        final Duration head = hit == 0 ?
+            duration : subDuration(duration, timeBuckets[hit], timeBuckets[timeBuckets.length - 1]);
+        final T fetched = reader.read(head);
+        final List<P> fetchedValues = codec.split(fetched, timeBuckets.length - hit);
+        if (fetchedValues == null) {
+            // The result doesn't match the points, leave it as it is.
+            return hit == 0 ? fetched : reader.read(duration);
+        }
+        final List<P> values = new ArrayList<>(timeBuckets.length);
+        if (hit > 0) {
+            values.addAll(cached.values(offset, hit));
+        }
+        values.addAll(fetchedValues);
+
+        if (hit < sealed) {
+            final Window window;
+            if (hit > 0 && offset <= timeBuckets.length) {
+                // The cached window ends at the hit points, extend it with the newly sealed points. It is renewed by
+                // the query window once the former points are more than the query window, as the window slides.
+                window = cached.extend(codec, Arrays.copyOfRange(timeBuckets, hit, sealed),
+                                       fetchedValues.subList(0, sealed - hit));
+            } else {
+                window = Window.of(codec, Arrays.copyOf(timeBuckets, sealed), values.subList(0, sealed), now);
+            }
+            windows.put(key, window);
+        }
+        return codec.compose(values, points);
+    }
+
+    /**
+     * @return the number of the leading sealed points, they ended before the metrics of now are persisted.
+     */
+    private int countSealed(final Step step, final List<PointOfTime> points) {
+        final long now = clock.getAsLong();
+        final long sealedBefore = now - now % TimeUnit.MINUTES.toMillis(1) - sealDelayInMillis;
+        int sealed = points.size();
+        while (sealed > 0 && endOf(step, points.get(sealed - 1).getPoint()) > sealedBefore) {
+            sealed--;
+        }
+        return sealed;
+    }
+
+    private static long endOf(final Step step, final long timeBucket) {
+        final DateTime start = DurationUtils.INSTANCE.parseToDateTime(step, timeBucket);
+        switch (step) {
+            case DAY:
+                return start.plusDays(1).getMillis();
+            case HOUR:
+                return start.plusHours(1).getMillis();
+            case MINUTE:
+                return start.plusMinutes(1).getMillis();
+            case SECOND:
+                return start.plusSeconds(1).getMillis();
+            default:
+                throw new IllegalArgumentException("Unsupported query step: " + step);
+        }
+    }
+
+    private static Duration subDuration(final Duration duration, final long startTimeBucket, final long endTimeBucket) {
+        final Step step = duration.getStep();
+        final DateTimeFormatter formatter;
+        switch (step) {
+            case DAY:
+                formatter = DurationUtils.YYYY_MM_DD;
+                break;
+            case HOUR:
+                formatter = DurationUtils.YYYY_MM_DD_HH;
+                break;
+            case MINUTE:
+                formatter = DurationUtils.YYYY_MM_DD_HHMM;
+                break;
+            case SECOND:
+                formatter = DurationUtils.YYYY_MM_DD_HHMMSS;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported query step: " + step);
+        }
+        final Duration sub = new Duration();
+        sub.setStep(step);
+        sub.setColdStage(duration.isColdStage());
+        sub.setStart(DurationUtils.INSTANCE.parseToDateTime(step, startTimeBucket).toString(formatter));
+        sub.setEnd(DurationUtils.INSTANCE.parseToDateTime(step, endTimeBucket).toString(formatter));
+        return sub;
+    }
+
+    private enum Kind {
+        VALUES, LABELED_VALUES, HEAT_MAP
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final Kind kind;
+        private final String metricName;
+        private final String entityId;
+        private final List<KeyValue> labels;
+        private final Step step;
+        private final boolean coldStage;
+
+        private Key(final Kind kind, final MetricsCondition condition, final List<KeyValue> labels,
+                    final Duration duration) {
+            this.kind = kind;
+            this.metricName = condition.getName();
+            this.entityId = condition.getEntity().buildId();
+            this.labels = labels;
+            this.step = duration.getStep();
+            this.coldStage = duration.isColdStage();
+        }
+    }
+
+    /**
+     * The values of the consecutive sealed time buckets of a series.
+     */
+    @RequiredArgsConstructor
+    private static class Window {
+        private final long[] timeBuckets;
+        private final List<?> values;
+        private final int weight;
+        /**
+         * The time of fetching the earliest values of the window, which are expired first.
+         */
+        private final long fetchTime;
+
+        private static <P> Window of(final Codec<?, P> codec,
+                                     final long[] timeBuckets,
+                                     final List<P> values,
+                                     final long fetchTime) {
+            long weight = 64 + 8L * timeBuckets.length;
+            for (final P value : values) {
+                weight += codec.weigh(value);
+            }
+            return new Window(
+                timeBuckets, new ArrayList<>(values), (int) Math.min(weight, Integer.MAX_VALUE), fetchTime);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <P> List<P> values(final int offset, final int length) {
+            return (List<P>) values.subList(offset, offset + length);
+        }
+
+        /**
+         * @return the window appended with the later time buckets.
+         */
+        private <P> Window extend(final Codec<?, P> codec, final long[] laterTimeBuckets, final List<P> laterValues) {
+            final long[] extended = Arrays.copyOf(timeBuckets, timeBuckets.length + laterTimeBuckets.length);
+            System.arraycopy(laterTimeBuckets, 0, extended, timeBuckets.length, laterTimeBuckets.length);
+            final List<P> extendedValues = new ArrayList<>(extended.length);
+            extendedValues.addAll(values(0, timeBuckets.length));
+            extendedValues.addAll(laterValues);
+            return of(codec, extended, extendedValues, fetchTime);
+        }
+    }
+
+    /**
+     * Split the query result into the values of the time buckets, and compose the values back into the result.
+     *
+     * @param <T> the type of the query result
+     * @param <P> the type of the values in a time bucket, immutable once cached
+     */
+    private interface Codec<T, P> {
+        /**
+         * @return the values of the time buckets in order, {@code null} if the result doesn't match the points.
+         */
+        List<P> split(T result, int points);
+
+        T compose(List<P> values, List<PointOfTime> points);
+
+        /**
+         * @return the estimated memory of the value in bytes.
+         */
+        long weigh(P value);
+    }
+
+    private static KVInt copy(final KVInt kv) {
+        return new KVInt(kv.getId(), kv.getValue(), kv.isEmptyValue());
+    }
+
+    private static class ValuesCodec implements Codec<MetricsValues, KVInt> {
+        @Override
+        public List<KVInt> split(final MetricsValues result, final int points) {
+            final List<KVInt> values = result.getValues().getValues();
+            if (result.getLabel() != null || values.size() != points) {
+                return null;
+            }
+            return values.stream().map(MetricsQueryCache::copy).collect(Collectors.toList());
+        }
+
+        @Override
+        public MetricsValues compose(final List<KVInt> values, final List<PointOfTime> points) {
+            final MetricsValues result = new MetricsValues();
+            values.forEach(kv -> result.getValues().addKVInt(copy(kv)));
+            return result;
+        }
+
+        @Override
+        public long weigh(final KVInt value) {
+            return 96;
+        }
+    }
+
+    /**
+     * The labeled values in a time bucket, keyed by the labels.
+     */
+    @RequiredArgsConstructor
+    private static class LabeledPoint {
+        private final String id;
+        private final Map<String, KVInt> values;
+    }
+
+    @RequiredArgsConstructor
+    private static class LabeledValuesCodec implements Codec<List<MetricsValues>, LabeledPoint> {
+        private final MetricsCondition condition;
+
+        @Override
+        public List<LabeledPoint> split(final List<MetricsValues> result, final int points) {
+            final List<Map<String, KVInt>> values = new ArrayList<>(points);
+            for (int i = 0; i < points; i++) {
+                values.add(new HashMap<>());
+            }
+            for (final MetricsValues metricsValues : result) {
+                final List<KVInt> kvs = metricsValues.getValues().getValues();
+                if (kvs.size() != points) {
+                    return null;
+                }
+                for (int i = 0; i < points; i++) {
+                    values.get(i).put(metricsValues.getLabel(), copy(kvs.get(i)));
+                }
+            }
+            final List<LabeledPoint> labeledPoints = new ArrayList<>(points);
+            for (int i = 0; i < points; i++) {
+                final String id = result.isEmpty() ? null : result.get(0).getValues().getValues().get(i).getId();
+                labeledPoints.add(new LabeledPoint(id, values.get(i)));
+            }
+            return labeledPoints;
+        }
+
+        @Override
+        public List<MetricsValues> compose(final List<LabeledPoint> values, final List<PointOfTime> points) {
+            // Keep the labels in the order of the storage, the labels only in the later buckets are appended.
+            final Set<String> labels = new LinkedHashSet<>();
+            values.forEach(point -> labels.addAll(point.values.keySet()));
+            final int defaultValue = ValueColumnMetadata.INSTANCE.getDefaultValue(condition.getName());
+            final String entityId = condition.getEntity().buildId();
+            final List<MetricsValues> result = new ArrayList<>(labels.size());
+            for (final String label : labels) {
+                final MetricsValues metricsValues = new MetricsValues();
+                metricsValues.setLabel(label);
+                for (int i = 0; i < values.size(); i++) {
+                    final LabeledPoint point = values.get(i);
+                    final KVInt kv = point.values.get(label);
+                    if (kv != null) {
+                        metricsValues.getValues().addKVInt(copy(kv));
+                    } else {
+                        final String id = point.id != null ? point.id : points.get(i).id(entityId);
+                        metricsValues.getValues().addKVInt(new KVInt(id, defaultValue, true));
+                    }
+                }
+                result.add(metricsValues);
+            }
+            return result;
+        }
+
+        @Override
+        public long weigh(final LabeledPoint value) {
+            return 64 + 128L * value.values.size();
+        }
+    }
+
+    /**
+     * The heatmap column in a time bucket, with the buckets of the heatmap it belongs to.
+     */
+    @RequiredArgsConstructor
+    private static class HeatMapPoint {
+        private final HeatMap.HeatMapColumn column;
+        private final List<Bucket> buckets;
+    }
+
+    @RequiredArgsConstructor
+    private static class HeatMapCodec implements Codec<HeatMap, HeatMapPoint> {
+        private final MetricsCondition condition;
+
+        @Override
+        public List<HeatMapPoint> split(final HeatMap result, final int points) {
+            if (result.getValues().size() != points) {
+                return null;
+            }
+            final List<Bucket> buckets = new ArrayList<>(result.getBuckets());
+            return result.getValues().stream()
+                         .map(column -> new HeatMapPoint(copy(column), buckets))
+                         .collect(Collectors.toList());
+        }
+
+        @Override
+        public HeatMap compose(final List<HeatMapPoint> values, final List<PointOfTime> points) {
+            final HeatMap result = new HeatMap();
+            values.stream().filter(point -> !point.buckets.isEmpty()).findFirst()
+                  .ifPresent(point -> point.buckets.forEach(result::addBucket));
+            final int defaultValue = ValueColumnMetadata.INSTANCE.getDefaultValue(condition.getName());
+            for (final HeatMapPoint point : values) {
+                if (point.column.getValues().size() == result.getBuckets().size()) {
+                    result.getValues().add(copy(point.column));
+                } else {
+                    // The heatmap buckets are absent from the part of the window without any value.
+                    final HeatMap.HeatMapColumn column = new HeatMap.HeatMapColumn();
+                    column.setId(point.column.getId());
+                    result.getBuckets().forEach(bucket -> column.addValue((long) defaultValue));
+                    result.getValues().add(column);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public long weigh(final HeatMapPoint value) {
+            return 96 + 24L * value.column.getValues().size();
+        }
+
+        private static HeatMap.HeatMapColumn copy(final HeatMap.HeatMapColumn column) {
+            final HeatMap.HeatMapColumn copied = new HeatMap.HeatMapColumn();
+            copied.setId(column.getId());
+            column.getValues().forEach(copied::addValue);
+            return copied;
+        }
+    }
+}
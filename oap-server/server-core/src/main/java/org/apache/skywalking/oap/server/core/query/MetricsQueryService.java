@@ -43,10 +43,16 @@ import static org.apache.skywalking.oap.server.core.query.type.debugging.Debuggi
 @Slf4j
 public class MetricsQueryService implements Service {
     private final ModuleManager moduleManager;
+    private final MetricsQueryCache metricsQueryCache;
     private IMetricsQueryDAO metricQueryDAO;
 
     public MetricsQueryService(ModuleManager moduleManager) {
+        this(moduleManager, new MetricsQueryCache(0, 0, 0, 0));
+    }
+
+    public MetricsQueryService(ModuleManager moduleManager, MetricsQueryCache metricsQueryCache) {
         this.moduleManager = moduleManager;
+        this.metricsQueryCache = metricsQueryCache;
     }
 
     private IMetricsQueryDAO getMetricQueryDAO() {
@@ -80,8 +86,9 @@ public class MetricsQueryService implements Service {
         if (!condition.senseScope() || !condition.getEntity().isValid()) {
             return new MetricsValues();
         }
-        return getMetricQueryDAO().readMetricsValuesDebuggable(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        return metricsQueryCache.readMetricsValues(
+            condition, duration, d -> getMetricQueryDAO().readMetricsValuesDebuggable(condition, valueCName, d));
     }
 
     /**
@@ -109,8 +116,11 @@ public class MetricsQueryService implements Service {
         if (!condition.senseScope() || !condition.getEntity().isValid()) {
             return Collections.emptyList();
         }
-        return getMetricQueryDAO().readLabeledMetricsValuesDebuggable(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), labels, duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        return metricsQueryCache.readLabeledMetricsValues(
+            condition, labels, duration,
+            d -> getMetricQueryDAO().readLabeledMetricsValuesDebuggable(condition, valueCName, labels, d)
+        );
     }
 
     /**
@@ -149,7 +159,8 @@ public class MetricsQueryService implements Service {
         if (!condition.senseScope() || !condition.getEntity().isValid()) {
             return new HeatMap();
         }
-        return getMetricQueryDAO().readHeatMap(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        return metricsQueryCache.readHeatMap(
+            condition, duration, d -> getMetricQueryDAO().readHeatMap(condition, valueCName, d));
     }
 }
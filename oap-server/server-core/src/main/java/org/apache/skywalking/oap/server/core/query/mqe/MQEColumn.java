@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query.mqe;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The columnar form of the time series values of {@link MQEValues}, the points are kept in a primitive array with a
+ * bitmap of the empty points, rather than a {@link MQEValue} per point. The IDs of the points are the time buckets,
+ * so the array of them is shared by all the series of a query, and by the series computed from them.
+ * <p>
+ * The operations of MQE compute on the columns, the {@link MQEValue}s are only built when the values are read as a
+ * list, see {@link MQEValues#getValues()}.
+ */
+@Getter
+public final class MQEColumn {
+    /**
+     * The shared IDs of the points, should never be modified.
+     */
+    private final String[] ids;
+    private final double[] values;
+    private final BitSet empty;
+
+    public MQEColumn(final String[] ids) {
+        this(ids, new double[ids.length], new BitSet(ids.length));
+    }
+
+    public MQEColumn(final String[] ids, final double[] values, final BitSet empty) {
+        if (ids.length != values.length) {
+            throw new IllegalArgumentException(
+                "The size of the ids " + ids.length + " is not equal to the values " + values.length);
+        }
+        this.ids = ids;
+        this.values = values;
+        this.empty = empty;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmptyValue(final int index) {
+        return empty.get(index);
+    }
+
+    public double getValue(final int index) {
+        return values[index];
+    }
+
+    public void setValue(final int index, final double value) {
+        values[index] = value;
+        empty.clear(index);
+    }
+
+    public void setEmptyValue(final int index) {
+        values[index] = 0;
+        empty.set(index);
+    }
+
+    List<MQEValue> toValues() {
+        final List<MQEValue> list = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            final MQEValue value = new MQEValue();
+            value.setId(ids[i]);
+            if (empty.get(i)) {
+                value.setEmptyValue(true);
+            } else {
+                value.setDoubleValue(values[i]);
+            }
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -28,4 +28,42 @@ public class MQEValues {
     private Metadata metric = new Metadata();
 
     private List<MQEValue> values = new ArrayList<>();
+
+    /**
+     * The values in the columnar form, see {@link MQEColumn}, they are moved to {@link #values} once read as a list.
+     */
+    private transient MQEColumn column;
+
+    public MQEValues() {
+    }
+
+    public MQEValues(final MQEColumn column) {
+        this.values = null;
+        this.column = column;
+    }
+
+    /**
+     * @return the values as a list, the columnar values are converted, and can't be read as columns anymore.
+     */
+    public List<MQEValue> getValues() {
+        if (column != null) {
+            values = column.toValues();
+            column = null;
+        }
+        return values;
+    }
+
+    public void setValues(final List<MQEValue> values) {
+        this.values = values;
+        this.column = null;
+    }
+
+    public void setColumn(final MQEColumn column) {
+        this.values = null;
+        this.column = column;
+    }
+
+    public boolean isColumnar() {
+        return column != null;
+    }
 }
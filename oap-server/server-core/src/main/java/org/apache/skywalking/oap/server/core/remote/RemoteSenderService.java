@@ -45,8 +45,16 @@ public class RemoteSenderService implements Service {
     private final RollingSelector rollingSelector;
 
     public RemoteSenderService(ModuleManager moduleManager) {
+        this(moduleManager, new HashCodeSelector());
+    }
+
+    /**
+     * @param hashCodeSelector routes the data of {@link Selector#HashCode}, should be the same one used by {@link
+     *                         RemoteClientManager} to report the routing changes.
+     */
+    public RemoteSenderService(ModuleManager moduleManager, HashCodeSelector hashCodeSelector) {
         this.moduleManager = moduleManager;
-        this.hashCodeSelector = new HashCodeSelector();
+        this.hashCodeSelector = hashCodeSelector;
         this.foreverFirstSelector = new ForeverFirstSelector();
         this.rollingSelector = new RollingSelector();
     }
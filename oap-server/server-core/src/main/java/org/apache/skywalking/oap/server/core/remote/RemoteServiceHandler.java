@@ -28,6 +28,7 @@ import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.StatusRequest;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.StatusResponse;
@@ -103,15 +104,7 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
      */
     @Override
     public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
-        if (Objects.isNull(workerInstanceGetter)) {
-            synchronized (RemoteServiceHandler.class) {
-                if (Objects.isNull(workerInstanceGetter)) {
-                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
-                                                             .provider()
-                                                             .getService(IWorkerInstanceGetter.class);
-                }
-            }
-        }
+        initWorkerInstanceGetter();
 
         return new StreamObserver<RemoteMessage>() {
             @Override
@@ -120,27 +113,9 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
                 HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
                 try {
                     String nextWorkerName = message.getNextWorkerName();
-                    RemoteData remoteData = message.getRemoteData();
-
                     RemoteHandleWorker handleWorker = workerInstanceGetter.get(nextWorkerName);
                     if (handleWorker != null) {
-                        AbstractWorker nextWorker = handleWorker.getWorker();
-                        StreamData streamData;
-                        try {
-                            streamData = handleWorker.newStreamDataInstance();
-                        } catch (Throwable t) {
-                            remoteInErrorCounter.inc();
-                            LOGGER.error(t.getMessage(), t);
-                            return;
-                        }
-                        try {
-                            streamData.deserialize(remoteData);
-                        } catch (Throwable t) {
-                            remoteInErrorCounter.inc();
-                            LOGGER.error("Can't deserialize data {}, this data is discarded.", message, t);
-                            return;
-                        }
-                        nextWorker.in(streamData);
+                        handle(handleWorker, message.getRemoteData());
                     } else {
                         remoteInTargetNotFoundCounter.inc();
                         LOGGER.warn(
@@ -148,7 +123,6 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
                             message
                         );
                     }
-
                 } finally {
                     timer.finish();
                 }
@@ -156,14 +130,51 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
 
             @Override
             public void onError(Throwable throwable) {
-                Status status = Status.fromThrowable(throwable);
-                if (Status.CANCELLED.getCode() == status.getCode()) {
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(throwable.getMessage(), throwable);
+                RemoteServiceHandler.this.onError(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(Empty.newBuilder().build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * gRPC handler of the batched remote RPC. The worker is looked up once for all stream data of the batch.
+     */
+    @Override
+    public StreamObserver<RemoteMessageBatch> batch(StreamObserver<Empty> responseObserver) {
+        initWorkerInstanceGetter();
+
+        return new StreamObserver<RemoteMessageBatch>() {
+            @Override
+            public void onNext(RemoteMessageBatch batch) {
+                remoteInCounter.inc(batch.getRemoteDataCount());
+                HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
+                try {
+                    String nextWorkerName = batch.getNextWorkerName();
+                    RemoteHandleWorker handleWorker = workerInstanceGetter.get(nextWorkerName);
+                    if (handleWorker != null) {
+                        for (RemoteData remoteData : batch.getRemoteDataList()) {
+                            handle(handleWorker, remoteData);
+                        }
+                    } else {
+                        remoteInTargetNotFoundCounter.inc(batch.getRemoteDataCount());
+                        LOGGER.warn(
+                            "{} data are discarded due to worker {} not found. Check OAL/MAL script, make sure they are aligned in the whole cluster.",
+                            batch.getRemoteDataCount(), nextWorkerName
+                        );
                     }
-                    return;
+                } finally {
+                    timer.finish();
                 }
-                LOGGER.error(throwable.getMessage(), throwable);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                RemoteServiceHandler.this.onError(throwable);
             }
 
             @Override
@@ -174,6 +185,49 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
         };
     }
 
+    private void initWorkerInstanceGetter() {
+        if (Objects.isNull(workerInstanceGetter)) {
+            synchronized (RemoteServiceHandler.class) {
+                if (Objects.isNull(workerInstanceGetter)) {
+                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
+                                                             .provider()
+                                                             .getService(IWorkerInstanceGetter.class);
+                }
+            }
+        }
+    }
+
+    private void handle(RemoteHandleWorker handleWorker, RemoteData remoteData) {
+        AbstractWorker nextWorker = handleWorker.getWorker();
+        StreamData streamData;
+        try {
+            streamData = handleWorker.newStreamDataInstance();
+        } catch (Throwable t) {
+            remoteInErrorCounter.inc();
+            LOGGER.error(t.getMessage(), t);
+            return;
+        }
+        try {
+            streamData.deserialize(remoteData);
+        } catch (Throwable t) {
+            remoteInErrorCounter.inc();
+            LOGGER.error("Can't deserialize data {}, this data is discarded.", remoteData, t);
+            return;
+        }
+        nextWorker.in(streamData);
+    }
+
+    private void onError(Throwable throwable) {
+        Status status = Status.fromThrowable(throwable);
+        if (Status.CANCELLED.getCode() == status.getCode()) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(throwable.getMessage(), throwable);
+            }
+            return;
+        }
+        LOGGER.error(throwable.getMessage(), throwable);
+    }
+
     @Override
     public void syncStatus(StatusRequest statusRequest, StreamObserver<StatusResponse> responseObserver) {
         if (statusRequest.getRequestCase().equals(StatusRequest.RequestCase.ALARMREQUEST)) {
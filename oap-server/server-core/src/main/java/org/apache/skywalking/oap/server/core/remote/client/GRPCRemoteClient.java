@@ -22,14 +22,21 @@ import io.grpc.ManagedChannel;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import io.netty.handler.ssl.SslContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.library.batchqueue.BatchQueue;
 import org.apache.skywalking.oap.server.library.batchqueue.BatchQueueConfig;
@@ -47,9 +54,25 @@ import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 /**
  * This is a wrapper of the gRPC client for sending message to each other OAP server. It contains a block queue to
  * buffering the message and sending the message by batch.
+ * <p>
+ * The buffered messages are grouped by the next worker name and sent through {@code RemoteService.batch}, so the worker
+ * name is only sent once per group. If the target OAP server is an older version without the batch RPC, the client
+ * falls back to {@code RemoteService.call} and sends every message separately, and probes the batch RPC again every
+ * {@link #BATCH_REPROBE_INTERVAL}, so the batch is used once the target is upgraded. The messages of a rejected batch
+ * are handed back to the queue consumer thread and resent from there, never from the gRPC callback thread.
  */
 @Slf4j
 public class GRPCRemoteClient implements RemoteClient {
+    /**
+     * The max size of a batch message, far below the default max inbound message size(4MB) of the gRPC server.
+     */
+    private static final int MAX_BATCH_SIZE_IN_BYTES = 1024 * 1024;
+    private static final long BATCH_REPROBE_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * The max number of the stream observers in flight.
+     */
+    private static final int MAX_CONCURRENT_STREAMS = 10;
+
     private final int bufferSize;
     private final Address address;
     private final AtomicInteger concurrentStreamObserverNumber = new AtomicInteger(0);
@@ -61,18 +84,40 @@ public class GRPCRemoteClient implements RemoteClient {
     private CounterMetrics remoteOutCounter;
     private CounterMetrics remoteOutErrorCounter;
     private int remoteTimeout;
+    private final boolean compression;
+    private volatile boolean batchSupported = true;
+    private volatile long batchUnsupportedTime = 0;
     private long lastRemoteResourceExhaustedTime = 0;
+    /**
+     * The messages of the batches rejected by an older target, resent by the consumer thread. The number of the
+     * pending messages is bounded by the buffer size of every stream in flight, the overflow is dropped.
+     */
+    private final Queue<List<RemoteMessage>> rejectedBatches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger rejectedMessageNumber = new AtomicInteger(0);
 
     public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
                             final Address address,
                             final int bufferSize,
                             final int remoteTimeout,
                             final SslContext sslContext) {
+        this(moduleDefineHolder, address, bufferSize, remoteTimeout, sslContext, false);
+    }
+
+    /**
+     * @param compression true to compress the messages by gzip, which is always supported by the gRPC server.
+     */
+    public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
+                            final Address address,
+                            final int bufferSize,
+                            final int remoteTimeout,
+                            final SslContext sslContext,
+                            final boolean compression) {
 
         this.address = address;
         this.bufferSize = bufferSize;
         this.remoteTimeout = remoteTimeout;
         this.sslContext = sslContext;
+        this.compression = compression;
 
         remoteOutCounter = moduleDefineHolder.find(TelemetryModule.NAME)
                                              .provider()
@@ -139,7 +184,8 @@ public class GRPCRemoteClient implements RemoteClient {
     }
 
     RemoteServiceGrpc.RemoteServiceStub getStub() {
-        return RemoteServiceGrpc.newStub(getChannel());
+        final RemoteServiceGrpc.RemoteServiceStub stub = RemoteServiceGrpc.newStub(getChannel());
+        return compression ? stub.withCompression("gzip") : stub;
     }
 
     /**
@@ -160,18 +206,88 @@ public class GRPCRemoteClient implements RemoteClient {
     class RemoteMessageConsumer implements HandlerConsumer<RemoteMessage> {
         @Override
         public void consume(List<RemoteMessage> remoteMessages) {
+            resendRejectedBatches();
             try {
-                StreamObserver<RemoteMessage> streamObserver = createStreamObserver();
-                for (RemoteMessage remoteMessage : remoteMessages) {
-                    remoteOutCounter.inc();
-                    streamObserver.onNext(remoteMessage);
+                if (!batchSupported && System.currentTimeMillis() - batchUnsupportedTime > BATCH_REPROBE_INTERVAL) {
+                    // Probe the batch RPC again, the messages are resent one by one if it is still not supported.
+                    batchSupported = true;
+                }
+                if (batchSupported) {
+                    sendBatches(remoteMessages);
+                } else {
+                    sendMessages(remoteMessages);
                 }
-                streamObserver.onCompleted();
             } catch (Throwable t) {
                 remoteOutErrorCounter.inc();
                 log.error(t.getMessage(), t);
             }
         }
+
+        @Override
+        public void onIdle() {
+            resendRejectedBatches();
+        }
+    }
+
+    /**
+     * Resend the messages of the batches rejected by an older target one by one, in the consumer thread.
+     */
+    private void resendRejectedBatches() {
+        List<RemoteMessage> remoteMessages;
+        while ((remoteMessages = rejectedBatches.poll()) != null) {
+            rejectedMessageNumber.addAndGet(-remoteMessages.size());
+            try {
+                sendMessages(remoteMessages);
+            } catch (Throwable t) {
+                remoteOutErrorCounter.inc();
+                log.error(t.getMessage(), t);
+            }
+        }
+    }
+
+    private void sendMessages(List<RemoteMessage> remoteMessages) {
+        StreamObserver<RemoteMessage> streamObserver = createStreamObserver();
+        for (RemoteMessage remoteMessage : remoteMessages) {
+            remoteOutCounter.inc();
+            streamObserver.onNext(remoteMessage);
+        }
+        streamObserver.onCompleted();
+    }
+
+    /**
+     * Group the messages by the next worker name, keeping the order of the first message of every worker. A group is
+     * split into multiple batches when it is over {@link #MAX_BATCH_SIZE_IN_BYTES}.
+     */
+    private void sendBatches(List<RemoteMessage> remoteMessages) {
+        final Map<String, RemoteMessageBatch.Builder> batches = new LinkedHashMap<>();
+        final Map<String, Integer> batchSizes = new HashMap<>();
+        final List<RemoteMessageBatch> fullBatches = new ArrayList<>();
+        for (RemoteMessage remoteMessage : remoteMessages) {
+            final String nextWorkerName = remoteMessage.getNextWorkerName();
+            final int size = remoteMessage.getRemoteData().getSerializedSize();
+            RemoteMessageBatch.Builder batch = batches.get(nextWorkerName);
+            if (batch != null && batchSizes.get(nextWorkerName) + size > MAX_BATCH_SIZE_IN_BYTES) {
+                fullBatches.add(batch.build());
+                batch = null;
+            }
+            if (batch == null) {
+                batch = RemoteMessageBatch.newBuilder().setNextWorkerName(nextWorkerName);
+                batches.put(nextWorkerName, batch);
+                batchSizes.put(nextWorkerName, 0);
+            }
+            batch.addRemoteData(remoteMessage.getRemoteData());
+            batchSizes.merge(nextWorkerName, size, Integer::sum);
+        }
+
+        StreamObserver<RemoteMessageBatch> streamObserver = createBatchStreamObserver(remoteMessages);
+        for (RemoteMessageBatch batch : fullBatches) {
+            streamObserver.onNext(batch);
+        }
+        for (RemoteMessageBatch.Builder batch : batches.values()) {
+            streamObserver.onNext(batch.build());
+        }
+        remoteOutCounter.inc(remoteMessages.size());
+        streamObserver.onCompleted();
     }
 
     /**
@@ -181,12 +297,41 @@ public class GRPCRemoteClient implements RemoteClient {
      * @return stream observer
      */
     private StreamObserver<RemoteMessage> createStreamObserver() {
+        waitForStreamQuota();
+
+        final StreamObserver<RemoteMessage> remoteMessageStreamObserver
+            = getStub().withDeadlineAfter(remoteTimeout, TimeUnit.SECONDS)
+                       .call(new ResponseObserver(null));
+        concurrentStreamObserverNumber.incrementAndGet();
+        return remoteMessageStreamObserver;
+    }
+
+    /**
+     * Create a gRPC stream observer to sending the grouped stream data, sharing the concurrency limit of
+     * {@link #createStreamObserver()}.
+     *
+     * @param remoteMessages to resend through {@code RemoteService.call} if the target doesn't support the batch RPC.
+     * @return stream observer
+     */
+    private StreamObserver<RemoteMessageBatch> createBatchStreamObserver(List<RemoteMessage> remoteMessages) {
+        waitForStreamQuota();
+
+        final StreamObserver<RemoteMessageBatch> remoteMessageStreamObserver
+            = getStub().withDeadlineAfter(remoteTimeout, TimeUnit.SECONDS)
+                       .batch(new ResponseObserver(remoteMessages));
+        concurrentStreamObserverNumber.incrementAndGet();
+        return remoteMessageStreamObserver;
+    }
+
+    /**
+     * If over 10 stream observers created and not finished/error, this blocks the method.
+     */
+    private void waitForStreamQuota() {
         int sleepTotalMillis = 0;
         int sleepMillis = 10;
 
         // Control the concurrency of gRPC streaming stub.
-        // If over 10 created and not finished/error, this blocks the method.
-        while (concurrentStreamObserverNumber.get() > 10) {
+        while (concurrentStreamObserverNumber.get() > MAX_CONCURRENT_STREAMS) {
             try {
                 Thread.sleep(sleepMillis);
             } catch (InterruptedException e) {
@@ -204,41 +349,67 @@ public class GRPCRemoteClient implements RemoteClient {
                 sleepTotalMillis = 0;
             }
         }
+    }
 
-        final StreamObserver<RemoteMessage> remoteMessageStreamObserver
-            = getStub().withDeadlineAfter(remoteTimeout, TimeUnit.SECONDS)
-                       .call(new StreamObserver<Empty>() {
-                           @Override
-                           public void onNext(Empty empty) {
-                           }
-
-                           @Override
-                           public void onError(Throwable throwable) {
-                               concurrentStreamObserverNumber.addAndGet(-1);
-                               Status status = Status.fromThrowable(throwable);
-                               if (Status.CANCELLED.getCode() == status.getCode()) {
-                                   if (log.isDebugEnabled()) {
-                                       log.debug(throwable.getMessage(), throwable);
-                                   }
-                                   return;
-                               } else if (Status.RESOURCE_EXHAUSTED.getCode() == status.getCode()) {
-                                   if (System.currentTimeMillis() - lastRemoteResourceExhaustedTime > 120_000) {
-                                       // Only output the log every 120 seconds.
-                                       log.warn(throwable.getMessage(), throwable);
-                                       lastRemoteResourceExhaustedTime = System.currentTimeMillis();
-                                   }
-                                   return;
-                               }
-                               log.error(throwable.getMessage(), throwable);
-                           }
-
-                           @Override
-                           public void onCompleted() {
-                               concurrentStreamObserverNumber.addAndGet(-1);
-                           }
-                       });
-        concurrentStreamObserverNumber.incrementAndGet();
-        return remoteMessageStreamObserver;
+    private class ResponseObserver implements StreamObserver<Empty> {
+        /**
+         * The messages sent by the batch RPC, null for {@code RemoteService.call}.
+         */
+        private final List<RemoteMessage> batchedMessages;
+
+        private ResponseObserver(final List<RemoteMessage> batchedMessages) {
+            this.batchedMessages = batchedMessages;
+        }
+
+        @Override
+        public void onNext(Empty empty) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            concurrentStreamObserverNumber.addAndGet(-1);
+            Status status = Status.fromThrowable(throwable);
+            if (batchedMessages != null && Status.UNIMPLEMENTED.getCode() == status.getCode()) {
+                // The target is an older OAP server, resend the messages one by one until the next probe.
+                batchUnsupportedTime = System.currentTimeMillis();
+                batchSupported = false;
+                log.info(
+                    "Remote server [{}] doesn't support the batch remote RPC, fall back to the per message RPC.",
+                    address
+                );
+                // Never block the gRPC callback thread on the queue, the consumer thread resends the messages.
+                if (rejectedMessageNumber.addAndGet(batchedMessages.size()) > bufferSize * MAX_CONCURRENT_STREAMS) {
+                    rejectedMessageNumber.addAndGet(-batchedMessages.size());
+                    remoteOutErrorCounter.inc(batchedMessages.size());
+                    log.warn(
+                        "Too many messages are pending to resend to remote server [{}], drop {} messages.",
+                        address, batchedMessages.size()
+                    );
+                } else {
+                    rejectedBatches.offer(batchedMessages);
+                }
+                return;
+            }
+            if (Status.CANCELLED.getCode() == status.getCode()) {
+                if (log.isDebugEnabled()) {
+                    log.debug(throwable.getMessage(), throwable);
+                }
+                return;
+            } else if (Status.RESOURCE_EXHAUSTED.getCode() == status.getCode()) {
+                if (System.currentTimeMillis() - lastRemoteResourceExhaustedTime > 120_000) {
+                    // Only output the log every 120 seconds.
+                    log.warn(throwable.getMessage(), throwable);
+                    lastRemoteResourceExhaustedTime = System.currentTimeMillis();
+                }
+                return;
+            }
+            log.error(throwable.getMessage(), throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            concurrentStreamObserverNumber.addAndGet(-1);
+        }
     }
 
     @Override
@@ -23,7 +23,6 @@ import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -41,6 +40,7 @@ import org.apache.skywalking.oap.server.core.cluster.ClusterModule;
 import org.apache.skywalking.oap.server.core.cluster.ClusterNodesQuery;
 import org.apache.skywalking.oap.server.core.cluster.ClusterWatcher;
 import org.apache.skywalking.oap.server.core.cluster.RemoteInstance;
+import org.apache.skywalking.oap.server.core.remote.selector.HashCodeSelector;
 import org.apache.skywalking.oap.server.core.status.ServerStatusService;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.library.module.Service;
@@ -62,7 +62,19 @@ public class RemoteClientManager implements Service, ClusterWatcher {
     private ClusterNodesQuery clusterNodesQuery;
     private volatile List<RemoteClient> usingClients;
     private GaugeMetrics gauge;
+    private GaugeMetrics movedRatioGauge;
     private int remoteTimeout;
+    /**
+     * Compress the messages sent by the gRPC remote clients.
+     */
+    @Setter
+    private boolean remoteCompressionEnabled;
+    /**
+     * The selector routing the data by hash code, to report how much data is routed to other nodes when the cluster
+     * changes.
+     */
+    @Setter
+    private HashCodeSelector hashCodeSelector = new HashCodeSelector();
 
     /**
      * Initial the manager for all remote communication clients.
@@ -124,6 +136,15 @@ public class RemoteClientManager implements Service, ClusterWatcher {
                                           "cluster_size", "Cluster size of current oap node", MetricsTag.EMPTY_KEY,
                                           MetricsTag.EMPTY_VALUE
                                       );
+            movedRatioGauge = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                .provider()
+                                                .getService(MetricsCreator.class)
+                                                .createGauge(
+                                                    "remote_routing_moved_ratio",
+                                                    "The ratio of the metrics routed to another oap node in the last cluster change",
+                                                    MetricsTag.EMPTY_KEY,
+                                                    MetricsTag.EMPTY_VALUE
+                                                );
         }
         try {
             if (log.isDebugEnabled()) {
@@ -143,7 +164,12 @@ public class RemoteClientManager implements Service, ClusterWatcher {
                 if (log.isDebugEnabled()) {
                     log.debug("ReBuilding remote clients.");
                 }
+                final List<RemoteClient> previousClients = usingClients;
                 reBuildRemoteClients(instanceList);
+                final double movedRatio = hashCodeSelector.movedRatio(previousClients, usingClients);
+                movedRatioGauge.setValue(movedRatio);
+                log.info("Remote clients changed from {} to {} nodes, {}% of the metrics are routed to another node.",
+                         previousClients.size(), usingClients.size(), String.format("%.2f", movedRatio * 100));
                 moduleDefineHolder.find(CoreModule.NAME)
                        .provider()
                        .getService(ServerStatusService.class)
@@ -228,7 +254,7 @@ public class RemoteClientManager implements Service, ClusterWatcher {
         unChangeAddresses.forEach(latestRemoteClients::remove);
         remoteClientCollection.putAll(latestRemoteClients);
 
-        final List<RemoteClient> newRemoteClients = new LinkedList<>();
+        final List<RemoteClient> newRemoteClients = new ArrayList<>(remoteClientCollection.size());
         remoteClientCollection.forEach((address, clientAction) -> {
             switch (clientAction.getAction()) {
                 case Unchanged:
@@ -240,7 +266,8 @@ public class RemoteClientManager implements Service, ClusterWatcher {
                         newRemoteClients.add(client);
                     } else {
                         RemoteClient client;
-                        client = new GRPCRemoteClient(moduleDefineHolder, address, 3000, remoteTimeout, sslContext);
+                        client = new GRPCRemoteClient(
+                            moduleDefineHolder, address, 3000, remoteTimeout, sslContext, remoteCompressionEnabled);
                         client.connect();
                         newRemoteClients.add(client);
                     }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.selector;
+
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+
+/**
+ * Route the data by a consistent hash ring, only the data owned by the added or removed nodes moves when the cluster
+ * changes, so the L2 aggregation of the other nodes, and their session caches, stay unchanged.
+ * <p>
+ * Every node is placed on the ring by {@link #VIRTUAL_NODES} points hashed from its address, the ring is built once
+ * per client list, all OAP nodes build the same ring from the same sorted list.
+ */
+public class ConsistentHashSelector extends HashCodeSelector {
+    private static final int VIRTUAL_NODES = 160;
+    private static final long RING_SIZE = 1L << 32;
+
+    /**
+     * The max share of the ring owned by a node, in percentage of the average. 0 means not bounded.
+     */
+    private final int loadBound;
+    private volatile Ring ring;
+
+    public ConsistentHashSelector() {
+        this(0);
+    }
+
+    public ConsistentHashSelector(int loadBound) {
+        this.loadBound = loadBound;
+    }
+
+    @Override
+    public RemoteClient select(List<RemoteClient> clients, int hashCode) {
+        Ring current = ring;
+        if (current == null || current.clients != clients) {
+            current = rebuild(clients);
+        }
+        return current.select(hashCode);
+    }
+
+    private synchronized Ring rebuild(List<RemoteClient> clients) {
+        if (ring == null || ring.clients != clients) {
+            ring = new Ring(clients, loadBound);
+        }
+        return ring;
+    }
+
+    @Override
+    public double movedRatio(List<RemoteClient> from, List<RemoteClient> to) {
+        if (from.isEmpty() || to.isEmpty()) {
+            return 0;
+        }
+        final Ring fromRing = new Ring(from, loadBound);
+        final Ring toRing = new Ring(to, loadBound);
+        // Walk through the boundaries of both rings, and sum the arcs owned by different nodes.
+        final int[] boundaries = new int[fromRing.positions.length + toRing.positions.length];
+        System.arraycopy(fromRing.positions, 0, boundaries, 0, fromRing.positions.length);
+        System.arraycopy(toRing.positions, 0, boundaries, fromRing.positions.length, toRing.positions.length);
+        Arrays.sort(boundaries);
+        long moved = 0;
+        for (int i = 0; i < boundaries.length; i++) {
+            final long arc = arc(i == 0 ? boundaries[boundaries.length - 1] : boundaries[i - 1], boundaries[i]);
+            if (!fromRing.owner(boundaries[i]).getAddress().equals(toRing.owner(boundaries[i]).getAddress())) {
+                moved += arc;
+            }
+        }
+        return (double) moved / RING_SIZE;
+    }
+
+    /**
+     * @return the length of the arc (from, to], the positions are unsigned values shifted into the range of int.
+     */
+    private static long arc(int from, int to) {
+        final long length = (long) to - from;
+        return length >= 0 ? length : length + RING_SIZE;
+    }
+
+    private static final class Ring {
+        private final List<RemoteClient> clients;
+        /**
+         * The sorted positions of the points, {@code Integer.MIN_VALUE} is the start of the ring.
+         */
+        private final int[] positions;
+        /**
+         * The index of the client owning the arc ending at the point.
+         */
+        private final int[] owners;
+
+        private Ring(List<RemoteClient> clients, int loadBound) {
+            this.clients = clients;
+            final long[] points = new long[clients.size() * VIRTUAL_NODES];
+            for (int i = 0; i < clients.size(); i++) {
+                final String address = clients.get(i).getAddress().toString();
+                for (int v = 0; v < VIRTUAL_NODES; v++) {
+                    final int position = Hashing.murmur3_32_fixed()
+                                                .hashString(address + "#" + v, StandardCharsets.UTF_8)
+                                                .asInt() ^ Integer.MIN_VALUE;
+                    // Sorted by the position, then the index of the client for the conflicts.
+                    points[i * VIRTUAL_NODES + v] = ((long) position << 32) | i;
+                }
+            }
+            Arrays.sort(points);
+            positions = new int[points.length];
+            owners = new int[points.length];
+            for (int i = 0; i < points.length; i++) {
+                positions[i] = (int) (points[i] >> 32);
+                owners[i] = (int) points[i];
+            }
+            if (loadBound > 0 && clients.size() > 1) {
+                bound(loadBound);
+            }
+        }
+
+        /**
+         * Move the arcs of the overloaded nodes to the following nodes on the ring with spare capacity, in the order of
+         * the ring, so the result is the same in all OAP nodes.
+         */
+        private void bound(int loadBound) {
+            final long capacity = RING_SIZE / clients.size() * Math.max(loadBound, 100) / 100;
+            final long[] loads = new long[clients.size()];
+            for (int i = 0; i < positions.length; i++) {
+                final long arc = arc(i == 0 ? positions[positions.length - 1] : positions[i - 1], positions[i]);
+                int owner = owners[i];
+                for (int j = 1; j < owners.length && loads[owner] + arc > capacity; j++) {
+                    owner = owners[(i + j) % owners.length];
+                }
+                if (loads[owner] + arc > capacity) {
+                    owner = owners[i];
+                }
+                owners[i] = owner;
+                loads[owner] += arc;
+            }
+        }
+
+        private RemoteClient select(int hashCode) {
+            return owner(mix(hashCode) ^ Integer.MIN_VALUE);
+        }
+
+        private RemoteClient owner(int position) {
+            int index = Arrays.binarySearch(positions, position);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index == positions.length) {
+                index = 0;
+            }
+            return clients.get(owners[index]);
+        }
+    }
+}
@@ -19,15 +19,58 @@
 package org.apache.skywalking.oap.server.core.remote.selector;
 
 import java.util.List;
+import java.util.Objects;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 
+/**
+ * Route the data by the modulo of its hash code. Most of the data moves to another node when the cluster changes, use
+ * {@link ConsistentHashSelector} to keep the routing stable.
+ */
 public class HashCodeSelector implements RemoteClientSelector {
+    /**
+     * The number of the hash codes sampled to estimate the routing changes.
+     */
+    private static final int SAMPLES = 1 << 14;
 
     @Override
     public RemoteClient select(List<RemoteClient> clients, StreamData streamData) {
+        return select(clients, streamData.remoteHashCode());
+    }
+
+    public RemoteClient select(List<RemoteClient> clients, int hashCode) {
         int size = clients.size();
-        int selectIndex = Math.abs(streamData.remoteHashCode() % size);
+        int selectIndex = Math.abs(hashCode % size);
         return clients.get(selectIndex);
     }
+
+    /**
+     * @return the ratio of the data routed to another node after the clients changed, estimated by sampling the hash
+     * codes.
+     */
+    public double movedRatio(List<RemoteClient> from, List<RemoteClient> to) {
+        if (from.isEmpty() || to.isEmpty()) {
+            return 0;
+        }
+        int moved = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            final int hashCode = mix(i);
+            if (!Objects.equals(select(from, hashCode).getAddress(), select(to, hashCode).getAddress())) {
+                moved++;
+            }
+        }
+        return (double) moved / SAMPLES;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreads the bits of the hash codes, which are usually the hash codes of strings.
+     */
+    static int mix(int hashCode) {
+        hashCode ^= hashCode >>> 16;
+        hashCode *= 0x85ebca6b;
+        hashCode ^= hashCode >>> 13;
+        hashCode *= 0xc2b2ae35;
+        hashCode ^= hashCode >>> 16;
+        return hashCode;
+    }
 }
@@ -148,7 +148,8 @@ public enum PersistenceTimer {
                 }, prepareExecutorService);
             }).toArray(CompletableFuture[]::new));
 
-        future.whenComplete((unused, throwable) -> {
+        // The round ends after the end of flush, which could wait for the data to be written.
+        return future.whenComplete((unused, throwable) -> {
             batchDAO.endOfFlush();
             allTimer.close();
             if (log.isDebugEnabled()) {
@@ -162,6 +163,5 @@ public enum PersistenceTimer {
                 log.error(throwable.getMessage(), throwable);
             }
         });
-        return future;
     }
 }
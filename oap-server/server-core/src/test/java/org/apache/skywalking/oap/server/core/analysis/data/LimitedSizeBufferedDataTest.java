@@ -64,6 +64,31 @@ public class LimitedSizeBufferedDataTest {
         }
     }
 
+    @Test
+    public void testReadInDescendingOrder() {
+        LimitedSizeBufferedData<MockStorageData> collection = new LimitedSizeBufferedData<>(3);
+        //2024-01-17 17:00:00
+        for (long latency : new long[] {5, 9, 1, 7, 3, 6, 2, 8}) {
+            collection.accept(new MockStorageData(latency, 1705482000000L));
+        }
+
+        List<MockStorageData> result = collection.read();
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals(9, result.get(0).latency);
+        Assertions.assertEquals(8, result.get(1).latency);
+        Assertions.assertEquals(7, result.get(2).latency);
+        Assertions.assertTrue(collection.read().isEmpty());
+    }
+
+    @Test
+    public void testZeroLimitedSize() {
+        LimitedSizeBufferedData<MockStorageData> collection = new LimitedSizeBufferedData<>(0);
+        collection.accept(new MockStorageData(1, 1705482000000L));
+        collection.accept(new MockStorageData(2, 1705482000000L));
+
+        Assertions.assertTrue(collection.read().isEmpty());
+    }
+
     private class MockStorageData extends TopN {
         private long latency;
         private long timestamp;
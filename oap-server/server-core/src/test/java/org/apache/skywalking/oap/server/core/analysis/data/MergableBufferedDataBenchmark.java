@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.skywalking.oap.server.core.analysis.metrics.CountMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the rounds of merging a batch of metrics and draining them, by the HashMap keyed by the {@link StorageID},
+ * the HashMap keyed by the metrics identity, and the open-addressing table of {@link MergableBufferedData}. All
+ * buffers are reused across the rounds as the workers do. Every batch is new metrics, as the workers receive, so
+ * neither the storage ID nor the identity hash is cached before the merge.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class MergableBufferedDataBenchmark {
+    private static final long TIME_BUCKET = 202401010000L;
+    private static final int BATCH = 10_000;
+
+    @Param({"100", "10000"})
+    private int entities;
+
+    private String[] entityIds;
+    private final Map<StorageID, ServiceCallsMetrics> storageIDKeyed = new HashMap<>();
+    private final Map<Identity, ServiceCallsMetrics> identityKeyed = new HashMap<>();
+    private final MergableBufferedData<ServiceCallsMetrics> table = new MergableBufferedData<>();
+    private final List<ServiceCallsMetrics> batch = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        entityIds = new String[entities];
+        for (int i = 0; i < entities; i++) {
+            // As the encoded service ID.
+            entityIds[i] = "c2VydmljZS0" + i + ".1";
+        }
+    }
+
+    @Benchmark
+    public void mergeByStorageID(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            final ServiceCallsMetrics metrics = newMetrics(i);
+            final StorageID id = metrics.id();
+            final ServiceCallsMetrics existed = storageIDKeyed.get(id);
+            if (existed == null) {
+                storageIDKeyed.put(id, metrics);
+            } else {
+                existed.combine(metrics);
+            }
+        }
+        bh.consume(storageIDKeyed.values().stream().collect(Collectors.toList()));
+        storageIDKeyed.clear();
+    }
+
+    @Benchmark
+    public void mergeByIdentityInHashMap(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            final ServiceCallsMetrics metrics = newMetrics(i);
+            final Identity identity = new Identity(metrics);
+            final ServiceCallsMetrics existed = identityKeyed.get(identity);
+            if (existed == null) {
+                identityKeyed.put(identity, metrics);
+            } else {
+                existed.combine(metrics);
+            }
+        }
+        bh.consume(identityKeyed.values().stream().collect(Collectors.toList()));
+        identityKeyed.clear();
+    }
+
+    @Benchmark
+    public void mergeByIdentityInTable(Blackhole bh) {
+        for (int i = 0; i < BATCH; i++) {
+            table.accept(newMetrics(i));
+        }
+        table.read(batch);
+        bh.consume(batch);
+        batch.clear();
+    }
+
+    private ServiceCallsMetrics newMetrics(int i) {
+        final ServiceCallsMetrics metrics = new ServiceCallsMetrics();
+        metrics.entityId = entityIds[i % entities];
+        metrics.setTimeBucket(TIME_BUCKET + (i & 1));
+        metrics.combine(1);
+        return metrics;
+    }
+
+    private static final class Identity {
+        private final Metrics metrics;
+        private final int hash;
+
+        private Identity(final Metrics metrics) {
+            this.metrics = metrics;
+            final long identityHash = metrics.identityHash();
+            this.hash = (int) (identityHash ^ (identityHash >>> 32));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Identity && metrics.identityEquals(((Identity) obj).metrics);
+        }
+    }
+
+    /**
+     * As the metrics generated for {@code service_calls = from(Service.*).count()}.
+     */
+    private static class ServiceCallsMetrics extends CountMetrics {
+        private String entityId;
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        protected long identityHash0() {
+            return mixIdentityHash(combineIdentityHash(getTimeBucket(), entityId));
+        }
+
+        @Override
+        public boolean identityEquals(Metrics metrics) {
+            if (this == metrics) {
+                return true;
+            }
+            if (metrics == null || getClass() != metrics.getClass()) {
+                return false;
+            }
+            final ServiceCallsMetrics serviceCallsMetrics = (ServiceCallsMetrics) metrics;
+            return getTimeBucket() == serviceCallsMetrics.getTimeBucket()
+                && entityId.equals(serviceCallsMetrics.entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(".*" + getClass().getSimpleName() + ".*")
+                .jvmArgsAppend("-Xmx2g", "-Xms2g")
+                .build()).run();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.metrics.CountMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MergableBufferedDataTest {
+    @Test
+    public void testMergeByIdentity() {
+        final MergableBufferedData<MockMetrics> buffer = new MergableBufferedData<>();
+        buffer.accept(new MockMetrics("a", 202401010000L, 1, true));
+        buffer.accept(new MockMetrics("a", 202401010000L, 2, true));
+        buffer.accept(new MockMetrics("b", 202401010000L, 3, true));
+        buffer.accept(new MockMetrics("a", 202401010001L, 4, true));
+
+        assertMerged(buffer.read());
+        Assertions.assertTrue(buffer.read().isEmpty());
+    }
+
+    @Test
+    public void testMergeByStorageID() {
+        final MergableBufferedData<MockMetrics> buffer = new MergableBufferedData<>();
+        buffer.accept(new MockMetrics("a", 202401010000L, 1, false));
+        buffer.accept(new MockMetrics("a", 202401010000L, 2, false));
+        buffer.accept(new MockMetrics("b", 202401010000L, 3, false));
+        buffer.accept(new MockMetrics("a", 202401010001L, 4, false));
+
+        assertMerged(buffer.read());
+    }
+
+    @Test
+    public void testIdentityConsistentWithStorageID() {
+        final MockMetrics generated = new MockMetrics("a", 202401010000L, 1, true);
+        final MockMetrics fallback = new MockMetrics("a", 202401010000L, 1, false);
+        Assertions.assertEquals(generated.id(), fallback.id());
+        Assertions.assertEquals(
+            generated.identityHash(), new MockMetrics("a", 202401010000L, 2, true).identityHash());
+        Assertions.assertNotEquals(
+            generated.identityHash(), new MockMetrics("a", 202401010001L, 1, true).identityHash());
+        Assertions.assertFalse(generated.identityEquals(new MockMetrics("b", 202401010000L, 1, true)));
+        Assertions.assertFalse(generated.identityEquals(new MockMetrics("a", 202401010001L, 1, true)));
+    }
+
+    @Test
+    public void testKeepCapacityAcrossRounds() {
+        final MergableBufferedData<MockMetrics> buffer = new MergableBufferedData<>();
+        final List<MockMetrics> batch = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1000; i++) {
+                buffer.accept(new MockMetrics("entity-" + i, 202401010000L, 1, true));
+                buffer.accept(new MockMetrics("entity-" + i, 202401010000L, 2, true));
+            }
+            Assertions.assertEquals(1000, buffer.size());
+            Assertions.assertEquals(2048, buffer.capacity());
+
+            buffer.read(batch);
+            Assertions.assertEquals(1000, batch.size());
+            Assertions.assertTrue(batch.stream().allMatch(metrics -> metrics.getValue() == 3));
+            Assertions.assertEquals(0, buffer.size());
+            Assertions.assertEquals(2048, buffer.capacity());
+            batch.clear();
+        }
+
+        // Shrink gradually once the traffic drops.
+        buffer.accept(new MockMetrics("entity-0", 202401010000L, 1, true));
+        buffer.read(batch);
+        Assertions.assertEquals(1, batch.size());
+        Assertions.assertEquals(1024, buffer.capacity());
+        for (int i = 0; i < 10; i++) {
+            buffer.read(batch);
+        }
+        Assertions.assertEquals(16, buffer.capacity());
+    }
+
+    private static void assertMerged(List<MockMetrics> result) {
+        result.sort(Comparator.comparing(MockMetrics::id, Comparator.comparing(StorageID::build)));
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals("202401010000_a", result.get(0).id().build());
+        Assertions.assertEquals(3, result.get(0).getValue());
+        Assertions.assertEquals("202401010000_b", result.get(1).id().build());
+        Assertions.assertEquals(3, result.get(1).getValue());
+        Assertions.assertEquals("202401010001_a", result.get(2).id().build());
+        Assertions.assertEquals(4, result.get(2).getValue());
+    }
+
+    private static class MockMetrics extends CountMetrics {
+        private final String entityId;
+        /**
+         * Identify as the generated OAL metrics, or fall back to the storage ID.
+         */
+        private final boolean generatedIdentity;
+
+        private MockMetrics(String entityId, long timeBucket, long value, boolean generatedIdentity) {
+            this.entityId = entityId;
+            this.generatedIdentity = generatedIdentity;
+            setTimeBucket(timeBucket);
+            setValue(value);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        protected long identityHash0() {
+            if (!generatedIdentity) {
+                return super.identityHash0();
+            }
+            return mixIdentityHash(combineIdentityHash(getTimeBucket(), entityId));
+        }
+
+        @Override
+        public boolean identityEquals(Metrics metrics) {
+            if (!generatedIdentity) {
+                return super.identityEquals(metrics);
+            }
+            final MockMetrics mockMetrics = (MockMetrics) metrics;
+            return getTimeBucket() == mockMetrics.getTimeBucket() && entityId.equals(mockMetrics.entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the cost of one expiry round, when no series expires, between scanning all series and dropping the expired
+ * time buckets of {@link TimeBucketSegmentedMap}. The scan cost grows with the number of series, the segmented one
+ * doesn't.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class TimeBucketSegmentedMapBenchmark {
+    private static final long TIME_BUCKET = 202401010000L;
+    private static final long TIMEOUT = 70_000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int series;
+
+    private final Map<Long, Series> scanned = new ConcurrentHashMap<>();
+    private final TimeBucketSegmentedMap<Long, Series> segmented = new TimeBucketSegmentedMap<>();
+
+    @Setup
+    public void setup() {
+        final long now = System.currentTimeMillis();
+        for (long i = 0; i < series; i++) {
+            // Two live minutes, as the L2 session cache usually holds.
+            final long timeBucket = TIME_BUCKET + i % 2;
+            final Series value = new Series(now);
+            scanned.put(i, value);
+            segmented.put(timeBucket, i, value);
+        }
+    }
+
+    @Benchmark
+    public void removeExpiredByScan(Blackhole bh) {
+        final long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Series> iterator = scanned.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastUpdateTimestamp > TIMEOUT) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        bh.consume(removed);
+    }
+
+    @Benchmark
+    public void removeExpiredBySegment(Blackhole bh) {
+        bh.consume(segmented.removeBefore(TIME_BUCKET, null));
+    }
+
+    private static class Series {
+        private final long lastUpdateTimestamp;
+
+        private Series(final long lastUpdateTimestamp) {
+            this.lastUpdateTimestamp = lastUpdateTimestamp;
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(".*" + getClass().getSimpleName() + ".*")
+                .jvmArgsAppend("-Xmx2g", "-Xms2g")
+                .build()).run();
+    }
+}
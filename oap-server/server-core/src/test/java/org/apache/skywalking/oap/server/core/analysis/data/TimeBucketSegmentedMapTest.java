@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TimeBucketSegmentedMapTest {
+
+    @Test
+    public void testRemoveBefore() {
+        final TimeBucketSegmentedMap<String, Integer> map = new TimeBucketSegmentedMap<>();
+        map.put(202401010000L, "a", 1);
+        map.put(202401010000L, "b", 2);
+        map.put(202401010001L, "a", 3);
+        map.put(202401010002L, "a", 4);
+        assertEquals(4, map.size());
+        assertEquals(202401010000L, map.firstTimeBucket());
+
+        final Map<String, Integer> removed = new HashMap<>();
+        assertEquals(3, map.removeBefore(202401010002L, (key, value) -> removed.merge(key, value, Integer::sum)));
+        assertEquals(4, removed.get("a"));
+        assertEquals(2, removed.get("b"));
+        assertEquals(1, map.size());
+        assertNull(map.get(202401010000L, "a"));
+        assertEquals(4, map.get(202401010002L, "a"));
+        assertEquals(202401010002L, map.firstTimeBucket());
+    }
+
+    @Test
+    public void testRemoveIdle() {
+        final TimeBucketSegmentedMap<String, Integer> map = new TimeBucketSegmentedMap<>();
+        map.put(202401010000L, "a", 1);
+        map.put(202401010001L, "a", 2);
+        assertEquals(1, map.remove(202401010000L, "a"));
+
+        assertEquals(0, map.removeIdle(System.currentTimeMillis(), 70_000));
+        assertEquals(1, map.removeIdle(System.currentTimeMillis() + 70_001, 70_000));
+        assertEquals(0, map.size());
+        assertNull(map.firstTimeBucket());
+    }
+
+    @Test
+    public void testRemoveIdleValueOfActiveTimeBucket() throws InterruptedException {
+        final TimeBucketSegmentedMap<String, Integer> map = new TimeBucketSegmentedMap<>();
+        map.put(202401010000L, "idle", 1);
+        Thread.sleep(200);
+        map.put(202401010000L, "busy", 2);
+
+        assertEquals(1, map.removeIdle(System.currentTimeMillis() + 5, 100));
+        assertNull(map.get(202401010000L, "idle"));
+        assertEquals(2, map.get(202401010000L, "busy"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testPutAlongWithRemoval() throws InterruptedException {
+        final TimeBucketSegmentedMap<Integer, Integer> map = new TimeBucketSegmentedMap<>();
+        final Set<Integer> removed = ConcurrentHashMap.newKeySet();
+        final AtomicInteger duplicated = new AtomicInteger();
+        final int count = 100_000;
+        final Thread writer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                map.put(202401010000L, i, i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            map.removeBefore(202401010001L, (key, value) -> {
+                if (!removed.add(key)) {
+                    duplicated.incrementAndGet();
+                }
+            });
+        }
+        writer.join();
+        map.removeBefore(202401010001L, (key, value) -> {
+            if (!removed.add(key)) {
+                duplicated.incrementAndGet();
+            }
+        });
+
+        // Every value is either removed once or never lost in a dropped segment.
+        assertEquals(count, removed.size());
+        assertEquals(0, duplicated.get());
+        assertEquals(0, map.size());
+    }
+}
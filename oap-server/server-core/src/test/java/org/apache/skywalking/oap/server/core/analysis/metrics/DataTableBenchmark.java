@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.skywalking.oap.server.core.Const;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the columnar {@link DataTable} with the previous hashmap based implementation, on the operations used by
+ * the percentile metrics: accumulate the buckets of a minute, combine the L1 results, and encode for storage.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class DataTableBenchmark {
+
+    private static final int BUCKETS = 100;
+    private static final int SAMPLES = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Samples {
+        private final String[] keys = new String[SAMPLES];
+        private final DataTable table = new DataTable();
+        private final HashMapDataTable hashMapTable = new HashMapDataTable();
+
+        public Samples() {
+            final Random random = new Random(1);
+            for (int i = 0; i < SAMPLES; i++) {
+                keys[i] = String.valueOf(random.nextInt(BUCKETS));
+                table.valueAccumulation(keys[i], 1L);
+                hashMapTable.valueAccumulation(keys[i], 1L);
+            }
+        }
+    }
+
+    @Benchmark
+    public void accumulateDataTable(Blackhole bh, Samples samples) {
+        final DataTable table = new DataTable(30);
+        for (String key : samples.keys) {
+            table.valueAccumulation(key, 1L);
+        }
+        bh.consume(table);
+    }
+
+    @Benchmark
+    public void accumulateHashMap(Blackhole bh, Samples samples) {
+        final HashMapDataTable table = new HashMapDataTable();
+        for (String key : samples.keys) {
+            table.valueAccumulation(key, 1L);
+        }
+        bh.consume(table);
+    }
+
+    @Benchmark
+    public void combineDataTable(Blackhole bh, Samples samples) {
+        bh.consume(new DataTable(30).append(samples.table).append(samples.table));
+    }
+
+    @Benchmark
+    public void combineHashMap(Blackhole bh, Samples samples) {
+        bh.consume(new HashMapDataTable().append(samples.hashMapTable).append(samples.hashMapTable));
+    }
+
+    @Benchmark
+    public void sortDataTable(Blackhole bh, Samples samples) {
+        bh.consume(samples.table.sortedNumericKeys());
+    }
+
+    @Benchmark
+    public void sortHashMap(Blackhole bh, Samples samples) {
+        bh.consume(samples.hashMapTable.sortedKeys(Comparator.comparingInt(Integer::parseInt)));
+    }
+
+    @Benchmark
+    public void storageRoundTripDataTable(Blackhole bh, Samples samples) {
+        bh.consume(new DataTable(samples.table.toStorageData()));
+    }
+
+    @Benchmark
+    public void storageRoundTripHashMap(Blackhole bh, Samples samples) {
+        bh.consume(new HashMapDataTable(samples.hashMapTable.toStorageData()));
+    }
+
+    /**
+     * The hashmap based data table before the columnar layout, kept as the baseline.
+     */
+    private static class HashMapDataTable {
+        private final HashMap<String, Long> data = new HashMap<>();
+
+        private HashMapDataTable() {
+        }
+
+        private HashMapDataTable(String data) {
+            for (String keyValue : data.split(Const.ARRAY_PARSER_SPLIT)) {
+                int i = keyValue.lastIndexOf(Const.KEY_VALUE_SPLIT);
+                this.data.put(keyValue.substring(0, i), Long.parseLong(keyValue.substring(i + 1)));
+            }
+        }
+
+        private void valueAccumulation(String key, Long value) {
+            Long element = data.get(key);
+            data.put(key, element == null ? value : element + value);
+        }
+
+        private HashMapDataTable append(HashMapDataTable dataTable) {
+            dataTable.data.forEach(this::valueAccumulation);
+            return this;
+        }
+
+        private List<String> sortedKeys(Comparator<String> keyComparator) {
+            return data.keySet().stream().sorted(keyComparator).collect(Collectors.toList());
+        }
+
+        private String toStorageData() {
+            StringBuilder builder = new StringBuilder();
+            data.forEach((key, value) -> {
+                if (builder.length() != 0) {
+                    builder.append(Const.ARRAY_SPLIT);
+                }
+                builder.append(key).append(Const.KEY_VALUE_SPLIT).append(value);
+            });
+            return builder.toString();
+        }
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(".*" + getClass().getSimpleName() + ".*")
+                .jvmArgsAppend("-Xmx512m", "-Xms512m")
+                .build()).run();
+    }
+}
@@ -17,10 +17,12 @@
 
 package org.apache.skywalking.oap.server.core.analysis.metrics;
 
+import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class DataTableTestCase {
 
@@ -60,4 +62,53 @@ public class DataTableTestCase {
 
         assertEquals("1,100|2,200|5,500|6,600|7,700", dataTable.toStorageData());
     }
+
+    @Test
+    public void sortedNumericKeys() {
+        DataTable dataTable = new DataTable();
+        for (int i = 40; i >= -5; i--) {
+            dataTable.valueAccumulation(String.valueOf(i), 1L);
+        }
+        dataTable.valueAccumulation("100", 1L);
+
+        assertEquals("-5", dataTable.sortedNumericKeys().get(0));
+        assertEquals("100", dataTable.sortedNumericKeys().get(dataTable.size() - 1));
+        assertEquals(47, dataTable.sumOfValues());
+    }
+
+    @Test
+    public void labeledKeysKeepInsertionOrder() {
+        DataTable dataTable = new DataTable("{p=50},1|{p=75},2");
+        dataTable.valueAccumulation("{p=50}", 2L);
+        dataTable.put("{p=99}", 4L);
+
+        assertEquals("{p=50},3|{p=75},2|{p=99},4", dataTable.toStorageData());
+        assertEquals(Arrays.asList("{p=50}", "{p=75}", "{p=99}"), dataTable.sortedKeys(String::compareTo));
+        assertEquals(new DataTable("{p=99},4|{p=75},2|{p=50},3"), dataTable);
+    }
+
+    @Test
+    public void sortedNumericKeysAcceptTheKeysOfParseLong() {
+        DataTable dataTable = new DataTable();
+        dataTable.put(String.valueOf(Long.MAX_VALUE), 1L);
+        dataTable.put(String.valueOf(Long.MIN_VALUE), 2L);
+        dataTable.put("+5", 3L);
+        dataTable.put("1000000000000000000", 4L);
+
+        assertEquals(
+            Arrays.asList(String.valueOf(Long.MIN_VALUE), "+5", "1000000000000000000", String.valueOf(Long.MAX_VALUE)),
+            dataTable.sortedNumericKeys()
+        );
+
+        DataTable overflow = new DataTable();
+        overflow.put("9223372036854775808", 1L);
+        assertThrows(NumberFormatException.class, overflow::sortedNumericKeys);
+    }
+
+    @Test
+    public void rejectNullValue() {
+        assertThrows(IllegalArgumentException.class, () -> dataTable.put("8", null));
+        assertThrows(IllegalArgumentException.class, () -> dataTable.valueAccumulation("8", null));
+        assertEquals(5, dataTable.size());
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import org.apache.skywalking.oap.server.core.analysis.manual.database.TopNDatabaseStatement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TopNRemoteDataTest {
+    @Test
+    public void testSerialization() {
+        TopNDatabaseStatement statement = new TopNDatabaseStatement();
+        statement.setId("id");
+        statement.setEntityId("entity");
+        statement.setStatement("select 1");
+        statement.setLatency(100);
+        statement.setTimestamp(1705482000000L);
+        statement.setTimeBucket(20240117170000L);
+
+        TopNRemoteData remoteData = new TopNRemoteData();
+        remoteData.deserialize(new TopNRemoteData(statement).serialize().build());
+        TopNDatabaseStatement restored = (TopNDatabaseStatement) remoteData.restore(new TopNDatabaseStatement());
+
+        Assertions.assertEquals(statement, restored);
+        Assertions.assertEquals(statement.id(), restored.id());
+        Assertions.assertEquals("select 1", restored.getStatement());
+        Assertions.assertEquals(100, restored.getLatency());
+        Assertions.assertEquals(1705482000000L, restored.getTimestamp());
+        Assertions.assertEquals(20240117170000L, restored.getTimeBucket());
+        Assertions.assertNull(restored.getTraceId());
+        Assertions.assertEquals(new TopNRemoteData(statement).remoteHashCode(), remoteData.remoteHashCode());
+    }
+
+    @Test
+    public void testSerializeTraceId() {
+        TopNDatabaseStatement statement = new TopNDatabaseStatement();
+        statement.setEntityId("entity");
+        statement.setTraceId("");
+
+        TopNDatabaseStatement restored = new TopNDatabaseStatement();
+        restored.deserialize(statement.serialize().build());
+        Assertions.assertEquals("", restored.getTraceId());
+
+        statement.setTraceId("trace");
+        restored.deserialize(statement.serialize().build());
+        Assertions.assertEquals("trace", restored.getTraceId());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.oap.server.core.analysis.metrics.CountMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MetricsL0AggregatorTest {
+    private final AtomicLong clock = new AtomicLong(1000);
+    private final List<Metrics> flushed = new ArrayList<>();
+
+    @Test
+    public void testFlushOnMaxSize() {
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(3, 100, this::collect, clock::get);
+        for (int i = 0; i < 10; i++) {
+            aggregator.in(new MockMetrics("a", 1));
+            aggregator.in(new MockMetrics("b", 1));
+        }
+        Assertions.assertTrue(flushed.isEmpty());
+
+        aggregator.in(new OtherMockMetrics("a", 1));
+        Assertions.assertEquals(3, flushed.size());
+        Assertions.assertEquals(10, value(MockMetrics.class, "a"));
+        Assertions.assertEquals(10, value(MockMetrics.class, "b"));
+        Assertions.assertEquals(1, value(OtherMockMetrics.class, "a"));
+    }
+
+    @Test
+    public void testFlushOnPeriod() {
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(1000, 100, this::collect, clock::get);
+        aggregator.in(new MockMetrics("a", 1));
+        clock.addAndGet(50);
+        aggregator.in(new MockMetrics("a", 2));
+        Assertions.assertTrue(flushed.isEmpty());
+
+        clock.addAndGet(50);
+        aggregator.in(new MockMetrics("a", 3));
+        Assertions.assertEquals(1, flushed.size());
+        Assertions.assertEquals(6, value(MockMetrics.class, "a"));
+    }
+
+    @Test
+    public void testFlushIdle() throws InterruptedException {
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(1000, 100, this::collect, clock::get);
+        aggregator.in(new MockMetrics("a", 1));
+        final Thread receiver = new Thread(() -> {
+            aggregator.in(new MockMetrics("b", 1));
+            aggregator.in(new MockMetrics("b", 1));
+        });
+        receiver.start();
+        receiver.join();
+
+        // The buffer of the terminated thread is flushed at once.
+        aggregator.flushIdle();
+        Assertions.assertEquals(1, flushed.size());
+        Assertions.assertEquals(2, value(MockMetrics.class, "b"));
+
+        clock.addAndGet(100);
+        aggregator.flushIdle();
+        Assertions.assertEquals(2, flushed.size());
+        Assertions.assertEquals(1, value(MockMetrics.class, "a"));
+    }
+
+    @Test
+    public void testFlushAll() {
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(1000, 100, this::collect, clock::get);
+        aggregator.in(new MockMetrics("a", 1));
+        aggregator.flushIdle();
+        Assertions.assertTrue(flushed.isEmpty());
+
+        aggregator.flushAll();
+        Assertions.assertEquals(1, flushed.size());
+        Assertions.assertEquals(1, value(MockMetrics.class, "a"));
+    }
+
+    @Test
+    public void testPassThroughAfterClose() {
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(1000, 100, this::collect, clock::get);
+        aggregator.in(new MockMetrics("a", 1));
+        aggregator.close();
+        Assertions.assertEquals(1, flushed.size());
+
+        // Sent by a thread which read the aggregator before it is disabled.
+        aggregator.in(new MockMetrics("a", 2));
+        Assertions.assertEquals(2, flushed.size());
+        Assertions.assertEquals(3, value(MockMetrics.class, "a"));
+    }
+
+    @Test
+    public void testBlockedNextStageNotBlockingReceiver() throws InterruptedException {
+        final CountDownLatch flushing = new CountDownLatch(1);
+        final CountDownLatch received = new CountDownLatch(1);
+        final AtomicBoolean notBlocked = new AtomicBoolean();
+        final MetricsL0Aggregator aggregator = new MetricsL0Aggregator(1000, 100, metrics -> {
+            flushing.countDown();
+            try {
+                // The L1 aggregation blocks until the receiver thread merges the following metrics.
+                notBlocked.set(received.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            collect(metrics);
+        }, clock::get);
+        aggregator.in(new MockMetrics("a", 1));
+        clock.addAndGet(100);
+        final Thread flusher = new Thread(aggregator::flushIdle);
+        flusher.start();
+        Assertions.assertTrue(flushing.await(10, TimeUnit.SECONDS));
+
+        aggregator.in(new MockMetrics("a", 2));
+        received.countDown();
+        flusher.join();
+        Assertions.assertTrue(notBlocked.get());
+        Assertions.assertEquals(1, value(MockMetrics.class, "a"));
+    }
+
+    private synchronized void collect(Metrics metrics) {
+        flushed.add(metrics);
+    }
+
+    private long value(Class<?> clazz, String entityId) {
+        return flushed.stream()
+                      .filter(metrics -> metrics.getClass() == clazz)
+                      .map(MockMetrics.class::cast)
+                      .filter(metrics -> metrics.entityId.equals(entityId))
+                      .mapToLong(MockMetrics::getValue)
+                      .sum();
+    }
+
+    private static class MockMetrics extends CountMetrics {
+        private final String entityId;
+
+        private MockMetrics(String entityId, long value) {
+            this.entityId = entityId;
+            setTimeBucket(202401010000L);
+            setValue(value);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+
+    private static class OtherMockMetrics extends MockMetrics {
+        private OtherMockMetrics(String entityId, long value) {
+            super(entityId, value);
+        }
+    }
+}
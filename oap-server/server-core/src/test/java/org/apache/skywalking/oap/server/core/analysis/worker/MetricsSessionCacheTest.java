@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsSessionCacheTest {
+
+    @Test
+    void dropExpiredTimeBuckets() {
+        final MetricsSessionCache cache = new MetricsSessionCache(-1, true, true, 0);
+        cache.put(metrics("a", 202401010000L));
+        cache.put(metrics("b", 202401010000L));
+        cache.put(metrics("a", 202401010001L));
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get(metrics("a", 202401010001L)));
+
+        assertEquals(3, cache.removeExpired());
+        assertEquals(0, cache.size());
+        assertNull(cache.get(metrics("a", 202401010001L)));
+        assertFalse(cache.isEvicted(metrics("a", 202401010000L)));
+    }
+
+    @Test
+    void evictOldestTimeBucketsOversize() {
+        final MetricsSessionCache cache = new MetricsSessionCache(70_000, true, true, 2);
+        cache.put(metrics("a", 202401010000L));
+        cache.put(metrics("b", 202401010000L));
+        cache.put(metrics("a", 202401010001L));
+        cache.put(metrics("b", 202401010001L));
+
+        assertEquals(0, cache.removeExpired());
+        assertEquals(2, cache.evictOversize());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(metrics("a", 202401010000L)));
+        assertNotNull(cache.get(metrics("a", 202401010001L)));
+        assertTrue(cache.isEvicted(metrics("b", 202401010000L)));
+        assertFalse(cache.isEvicted(metrics("b", 202401010001L)));
+    }
+
+    @Test
+    void keepTheLatestTimeBucketOversize() {
+        final MetricsSessionCache cache = new MetricsSessionCache(70_000, true, true, 2);
+        cache.put(metrics("a", 202401010001L));
+        cache.put(metrics("b", 202401010001L));
+        cache.put(metrics("c", 202401010001L));
+
+        assertEquals(0, cache.evictOversize());
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get(metrics("c", 202401010001L)));
+        assertFalse(cache.isEvicted(metrics("d", 202401010001L)));
+
+        cache.put(metrics("a", 202401010000L));
+        assertEquals(1, cache.evictOversize());
+        assertEquals(3, cache.size());
+        assertTrue(cache.isEvicted(metrics("a", 202401010000L)));
+        assertFalse(cache.isEvicted(metrics("d", 202401010001L)));
+    }
+
+    @Test
+    void rejectNewMetricsWhenFullWithoutTimeRelativeID() {
+        final MetricsSessionCache cache = new MetricsSessionCache(70_000, true, false, 1);
+        cache.put(metrics("a", 202401010000L));
+        cache.put(metrics("b", 202401010000L));
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(metrics("a", 202401010000L)));
+        assertNull(cache.get(metrics("b", 202401010000L)));
+        assertEquals(0, cache.evictOversize());
+        assertFalse(cache.isEvicted(metrics("b", 202401010000L)));
+    }
+
+    private static Metrics metrics(String entityId, long timeBucket) {
+        final MockMetrics metrics = new MockMetrics(entityId);
+        metrics.setTimeBucket(timeBucket);
+        metrics.setLastUpdateTimestamp(System.currentTimeMillis());
+        return metrics;
+    }
+
+    private static class MockMetrics extends Metrics {
+        private final String entityId;
+
+        private MockMetrics(final String entityId) {
+            this.entityId = entityId;
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MockMetrics)) {
+                return false;
+            }
+            final MockMetrics that = (MockMetrics) o;
+            return entityId.equals(that.entityId) && getTimeBucket() == that.getTimeBucket();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * entityId.hashCode() + Long.hashCode(getTimeBucket());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.profiling;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.skywalking.oap.server.library.jfr.parser.JFRMergeBuilder;
+import org.apache.skywalking.oap.server.library.jfr.type.CallStack;
+import org.apache.skywalking.oap.server.library.jfr.type.Frame;
+import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
+import org.apache.skywalking.oap.server.library.jfr.type.FrameTreeBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.skywalking.oap.server.library.jfr.type.Frame.TYPE_JIT_COMPILED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FrameTreeCodecTest {
+    private static final FrameTreeCodec.Frames<FrameTree> FRAMES = FrameTreeCodec.Frames.of(
+        FrameTree::getFrame, FrameTree::getTotal, FrameTree::getSelf, FrameTree::getChildren);
+
+    @Test
+    public void testDecodeIntoMergeBuilder() {
+        final FrameTree tree = buildTree();
+        final byte[] encoded = FrameTreeCodec.encode(tree, FRAMES);
+        assertThat(FrameTreeCodec.isEncoded(encoded)).isTrue();
+        assertThat(encoded.length).isLessThan(new Gson().toJson(tree).getBytes(StandardCharsets.UTF_8).length);
+
+        final JFRMergeBuilder expected = new JFRMergeBuilder().merge(tree).merge(tree);
+        final JFRMergeBuilder decoded = new JFRMergeBuilder();
+        final FrameTreeCodec.FrameMerger<Frame> merger = new FrameTreeCodec.FrameMerger<Frame>() {
+            @Override
+            public Frame child(final Frame parent, final String name) {
+                return decoded.addChild(parent, name);
+            }
+
+            @Override
+            public void merge(final Frame frame, final long total, final long self) {
+                frame.setTotal(frame.getTotal() + total);
+                frame.setSelf(frame.getSelf() + self);
+            }
+        };
+        FrameTreeCodec.decode(encoded, decoded.getRoot(), merger);
+        FrameTreeCodec.decode(encoded, decoded.getRoot(), merger);
+
+        assertThat(flatten(decoded.build(), "", new HashMap<>()))
+            .isEqualTo(flatten(expected.build(), "", new HashMap<>()))
+            .containsEntry("//main/run/compute", 6L)
+            .containsEntry("/", 22L);
+    }
+
+    @Test
+    public void testRejectMalformed() {
+        final byte[] encoded = FrameTreeCodec.encode(buildTree(), FRAMES);
+        final FrameTreeCodec.FrameMerger<Frame> merger = new FrameTreeCodec.FrameMerger<Frame>() {
+            @Override
+            public Frame child(final Frame parent, final String name) {
+                return new Frame(0, (byte) 0);
+            }
+
+            @Override
+            public void merge(final Frame frame, final long total, final long self) {
+            }
+        };
+        final Frame root = new Frame(0, (byte) 0);
+
+        // Truncated in the names, and in the frames.
+        for (final int length : new int[] {2, encoded.length - 1}) {
+            assertThatThrownBy(() -> FrameTreeCodec.decode(Arrays.copyOf(encoded, length), root, merger))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        // The names count and the name length beyond the data.
+        assertThatThrownBy(() -> FrameTreeCodec.decode(new byte[] {1, (byte) 0xFF, 0x7F}, root, merger))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FrameTreeCodec.decode(new byte[] {1, 1, 100, 'a'}, root, merger))
+            .isInstanceOf(IllegalArgumentException.class);
+        // The name index beyond the names.
+        assertThatThrownBy(() -> FrameTreeCodec.decode(new byte[] {1, 1, 1, 'a', 0, 1, 1, 1, 5, 1, 1, 0}, root, merger))
+            .isInstanceOf(IllegalArgumentException.class);
+        // The children count beyond the data.
+        assertThatThrownBy(() -> FrameTreeCodec.decode(new byte[] {1, 1, 1, 'a', 0, 1, 1, 100}, root, merger))
+            .isInstanceOf(IllegalArgumentException.class);
+        // The varint longer than 64 bits.
+        final byte[] overlong = new byte[16];
+        Arrays.fill(overlong, (byte) 0x80);
+        overlong[0] = 1;
+        assertThatThrownBy(() -> FrameTreeCodec.decode(overlong, root, merger))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testJsonIsNotEncoded() {
+        assertThat(FrameTreeCodec.isEncoded(new Gson().toJson(buildTree()).getBytes(StandardCharsets.UTF_8)))
+            .isFalse();
+    }
+
+    @Test
+    public void testPrune() {
+        final FrameTree tree = buildTree();
+        // 20% of the 11 samples, the frames of less than 2 samples are pruned.
+        tree.prune(200_000);
+        assertThat(flatten(tree, "", new HashMap<>()))
+            .doesNotContainKey("/all/main/log")
+            .containsEntry("/all/main/wait", 2L)
+            .containsEntry("/all/main", 11L)
+            .containsEntry("/all/main/run/compute", 3L);
+    }
+
+    private static FrameTree buildTree() {
+        final FrameTreeBuilder builder = new FrameTreeBuilder();
+        addSample(builder, 5, "main", "run");
+        addSample(builder, 3, "main", "run", "compute");
+        addSample(builder, 2, "main", "wait");
+        addSample(builder, 1, "main", "log");
+        return builder.build();
+    }
+
+    private static void addSample(FrameTreeBuilder builder, long ticks, String... frames) {
+        final CallStack stack = new CallStack();
+        for (final String frame : frames) {
+            stack.push(frame, TYPE_JIT_COMPILED);
+        }
+        builder.addSample(stack, ticks);
+    }
+
+    private static Map<String, Long> flatten(FrameTree tree, String parent, Map<String, Long> totals) {
+        final String path = parent + "/" + tree.getFrame();
+        totals.merge(path, tree.getTotal(), Long::sum);
+        if (tree.getChildren() != null) {
+            for (final FrameTree child : tree.getChildren()) {
+                flatten(child, path, totals);
+            }
+        }
+        return totals;
+    }
+}
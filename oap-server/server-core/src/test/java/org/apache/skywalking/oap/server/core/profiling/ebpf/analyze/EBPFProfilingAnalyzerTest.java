@@ -18,11 +18,27 @@
 
 package org.apache.skywalking.oap.server.core.profiling.ebpf.analyze;
 
+import org.apache.skywalking.apm.network.ebpf.profiling.v3.EBPFOnCPUProfiling;
+import org.apache.skywalking.apm.network.ebpf.profiling.v3.EBPFProfilingStackMetadata;
+import org.apache.skywalking.apm.network.ebpf.profiling.v3.EBPFProfilingStackType;
+import org.apache.skywalking.oap.server.core.profiling.ebpf.storage.EBPFProfilingDataRecord;
+import org.apache.skywalking.oap.server.core.profiling.ebpf.storage.EBPFProfilingTargetType;
+import org.apache.skywalking.oap.server.core.query.type.EBPFProfilingAnalyzation;
+import org.apache.skywalking.oap.server.core.query.type.EBPFProfilingAnalyzeAggregateType;
+import org.apache.skywalking.oap.server.core.query.type.EBPFProfilingAnalyzeTimeRange;
+import org.apache.skywalking.oap.server.core.query.type.EBPFProfilingStackElement;
+import org.apache.skywalking.oap.server.core.storage.profiling.ebpf.IEBPFProfilingDataDAO;
 import org.junit.jupiter.api.Test;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class EBPFProfilingAnalyzerTest {
 
@@ -39,6 +55,82 @@ public class EBPFProfilingAnalyzerTest {
         }
     }
 
+    @Test
+    public void testAnalyzeWithCachedSlices() throws IOException {
+        final AtomicInteger fetchedSlices = new AtomicInteger();
+        final IEBPFProfilingDataDAO dao = (scheduleIdList, beginTime, endTime) -> {
+            fetchedSlices.incrementAndGet();
+            final EBPFProfilingDataRecord record = new EBPFProfilingDataRecord();
+            record.setTargetType(EBPFProfilingTargetType.ON_CPU.value());
+            record.setUploadTime(beginTime);
+            record.setDataBinary(EBPFOnCPUProfiling.newBuilder().setDumpCount(1).addStacks(
+                EBPFProfilingStackMetadata.newBuilder()
+                                          .setStackType(EBPFProfilingStackType.PROCESS_USER_SPACE)
+                                          .addAllStackSymbols(Arrays.asList("child", "root"))
+            ).build().toByteArray());
+            return Collections.singletonList(record);
+        };
+        final EBPFProfilingAnalyzer analyzer = new EBPFProfilingAnalyzer(null, 100, 2, 1000) {
+            @Override
+            protected IEBPFProfilingDataDAO getDataDAO() {
+                return dao;
+            }
+        };
+
+        // 6 slices of 10 seconds, the first query fetches all of them
+        final List<EBPFProfilingAnalyzeTimeRange> ranges = Collections.singletonList(timeRange(0, 59_999));
+        assertRootAndChildCount(analyzer.analyze(Collections.singletonList("1"), ranges, EBPFProfilingAnalyzeAggregateType.COUNT), 6);
+        assertEquals(6, fetchedSlices.get());
+
+        // the repeated query merges the cached slices only
+        assertRootAndChildCount(analyzer.analyze(Collections.singletonList("1"), ranges, EBPFProfilingAnalyzeAggregateType.COUNT), 6);
+        assertEquals(6, fetchedSlices.get());
+
+        // the overlapped ranges are merged, and only the new slice is fetched
+        assertRootAndChildCount(analyzer.analyze(Collections.singletonList("1"), Arrays.asList(
+            timeRange(0, 29_999), timeRange(20_000, 69_999)), EBPFProfilingAnalyzeAggregateType.COUNT), 7);
+        assertEquals(7, fetchedSlices.get());
+    }
+
+    @Test
+    public void testAnalyzeRecordOnSliceBoundaryOnce() throws IOException {
+        // the storage returns the records with an inclusive end time, the record on the boundary is in both slices
+        final IEBPFProfilingDataDAO dao = (scheduleIdList, beginTime, endTime) -> {
+            final EBPFProfilingDataRecord record = new EBPFProfilingDataRecord();
+            record.setTargetType(EBPFProfilingTargetType.ON_CPU.value());
+            record.setUploadTime(10_000);
+            record.setDataBinary(EBPFOnCPUProfiling.newBuilder().setDumpCount(1).addStacks(
+                EBPFProfilingStackMetadata.newBuilder()
+                                          .setStackType(EBPFProfilingStackType.PROCESS_USER_SPACE)
+                                          .addAllStackSymbols(Arrays.asList("child", "root"))
+            ).build().toByteArray());
+            return beginTime <= 10_000 && 10_000 <= endTime ? Collections.singletonList(record) : Collections.emptyList();
+        };
+        final EBPFProfilingAnalyzer analyzer = new EBPFProfilingAnalyzer(null, 100, 2, 1000) {
+            @Override
+            protected IEBPFProfilingDataDAO getDataDAO() {
+                return dao;
+            }
+        };
+
+        assertRootAndChildCount(analyzer.analyze(Collections.singletonList("1"), Collections.singletonList(
+            timeRange(0, 19_999)), EBPFProfilingAnalyzeAggregateType.COUNT), 1);
+    }
+
+    private EBPFProfilingAnalyzeTimeRange timeRange(long start, long end) {
+        final EBPFProfilingAnalyzeTimeRange range = new EBPFProfilingAnalyzeTimeRange();
+        range.setStart(start);
+        range.setEnd(end);
+        return range;
+    }
+
+    private void assertRootAndChildCount(EBPFProfilingAnalyzation analyzation, long count) {
+        assertEquals(1, analyzation.getTrees().size());
+        final List<EBPFProfilingStackElement> elements = analyzation.getTrees().get(0).getElements();
+        assertEquals(2, elements.size());
+        elements.forEach(e -> assertEquals(count, e.getDumpCount()));
+    }
+
     private <T> T loadYaml(String file, Class<T> cls) {
         InputStream expectedInputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(file);
         return new Yaml().loadAs(expectedInputStream, cls);
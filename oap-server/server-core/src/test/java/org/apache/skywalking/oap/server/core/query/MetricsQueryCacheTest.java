@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsQueryCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> reads = new ArrayList<>();
+    private MetricsCondition condition;
+
+    @BeforeEach
+    public void setup() {
+        now.set(new DateTime(2024, 1, 1, 12, 10, 30).getMillis());
+        reads.clear();
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            "test_query_cache_cpm", "value", Column.ValueDataType.COMMON_VALUE, 0, DefaultScopeDefine.SERVICE);
+        final Entity entity = new Entity();
+        entity.setScope(Scope.Service);
+        entity.setServiceName("service");
+        entity.setNormal(true);
+        condition = new MetricsCondition();
+        condition.setName("test_query_cache_cpm");
+        condition.setEntity(entity);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ValueColumnMetadata.INSTANCE.remove("test_query_cache_cpm");
+    }
+
+    @Test
+    public void testReadSealedBucketsFromCache() throws Exception {
+        final MetricsQueryCache cache = new MetricsQueryCache(1024 * 1024, 25, 60, 300, now::get);
+
+        // 12:07 and before are sealed, 12:08 is persisted but not visible for sure.
+        assertValues(cache.readMetricsValues(condition, duration("1200", "1209"), this::read), 1200, 1209);
+        assertEquals(List.of("1200-1209"), reads);
+        assertValues(cache.readMetricsValues(condition, duration("1200", "1209"), this::read), 1200, 1209);
+        assertValues(cache.readMetricsValues(condition, duration("1203", "1209"), this::read), 1203, 1209);
+        assertValues(cache.readMetricsValues(condition, duration("1200", "1205"), this::read), 1200, 1205);
+        assertEquals(List.of("1200-1209", "1208-1209", "1208-1209"), reads);
+
+        // The window slides, only the newly sealed and the later buckets are fetched.
+        now.addAndGet(60_000);
+        reads.clear();
+        assertValues(cache.readMetricsValues(condition, duration("1201", "1210"), this::read), 1201, 1210);
+        assertValues(cache.readMetricsValues(condition, duration("1201", "1210"), this::read), 1201, 1210);
+        assertEquals(List.of("1208-1210", "1209-1210"), reads);
+
+        // The window before the cached one is fetched as a whole.
+        reads.clear();
+        assertValues(cache.readMetricsValues(condition, duration("1150", "1159"), this::read), 1150, 1159);
+        assertValues(cache.readMetricsValues(condition, duration("1150", "1159"), this::read), 1150, 1159);
+        assertEquals(List.of("1150-1159"), reads);
+    }
+
+    @Test
+    public void testExpireCachedValues() throws Exception {
+        final MetricsQueryCache cache = new MetricsQueryCache(1024 * 1024, 25, 60, 300, now::get);
+        cache.readMetricsValues(condition, duration("1200", "1209"), this::read);
+
+        // The window is extended, but its former buckets are still expired in time after they are fetched.
+        now.addAndGet(60_000);
+        assertValues(cache.readMetricsValues(condition, duration("1201", "1210"), this::read), 1201, 1210);
+        now.addAndGet(240_000);
+        assertValues(cache.readMetricsValues(condition, duration("1201", "1210"), this::read), 1201, 1210);
+        assertValues(cache.readMetricsValues(condition, duration("1201", "1210"), this::read), 1201, 1210);
+        assertEquals(List.of("1200-1209", "1208-1210", "1201-1210"), reads);
+
+        // The window not read any more is expired as well.
+        reads.clear();
+        now.addAndGet(300_000);
+        assertValues(cache.readMetricsValues(condition, duration("1201", "1210"), this::read), 1201, 1210);
+        assertEquals(List.of("1201-1210"), reads);
+    }
+
+    @Test
+    public void testReadUnsealedBuckets() throws Exception {
+        final MetricsQueryCache cache = new MetricsQueryCache(1024 * 1024, 25, 60, 300, now::get);
+        cache.readMetricsValues(condition, duration("1208", "1210"), this::read);
+        cache.readMetricsValues(condition, duration("1208", "1210"), this::read);
+        assertEquals(List.of("1208-1210", "1208-1210"), reads);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        final MetricsQueryCache cache = new MetricsQueryCache(0, 25, 60, 300, now::get);
+        cache.readMetricsValues(condition, duration("1200", "1209"), this::read);
+        assertValues(cache.readMetricsValues(condition, duration("1200", "1209"), this::read), 1200, 1209);
+        assertEquals(List.of("1200-1209", "1200-1209"), reads);
+    }
+
+    @Test
+    public void testLabeledValues() throws Exception {
+        final MetricsQueryCache cache = new MetricsQueryCache(1024 * 1024, 25, 60, 300, now::get);
+        final MetricsQueryCache.Reader<List<MetricsValues>> reader = duration -> {
+            final MetricsValues p50 = read(duration);
+            p50.setLabel("{p=50}");
+            final List<MetricsValues> result = new ArrayList<>();
+            result.add(p50);
+            // p99 is only reported since 12:08.
+            if (duration.getStartTimeBucket() >= 202401011208L) {
+                final MetricsValues p99 = read(duration);
+                p99.setLabel("{p=99}");
+                result.add(p99);
+            }
+            return result;
+        };
+        cache.readLabeledMetricsValues(condition, List.of(), duration("1200", "1209"), reader);
+        final List<MetricsValues> result = cache.readLabeledMetricsValues(
+            condition, List.of(), duration("1200", "1209"), reader);
+        assertEquals(List.of("1200-1209", "1208-1209", "1208-1209"), reads);
+
+        assertEquals(2, result.size());
+        assertEquals("{p=50}", result.get(0).getLabel());
+        assertValues(result.get(0), 1200, 1209);
+        assertEquals("{p=99}", result.get(1).getLabel());
+        final List<KVInt> p99 = result.get(1).getValues().getValues();
+        assertEquals(10, p99.size());
+        assertTrue(p99.subList(0, 8).stream().allMatch(KVInt::isEmptyValue));
+        assertEquals(1208, p99.get(8).getValue());
+        assertEquals("202401011200_" + condition.getEntity().buildId(), p99.get(0).getId());
+    }
+
+    private MetricsValues read(final Duration duration) {
+        reads.add(duration.getStart().substring(11) + "-" + duration.getEnd().substring(11));
+        final MetricsValues values = new MetricsValues();
+        final String entityId = condition.getEntity().buildId();
+        for (final PointOfTime point : duration.assembleDurationPoints()) {
+            values.getValues().addKVInt(new KVInt(point.id(entityId), point.getPoint() % 10000, false));
+        }
+        return values;
+    }
+
+    private static Duration duration(final String start, final String end) {
+        final Duration duration = new Duration();
+        duration.setStep(Step.MINUTE);
+        duration.setStart("2024-01-01 " + start);
+        duration.setEnd("2024-01-01 " + end);
+        return duration;
+    }
+
+    private static void assertValues(final MetricsValues values, final long start, final long end) {
+        assertEquals(
+            LongStream.rangeClosed(start, end).filter(v -> v % 100 < 60).boxed().collect(Collectors.toList()),
+            values.getValues().getValues().stream().map(KVInt::getValue).collect(Collectors.toList())
+        );
+    }
+}
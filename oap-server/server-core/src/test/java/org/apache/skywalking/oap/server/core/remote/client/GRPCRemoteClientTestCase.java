@@ -22,12 +22,17 @@ import io.grpc.ManagedChannel;
 import io.grpc.Server;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
 import io.grpc.util.MutableHandlerRegistry;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricStreamKind;
 import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
@@ -45,8 +50,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
@@ -61,9 +68,11 @@ public class GRPCRemoteClientTestCase {
     private Server server;
     private ManagedChannel channel;
     private MutableHandlerRegistry serviceRegistry;
+    private GRPCRemoteClient remoteClient;
 
     @BeforeEach
     public void before() throws IOException {
+        TestWorker.RECEIVED.set(0);
         moduleManager = new ModuleManagerTesting();
         serviceRegistry = new MutableHandlerRegistry();
         final String name = UUID.randomUUID().toString();
@@ -90,6 +99,9 @@ public class GRPCRemoteClientTestCase {
 
     @AfterEach
     public void after() {
+        if (remoteClient != null) {
+            remoteClient.close();
+        }
         channel.shutdown();
         server.shutdown();
 
@@ -109,6 +121,112 @@ public class GRPCRemoteClientTestCase {
 
     @Test
     public void testPush() throws InterruptedException {
+        mockTelemetry();
+
+        serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
+
+        GRPCRemoteClient remoteClient = createRemoteClient(false);
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        assertReceived(12);
+    }
+
+    @Test
+    public void testPushWithCompression() throws InterruptedException {
+        mockTelemetry();
+
+        serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
+
+        GRPCRemoteClient remoteClient = createRemoteClient(true);
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        assertReceived(12);
+    }
+
+    @Test
+    public void testPushToServerWithoutBatch() throws InterruptedException {
+        mockTelemetry();
+
+        // An OAP server of the previous versions, which only implements the per message RPC.
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
+            @Override
+            public StreamObserver<RemoteMessage> call(final StreamObserver<Empty> responseObserver) {
+                return handler.call(responseObserver);
+            }
+        });
+
+        GRPCRemoteClient remoteClient = createRemoteClient(false);
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        assertReceived(12);
+    }
+
+    @Test
+    public void testPushLargeMessagesInMultipleBatches() throws InterruptedException {
+        mockTelemetry();
+
+        final RemoteServiceHandler handler = new RemoteServiceHandler(moduleManager);
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger maxBatchSize = new AtomicInteger();
+        serviceRegistry.addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
+            @Override
+            public StreamObserver<RemoteMessageBatch> batch(final StreamObserver<Empty> responseObserver) {
+                final StreamObserver<RemoteMessageBatch> observer = handler.batch(responseObserver);
+                return new StreamObserver<RemoteMessageBatch>() {
+                    @Override
+                    public void onNext(final RemoteMessageBatch batch) {
+                        batches.incrementAndGet();
+                        maxBatchSize.accumulateAndGet(batch.getSerializedSize(), Math::max);
+                        observer.onNext(batch);
+                    }
+
+                    @Override
+                    public void onError(final Throwable throwable) {
+                        observer.onError(throwable);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        observer.onCompleted();
+                    }
+                };
+            }
+        });
+
+        GRPCRemoteClient remoteClient = createRemoteClient(false);
+        for (int i = 0; i < 10; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData(300 * 1024));
+        }
+
+        assertReceived(10);
+        Assertions.assertTrue(batches.get() >= 4);
+        Assertions.assertTrue(maxBatchSize.get() < 1024 * 1024 + 1024);
+    }
+
+    private GRPCRemoteClient createRemoteClient(boolean compression) {
+        Address address = new Address("not-important", 11, false);
+        remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 10, 10, null, compression));
+        remoteClient.connect();
+
+        doReturn(channel).when(remoteClient).getChannel();
+        return remoteClient;
+    }
+
+    private void assertReceived(int expected) throws InterruptedException {
+        for (int i = 0; i < 50 && TestWorker.RECEIVED.get() < expected; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        Assertions.assertEquals(expected, TestWorker.RECEIVED.get());
+    }
+
+    private void mockTelemetry() {
         MetricsCreator metricsCreator = mock(MetricsCreator.class);
         when(metricsCreator.createCounter(any(), any(), any(), any())).thenReturn(new CounterMetrics() {
             @Override
@@ -137,25 +255,22 @@ public class GRPCRemoteClientTestCase {
         ModuleDefineTesting telemetryModuleDefine = new ModuleDefineTesting();
         moduleManager.put(TelemetryModule.NAME, telemetryModuleDefine);
         telemetryModuleDefine.provider().registerServiceImplementation(MetricsCreator.class, metricsCreator);
-
-        serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
-
-        Address address = new Address("not-important", 11, false);
-        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 10, 10, null));
-        remoteClient.connect();
-
-        doReturn(channel).when(remoteClient).getChannel();
-
-        for (int i = 0; i < 12; i++) {
-            remoteClient.push(nextWorkerName, new TestStreamData());
-        }
-
-        TimeUnit.SECONDS.sleep(2);
     }
 
     public static class TestStreamData extends StreamData {
 
         private long value;
+        private final String padding;
+
+        public TestStreamData() {
+            this(0);
+        }
+
+        public TestStreamData(int paddingSize) {
+            final char[] chars = new char[paddingSize];
+            Arrays.fill(chars, 'x');
+            this.padding = new String(chars);
+        }
 
         @Override
         public int remoteHashCode() {
@@ -171,11 +286,13 @@ public class GRPCRemoteClientTestCase {
         public RemoteData.Builder serialize() {
             RemoteData.Builder builder = RemoteData.newBuilder();
             builder.addDataLongs(987);
+            builder.addDataStrings(padding);
             return builder;
         }
     }
 
     static class TestWorker extends AbstractWorker {
+        private static final AtomicInteger RECEIVED = new AtomicInteger();
 
         public TestWorker(ModuleDefineHolder moduleDefineHolder) {
             super(moduleDefineHolder);
@@ -185,6 +302,7 @@ public class GRPCRemoteClientTestCase {
         public void in(Object o) {
             TestStreamData streamData = (TestStreamData) o;
             Assertions.assertEquals(987, streamData.value);
+            RECEIVED.incrementAndGet();
         }
     }
 }
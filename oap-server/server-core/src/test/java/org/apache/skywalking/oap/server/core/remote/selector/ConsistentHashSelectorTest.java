@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.selector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.remote.client.Address;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConsistentHashSelectorTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    public void testOnlyDataOfChangedNodeMoves() {
+        // The ring is cached per client list, use a selector for each list like every OAP node does.
+        final ConsistentHashSelector selector = new ConsistentHashSelector();
+        final ConsistentHashSelector scaledSelector = new ConsistentHashSelector();
+        final List<RemoteClient> clients = clients(10);
+        final List<RemoteClient> scaledOut = new ArrayList<>(clients);
+        scaledOut.add(client("10.0.0.10"));
+
+        int moved = 0;
+        for (int key = 0; key < KEYS; key++) {
+            final Address before = selector.select(clients, key).getAddress();
+            final Address after = scaledSelector.select(scaledOut, key).getAddress();
+            if (!before.equals(after)) {
+                moved++;
+                Assertions.assertEquals("10.0.0.10", after.getHost());
+            }
+        }
+        final double ratio = selector.movedRatio(clients, scaledOut);
+        Assertions.assertEquals((double) moved / KEYS, ratio, 0.01);
+        Assertions.assertTrue(ratio < 0.15, "moved ratio " + ratio);
+
+        final List<RemoteClient> scaledIn = new ArrayList<>(clients);
+        final RemoteClient removed = scaledIn.remove(3);
+        for (int key = 0; key < KEYS; key++) {
+            final Address before = selector.select(clients, key).getAddress();
+            if (!before.equals(removed.getAddress())) {
+                Assertions.assertEquals(before, scaledSelector.select(scaledIn, key).getAddress());
+            }
+        }
+
+        // The legacy selector moves most of the data.
+        Assertions.assertTrue(new HashCodeSelector().movedRatio(clients, scaledOut) > 0.8);
+    }
+
+    @Test
+    public void testSameRoutingInAllNodes() {
+        final List<RemoteClient> clients = clients(5);
+        final List<RemoteClient> sameClients = clients(5);
+        final ConsistentHashSelector selector = new ConsistentHashSelector();
+        final ConsistentHashSelector anotherSelector = new ConsistentHashSelector();
+        for (int key = 0; key < 1000; key++) {
+            Assertions.assertEquals(
+                selector.select(clients, key).getAddress(), anotherSelector.select(sameClients, key).getAddress());
+        }
+        Assertions.assertEquals(0, selector.movedRatio(clients, sameClients));
+    }
+
+    @Test
+    public void testBoundedLoad() {
+        final List<RemoteClient> clients = clients(8);
+        final double bounded = maxLoad(new ConsistentHashSelector(110), clients);
+        Assertions.assertTrue(bounded < 1.15, "max load " + bounded);
+        Assertions.assertTrue(maxLoad(new ConsistentHashSelector(), clients) >= bounded);
+    }
+
+    private static double maxLoad(ConsistentHashSelector selector, List<RemoteClient> clients) {
+        final Map<Address, Integer> loads = new HashMap<>();
+        for (int key = 0; key < KEYS; key++) {
+            loads.merge(selector.select(clients, key).getAddress(), 1, Integer::sum);
+        }
+        return loads.values().stream().mapToInt(Integer::intValue).max().getAsInt() * clients.size() / (double) KEYS;
+    }
+
+    private static List<RemoteClient> clients(int size) {
+        final List<RemoteClient> clients = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            clients.add(client("10.0.0." + i));
+        }
+        return clients;
+    }
+
+    private static RemoteClient client(String host) {
+        final RemoteClient client = mock(RemoteClient.class);
+        when(client.getAddress()).thenReturn(new Address(host, 11800, false));
+        return client;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.KafkaHandler;
+
+/**
+ * Poll the records by a Kafka consumer, and deliver the records of each partition in a poll to the handler of the
+ * topic as a batch. Each partition has a {@link PartitionLane}, which keeps the records of the partition in order and
+ * handles them in the shared workers, so the poll loop never runs the handlers.
+ * <p>
+ * The partition is paused when its records pending in the lane reach {@code maxPendingRecords}, and resumed when the
+ * lane drains to the half, the poll loop keeps polling the other partitions and the heartbeats in the meantime. The
+ * offsets are committed only after the records are handled, periodically by the poll loop and synchronously when the
+ * partitions are revoked, so the records are delivered at least once.
+ * <p>
+ * All methods of the Kafka consumer are called in the poll thread, as the consumer is not thread-safe.
+ */
+@Slf4j
+public class KafkaFetcherConsumer implements Runnable {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500L);
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000L;
+    /**
+     * How long to wait for the records of the revoked partitions to be handled before committing them. It should be
+     * less than the {@code max.poll.interval.ms} of the consumer.
+     */
+    private static final long REVOKE_TIMEOUT = 10_000L;
+
+    private final Consumer<String, Bytes> consumer;
+    private final Map<String, KafkaHandler> handlers;
+    private final Executor executor;
+    private final int maxPendingRecords;
+    private final long commitInterval;
+    private final Map<TopicPartition, PartitionLane> lanes = new HashMap<>();
+    private final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+    private long lastCommitTime;
+    private volatile boolean running = true;
+
+    /**
+     * @param consumer          polled by the thread running this.
+     * @param handlers          handlers by topic.
+     * @param executor          the workers running the handlers, shared by the consumers.
+     * @param maxPendingRecords the max records of a partition waiting for the handler before it is paused.
+     */
+    public KafkaFetcherConsumer(final Consumer<String, Bytes> consumer,
+                                final Map<String, KafkaHandler> handlers,
+                                final Executor executor,
+                                final int maxPendingRecords) {
+        this(consumer, handlers, executor, maxPendingRecords, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    KafkaFetcherConsumer(final Consumer<String, Bytes> consumer,
+                         final Map<String, KafkaHandler> handlers,
+                         final Executor executor,
+                         final int maxPendingRecords,
+                         final long commitInterval) {
+        this.consumer = consumer;
+        this.handlers = handlers;
+        this.executor = executor;
+        this.maxPendingRecords = maxPendingRecords;
+        this.commitInterval = commitInterval;
+    }
+
+    public void subscribe() {
+        consumer.subscribe(handlers.keySet(), new RebalanceListener());
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                try {
+                    pollOnce();
+                } catch (WakeupException e) {
+                    // Woken up by shutdown().
+                } catch (Exception e) {
+                    log.error("Kafka handle message error.", e);
+                }
+            }
+        } finally {
+            // The partitions are revoked in closing, which commits the offsets of the handled records.
+            consumer.close();
+        }
+    }
+
+    /**
+     * Stop the poll loop, the consumer is closed by the poll thread.
+     */
+    public void shutdown() {
+        running = false;
+        consumer.wakeup();
+    }
+
+    void pollOnce() {
+        final ConsumerRecords<String, Bytes> records = consumer.poll(POLL_TIMEOUT);
+        for (final TopicPartition partition : records.partitions()) {
+            lanes.computeIfAbsent(partition, this::newLane).submit(records.records(partition));
+        }
+        applyBackpressure();
+        final long now = System.currentTimeMillis();
+        if (now - lastCommitTime >= commitInterval) {
+            lastCommitTime = now;
+            commitAsync();
+        }
+    }
+
+    private PartitionLane newLane(final TopicPartition partition) {
+        return new PartitionLane(Objects.requireNonNull(handlers.get(partition.topic())), executor);
+    }
+
+    private void applyBackpressure() {
+        final Set<TopicPartition> paused = consumer.paused();
+        final List<TopicPartition> toPause = new ArrayList<>();
+        final List<TopicPartition> toResume = new ArrayList<>();
+        lanes.forEach((partition, lane) -> {
+            final int pending = lane.pendingRecords();
+            if (pending >= maxPendingRecords) {
+                if (!paused.contains(partition)) {
+                    toPause.add(partition);
+                }
+            } else if (pending <= maxPendingRecords / 2 && paused.contains(partition)) {
+                toResume.add(partition);
+            }
+        });
+        if (!toPause.isEmpty()) {
+            log.debug("Pause the partitions {} until the handlers catch up.", toPause);
+            consumer.pause(toPause);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+        }
+    }
+
+    private void commitAsync() {
+        final Map<TopicPartition, OffsetAndMetadata> offsets = processedOffsets(lanes.keySet());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                // The offsets are committed again with the following records, or by the next owner.
+                log.warn("Failed to commit the offsets {} of Kafka.", committed, exception);
+            }
+        });
+    }
+
+    /**
+     * @return the offsets of the handled records in the partitions, not committed yet.
+     */
+    private Map<TopicPartition, OffsetAndMetadata> processedOffsets(final Collection<TopicPartition> partitions) {
+        final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (final TopicPartition partition : partitions) {
+            final PartitionLane lane = lanes.get(partition);
+            if (lane == null) {
+                continue;
+            }
+            final long offset = lane.processedOffset();
+            if (offset > committedOffsets.getOrDefault(partition, -1L)) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+                committedOffsets.put(partition, offset);
+            }
+        }
+        return offsets;
+    }
+
+    private void removeLanes(final Collection<TopicPartition> partitions) {
+        for (final TopicPartition partition : partitions) {
+            final PartitionLane lane = lanes.remove(partition);
+            if (lane != null) {
+                lane.close();
+            }
+            committedOffsets.remove(partition);
+        }
+    }
+
+    /**
+     * Called in {@link Consumer#poll(Duration)}, by the poll thread.
+     */
+    private class RebalanceListener implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(final Collection<TopicPartition> partitions) {
+            final long deadline = System.currentTimeMillis() + REVOKE_TIMEOUT;
+            for (final TopicPartition partition : partitions) {
+                final PartitionLane lane = lanes.get(partition);
+                if (lane == null) {
+                    continue;
+                }
+                try {
+                    final long timeout = Math.max(0, deadline - System.currentTimeMillis());
+                    if (!lane.awaitProcessed(timeout, TimeUnit.MILLISECONDS)) {
+                        log.warn("The records of the revoked partition {} are not handled in time, "
+                                     + "the rest would be fetched again by the next owner.", partition);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            final Map<TopicPartition, OffsetAndMetadata> offsets = processedOffsets(partitions);
+            if (!offsets.isEmpty()) {
+                try {
+                    consumer.commitSync(offsets);
+                } catch (Exception e) {
+                    log.warn("Failed to commit the offsets {} of the revoked partitions.", offsets, e);
+                }
+            }
+            removeLanes(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(final Collection<TopicPartition> partitions) {
+        }
+
+        @Override
+        public void onPartitionsLost(final Collection<TopicPartition> partitions) {
+            // The partitions are owned by others already, the offsets can't be committed.
+            removeLanes(partitions);
+        }
+    }
+}
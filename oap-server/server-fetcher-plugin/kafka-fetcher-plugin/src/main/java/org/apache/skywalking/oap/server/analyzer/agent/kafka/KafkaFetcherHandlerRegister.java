@@ -20,15 +20,14 @@ package org.apache.skywalking.oap.server.analyzer.agent.kafka;
 
 import com.google.common.collect.ImmutableMap;
 
-import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -37,8 +36,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.serialization.BytesDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -50,10 +47,14 @@ import org.apache.skywalking.oap.server.library.server.pool.CustomThreadFactory;
 
 /**
  * Configuring and initializing a KafkaConsumer client as a dispatcher to delivery Kafka Message to registered handler
- * by topic.
+ * by topic. See {@link KafkaFetcherConsumer} for how the messages are delivered and committed.
  */
 @Slf4j
 public class KafkaFetcherHandlerRegister {
+    /**
+     * How long to wait for the consumers to be closed, longer than the revoke timeout of {@link KafkaFetcherConsumer}.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 30_000L;
 
     private ImmutableMap.Builder<String, KafkaHandler> builder = ImmutableMap.builder();
     private ImmutableMap<String, KafkaHandler> handlerMap;
@@ -61,9 +62,11 @@ public class KafkaFetcherHandlerRegister {
     private final KafkaFetcherConfig config;
     private final Properties properties;
 
-    private final ThreadPoolExecutor executor;
-    private final boolean enableKafkaMessageAutoCommit;
+    private final ExecutorService executor;
+    private final int maxPendingRecords;
     private final List<KafkaConsumer<String, Bytes>> consumers = Lists.newArrayList();
+    private final List<KafkaFetcherConsumer> fetchers = Lists.newArrayList();
+    private ExecutorService pollers;
 
     public KafkaFetcherHandlerRegister(KafkaFetcherConfig config) {
         this.config = config;
@@ -81,20 +84,25 @@ public class KafkaFetcherHandlerRegister {
         if (config.getKafkaHandlerThreadPoolQueueSize() > 0) {
             threadPoolQueueSize = config.getKafkaHandlerThreadPoolQueueSize();
         }
-
-        enableKafkaMessageAutoCommit = (boolean) properties.getOrDefault(
-            ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        maxPendingRecords = threadPoolQueueSize;
+
+        // The offsets are committed after the records are handled, by KafkaFetcherConsumer.
+        final Object autoCommit = properties.get(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG);
+        if (autoCommit == null) {
+            log.info("{} of kafka-fetcher is set to false, the offsets are committed after the messages are handled.",
+                     ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG);
+        } else if (Boolean.parseBoolean(String.valueOf(autoCommit))) {
+            log.warn("{}={} of kafka-fetcher is overridden to false, the offsets are committed after the messages "
+                         + "are handled.", ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, autoCommit);
+        }
+        properties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
         for (int i = 0; i < config.getConsumers(); i++) {
             KafkaConsumer<String, Bytes> consumer = new KafkaConsumer<>(
                 properties, new StringDeserializer(), new BytesDeserializer());
 
             consumers.add(consumer);
         }
-        executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60, TimeUnit.SECONDS,
-                                          new ArrayBlockingQueue<>(threadPoolQueueSize),
-                                          new CustomThreadFactory("KafkaConsumer"),
-                                          new ThreadPoolExecutor.CallerRunsPolicy()
-        );
+        executor = Executors.newFixedThreadPool(threadPoolSize, new CustomThreadFactory("KafkaHandler"));
     }
 
     public void register(KafkaHandler handler) {
@@ -106,29 +114,36 @@ public class KafkaFetcherHandlerRegister {
         builder = null;
 
         createTopicIfNeeded(handlerMap.keySet(), properties);
+        pollers = Executors.newFixedThreadPool(consumers.size(), new CustomThreadFactory("KafkaConsumer"));
         for (KafkaConsumer<String, Bytes> consumer : consumers) {
-            consumer.subscribe(handlerMap.keySet());
-            consumer.seekToEnd(consumer.assignment());
-            executor.submit(() -> runTask(consumer));
+            KafkaFetcherConsumer fetcher = new KafkaFetcherConsumer(
+                consumer, handlerMap, executor, maxPendingRecords);
+            fetcher.subscribe();
+            fetchers.add(fetcher);
+            pollers.submit(fetcher);
         }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "KafkaFetcher-shutdown"));
     }
 
-    private void runTask(final KafkaConsumer<String, Bytes> consumer) {
-        while (true) {
+    /**
+     * Stop polling and close the consumers, which commit the offsets of the handled records in leaving the group. The
+     * handler threads are stopped after the consumers, as the consumers wait for the records being handled.
+     */
+    public void shutdown() {
+        if (pollers == null) {
+            consumers.forEach(KafkaConsumer::close);
+        } else {
+            fetchers.forEach(KafkaFetcherConsumer::shutdown);
+            pollers.shutdown();
             try {
-                ConsumerRecords<String, Bytes> consumerRecords = consumer.poll(Duration.ofMillis(500L));
-                if (!consumerRecords.isEmpty()) {
-                    for (final ConsumerRecord<String, Bytes> record : consumerRecords) {
-                        executor.submit(() -> Objects.requireNonNull(handlerMap.get(record.topic())).handle(record));
-                    }
-                    if (!enableKafkaMessageAutoCommit) {
-                        consumer.commitAsync();
-                    }
+                if (!pollers.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    log.warn("Kafka consumers are not closed in {}ms.", SHUTDOWN_TIMEOUT);
                 }
-            } catch (Exception e) {
-                log.error("Kafka handle message error.", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
+        executor.shutdown();
     }
 
     private void createTopicIfNeeded(Collection<String> topics, Properties properties) throws ModuleStartException {
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.KafkaHandler;
+
+/**
+ * The records of one partition, handled in the order of the offsets by at most one worker at a time. The lanes of all
+ * partitions share the workers, a lane is scheduled to the workers when it has records, and handles one batch in a
+ * run, so the busy partitions don't starve the others.
+ * <p>
+ * The batches are submitted by the poll thread of the consumer, which reads {@link #pendingRecords()} and {@link
+ * #processedOffset()} to pause the partition and to commit the offset.
+ */
+@Slf4j
+class PartitionLane implements Runnable {
+    private final KafkaHandler handler;
+    private final Executor executor;
+    private final Queue<List<ConsumerRecord<String, Bytes>>> batches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingRecords = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * The offset of the next record to handle, -1 before any record is handled.
+     */
+    private volatile long processedOffset = -1;
+    private volatile boolean closed;
+
+    PartitionLane(final KafkaHandler handler, final Executor executor) {
+        this.handler = handler;
+        this.executor = executor;
+    }
+
+    void submit(final List<ConsumerRecord<String, Bytes>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        pendingRecords.addAndGet(records.size());
+        batches.offer(records);
+        schedule();
+    }
+
+    private void schedule() {
+        if (closed || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            final List<ConsumerRecord<String, Bytes>> records = batches.poll();
+            if (records != null && !closed) {
+                try {
+                    handler.handle(records);
+                } catch (Throwable t) {
+                    log.error("Kafka handle message error.", t);
+                }
+                processedOffset = records.get(records.size() - 1).offset() + 1;
+                pendingRecords.addAndGet(-records.size());
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        if (!batches.isEmpty()) {
+            schedule();
+        }
+    }
+
+    int pendingRecords() {
+        return pendingRecords.get();
+    }
+
+    long processedOffset() {
+        return processedOffset;
+    }
+
+    /**
+     * Wait for the submitted records to be handled.
+     *
+     * @return false if there are still records pending after the timeout.
+     */
+    boolean awaitProcessed(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pendingRecords.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    /**
+     * Drop the records not handled yet, as the partition is assigned to another consumer.
+     */
+    void close() {
+        closed = true;
+        batches.clear();
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler;
 
+import java.util.List;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.utils.Bytes;
 
@@ -36,4 +37,14 @@ public interface KafkaHandler {
      */
     void handle(ConsumerRecord<String, Bytes> record);
 
+    /**
+     * Deserialize and push the records of one partition to downstream, in the order of the offsets. The records are
+     * fetched by one poll of the consumer.
+     */
+    default void handle(List<ConsumerRecord<String, Bytes>> records) {
+        for (final ConsumerRecord<String, Bytes> record : records) {
+            handle(record);
+        }
+    }
+
 }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.apm.network.common.v3.KeyStringValuePair;
+import org.apache.skywalking.apm.network.language.agent.v3.Label;
+import org.apache.skywalking.apm.network.language.agent.v3.MeterBucketValue;
+import org.apache.skywalking.apm.network.language.agent.v3.MeterData;
+import org.apache.skywalking.apm.network.language.agent.v3.MeterDataCollection;
+import org.apache.skywalking.apm.network.language.agent.v3.MeterHistogram;
+import org.apache.skywalking.apm.network.language.agent.v3.MeterSingleValue;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanLayer;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.mock.MockModuleManager;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.mock.MockModuleProvider;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.module.KafkaFetcherConfig;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.KafkaHandler;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.MeterServiceHandler;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.TraceSegmentHandler;
+import org.apache.skywalking.oap.server.analyzer.module.AnalyzerModule;
+import org.apache.skywalking.oap.server.analyzer.provider.meter.process.IMeterProcessService;
+import org.apache.skywalking.oap.server.analyzer.provider.meter.process.MeterProcessService;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.ISegmentParserService;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the throughput of consuming the trace segments and the meters through {@link TraceSegmentHandler} and
+ * {@link MeterServiceHandler}, by the batched partition lanes of {@link KafkaFetcherConsumer}, and by a task per
+ * record in a pool with the caller-runs policy as the fetcher did before. The records are fetched by a {@link
+ * MockConsumer} from 4 partitions, the segments are dropped by the parser service, and the meters are dropped as no
+ * meter rule is installed, so only the fetcher and the deserialization are measured.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput})
+@Threads(1)
+public class KafkaFetcherConsumerBenchmark {
+    private static final int PARTITIONS = 4;
+    private static final int RECORDS = 2000;
+    private static final int WORKERS = 4;
+
+    @Param({"segment", "meter"})
+    private String data;
+
+    private KafkaHandler handler;
+    private Bytes value;
+    private final AtomicLong handled = new AtomicLong();
+    private final long[] offsets = new long[PARTITIONS];
+    private MockConsumer<String, Bytes> consumer;
+    private KafkaFetcherConsumer fetcher;
+    private ExecutorService workers;
+    private ThreadPoolExecutor perRecordPool;
+
+    @Setup
+    public void setup() {
+        final ModuleManager manager = new MockModuleManager() {
+            @Override
+            protected void init() {
+                register(AnalyzerModule.NAME, () -> new MockModuleProvider() {
+                    @Override
+                    protected void register() {
+                        registerServiceImplementation(ISegmentParserService.class, (ISegmentParserService) segment -> {
+                        });
+                        registerServiceImplementation(IMeterProcessService.class, new MeterProcessService(null));
+                    }
+                });
+                register(TelemetryModule.NAME, () -> new MockModuleProvider() {
+                    @Override
+                    protected void register() {
+                        registerServiceImplementation(MetricsCreator.class, new MetricsCreatorNoop());
+                    }
+                });
+            }
+        };
+        final KafkaFetcherConfig config = new KafkaFetcherConfig();
+        if ("segment".equals(data)) {
+            handler = countHandled(new TraceSegmentHandler(manager, config));
+            value = Bytes.wrap(segment().toByteArray());
+        } else {
+            handler = countHandled(new MeterServiceHandler(manager, config));
+            value = Bytes.wrap(meters().toByteArray());
+        }
+
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        workers = Executors.newFixedThreadPool(WORKERS);
+        fetcher = new KafkaFetcherConsumer(
+            consumer, Collections.singletonMap(handler.getTopic(), handler), workers, 10000);
+        fetcher.subscribe();
+        final List<TopicPartition> partitions = Arrays.asList(
+            new TopicPartition(handler.getTopic(), 0), new TopicPartition(handler.getTopic(), 1),
+            new TopicPartition(handler.getTopic(), 2), new TopicPartition(handler.getTopic(), 3)
+        );
+        consumer.rebalance(partitions);
+        final Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        partitions.forEach(partition -> beginningOffsets.put(partition, 0L));
+        consumer.updateBeginningOffsets(beginningOffsets);
+
+        perRecordPool = new ThreadPoolExecutor(WORKERS, WORKERS, 60, TimeUnit.SECONDS,
+                                               new ArrayBlockingQueue<>(10000),
+                                               new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    @TearDown
+    public void tearDown() {
+        workers.shutdownNow();
+        perRecordPool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void batched() {
+        final long target = handled.get() + addRecords();
+        while (handled.get() < target) {
+            fetcher.pollOnce();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void perRecord() {
+        final long target = handled.get() + addRecords();
+        for (final ConsumerRecord<String, Bytes> record : consumer.poll(Duration.ZERO)) {
+            perRecordPool.submit(() -> handler.handle(record));
+        }
+        while (handled.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private int addRecords() {
+        for (int i = 0; i < RECORDS; i++) {
+            final int partition = i % PARTITIONS;
+            consumer.addRecord(new ConsumerRecord<>(
+                handler.getTopic(), partition, offsets[partition]++, "", value));
+        }
+        return RECORDS;
+    }
+
+    private KafkaHandler countHandled(final KafkaHandler delegate) {
+        return new KafkaHandler() {
+            @Override
+            public String getTopic() {
+                return delegate.getTopic();
+            }
+
+            @Override
+            public void handle(final ConsumerRecord<String, Bytes> record) {
+                delegate.handle(record);
+                handled.incrementAndGet();
+            }
+
+            @Override
+            public void handle(final List<ConsumerRecord<String, Bytes>> records) {
+                delegate.handle(records);
+                handled.addAndGet(records.size());
+            }
+        };
+    }
+
+    private static SegmentObject segment() {
+        final SegmentObject.Builder segment = SegmentObject.newBuilder()
+                                                           .setTraceId("trace-id")
+                                                           .setTraceSegmentId("segment-id")
+                                                           .setService("service")
+                                                           .setServiceInstance("service-instance");
+        for (int i = 0; i < 10; i++) {
+            segment.addSpans(SpanObject.newBuilder()
+                                       .setSpanId(i)
+                                       .setParentSpanId(i - 1)
+                                       .setStartTime(1000L + i)
+                                       .setEndTime(2000L + i)
+                                       .setOperationName("/api/users/" + i)
+                                       .setPeer("10.0.0.1:8080")
+                                       .setSpanType(i == 0 ? SpanType.Entry : SpanType.Exit)
+                                       .setSpanLayer(SpanLayer.Http)
+                                       .setComponentId(1)
+                                       .addTags(KeyStringValuePair.newBuilder()
+                                                                  .setKey("http.method")
+                                                                  .setValue("GET")));
+        }
+        return segment.build();
+    }
+
+    private static MeterDataCollection meters() {
+        final MeterDataCollection.Builder meters = MeterDataCollection.newBuilder();
+        for (int i = 0; i < 10; i++) {
+            meters.addMeterData(MeterData.newBuilder()
+                                         .setService("service")
+                                         .setServiceInstance("service-instance")
+                                         .setTimestamp(1000L)
+                                         .setSingleValue(MeterSingleValue.newBuilder()
+                                                                         .setName("meter_" + i)
+                                                                         .addLabels(Label.newBuilder()
+                                                                                         .setName("pool")
+                                                                                         .setValue("p" + i))
+                                                                         .setValue(i)));
+        }
+        final MeterHistogram.Builder histogram = MeterHistogram.newBuilder().setName("meter_histogram");
+        for (int i = 0; i < 10; i++) {
+            histogram.addValues(MeterBucketValue.newBuilder().setBucket(i * 10).setCount(i));
+        }
+        meters.addMeterData(MeterData.newBuilder().setHistogram(histogram));
+        return meters.build();
+    }
+
+    @Test
+    public void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                       .include(".*" + getClass().getSimpleName() + ".*")
+                       .jvmArgsAppend("-Xmx512m", "-Xms512m")
+                       .build()).run();
+    }
+}
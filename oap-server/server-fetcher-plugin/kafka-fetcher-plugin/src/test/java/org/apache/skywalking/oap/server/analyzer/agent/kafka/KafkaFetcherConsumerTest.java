@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.KafkaHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KafkaFetcherConsumerTest {
+    private static final String TOPIC = "skywalking-segments";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+    private MockConsumer<String, Bytes> consumer;
+    /**
+     * The workers, run by the test manually.
+     */
+    private final Queue<Runnable> tasks = new LinkedList<>();
+    private final Map<TopicPartition, List<List<Long>>> batches = new HashMap<>();
+    private KafkaFetcherConsumer fetcher;
+    private ConsumerRebalanceListener rebalanceListener;
+
+    @BeforeEach
+    public void setup() {
+        consumer = new MockConsumer<String, Bytes>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public void subscribe(final Collection<String> topics, final ConsumerRebalanceListener listener) {
+                // MockConsumer never reports the lost partitions, the listener is called by the test.
+                rebalanceListener = listener;
+                super.subscribe(topics, listener);
+            }
+        };
+        final KafkaHandler handler = new KafkaHandler() {
+            @Override
+            public String getTopic() {
+                return TOPIC;
+            }
+
+            @Override
+            public void handle(final ConsumerRecord<String, Bytes> record) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void handle(final List<ConsumerRecord<String, Bytes>> records) {
+                final TopicPartition partition = new TopicPartition(records.get(0).topic(), records.get(0).partition());
+                batches.computeIfAbsent(partition, p -> new ArrayList<>())
+                       .add(records.stream().map(ConsumerRecord::offset).collect(Collectors.toList()));
+            }
+        };
+        fetcher = new KafkaFetcherConsumer(consumer, Collections.singletonMap(TOPIC, handler), tasks::add, 3, 0);
+        fetcher.subscribe();
+        consumer.rebalance(Arrays.asList(PARTITION_0, PARTITION_1));
+        final Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        beginningOffsets.put(PARTITION_0, 0L);
+        beginningOffsets.put(PARTITION_1, 0L);
+        consumer.updateBeginningOffsets(beginningOffsets);
+    }
+
+    @Test
+    public void testBatchPerPartitionAndCommitAfterHandled() {
+        addRecords(PARTITION_0, 0, 2);
+        addRecords(PARTITION_1, 0, 1);
+
+        fetcher.pollOnce();
+        assertTrue(batches.isEmpty());
+        assertNull(committed(PARTITION_0));
+        assertNull(committed(PARTITION_1));
+
+        runTasks();
+        assertEquals(Collections.singletonList(Arrays.asList(0L, 1L)), batches.get(PARTITION_0));
+        assertEquals(Collections.singletonList(Collections.singletonList(0L)), batches.get(PARTITION_1));
+
+        fetcher.pollOnce();
+        assertEquals(2L, committed(PARTITION_0));
+        assertEquals(1L, committed(PARTITION_1));
+    }
+
+    @Test
+    public void testPauseUntilHandled() {
+        addRecords(PARTITION_0, 0, 3);
+        addRecords(PARTITION_1, 0, 1);
+
+        fetcher.pollOnce();
+        assertEquals(Collections.singleton(PARTITION_0), consumer.paused());
+
+        // Not fetched from the paused partition.
+        addRecords(PARTITION_0, 3, 4);
+        addRecords(PARTITION_1, 1, 2);
+        fetcher.pollOnce();
+        assertEquals(Collections.singleton(PARTITION_0), consumer.paused());
+
+        runTasks();
+        fetcher.pollOnce();
+        assertTrue(consumer.paused().isEmpty());
+        assertEquals(3L, committed(PARTITION_0));
+        assertEquals(2L, committed(PARTITION_1));
+
+        fetcher.pollOnce();
+        runTasks();
+        assertEquals(Arrays.asList(Arrays.asList(0L, 1L, 2L), Arrays.asList(3L)), batches.get(PARTITION_0));
+        assertEquals(Arrays.asList(Arrays.asList(0L), Arrays.asList(1L)), batches.get(PARTITION_1));
+    }
+
+    @Test
+    public void testCommitHandledOnRevoke() {
+        addRecords(PARTITION_0, 0, 2);
+        fetcher.pollOnce();
+        runTasks();
+
+        // Revoked before the next poll commits the offsets.
+        consumer.rebalance(Collections.singletonList(PARTITION_1));
+        // MockConsumer reports the committed offsets of the assigned partitions only.
+        consumer.rebalance(Arrays.asList(PARTITION_0, PARTITION_1));
+        assertEquals(2L, committed(PARTITION_0));
+
+        // Continue from the committed offset.
+        addRecords(PARTITION_0, 2, 3);
+        fetcher.pollOnce();
+        runTasks();
+        fetcher.pollOnce();
+        assertEquals(Arrays.asList(Arrays.asList(0L, 1L), Arrays.asList(2L)), batches.get(PARTITION_0));
+        assertEquals(3L, committed(PARTITION_0));
+    }
+
+    @Test
+    public void testDropPendingOnLost() {
+        addRecords(PARTITION_0, 0, 2);
+        addRecords(PARTITION_1, 0, 1);
+        fetcher.pollOnce();
+
+        rebalanceListener.onPartitionsLost(Collections.singletonList(PARTITION_0));
+        runTasks();
+        fetcher.pollOnce();
+        assertNull(batches.get(PARTITION_0));
+        assertNull(committed(PARTITION_0));
+        assertEquals(Collections.singletonList(Collections.singletonList(0L)), batches.get(PARTITION_1));
+        assertEquals(1L, committed(PARTITION_1));
+    }
+
+    @Test
+    public void testCloseOnShutdown() throws InterruptedException {
+        final Thread poller = new Thread(fetcher);
+        poller.start();
+        fetcher.shutdown();
+        poller.join(10_000L);
+        assertTrue(consumer.closed());
+    }
+
+    private void addRecords(final TopicPartition partition, final long fromOffset, final long toOffset) {
+        for (long offset = fromOffset; offset < toOffset; offset++) {
+            consumer.addRecord(new ConsumerRecord<>(
+                partition.topic(), partition.partition(), offset, "", Bytes.wrap(new byte[] {(byte) offset})));
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private Long committed(final TopicPartition partition) {
+        final OffsetAndMetadata offset = consumer.committed(new HashSet<>(Collections.singletonList(partition)))
+                                                 .get(partition);
+        return offset == null ? null : offset.offset();
+    }
+}
@@ -60,7 +60,17 @@ public class JFRMergeBuilder {
         frame.setSelf(frame.getSelf() + tree.getSelf());
     }
 
-    private Frame addChild(Frame frame, String title) {
+    /**
+     * @return the root of the merged frames, to merge the frames decoded from the storage into.
+     */
+    public Frame getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the child frame of the given title, created if absent.
+     */
+    public Frame addChild(Frame frame, String title) {
         int titleIndex = cpool.index(title);
         return frame.getChild(titleIndex, TYPE_INTERPRETED);
     }
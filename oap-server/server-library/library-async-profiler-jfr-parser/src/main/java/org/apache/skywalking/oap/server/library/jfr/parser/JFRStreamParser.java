@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.jfr.parser;
+
+import one.jfr.JfrReader;
+import org.apache.skywalking.oap.server.library.jfr.type.Arguments;
+import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
+import org.apache.skywalking.oap.server.library.jfr.type.FrameTreeBuilder;
+import org.apache.skywalking.oap.server.library.jfr.type.JFREventType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parse a JFR recording incrementally, while it is being received. A recording is a sequence of self-contained
+ * chunks, the size of a chunk is in its header, so every chunk is converted and merged into the {@link FrameTree}s
+ * as soon as its last byte is written, and then dropped. Only the chunk being received is kept, either in a heap
+ * buffer, or in a temp file which is memory mapped to be parsed.
+ * <p>
+ * The events of a chunk can't be parsed before the chunk is complete, because the metadata and the constant pools
+ * are written at its end.
+ */
+public class JFRStreamParser implements Closeable {
+    private static final int CHUNK_SIGNATURE = 0x464C5200;
+    /**
+     * The magic, the version and the size of the chunk, which lead the chunk header.
+     */
+    private static final int CHUNK_PREFIX_SIZE = 16;
+    private static final int CHUNK_SIZE_OFFSET = 8;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Arguments args;
+    /**
+     * The max bytes of the recording, the chunks beyond it are rejected before they are buffered.
+     */
+    private final long maxSize;
+    private final Map<JFREventType, FrameTreeBuilder> event2builderMap = new HashMap<>();
+    private final ByteBuffer prefix = ByteBuffer.allocate(CHUNK_PREFIX_SIZE);
+    private final Path file;
+    private final FileChannel channel;
+    private ByteBuffer chunk;
+    /**
+     * The size of the chunk being received, -1 before its header is received, and 0 if the chunk was not finished
+     * when the recording was dumped, which is only parsed in {@link #finish()}.
+     */
+    private long chunkSize = -1;
+    private long received;
+    /**
+     * The bytes of the recording before the chunk being received.
+     */
+    private long consumed;
+
+    private JFRStreamParser(Arguments args, long maxSize, Path file, FileChannel channel) {
+        this.args = args;
+        this.maxSize = maxSize;
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Keep the chunk being received in a heap buffer, which grows to the size of the largest chunk.
+     *
+     * @param maxSize the max bytes of the recording, see {@link #write(ByteBuffer)}.
+     */
+    public static JFRStreamParser inMemory(Arguments args, long maxSize) {
+        return new JFRStreamParser(args, maxSize, null, null);
+    }
+
+    /**
+     * Write the chunk being received into the given file, which is memory mapped to parse the chunk, and deleted when
+     * the parser is closed. The file is overwritten by the next chunk, so it never exceeds the largest chunk.
+     *
+     * @param maxSize the max bytes of the recording, see {@link #write(ByteBuffer)}.
+     */
+    public static JFRStreamParser mappedFile(Path file, Arguments args, long maxSize) throws IOException {
+        FileChannel channel = FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JFRStreamParser(args, maxSize, file, channel);
+    }
+
+    /**
+     * Append the next bytes of the recording, and parse the chunks completed by them.
+     *
+     * @throws IOException if the recording, or the size declared by a chunk header, exceeds the max size. The chunk is
+     *                     rejected before its bytes are buffered.
+     */
+    public void write(ByteBuffer data) throws IOException {
+        if (consumed + received + data.remaining() > maxSize) {
+            throw new IOException("JFR recording exceeds the max size: " + maxSize);
+        }
+        while (data.hasRemaining()) {
+            if (received < CHUNK_PREFIX_SIZE) {
+                ByteBuffer bytes = next(data, CHUNK_PREFIX_SIZE - received);
+                prefix.put(bytes.duplicate());
+                append(bytes);
+                if (received == CHUNK_PREFIX_SIZE) {
+                    chunkSize = readChunkSize();
+                }
+            } else {
+                append(next(data, chunkSize > 0 ? chunkSize - received : data.remaining()));
+            }
+            if (chunkSize > 0 && received == chunkSize) {
+                parseChunk();
+            }
+        }
+    }
+
+    /**
+     * Parse the chunk left unfinished by the recording, if any, and build the trees of all chunks.
+     */
+    public Map<JFREventType, FrameTree> finish() throws IOException {
+        if (received >= CHUNK_PREFIX_SIZE) {
+            parseChunk();
+        }
+        return JFRToFrameTree.buildFrameTreeMap(event2builderMap);
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunk = null;
+        if (channel != null) {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static ByteBuffer next(ByteBuffer data, long length) {
+        int n = (int) Math.min(length, data.remaining());
+        ByteBuffer bytes = data.slice();
+        bytes.limit(n);
+        data.position(data.position() + n);
+        return bytes;
+    }
+
+    private long readChunkSize() throws IOException {
+        prefix.flip();
+        int signature = prefix.getInt(0);
+        long size = prefix.getLong(CHUNK_SIZE_OFFSET);
+        prefix.clear();
+        if (signature != CHUNK_SIGNATURE) {
+            throw new IOException("Not a valid JFR chunk, signature: " + Integer.toHexString(signature));
+        }
+        if (size <= CHUNK_PREFIX_SIZE) {
+            return 0;
+        }
+        if (consumed + size > maxSize) {
+            throw new IOException("JFR chunk of " + size + " bytes exceeds the max size of the recording: " + maxSize);
+        }
+        if (channel == null && size > Integer.MAX_VALUE) {
+            throw new IOException("JFR chunk is too large to be parsed in memory: " + size);
+        }
+        return size;
+    }
+
+    private void append(ByteBuffer bytes) throws IOException {
+        int n = bytes.remaining();
+        if (channel != null) {
+            long position = received;
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        } else {
+            ensureCapacity(received + n);
+            chunk.put(bytes);
+        }
+        received += n;
+    }
+
+    private void ensureCapacity(long required) {
+        if (chunk != null && chunk.capacity() >= required) {
+            return;
+        }
+        int capacity;
+        if (chunkSize > 0) {
+            capacity = (int) chunkSize;
+        } else {
+            long doubled = chunk == null ? INITIAL_BUFFER_SIZE : (long) chunk.capacity() * 2;
+            long limit = Math.min(Integer.MAX_VALUE, maxSize - consumed);
+            capacity = (int) Math.min(limit, Math.max(required, doubled));
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        if (chunk != null) {
+            chunk.flip();
+            grown.put(chunk);
+        }
+        chunk = grown;
+    }
+
+    private void parseChunk() throws IOException {
+        ByteBuffer buf;
+        if (channel != null) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, received);
+        } else {
+            buf = chunk;
+            buf.flip();
+        }
+        try (JfrReader jfr = new JfrReader(buf)) {
+            new JFRToFrameTree(jfr, args, event2builderMap).convert();
+        } finally {
+            if (chunk != null) {
+                chunk.clear();
+            }
+            chunkSize = -1;
+            consumed += received;
+            received = 0;
+        }
+    }
+}
@@ -43,13 +43,22 @@ import static org.apache.skywalking.oap.server.library.jfr.type.Frame.TYPE_NATIV
 
 public class JFRToFrameTree extends JFRConverter {
 
-    private final Map<JFREventType, FrameTreeBuilder> event2builderMap = new HashMap<>();
+    private final Map<JFREventType, FrameTreeBuilder> event2builderMap;
 
     private final Arguments args;
 
     public JFRToFrameTree(JfrReader jfr, Arguments arguments) {
+        this(jfr, arguments, new HashMap<>());
+    }
+
+    /**
+     * @param event2builderMap the builders to add the samples to, shared by the converters of the chunks of a
+     *                         recording, see {@link JFRStreamParser}.
+     */
+    public JFRToFrameTree(JfrReader jfr, Arguments arguments, Map<JFREventType, FrameTreeBuilder> event2builderMap) {
         super(jfr);
         this.args = arguments;
+        this.event2builderMap = event2builderMap;
     }
 
     @Override
@@ -114,6 +123,10 @@ public class JFRToFrameTree extends JFRConverter {
     }
 
     public Map<JFREventType, FrameTree> getFrameTreeMap() {
+        return buildFrameTreeMap(event2builderMap);
+    }
+
+    static Map<JFREventType, FrameTree> buildFrameTreeMap(Map<JFREventType, FrameTreeBuilder> event2builderMap) {
         Map<JFREventType, FrameTree> resMap = new HashMap<>();
         for (Map.Entry<JFREventType, FrameTreeBuilder> entry : event2builderMap.entrySet()) {
             JFREventType event = entry.getKey();
@@ -54,4 +54,26 @@ public class FrameTree {
         return frameTree;
     }
 
+    /**
+     * Remove the frames whose total is less than the given ratio of the total of this tree, which are too narrow to
+     * be seen in the flame graph. Their samples are still counted in the totals of their parents.
+     *
+     * @param minTotalPerMillion the ratio in parts per million, the tree is not pruned if it is not positive.
+     */
+    public void prune(int minTotalPerMillion) {
+        if (minTotalPerMillion > 0) {
+            prune0((long) (total * (minTotalPerMillion / 1_000_000D)));
+        }
+    }
+
+    private void prune0(long minTotal) {
+        if (children == null) {
+            return;
+        }
+        children.removeIf(child -> child.total < minTotal);
+        for (FrameTree child : children) {
+            child.prune0(minTotal);
+        }
+    }
+
 }
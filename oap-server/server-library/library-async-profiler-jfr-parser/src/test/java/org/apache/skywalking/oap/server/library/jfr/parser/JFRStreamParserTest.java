@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.jfr.parser;
+
+import jdk.jfr.Recording;
+import org.apache.skywalking.oap.server.library.jfr.type.Arguments;
+import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
+import org.apache.skywalking.oap.server.library.jfr.type.JFREventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JFRStreamParserTest {
+    private static final long MAX_SIZE = 30 * 1024 * 1024;
+
+    private Path recording;
+    private Path chunkFile;
+
+    @BeforeEach
+    public void record() throws IOException {
+        recording = Files.createTempFile("recording", ".jfr");
+        chunkFile = Files.createTempFile("chunk", ".jfr");
+        try (Recording r = new Recording()) {
+            r.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(1));
+            r.start();
+            long end = System.currentTimeMillis() + 500;
+            double x = 0;
+            while (System.currentTimeMillis() < end) {
+                x += Math.sqrt(x + 1);
+            }
+            r.stop();
+            r.dump(recording);
+        }
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(recording);
+        Files.deleteIfExists(chunkFile);
+    }
+
+    @Test
+    public void testParseChunksInMemory() throws IOException {
+        try (JFRStreamParser parser = JFRStreamParser.inMemory(new Arguments(), MAX_SIZE)) {
+            verify(parser);
+        }
+    }
+
+    @Test
+    public void testParseChunksInMappedFile() throws IOException {
+        try (JFRStreamParser parser = JFRStreamParser.mappedFile(chunkFile, new Arguments(), MAX_SIZE)) {
+            verify(parser);
+        }
+        assertThat(chunkFile).doesNotExist();
+    }
+
+    @Test
+    public void testRejectOversizedInMemory() throws IOException {
+        long size = Files.size(recording);
+        try (JFRStreamParser parser = JFRStreamParser.inMemory(new Arguments(), size)) {
+            assertThatThrownBy(() -> parser.write(chunkHeader(Long.MAX_VALUE))).isInstanceOf(IOException.class);
+        }
+        try (JFRStreamParser parser = JFRStreamParser.inMemory(new Arguments(), size + size / 2)) {
+            verifyRejected(parser);
+        }
+        try (JFRStreamParser parser = JFRStreamParser.inMemory(new Arguments(), 1024)) {
+            verifyUnfinishedRejected(parser);
+        }
+    }
+
+    @Test
+    public void testRejectOversizedInMappedFile() throws IOException {
+        long size = Files.size(recording);
+        try (JFRStreamParser parser = JFRStreamParser.mappedFile(chunkFile, new Arguments(), size)) {
+            assertThatThrownBy(() -> parser.write(chunkHeader(Long.MAX_VALUE))).isInstanceOf(IOException.class);
+        }
+        try (JFRStreamParser parser = JFRStreamParser.mappedFile(chunkFile, new Arguments(), size + size / 2)) {
+            verifyRejected(parser);
+        }
+        try (JFRStreamParser parser = JFRStreamParser.mappedFile(chunkFile, new Arguments(), 1024)) {
+            verifyUnfinishedRejected(parser);
+        }
+        assertThat(chunkFile).doesNotExist();
+    }
+
+    /**
+     * The first chunk is in the max size, the header of the second one declares a size beyond it.
+     */
+    private void verifyRejected(JFRStreamParser parser) throws IOException {
+        byte[] bytes = Files.readAllBytes(recording);
+        parser.write(ByteBuffer.wrap(bytes));
+        assertThatThrownBy(() -> parser.write(ByteBuffer.wrap(bytes, 0, 16))).isInstanceOf(IOException.class);
+    }
+
+    /**
+     * The chunk not finished doesn't declare its size, the bytes beyond the max size are rejected.
+     */
+    private void verifyUnfinishedRejected(JFRStreamParser parser) throws IOException {
+        parser.write(chunkHeader(0));
+        parser.write(ByteBuffer.allocate(1024 - 16));
+        assertThatThrownBy(() -> parser.write(ByteBuffer.allocate(1))).isInstanceOf(IOException.class);
+    }
+
+    private static ByteBuffer chunkHeader(long size) {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putInt(0x464C5200).putShort((short) 2).putShort((short) 0).putLong(size);
+        header.flip();
+        return header;
+    }
+
+    private void verify(JFRStreamParser parser) throws IOException {
+        Map<JFREventType, FrameTree> expected = JFRParser.dumpTree(recording.toString(), new Arguments());
+        assertThat(expected).containsKey(JFREventType.EXECUTION_SAMPLE);
+
+        // Upload the recording twice as a recording of two chunks, in pieces not aligned with the chunks.
+        byte[] bytes = Files.readAllBytes(recording);
+        for (int i = 0; i < 2; i++) {
+            for (int offset = 0; offset < bytes.length; offset += 1000) {
+                parser.write(ByteBuffer.wrap(bytes, offset, Math.min(1000, bytes.length - offset)));
+            }
+        }
+        Map<JFREventType, FrameTree> actual = parser.finish();
+
+        assertThat(actual.keySet()).isEqualTo(expected.keySet());
+        for (Map.Entry<JFREventType, FrameTree> entry : expected.entrySet()) {
+            Map<String, Long> doubled = new HashMap<>();
+            flatten(entry.getValue(), "", doubled).replaceAll((path, total) -> total * 2);
+            assertThat(flatten(actual.get(entry.getKey()), "", new HashMap<>())).isEqualTo(doubled);
+        }
+    }
+
+    private static Map<String, Long> flatten(FrameTree tree, String parent, Map<String, Long> totals) {
+        String path = parent + "/" + tree.getFrame();
+        totals.merge(path, tree.getTotal(), Long::sum);
+        if (tree.getChildren() != null) {
+            for (FrameTree child : tree.getChildren()) {
+                flatten(child, path, totals);
+            }
+        }
+        return totals;
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -101,6 +102,8 @@ public class ElasticSearchClient implements Client, HealthCheckable {
 
     private final AtomicReference<ElasticSearch> es = new AtomicReference<>();
 
+    private final List<BulkProcessor> bulkProcessors = new CopyOnWriteArrayList<>();
+
     private final ModuleManager moduleManager;
     private HistogramMetrics singleWriteHistogram;
     private HistogramMetrics singleUpdateHistogram;
@@ -207,6 +210,9 @@ public class ElasticSearchClient implements Client, HealthCheckable {
 
     @Override
     public void shutdown() {
+        // Flush the staged bulk requests before the connections are closed.
+        bulkProcessors.forEach(BulkProcessor::close);
+        bulkProcessors.clear();
         es.get().close();
     }
 
@@ -418,13 +424,15 @@ public class ElasticSearchClient implements Client, HealthCheckable {
                                              int flushInterval,
                                              int concurrentRequests,
                                              int batchOfBytes) {
-        return BulkProcessor.builder()
-                            .bulkActions(bulkActions)
-                            .batchOfBytes(batchOfBytes)
-                            .flushInterval(Duration.ofSeconds(flushInterval))
-                            .concurrentRequests(concurrentRequests)
-                            .bulkMetrics(bulkWriteHistogram)
-                            .build(es);
+        final BulkProcessor bulkProcessor = BulkProcessor.builder()
+                                                         .bulkActions(bulkActions)
+                                                         .batchOfBytes(batchOfBytes)
+                                                         .flushInterval(Duration.ofSeconds(flushInterval))
+                                                         .concurrentRequests(concurrentRequests)
+                                                         .bulkMetrics(bulkWriteHistogram)
+                                                         .build(es);
+        bulkProcessors.add(bulkProcessor);
+        return bulkProcessor;
     }
 
     public String formatIndexName(String indexName) {
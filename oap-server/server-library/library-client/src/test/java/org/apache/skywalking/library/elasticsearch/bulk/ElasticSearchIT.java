@@ -318,7 +318,7 @@ public class ElasticSearchIT {
             bulkProcessor.add(indexRequest.getRequest());
         }
 
-        bulkProcessor.flush();
+        bulkProcessor.flush().join();
 
         client.shutdown();
         server.stop();
@@ -351,7 +351,7 @@ public class ElasticSearchIT {
             bulkProcessor.add(indexRequest.getRequest());
         }
 
-        bulkProcessor.flush();
+        bulkProcessor.flush().join();
     }
 
     @ParameterizedTest(name = "{0}")
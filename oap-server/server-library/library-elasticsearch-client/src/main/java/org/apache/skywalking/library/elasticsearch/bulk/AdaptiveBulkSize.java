@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The number of actions in a bulk, adapted by the responses of ElasticSearch. Like the congestion control of TCP,
+ * the size grows additively while the bulks are completed in time, and is halved when a bulk is rejected(HTTP 429)
+ * or slower than the latency threshold, it never exceeds the configured {@code bulkActions}.
+ */
+final class AdaptiveBulkSize {
+    private final int min;
+    private final int max;
+    private final int step;
+    private final long latencyThresholdInMillis;
+    private final AtomicInteger size;
+
+    AdaptiveBulkSize(final int max, final long latencyThresholdInMillis) {
+        this.max = max;
+        this.min = Math.max(1, max / 16);
+        this.step = Math.max(1, max / 16);
+        this.latencyThresholdInMillis = latencyThresholdInMillis;
+        this.size = new AtomicInteger(max);
+    }
+
+    int get() {
+        return size.get();
+    }
+
+    void onCompleted(final long latencyInMillis) {
+        if (latencyInMillis > latencyThresholdInMillis) {
+            decrease();
+        } else {
+            size.updateAndGet(current -> Math.min(max, current + step));
+        }
+    }
+
+    void onRejected() {
+        decrease();
+    }
+
+    private void decrease() {
+        size.updateAndGet(current -> Math.max(min, current / 2));
+    }
+}
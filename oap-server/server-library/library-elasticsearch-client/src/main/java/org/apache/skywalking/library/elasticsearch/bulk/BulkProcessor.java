@@ -17,41 +17,79 @@
 
 package org.apache.skywalking.library.elasticsearch.bulk;
 
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.util.Exceptions;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.library.elasticsearch.ElasticSearch;
 import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
 import org.apache.skywalking.library.elasticsearch.requests.UpdateRequest;
 import org.apache.skywalking.library.elasticsearch.requests.factory.Codec;
-import org.apache.skywalking.library.elasticsearch.requests.factory.RequestFactory;
-import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.library.util.RunnableWithExceptionProtection;
 import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * The requests are encoded into pooled buffers by the callers of {@link #add(IndexRequest)}, and staged in a
+ * lock-free queue. A single thread coalesces the staged requests into bulks, and sends them asynchronously, at most
+ * {@code concurrentRequests} bulks are in flight. The callers are never blocked by the bulks being executed, unless
+ * ElasticSearch can't keep up and the staged requests reach the limit.
+ * <p>
+ * The number of actions in a bulk is adapted by the latency and the rejections of ElasticSearch, see {@link
+ * AdaptiveBulkSize}.
+ */
 @Slf4j
-public final class BulkProcessor {
-    private final ArrayBlockingQueue<Holder> requests;
+public final class BulkProcessor implements AutoCloseable {
+    private final ConcurrentLinkedQueue<Holder> requests;
+    /**
+     * The total number of the requests staged in the queue, only increased.
+     */
+    private final AtomicLong stagedCount;
+    /**
+     * The total number of the requests drained from the queue, only written by the bulk thread.
+     */
+    private volatile long drainedCount;
+    private final AtomicLong stagedBytes;
+    /**
+     * The requests staged before this position are flushed regardless of the bulk size.
+     */
+    private final AtomicLong flushTarget;
+    /**
+     * Limits the staged requests, to block the callers when ElasticSearch can't keep up.
+     */
+    private final Semaphore stagingPermits;
+    private final Semaphore inFlightPermits;
+    /**
+     * The bulks drained from the queue and not completed yet, a bulk is registered before its requests are drained.
+     */
+    private final Set<CompletableFuture<Void>> inFlightBulks;
+    private final AtomicBoolean drainScheduled;
+    private volatile boolean closed;
 
     private final AtomicReference<ElasticSearch> es;
-    private final int bulkActions;
-    private final Semaphore semaphore;
+    private final AdaptiveBulkSize bulkSize;
+    private final ScheduledThreadPoolExecutor scheduler;
     private final long flushInternalInMillis;
     private volatile long lastFlushTS = 0;
     private final int batchOfBytes;
@@ -70,13 +108,22 @@ public final class BulkProcessor {
         requireNonNull(flushInterval, "flushInterval");
 
         this.es = requireNonNull(es, "es");
-        this.bulkActions = bulkActions;
         this.batchOfBytes = batchOfBytes;
-        this.semaphore = new Semaphore(concurrentRequests > 0 ? concurrentRequests : 1);
-        this.requests = new ArrayBlockingQueue<>(bulkActions + 1);
         this.bulkMetrics = bulkMetrics;
+        final int concurrency = concurrentRequests > 0 ? concurrentRequests : 1;
+        this.requests = new ConcurrentLinkedQueue<>();
+        this.stagedCount = new AtomicLong();
+        this.stagedBytes = new AtomicLong();
+        this.flushTarget = new AtomicLong();
+        this.stagingPermits = new Semaphore(bulkActions * (concurrency + 1) * 2);
+        this.inFlightPermits = new Semaphore(concurrency);
+        this.inFlightBulks = ConcurrentHashMap.newKeySet();
+        this.drainScheduled = new AtomicBoolean();
+        flushInternalInMillis = flushInterval.getSeconds() * 1000;
+        // A bulk slower than half of the flush period means ElasticSearch is overloaded.
+        this.bulkSize = new AdaptiveBulkSize(bulkActions, flushInternalInMillis / 2);
 
-        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
             final Thread thread = new Thread(r);
             thread.setName("ElasticSearch BulkProcessor");
             return thread;
@@ -84,7 +131,6 @@ public final class BulkProcessor {
         scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
         scheduler.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
         scheduler.setRemoveOnCancelPolicy(true);
-        flushInternalInMillis = flushInterval.getSeconds() * 1000;
         scheduler.scheduleWithFixedDelay(
             new RunnableWithExceptionProtection(
                 this::doPeriodicalFlush,
@@ -100,121 +146,254 @@ public final class BulkProcessor {
         return internalAdd(request);
     }
 
-    @SneakyThrows
     private CompletableFuture<Void> internalAdd(Object request) {
         requireNonNull(request, "request");
         final CompletableFuture<Void> f = new CompletableFuture<>();
-        requests.put(new Holder(f, request));
-        flushIfNeeded();
+        if (closed) {
+            f.completeExceptionally(new IllegalStateException("The bulk processor is closed"));
+            return f;
+        }
+        // Acquire the permit before encoding, so no buffer is held while waiting for it.
+        try {
+            stagingPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            f.completeExceptionally(e);
+            return f;
+        }
+        final ByteBuf content;
+        try {
+            content = encode(request);
+        } catch (Exception e) {
+            stagingPermits.release();
+            log.error("Failed to encode the bulk request", e);
+            f.completeExceptionally(e);
+            return f;
+        }
+        final long staged = stagedCount.incrementAndGet();
+        final long bytes = stagedBytes.addAndGet(content.readableBytes());
+        requests.offer(new Holder(f, content));
+        if (scheduler.isShutdown()) {
+            // Closed after the check above, the bulk thread is gone and nothing drains the request anymore.
+            failStaged();
+            return f;
+        }
+        if (staged - drainedCount >= bulkSize.get() || bytes >= batchOfBytes) {
+            scheduleDrain();
+        }
         return f;
     }
 
-    @SneakyThrows
-    private void flushIfNeeded() {
-        if (requests.size() >= bulkActions) {
-            flush();
+    /**
+     * Encode the request and the line break of the bulk API into a pooled buffer, which is released after the bulk
+     * is sent.
+     */
+    private ByteBuf encode(Object request) throws Exception {
+        final Codec codec = es.get().version().get().codec();
+        final ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            final ByteBufOutputStream output = new ByteBufOutputStream(buffer);
+            codec.encode(request, output);
+            output.writeByte('\n');
+            return buffer;
+        } catch (Exception e) {
+            buffer.release();
+            throw e;
         }
     }
 
     private void doPeriodicalFlush() {
         if (System.currentTimeMillis() - lastFlushTS > flushInternalInMillis / 2) {
-            // Run periodical flush if there is no `flushIfNeeded` executed in the second half of the flush period.
+            // Run periodical flush if there is no bulk executed in the second half of the flush period.
             // Otherwise, wait for the next round. By default, the last 2 seconds of the 5s period.
             // This could avoid periodical flush running among bulks(controlled by bulkActions).
-            flush();
+            flushTarget.accumulateAndGet(stagedCount.get(), Math::max);
+            drain();
         }
     }
 
-    public void flush() {
-        if (requests.isEmpty()) {
-            return;
+    /**
+     * Flush all staged requests asynchronously.
+     *
+     * @return the future completed when the requests staged before, and the bulks in flight, are executed, whether
+     * they succeed or not.
+     */
+    public CompletableFuture<Void> flush() {
+        // Collect the staged requests before the bulks in flight. A request drained in the meantime belongs to a bulk
+        // which is registered before the request is drained, so it is covered by one of them.
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (final Holder holder : requests) {
+            futures.add(holder.future);
+        }
+        futures.addAll(inFlightBulks);
+        if (futures.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
+        flushTarget.accumulateAndGet(stagedCount.get(), Math::max);
+        scheduleDrain();
+        return CompletableFuture.allOf(futures.stream()
+                                              .map(it -> it.exceptionally(t -> null))
+                                              .toArray(CompletableFuture[]::new));
+    }
 
+    /**
+     * Flush the staged requests, wait for the bulks in flight at most one flush interval, and stop the bulk thread.
+     * The requests still staged after that, and the requests added after closing, are failed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
         try {
-            semaphore.acquire();
+            flush().get(Math.max(flushInternalInMillis, 1000), TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            log.error("Interrupted when trying to get semaphore to execute bulk requests", e);
-            return;
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Timeout to flush the bulk requests before closing the bulk processor");
+        } catch (Exception e) {
+            log.error("Failed to flush the bulk requests before closing the bulk processor", e);
+        } finally {
+            scheduler.shutdownNow();
+            failStaged();
         }
-        final List<Holder> batch = new ArrayList<>(requests.size());
-        requests.drainTo(batch);
-        HistogramMetrics.Timer timer = bulkMetrics.createTimer();
-        final List<CompletableFuture<Void>> futures = doFlush(batch);
-        final CompletableFuture<Void> future = CompletableFuture.allOf(
-            futures.toArray(new CompletableFuture[futures.size()]));
-        future.whenComplete((v, t) -> {
-            timer.close();
-            semaphore.release();
-        });
-        future.join();
-        lastFlushTS = System.currentTimeMillis();
     }
 
-    private List<CompletableFuture<Void>> doFlush(final List<Holder> batch) {
-        log.debug("Executing bulk with {} requests", batch.size());
-        if (batch.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Fail the staged requests and release their buffers, once the bulk thread is stopped. The offer of a request
+     * happens before its caller checks the scheduler, and the scheduler is shut down before this is called by {@link
+     * #close()}, so every request staged around closing is failed by one of them.
+     */
+    private void failStaged() {
+        final IllegalStateException closedException = new IllegalStateException("The bulk processor is closed");
+        Holder holder;
+        while ((holder = requests.poll()) != null) {
+            holder.content.release();
+            holder.future.completeExceptionally(closedException);
+            // Wake up the callers waiting for the permits, they fail their requests as well.
+            stagingPermits.release();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
         }
+    }
+
+    /**
+     * Coalesce the staged requests into bulks, only run in the bulk thread. It stops when there are not enough
+     * requests for a bulk, or there are too many bulks in flight, and it is scheduled again when a bulk completes.
+     */
+    private void drain() {
         try {
-            int bufferOfBytes = 0;
-            Codec codec = es.get().version().get().codec();
-            final List<byte[]> bs = new ArrayList<>();
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            List<ByteBuf> byteBufList = new ArrayList<>();
-            for (final Holder holder : batch) {
-                byte[] bytes = codec.encode(holder.request);
-                bs.add(bytes);
-                bs.add("\n".getBytes());
-                bufferOfBytes += bytes.length + 1;
-                if (bufferOfBytes >= batchOfBytes) {
-                    final ByteBuf content = Unpooled.wrappedBuffer(bs.toArray(new byte[0][]));
-                    byteBufList.add(content);
-                    bs.clear();
-                    bufferOfBytes = 0;
+            while (true) {
+                final long pending = stagedCount.get() - drainedCount;
+                if (pending <= 0) {
+                    return;
+                }
+                final int actions = bulkSize.get();
+                final boolean force = drainedCount < flushTarget.get();
+                if (!force && pending < actions && stagedBytes.get() < batchOfBytes) {
+                    return;
                 }
+                if (!inFlightPermits.tryAcquire()) {
+                    return;
+                }
+                final CompletableFuture<Void> bulk = new CompletableFuture<>();
+                inFlightBulks.add(bulk);
+                final List<Holder> batch = new ArrayList<>((int) Math.min(pending, actions));
+                final CompositeByteBuf content = ByteBufAllocator.DEFAULT.compositeBuffer(actions);
+                int bytes = 0;
+                Holder holder;
+                while (batch.size() < actions && bytes < batchOfBytes && (holder = requests.poll()) != null) {
+                    batch.add(holder);
+                    bytes += holder.content.readableBytes();
+                    content.addComponent(true, holder.content);
+                }
+                if (batch.isEmpty()) {
+                    // The request is counted but not offered yet.
+                    content.release();
+                    inFlightBulks.remove(bulk);
+                    bulk.complete(null);
+                    inFlightPermits.release();
+                    return;
+                }
+                drainedCount += batch.size();
+                stagedBytes.addAndGet(-bytes);
+                stagingPermits.release(batch.size());
+                lastFlushTS = System.currentTimeMillis();
+                doFlush(batch, content, bulk);
             }
-            if (CollectionUtils.isNotEmpty(bs)) {
-                final ByteBuf content = Unpooled.wrappedBuffer(bs.toArray(new byte[0][]));
-                byteBufList.add(content);
+        } catch (Throwable t) {
+            log.error("Failed to drain the requests into bulks", t);
+        }
+    }
+
+    private void doFlush(final List<Holder> batch, final ByteBuf content, final CompletableFuture<Void> bulk) {
+        log.debug("Executing bulk with {} requests", batch.size());
+        final HistogramMetrics.Timer timer = bulkMetrics.createTimer();
+        final long startTime = System.currentTimeMillis();
+        final ElasticSearch elasticSearch = es.get();
+        final CompletableFuture<AggregatedHttpResponse> future = elasticSearch.version().handle((v, t) -> {
+            // The content is released by the client once the request is executed.
+            if (t != null) {
+                content.release();
+                return Exceptions.<CompletableFuture<AggregatedHttpResponse>>throwUnsafely(t);
             }
-            for (final ByteBuf content : byteBufList) {
-                CompletableFuture<Void> future = es.get().version().thenCompose(v -> {
-                    try {
-                        final RequestFactory rf = v.requestFactory();
-                        return es.get().client().execute(rf.bulk().bulk(content)).aggregate().thenAccept(response -> {
-                            final HttpStatus status = response.status();
-                            if (status != HttpStatus.OK) {
-                                throw new RuntimeException(response.contentUtf8());
-                            }
-                        });
-                    } catch (Exception e) {
-                        return Exceptions.throwUnsafely(e);
-                    }
-                });
-                future.whenComplete((ignored, exception) -> {
-                    if (exception != null) {
-                        batch.stream().map(it -> it.future)
-                             .forEach(it -> it.completeExceptionally((Throwable) exception));
-                        log.error("Failed to execute requests in bulk", exception);
-                    } else {
-                        log.debug("Succeeded to execute {} requests in bulk", batch.size());
-                        batch.stream().map(it -> it.future).forEach(it -> it.complete(null));
-                    }
-                });
-                futures.add(future);
+            final HttpRequest request;
+            try {
+                request = v.requestFactory().bulk().bulk(content);
+            } catch (Exception e) {
+                content.release();
+                return Exceptions.<CompletableFuture<AggregatedHttpResponse>>throwUnsafely(e);
             }
-            return futures;
+            return elasticSearch.client().execute(request).aggregate();
+        }).thenCompose(it -> it);
 
-        } catch (Exception e) {
-            log.error("Failed to execute requests in bulk", e);
-            return Collections.emptyList();
-        }
+        future.whenComplete((response, exception) -> {
+            timer.close();
+            inFlightPermits.release();
+            Throwable failure = exception;
+            if (failure == null) {
+                final HttpStatus status = response.status();
+                if (status == HttpStatus.OK) {
+                    bulkSize.onCompleted(System.currentTimeMillis() - startTime);
+                    log.debug("Succeeded to execute {} requests in bulk", batch.size());
+                    batch.forEach(it -> it.future.complete(null));
+                } else {
+                    if (status == HttpStatus.TOO_MANY_REQUESTS) {
+                        bulkSize.onRejected();
+                    }
+                    failure = new RuntimeException(response.contentUtf8());
+                }
+            }
+            if (failure != null) {
+                log.error("Failed to execute requests in bulk", failure);
+                for (final Holder holder : batch) {
+                    holder.future.completeExceptionally(failure);
+                }
+            }
+            inFlightBulks.remove(bulk);
+            bulk.complete(null);
+            scheduleDrain();
+        });
     }
 
     @RequiredArgsConstructor
     static class Holder {
         private final CompletableFuture<Void> future;
-        private final Object request;
+        /**
+         * The encoded request, owned by the bulk once it is drained from the queue.
+         */
+        private final ByteBuf content;
     }
 
 }
@@ -19,6 +19,7 @@ package org.apache.skywalking.library.elasticsearch.requests.factory;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Responsible to encode requests and decode responses.
@@ -26,6 +27,13 @@ import java.io.InputStream;
 public interface Codec {
     byte[] encode(Object request) throws Exception;
 
+    /**
+     * Encode the request into the given stream, the stream is not closed.
+     */
+    default void encode(Object request, OutputStream outputStream) throws Exception {
+        outputStream.write(encode(request));
+    }
+
     <T> T decode(InputStream inputStream, TypeReference<T> type) throws Exception;
 
     <T> T decode(InputStream inputStream, Class<T> type) throws Exception;
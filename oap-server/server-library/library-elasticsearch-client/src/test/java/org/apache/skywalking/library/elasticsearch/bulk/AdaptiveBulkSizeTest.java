@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveBulkSizeTest {
+    @Test
+    public void bulkSizeShouldShrinkOnRejectionAndGrowBack() {
+        final AdaptiveBulkSize bulkSize = new AdaptiveBulkSize(1600, 1000);
+        assertThat(bulkSize.get()).isEqualTo(1600);
+
+        bulkSize.onRejected();
+        assertThat(bulkSize.get()).isEqualTo(800);
+        bulkSize.onCompleted(2000);
+        assertThat(bulkSize.get()).isEqualTo(400);
+
+        bulkSize.onCompleted(100);
+        assertThat(bulkSize.get()).isEqualTo(500);
+        for (int i = 0; i < 100; i++) {
+            bulkSize.onCompleted(100);
+        }
+        assertThat(bulkSize.get()).isEqualTo(1600);
+    }
+
+    @Test
+    public void bulkSizeShouldNotShrinkBelowMinimum() {
+        final AdaptiveBulkSize bulkSize = new AdaptiveBulkSize(1600, 1000);
+        for (int i = 0; i < 100; i++) {
+            bulkSize.onRejected();
+        }
+        assertThat(bulkSize.get()).isEqualTo(100);
+
+        final AdaptiveBulkSize tiny = new AdaptiveBulkSize(1, 1000);
+        tiny.onRejected();
+        assertThat(tiny.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import com.google.common.collect.ImmutableMap;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.server.Server;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.skywalking.library.elasticsearch.ElasticSearch;
+import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class BulkProcessorTest {
+    private final Queue<String> bulks = new ConcurrentLinkedQueue<>();
+    private volatile CompletableFuture<Void> bulkResponded = CompletableFuture.completedFuture(null);
+    private Server server;
+    private ElasticSearch elasticSearch;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = Server.builder()
+                       .http(0)
+                       .service("/", (ctx, req) -> HttpResponse.of(
+                           HttpStatus.OK, MediaType.JSON_UTF_8,
+                           "{\"version\":{\"number\":\"7.10.0\",\"distribution\":\"elasticsearch\"}}"))
+                       .service("/_cluster/health", (ctx, req) -> HttpResponse.of(
+                           HttpStatus.OK, MediaType.JSON_UTF_8, "{}"))
+                       .service("/_bulk", (ctx, req) -> HttpResponse.of(req.aggregate().thenCompose(it -> {
+                           bulks.add(it.contentUtf8());
+                           return bulkResponded.thenApply(
+                               v -> HttpResponse.of(HttpStatus.OK, MediaType.JSON_UTF_8, "{}"));
+                       })))
+                       .build();
+        server.start().join();
+        elasticSearch = ElasticSearch.builder()
+                                     .endpoints("127.0.0.1:" + server.activeLocalPort())
+                                     .responseTimeout(30000)
+                                     .build();
+        elasticSearch.connect().get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bulkResponded.complete(null);
+        elasticSearch.close();
+        server.stop().join();
+    }
+
+    @Test
+    public void flushShouldCoverBulksInFlight() throws Exception {
+        bulkResponded = new CompletableFuture<>();
+        final BulkProcessor bulkProcessor = createBulkProcessor(2);
+
+        final CompletableFuture<Void> first = bulkProcessor.add(indexRequest("1"));
+        final CompletableFuture<Void> second = bulkProcessor.add(indexRequest("2"));
+        // The requests have been drained into a bulk, which is not responded yet.
+        await().atMost(10, TimeUnit.SECONDS).until(() -> bulks.size() == 1);
+
+        final CompletableFuture<Void> flushed = bulkProcessor.flush();
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(flushed).isNotDone();
+
+        bulkResponded.complete(null);
+        flushed.get(10, TimeUnit.SECONDS);
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+
+        bulkProcessor.close();
+    }
+
+    @Test
+    public void flushShouldCompleteWhenBulkFails() throws Exception {
+        bulkResponded = new CompletableFuture<>();
+        final BulkProcessor bulkProcessor = createBulkProcessor(1);
+
+        final CompletableFuture<Void> request = bulkProcessor.add(indexRequest("1"));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> bulks.size() == 1);
+        final CompletableFuture<Void> flushed = bulkProcessor.flush();
+
+        bulkResponded.completeExceptionally(new IllegalStateException("bulk failure"));
+        flushed.get(10, TimeUnit.SECONDS);
+        assertThat(request).isCompletedExceptionally();
+
+        bulkProcessor.close();
+    }
+
+    @Test
+    public void closeShouldFlushStagedRequestsAndRejectNewOnes() throws Exception {
+        final BulkProcessor bulkProcessor = createBulkProcessor(100);
+        // Let the first periodical flush, which runs right after the start, pass before staging the request.
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        final CompletableFuture<Void> staged = bulkProcessor.add(indexRequest("1"));
+        assertThat(bulks).isEmpty();
+
+        bulkProcessor.close();
+        assertThat(staged).isCompleted();
+        assertThat(bulks).hasSize(1);
+
+        assertThat(bulkProcessor.add(indexRequest("2"))).isCompletedExceptionally();
+    }
+
+    @Test
+    public void closeShouldFailRequestsStagedAfterTimeout() throws Exception {
+        bulkResponded = new CompletableFuture<>();
+        final BulkProcessor bulkProcessor = createBulkProcessor(1, Duration.ofSeconds(1));
+
+        final CompletableFuture<Void> first = bulkProcessor.add(indexRequest("1"));
+        final CompletableFuture<Void> second = bulkProcessor.add(indexRequest("2"));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> bulks.size() == 2);
+        // No bulk can be sent while the 2 in flight are not responded.
+        final CompletableFuture<Void> staged = bulkProcessor.add(indexRequest("3"));
+
+        bulkProcessor.close();
+        assertThat(staged).isCompletedExceptionally();
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+    }
+
+    private BulkProcessor createBulkProcessor(int bulkActions) {
+        return createBulkProcessor(bulkActions, Duration.ofSeconds(60));
+    }
+
+    private BulkProcessor createBulkProcessor(int bulkActions, Duration flushInterval) {
+        return BulkProcessor.builder()
+                            .bulkActions(bulkActions)
+                            .batchOfBytes(1024 * 1024)
+                            .flushInterval(flushInterval)
+                            .concurrentRequests(2)
+                            .bulkMetrics(new MetricsCreatorNoop().createHistogramMetric(
+                                "bulk", "", MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE))
+                            .build(new AtomicReference<>(elasticSearch));
+    }
+
+    private static IndexRequest indexRequest(String id) {
+        return IndexRequest.builder()
+                           .index("index")
+                           .type("type")
+                           .id(id)
+                           .doc(ImmutableMap.of("name", id))
+                           .build();
+    }
+}
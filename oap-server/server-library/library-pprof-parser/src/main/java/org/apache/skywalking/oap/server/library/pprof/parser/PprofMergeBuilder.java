@@ -54,7 +54,17 @@ public class PprofMergeBuilder {
         frame.setSelf(frame.getSelf() + tree.getSelf());
     }
 
-    private Frame addChild(Frame parent, String signature) {
+    /**
+     * @return the root of the merged frames, to merge the frames decoded from the storage into.
+     */
+    public Frame getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the child frame of the given signature, created if absent.
+     */
+    public Frame addChild(Frame parent, String signature) {
         return parent.getChild(signature);
     }
 
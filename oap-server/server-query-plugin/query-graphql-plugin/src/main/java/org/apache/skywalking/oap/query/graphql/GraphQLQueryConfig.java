@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.query.graphql;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEPlanCache;
 import org.apache.skywalking.oap.server.library.module.ModuleConfig;
 
 /**
@@ -31,4 +32,9 @@ public class GraphQLQueryConfig extends ModuleConfig {
     private boolean enableLogTestTool;
     private int maxQueryComplexity = 1000;
     private boolean enableOnDemandPodLog = false;
+    /**
+     * The max number of the parsed MQE expressions cached for the queries, 0 means parsing the expression in every
+     * query.
+     */
+    private long mqePlanCacheMaxSize = MQEPlanCache.DEFAULT_MAX_SIZE;
 }
@@ -24,6 +24,7 @@ import graphql.kickstart.tools.SchemaParserBuilder;
 import graphql.scalars.ExtendedScalars;
 
 import java.util.Collections;
+import org.apache.skywalking.oap.query.graphql.mqe.rt.MQEExecutor;
 import org.apache.skywalking.oap.query.graphql.resolver.AggregationQuery;
 import org.apache.skywalking.oap.query.graphql.resolver.AlarmQuery;
 import org.apache.skywalking.oap.query.graphql.resolver.AsyncProfilerMutation;
@@ -62,6 +63,8 @@ import org.apache.skywalking.oap.server.library.module.ModuleDefine;
 import org.apache.skywalking.oap.server.library.module.ModuleProvider;
 import org.apache.skywalking.oap.server.library.module.ModuleStartException;
 import org.apache.skywalking.oap.server.library.module.ServiceNotProvidedException;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 /**
  * GraphQL query provider.
@@ -167,6 +170,10 @@ public class GraphQLQueryProvider extends ModuleProvider {
 
     @Override
     public void start() throws ServiceNotProvidedException, ModuleStartException {
+        MQEExecutor.setup(
+            config.getMqePlanCacheMaxSize(),
+            getManager().find(TelemetryModule.NAME).provider().getService(MetricsCreator.class)
+        );
         HTTPHandlerRegister service = getManager().find(CoreModule.NAME)
                                                   .provider()
                                                   .getService(HTTPHandlerRegister.class);
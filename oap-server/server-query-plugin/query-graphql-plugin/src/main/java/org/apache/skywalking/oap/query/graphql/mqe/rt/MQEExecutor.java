@@ -22,40 +22,57 @@ import java.text.DecimalFormat;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.misc.ParseCancellationException;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.apache.skywalking.mqe.rt.exception.ParseErrorListener;
-import org.apache.skywalking.mqe.rt.grammar.MQELexer;
-import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
 import org.apache.skywalking.oap.server.core.query.input.Entity;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
 import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResultType;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingSpan;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTrace;
 import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
 import org.apache.skywalking.oap.server.core.storage.annotation.InspectQueryContext;
 import org.apache.skywalking.oap.server.core.storage.annotation.ForeignMetricMeta;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
 
 import static org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext.TRACE_CONTEXT;
 
 /**
- * Synchronous MQE evaluation entry, factored out of {@code MetricsExpressionQuery} so the admin
- * inspect value path can run the SAME engine without the resolver's {@code queryAsync} ForkJoinPool
- * hop. Optionally overlays caller-supplied metadata for foreign metrics (metrics this OAP does not
+ * The MQE evaluation entry, shared by the GraphQL {@code MetricsExpressionQuery} and the admin inspect value path.
+ * Optionally overlays caller-supplied metadata for foreign metrics (metrics this OAP does not
  * define) via {@link InspectQueryContext} for the duration of the synchronous eval; the overlay is
  * provide-if-absent and removed in a {@code finally} on the same thread that runs the eval and the
- * storage read (the eval is fully synchronous, mirroring how {@code TRACE_CONTEXT} already rides that
- * thread into the DAO).
+ * storage read (mirroring how {@code TRACE_CONTEXT} already rides that thread into the DAO).
+ * <p>
+ * The expressions are parsed through the {@link MQEPlanCache}, and the metrics of the expression are fetched
+ * concurrently before the evaluation, unless debugging or reading foreign metrics. The latency of the parse, fetch
+ * and compute stages is observed in {@code mqe_query_latency}.
  */
 public class MQEExecutor {
+    private static final ThreadLocal<DecimalFormat> VALUE_FORMAT = ThreadLocal.withInitial(() -> {
+        final DecimalFormat format = new DecimalFormat();
+        format.setGroupingUsed(false);
+        return format;
+    });
+
+    private static volatile MQEPlanCache PLAN_CACHE = new MQEPlanCache(
+        MQEPlanCache.DEFAULT_MAX_SIZE, new MetricsCreatorNoop());
+    private static volatile Stages STAGES = new Stages(new MetricsCreatorNoop());
+
     private final ModuleManager moduleManager;
-    private final DecimalFormat valueFormat = new DecimalFormat();
 
     public MQEExecutor(final ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
-        this.valueFormat.setGroupingUsed(false);
+    }
+
+    /**
+     * Set up the plan cache and the telemetry shared by all executors, called when the query module starts.
+     */
+    public static void setup(final long planCacheMaxSize, final MetricsCreator metricsCreator) {
+        PLAN_CACHE = new MQEPlanCache(planCacheMaxSize, metricsCreator);
+        STAGES = new Stages(metricsCreator);
     }
 
     /**
@@ -79,27 +96,8 @@ public class MQEExecutor {
             "Inspect MQE: " + expression + ", Entity: " + entity + ", Duration: " + duration, false, false);
         TRACE_CONTEXT.set(traceContext);
         try {
-            final MQEVisitor visitor = new MQEVisitor(moduleManager, entity, duration);
-            final MQELexer lexer = new MQELexer(CharStreams.fromString(expression));
-            lexer.addErrorListener(new ParseErrorListener());
-            final MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
-            parser.addErrorListener(new ParseErrorListener());
-            final ParseTree tree;
-            try {
-                tree = parser.expression();
-            } catch (ParseCancellationException e) {
-                final ExpressionResult errorResult = new ExpressionResult();
-                errorResult.setType(ExpressionResultType.UNKNOWN);
-                errorResult.setError(e.getMessage());
-                return errorResult;
-            }
-            final ExpressionResult result = visitor.visit(tree);
-            result.getResults().forEach(mqeValues -> mqeValues.getValues().forEach(mqeValue -> {
-                if (!mqeValue.isEmptyValue()) {
-                    mqeValue.setValue(valueFormat.format(mqeValue.getDoubleValue()));
-                }
-            }));
-            return result;
+            // The overlay is bound to this thread, so the foreign metrics are fetched in place.
+            return evaluate(expression, entity, duration, traceContext, !hasForeign);
         } finally {
             traceContext.stopTrace();
             TRACE_CONTEXT.remove();
@@ -108,4 +106,88 @@ public class MQEExecutor {
             }
         }
     }
+
+    /**
+     * Evaluate an MQE expression for the GraphQL query.
+     *
+     * @param debug          true to attach the debugging trace to the result
+     * @param dumpStorageRsp true to dump the storage responses into the debugging trace
+     */
+    public ExpressionResult execute(final String expression, final Entity entity, final Duration duration,
+                                    final boolean debug, final boolean dumpStorageRsp) {
+        final DebuggingTraceContext traceContext = new DebuggingTraceContext(
+            "Expression: " + expression + ", Entity: " + entity + ", Duration: " + duration, debug, dumpStorageRsp);
+        TRACE_CONTEXT.set(traceContext);
+        final DebuggingSpan span = traceContext.createSpan("MQE query");
+        try {
+            final DebuggingTrace execTrace = traceContext.getExecTrace();
+            final ExpressionResult result = evaluate(expression, entity, duration, traceContext, true);
+            if (debug) {
+                result.setDebuggingTrace(execTrace);
+            }
+            return result;
+        } finally {
+            traceContext.stopSpan(span);
+            traceContext.stopTrace();
+            TRACE_CONTEXT.remove();
+        }
+    }
+
+    private ExpressionResult evaluate(final String expression, final Entity entity, final Duration duration,
+                                      final DebuggingTraceContext traceContext, final boolean parallel) {
+        final Stages stages = STAGES;
+        final MQEPlan plan;
+        final DebuggingSpan syntaxSpan = traceContext.createSpan("MQE syntax analysis");
+        try (HistogramMetrics.Timer ignored = stages.parse.createTimer()) {
+            plan = PLAN_CACHE.get(expression);
+        } finally {
+            traceContext.stopSpan(syntaxSpan);
+        }
+        if (plan.getError() != null) {
+            final ExpressionResult errorResult = new ExpressionResult();
+            errorResult.setType(ExpressionResultType.UNKNOWN);
+            errorResult.setError(plan.getError());
+            return errorResult;
+        }
+
+        final MQEVisitor visitor = new MQEVisitor(moduleManager, entity, duration);
+        final ExpressionResult result;
+        if (traceContext.isDebug()) {
+            // The debugging spans are nested in the evaluation order, so the metrics are fetched in the evaluation.
+            result = visitor.visit(plan.getTree());
+        } else {
+            try (HistogramMetrics.Timer ignored = stages.fetch.createTimer()) {
+                visitor.fetch(plan.getMetrics(), parallel);
+            }
+            try (HistogramMetrics.Timer ignored = stages.compute.createTimer()) {
+                result = visitor.visit(plan.getTree());
+            }
+        }
+        final DecimalFormat valueFormat = VALUE_FORMAT.get();
+        result.getResults().forEach(mqeValues -> mqeValues.getValues().forEach(mqeValue -> {
+            if (!mqeValue.isEmptyValue()) {
+                mqeValue.setValue(valueFormat.format(mqeValue.getDoubleValue()));
+            }
+        }));
+        return result;
+    }
+
+    private static class Stages {
+        private final HistogramMetrics parse;
+        private final HistogramMetrics fetch;
+        private final HistogramMetrics compute;
+
+        private Stages(final MetricsCreator metricsCreator) {
+            parse = create(metricsCreator, "parse");
+            fetch = create(metricsCreator, "fetch");
+            compute = create(metricsCreator, "compute");
+        }
+
+        private static HistogramMetrics create(final MetricsCreator metricsCreator, final String stage) {
+            return metricsCreator.createHistogramMetric(
+                "mqe_query_latency", "The latency of the MQE query stages",
+                new MetricsTag.Keys("stage"), new MetricsTag.Values(stage)
+            );
+        }
+    }
 }
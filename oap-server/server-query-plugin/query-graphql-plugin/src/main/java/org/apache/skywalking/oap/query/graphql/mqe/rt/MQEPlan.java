@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.mqe.rt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.skywalking.mqe.rt.exception.ParseErrorListener;
+import org.apache.skywalking.mqe.rt.grammar.MQELexer;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+
+/**
+ * The parsed MQE expression. The parse tree is only read by the {@link MQEVisitor}s, so a plan could be evaluated
+ * by several queries concurrently.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MQEPlan {
+    private final String expression;
+    /**
+     * The parse tree, {@code null} if the expression is illegal.
+     */
+    private final ParseTree tree;
+    /**
+     * The syntax error of the expression, {@code null} if the expression is legal.
+     */
+    private final String error;
+    /**
+     * The metrics of the expression in the evaluation order, they are independent of each other, so could be fetched
+     * before the evaluation, see {@link MQEVisitor#fetch(List, boolean)}. The metrics of the logical functions are
+     * excluded, as they are only fetched when the former expressions have no value.
+     */
+    private final List<MQEParser.MetricContext> metrics;
+
+    public static MQEPlan parse(final String expression) {
+        final MQELexer lexer = new MQELexer(CharStreams.fromString(expression));
+        lexer.addErrorListener(new ParseErrorListener());
+        final MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
+        parser.addErrorListener(new ParseErrorListener());
+        final ParseTree tree;
+        try {
+            tree = parser.expression();
+        } catch (ParseCancellationException e) {
+            return new MQEPlan(expression, null, e.getMessage(), Collections.emptyList());
+        }
+        final List<MQEParser.MetricContext> metrics = new ArrayList<>();
+        collectMetrics(tree, metrics);
+        return new MQEPlan(expression, tree, null, Collections.unmodifiableList(metrics));
+    }
+
+    private static void collectMetrics(final ParseTree node, final List<MQEParser.MetricContext> metrics) {
+        if (node instanceof MQEParser.MetricContext) {
+            metrics.add((MQEParser.MetricContext) node);
+            return;
+        }
+        if (node instanceof MQEParser.LogicalOperatorOPContext) {
+            return;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            collectMetrics(node.getChild(i), metrics);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.mqe.rt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * The bounded cache of the {@link MQEPlan}s, keyed by the expression. The dashboards query the same expressions
+ * periodically for every entity, the plans are parsed once and shared by these queries. The illegal expressions are
+ * cached too, with their syntax errors.
+ */
+public class MQEPlanCache {
+    public static final long DEFAULT_MAX_SIZE = 1000;
+
+    /**
+     * {@code null} if the cache is disabled.
+     */
+    private final Cache<String, MQEPlan> plans;
+    private final CounterMetrics hitCounter;
+    private final CounterMetrics missCounter;
+
+    /**
+     * @param maxSize the max number of the cached plans, 0 means the expressions are parsed in every query.
+     */
+    public MQEPlanCache(final long maxSize, final MetricsCreator metricsCreator) {
+        this.plans = maxSize > 0 ? CacheBuilder.newBuilder().maximumSize(maxSize).build() : null;
+        this.hitCounter = metricsCreator.createCounter(
+            "mqe_plan_cache_hit_count", "The number of MQE queries with the cached plan",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        this.missCounter = metricsCreator.createCounter(
+            "mqe_plan_cache_miss_count", "The number of MQE queries parsing the expression",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+    }
+
+    public MQEPlan get(final String expression) {
+        if (plans == null) {
+            missCounter.inc();
+            return MQEPlan.parse(expression);
+        }
+        MQEPlan plan = plans.getIfPresent(expression);
+        if (plan != null) {
+            hitCounter.inc();
+            return plan;
+        }
+        missCounter.inc();
+        // Parsing the same expression concurrently is harmless, the plans are equivalent.
+        plan = MQEPlan.parse(expression);
+        plans.put(expression, plan);
+        return plan;
+    }
+
+    public long size() {
+        return plans == null ? 0 : plans.size();
+    }
+}
@@ -21,14 +21,22 @@ package org.apache.skywalking.oap.query.graphql.mqe.rt;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEColumn;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
 import org.apache.skywalking.oap.server.core.query.mqe.MQEValues;
 import org.apache.skywalking.oap.server.core.CoreModule;
@@ -68,6 +76,26 @@ import static org.apache.skywalking.oap.server.core.query.type.debugging.Debuggi
 
 @Slf4j
 public class MQEVisitor extends MQEVisitorBase {
+    private static final AtomicInteger FETCH_THREAD_SEQ = new AtomicInteger();
+    /**
+     * The expressions are evaluated in the {@link org.apache.skywalking.oap.query.graphql.AsyncQueryUtils} pool, and
+     * the evaluation waits for the metrics fetched ahead, so they are fetched in dedicated threads rather than the
+     * same pool, which could be exhausted by the waiting evaluations.
+     */
+    private static final ExecutorService FETCH_EXECUTOR;
+
+    static {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                final Thread thread = new Thread(r, "MQE-fetch-" + FETCH_THREAD_SEQ.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        FETCH_EXECUTOR = executor;
+    }
+
     private final Entity entity;
     private final Duration duration;
     private final ModuleManager moduleManager;
@@ -75,6 +103,7 @@ public class MQEVisitor extends MQEVisitorBase {
     private AggregationQueryService aggregationQueryService;
     private RecordQueryService recordQueryService;
     private IModelManager modelManager;
+    private final Map<MQEParser.MetricContext, CompletableFuture<ExpressionResult>> fetched = new IdentityHashMap<>();
 
     public MQEVisitor(final ModuleManager moduleManager,
                       final Entity entity,
@@ -121,8 +150,52 @@ public class MQEVisitor extends MQEVisitorBase {
         return recordQueryService;
     }
 
+    /**
+     * Fetch the metrics before the evaluation, the binary operations and functions then take the fetched results,
+     * instead of querying the storage one after another.
+     *
+     * @param metrics  the independent metrics of the expression, see {@link MQEPlan#getMetrics()}
+     * @param parallel true to fetch the metrics in the dedicated fetching threads, except the last one fetched in
+     *                 the current thread. Otherwise, all are fetched in the current thread. It returns after all the
+     *                 metrics are fetched either way, so the fetch stage covers all of them.
+     */
+    public void fetch(List<MQEParser.MetricContext> metrics, boolean parallel) {
+        final List<CompletableFuture<ExpressionResult>> pending = new ArrayList<>(metrics.size());
+        for (int i = 0; i < metrics.size(); i++) {
+            final MQEParser.MetricContext metric = metrics.get(i);
+            if (parallel && i < metrics.size() - 1) {
+                final CompletableFuture<ExpressionResult> future = CompletableFuture.supplyAsync(() -> {
+                    // The debugging trace is not shared across threads, the metrics are not fetched ahead in debugging.
+                    TRACE_CONTEXT.set(new DebuggingTraceContext("MQE Metric: " + metric.getText(), false, false));
+                    try {
+                        return queryMetric(metric);
+                    } catch (Throwable e) {
+                        log.error(e.getMessage(), e);
+                        throw e;
+                    } finally {
+                        TRACE_CONTEXT.remove();
+                    }
+                }, FETCH_EXECUTOR);
+                fetched.put(metric, future);
+                pending.add(future);
+            } else {
+                fetched.put(metric, CompletableFuture.completedFuture(queryMetric(metric)));
+            }
+        }
+        // The failures are thrown when the metrics are visited, as they are without fetching ahead.
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).handle((v, t) -> null).join();
+    }
+
     @Override
     public ExpressionResult visitMetric(MQEParser.MetricContext ctx) {
+        final CompletableFuture<ExpressionResult> result = fetched.remove(ctx);
+        if (result != null) {
+            return result.join();
+        }
+        return queryMetric(ctx);
+    }
+
+    private ExpressionResult queryMetric(MQEParser.MetricContext ctx) {
         DebuggingTraceContext traceContext = TRACE_CONTEXT.get();
         DebuggingSpan span = traceContext.createSpan("MQE Metric OP: " + ctx.getText());
         try {
@@ -337,20 +410,7 @@ public class MQEVisitor extends MQEVisitorBase {
                      metricName, metricsValues.getValues().getValues().size(), times.size());
             return;
         }
-        List<MQEValue> mqeValueList = new ArrayList<>(times.size());
-        for (int i = 0; i < times.size(); i++) {
-            long retTimestamp = DurationUtils.INSTANCE.parseToDateTime(queryDuration.getStep(), times.get(i).getPoint())
-                                                      .getMillis();
-            KVInt kvInt = metricsValues.getValues().getValues().get(i);
-            MQEValue mqeValue = new MQEValue();
-            mqeValue.setId(Long.toString(retTimestamp));
-            mqeValue.setEmptyValue(kvInt.isEmptyValue());
-            mqeValue.setDoubleValue(kvInt.getValue());
-            mqeValueList.add(mqeValue);
-        }
-        MQEValues mqeValues = new MQEValues();
-        mqeValues.setValues(mqeValueList);
-        result.getResults().add(mqeValues);
+        result.getResults().add(new MQEValues(toColumn(metricsValues, pointIds(queryDuration, times))));
         result.setType(ExpressionResultType.TIME_SERIES_VALUES);
     }
 
@@ -364,27 +424,14 @@ public class MQEVisitor extends MQEVisitorBase {
         List<MetricsValues> metricsValuesList = getMetricsQueryService().readLabeledMetricsValues(
             metricsCondition, queryLabels, queryDuration);
         List<PointOfTime> times = queryDuration.assembleDurationPoints();
+        String[] ids = pointIds(queryDuration, times);
         metricsValuesList.forEach(metricsValues -> {
             if (metricsValues.getValues().getValues().size() != times.size()) {
                 log.warn("Metric: {} values size is not equal to duration points size, metrics values size: {}, duration points size: {}",
                          metricName, metricsValues.getValues().getValues().size(), times.size());
                 return;
             }
-            List<MQEValue> mqeValueList = new ArrayList<>(times.size());
-            for (int i = 0; i < times.size(); i++) {
-                long retTimestamp = DurationUtils.INSTANCE.parseToDateTime(queryDuration.getStep(), times.get(i).getPoint())
-                                                          .getMillis();
-                KVInt kvInt = metricsValues.getValues().getValues().get(i);
-                MQEValue mqeValue = new MQEValue();
-                mqeValue.setEmptyValue(kvInt.isEmptyValue());
-                mqeValue.setId(Long.toString(retTimestamp));
-                mqeValueList.add(mqeValue);
-                if (!kvInt.isEmptyValue()) {
-                    mqeValue.setDoubleValue(kvInt.getValue());
-                }
-            }
-
-            MQEValues mqeValues = new MQEValues();
+            MQEValues mqeValues = new MQEValues(toColumn(metricsValues, ids));
             DataLabel dataLabel = new DataLabel();
             dataLabel.put(metricsValues.getLabel());
             for (Map.Entry<String, String> label : dataLabel.entrySet()) {
@@ -392,13 +439,39 @@ public class MQEVisitor extends MQEVisitorBase {
             }
             //Sort labels by key in natural order by default
             mqeValues.getMetric().sortLabelsByKey(Comparator.naturalOrder());
-            mqeValues.setValues(mqeValueList);
             result.getResults().add(mqeValues);
         });
         result.setType(ExpressionResultType.TIME_SERIES_VALUES);
         result.setLabeledResult(true);
     }
 
+    /**
+     * The timestamps of the duration points, shared by the columns of the series in the duration.
+     */
+    private static String[] pointIds(Duration queryDuration, List<PointOfTime> times) {
+        String[] ids = new String[times.size()];
+        for (int i = 0; i < ids.length; i++) {
+            long retTimestamp = DurationUtils.INSTANCE.parseToDateTime(queryDuration.getStep(), times.get(i).getPoint())
+                                                      .getMillis();
+            ids[i] = Long.toString(retTimestamp);
+        }
+        return ids;
+    }
+
+    private static MQEColumn toColumn(MetricsValues metricsValues, String[] ids) {
+        MQEColumn column = new MQEColumn(ids);
+        List<KVInt> values = metricsValues.getValues().getValues();
+        for (int i = 0; i < ids.length; i++) {
+            KVInt kvInt = values.get(i);
+            if (kvInt.isEmptyValue()) {
+                column.setEmptyValue(i);
+            } else {
+                column.setValue(i, kvInt.getValue());
+            }
+        }
+        return column;
+    }
+
     private Duration getTrendQueryDuration(int stepRange) {
         Duration duration = new Duration();
         duration.setStep(this.duration.getStep());
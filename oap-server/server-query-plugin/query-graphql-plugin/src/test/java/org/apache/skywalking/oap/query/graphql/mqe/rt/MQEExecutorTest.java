@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.mqe.rt;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.query.MetricsQueryService;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.mqe.ExpressionResult;
+import org.apache.skywalking.oap.server.core.query.mqe.MQEValue;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProviderHolder;
+import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MQEExecutorTest {
+    private MetricsQueryService metricsQueryService;
+    private MQEExecutor executor;
+    private Entity entity;
+    private Duration duration;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            "test_mqe_cpm", "value", Column.ValueDataType.COMMON_VALUE, 0, DefaultScopeDefine.SERVICE);
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            "test_mqe_sla", "percentage", Column.ValueDataType.COMMON_VALUE, 0, DefaultScopeDefine.SERVICE);
+
+        metricsQueryService = mock(MetricsQueryService.class);
+        when(metricsQueryService.readMetricsValues(any(), any())).thenAnswer(invocation -> {
+            final MetricsCondition condition = invocation.getArgument(0);
+            final long value = condition.getName().equals("test_mqe_cpm") ? 100 : 10;
+            final MetricsValues metricsValues = new MetricsValues();
+            for (int i = 0; i < 3; i++) {
+                metricsValues.getValues().addKVInt(new KVInt(String.valueOf(i), value + i, false));
+            }
+            return metricsValues;
+        });
+        final ModuleManager moduleManager = mock(ModuleManager.class);
+        final ModuleProviderHolder providerHolder = mock(ModuleProviderHolder.class);
+        final ModuleServiceHolder serviceHolder = mock(ModuleServiceHolder.class);
+        when(moduleManager.find(CoreModule.NAME)).thenReturn(providerHolder);
+        when(providerHolder.provider()).thenReturn(serviceHolder);
+        when(serviceHolder.getService(MetricsQueryService.class)).thenReturn(metricsQueryService);
+
+        MQEExecutor.setup(MQEPlanCache.DEFAULT_MAX_SIZE, new MetricsCreatorNoop());
+        executor = new MQEExecutor(moduleManager);
+        entity = new Entity();
+        entity.setServiceName("service");
+        entity.setNormal(true);
+        duration = new Duration();
+        duration.setStart("2024-01-01 1200");
+        duration.setEnd("2024-01-01 1202");
+        duration.setStep(Step.MINUTE);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ValueColumnMetadata.INSTANCE.remove("test_mqe_cpm");
+        ValueColumnMetadata.INSTANCE.remove("test_mqe_sla");
+    }
+
+    @Test
+    public void testPlanMetrics() {
+        final MQEPlan plan = MQEPlan.parse(
+            "test_mqe_cpm + test_mqe_sla * 2 + view_as_seq(test_mqe_cpm, test_mqe_sla)");
+        assertNull(plan.getError());
+        // The metrics of the logical functions are only fetched in the evaluation.
+        assertEquals(
+            List.of("test_mqe_cpm", "test_mqe_sla"),
+            plan.getMetrics().stream().map(MQEParser.MetricContext::getText).collect(Collectors.toList())
+        );
+
+        final MQEPlan illegal = MQEPlan.parse("test_mqe_cpm +");
+        assertNotNull(illegal.getError());
+        assertNull(illegal.getTree());
+    }
+
+    @Test
+    public void testPlanCache() {
+        final MQEPlanCache cache = new MQEPlanCache(10, new MetricsCreatorNoop());
+        final MQEPlan plan = cache.get("test_mqe_cpm * 2");
+        assertSame(plan, cache.get("test_mqe_cpm * 2"));
+        assertSame(cache.get("test_mqe_cpm +"), cache.get("test_mqe_cpm +"));
+        assertEquals(2, cache.size());
+
+        final MQEPlanCache disabled = new MQEPlanCache(0, new MetricsCreatorNoop());
+        assertNotSame(disabled.get("test_mqe_cpm * 2"), disabled.get("test_mqe_cpm * 2"));
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        final String expression = "(test_mqe_cpm - test_mqe_sla) * 2 + test_mqe_sla";
+        for (int round = 0; round < 2; round++) {
+            final ExpressionResult result = executor.execute(expression, entity, duration, false, false);
+            assertNull(result.getError());
+            assertEquals(1, result.getResults().size());
+            assertEquals(
+                List.of("190", "191", "192"),
+                result.getResults().get(0).getValues().stream().map(MQEValue::getValue).collect(Collectors.toList())
+            );
+            // The debugging evaluation fetches the metrics in place, with the same result.
+            final ExpressionResult debugResult = executor.execute(expression, entity, duration, true, false);
+            assertEquals(
+                List.of("190", "191", "192"),
+                debugResult.getResults().get(0).getValues().stream().map(MQEValue::getValue)
+                           .collect(Collectors.toList())
+            );
+            assertNotNull(debugResult.getDebuggingTrace());
+        }
+        verify(metricsQueryService, times(12)).readMetricsValues(any(), any());
+
+        final ExpressionResult error = executor.execute("test_mqe_cpm +", entity, duration, false, false);
+        assertNotNull(error.getError());
+    }
+}
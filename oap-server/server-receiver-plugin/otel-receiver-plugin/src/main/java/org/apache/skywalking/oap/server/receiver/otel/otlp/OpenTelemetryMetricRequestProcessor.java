@@ -31,6 +31,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.meter.analyzer.v2.MalConverterRegistry;
 import org.apache.skywalking.oap.meter.analyzer.v2.MetricConvert;
+import org.apache.skywalking.oap.meter.analyzer.v2.MetricConvertIndex;
 import org.apache.skywalking.oap.meter.analyzer.v2.dsl.SampleFamily;
 import org.apache.skywalking.oap.meter.analyzer.v2.dsl.debug.MalStaticBindingHook;
 import org.apache.skywalking.oap.meter.analyzer.v2.prometheus.PrometheusMetricConverter;
@@ -112,8 +113,11 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
      * observe a consistent snapshot without taking a lock; writers replace the reference under
      * {@link #convertersWriteLock}. Iteration order is preserved by {@link LinkedHashMap} so
      * the behaviour matches the pre-refactor {@code List} ordering for static rules.
+     *
+     * <p>The converters and their index are published by one reference, so a reader never sees the
+     * index of another snapshot.
      */
-    private volatile Map<String, MetricConvert> converters = Collections.emptyMap();
+    private volatile Converters converters = Converters.EMPTY;
     private final Object convertersWriteLock = new Object();
 
     /**
@@ -137,6 +141,10 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
 
     public void processMetricsRequest(final ExportMetricsServiceRequest requests) {
         try (final var unused = getProcessHistogram().createTimer()) {
+            final MetricConvertIndex index = converters.index;
+            if (index.isEmpty()) {
+                return;
+            }
             requests.getResourceMetricsList().forEach(request -> {
                 if (log.isDebugEnabled()) {
                     log.debug("Resource attributes: {}", request.getResource().getAttributesList());
@@ -161,12 +169,13 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
                     request.getScopeMetricsList().stream()
                            .flatMap(scopeMetrics -> scopeMetrics
                                .getMetricsList().stream()
+                               .filter(metric -> index.isReferenced(metric.getName()))
                                .flatMap(metric -> adaptMetrics(nodeLabels, metric))
                                .map(Function1.liftTry(Function.identity()))
                                .flatMap(tryIt -> MetricConvert.log(tryIt, "Convert OTEL metric to prometheus metric"))
                            )
                 );
-                converters.values().forEach(convert -> convert.toMeter(sampleFamilies));
+                index.toMeter(sampleFamilies);
             });
         }
     }
@@ -178,7 +187,7 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
      * MAL converters configured via enabledOtelMetricsRules.
      */
     public void toMeter(final ImmutableMap<String, SampleFamily> sampleFamilies) {
-        converters.values().forEach(convert -> convert.toMeter(sampleFamilies));
+        converters.index.toMeter(sampleFamilies);
     }
 
     /**
@@ -192,9 +201,9 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
     @Override
     public void addOrReplaceConverter(final String key, final MetricConvert convert) {
         synchronized (convertersWriteLock) {
-            final Map<String, MetricConvert> copy = new LinkedHashMap<>(converters);
+            final Map<String, MetricConvert> copy = new LinkedHashMap<>(converters.byKey);
             copy.put(key, convert);
-            converters = Collections.unmodifiableMap(copy);
+            converters = new Converters(copy);
         }
     }
 
@@ -206,12 +215,12 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
     @Override
     public void removeConverter(final String key) {
         synchronized (convertersWriteLock) {
-            if (!converters.containsKey(key)) {
+            if (!converters.byKey.containsKey(key)) {
                 return;
             }
-            final Map<String, MetricConvert> copy = new LinkedHashMap<>(converters);
+            final Map<String, MetricConvert> copy = new LinkedHashMap<>(converters.byKey);
             copy.remove(key);
-            converters = Collections.unmodifiableMap(copy);
+            converters = new Converters(copy);
         }
     }
 
@@ -467,4 +476,20 @@ public class OpenTelemetryMetricRequestProcessor implements Service, MalConverte
         }
     }
 
+    /**
+     * An immutable snapshot of the active converters, and the index of them by their input samples. Only the
+     * converters referencing the samples of a request are executed, and the metrics no converter references are
+     * dropped before being converted.
+     */
+    private static final class Converters {
+        private static final Converters EMPTY = new Converters(Collections.emptyMap());
+
+        private final Map<String, MetricConvert> byKey;
+        private final MetricConvertIndex index;
+
+        private Converters(final Map<String, MetricConvert> byKey) {
+            this.byKey = Collections.unmodifiableMap(byKey);
+            this.index = byKey.isEmpty() ? MetricConvertIndex.EMPTY : new MetricConvertIndex(byKey.values());
+        }
+    }
 }
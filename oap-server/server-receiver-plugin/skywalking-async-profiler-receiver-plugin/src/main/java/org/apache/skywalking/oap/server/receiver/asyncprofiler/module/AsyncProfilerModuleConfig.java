@@ -34,14 +34,23 @@ public class AsyncProfilerModuleConfig extends ModuleConfig {
     /**
      * default is true
      * <p>
+     * In both modes, the jfr file is parsed chunk by chunk while it is being received, and only the chunk being
+     * received is kept.
+     * <p>
      * If memoryParserEnabled is true, then AsyncProfilerByteBufCollectionObserver will be enabled
-     * will use memory to receive jfr files without writing files (this is currently used).
+     * will use memory to receive jfr chunks without writing files (this is currently used).
      * This can prevent the oap server from crashing due to no volume mounting.
      * <p>
      * If memoryParserEnabled is false, then AsyncProfilerFileCollectionObserver will be enabled
-     * which uses createTemp to write files and then reads the files for parsing.
-     * The advantage of this is that it reduces memory and prevents the oap server from crashing due to
+     * which uses createTemp to write the chunks and then maps the file into memory for parsing.
+     * The advantage of this is that it reduces heap memory and prevents the oap server from crashing due to
      * insufficient memory, but it may report an error due to no volume mounting.
      */
     private boolean memoryParserEnabled = true;
+    /**
+     * Frames whose total is less than this ratio of the whole tree are pruned before the tree is stored, in parts per
+     * million. They are too narrow to be seen in the flame graph, e.g. 100 prunes the frames below 0.01%.
+     * default is 0, all frames are kept.
+     */
+    private int minFrameTotalPerMillion = 0;
 }
@@ -69,7 +69,7 @@ public class AsyncProfilerModuleProvider extends ModuleProvider {
                 .provider()
                 .getService(GRPCHandlerRegister.class);
         AsyncProfilerServiceHandler asyncProfilerServiceHandler = new AsyncProfilerServiceHandler(getManager(),
-                config.getJfrMaxSize(), config.isMemoryParserEnabled());
+                config.getJfrMaxSize(), config.isMemoryParserEnabled(), config.getMinFrameTotalPerMillion());
         grpcHandlerRegister.addHandler(asyncProfilerServiceHandler);
     }
 
@@ -59,21 +59,26 @@ public class AsyncProfilerServiceHandler extends AsyncProfilerTaskGrpc.AsyncProf
     private final AsyncProfilerTaskCache taskCache;
     private final int jfrMaxSize;
     private final boolean memoryParserEnabled;
+    private final int minFrameTotalPerMillion;
 
-    public AsyncProfilerServiceHandler(ModuleManager moduleManager, int jfrMaxSize, boolean memoryParserEnabled) {
+    public AsyncProfilerServiceHandler(ModuleManager moduleManager, int jfrMaxSize, boolean memoryParserEnabled,
+                                       int minFrameTotalPerMillion) {
         this.taskDAO = moduleManager.find(StorageModule.NAME).provider().getService(IAsyncProfilerTaskQueryDAO.class);
         this.sourceReceiver = moduleManager.find(CoreModule.NAME).provider().getService(SourceReceiver.class);
         this.commandService = moduleManager.find(CoreModule.NAME).provider().getService(CommandService.class);
         this.taskCache = moduleManager.find(CoreModule.NAME).provider().getService(AsyncProfilerTaskCache.class);
         this.jfrMaxSize = jfrMaxSize;
         this.memoryParserEnabled = memoryParserEnabled;
+        this.minFrameTotalPerMillion = minFrameTotalPerMillion;
     }
 
     @Override
     public StreamObserver<AsyncProfilerData> collect(StreamObserver<AsyncProfilerCollectionResponse> responseObserver) {
         return memoryParserEnabled ?
-                new AsyncProfilerByteBufCollectionObserver(taskDAO, responseObserver, sourceReceiver, jfrMaxSize)
-                : new AsyncProfilerFileCollectionObserver(taskDAO, responseObserver, sourceReceiver, jfrMaxSize);
+                new AsyncProfilerByteBufCollectionObserver(
+                        taskDAO, responseObserver, sourceReceiver, jfrMaxSize, minFrameTotalPerMillion)
+                : new AsyncProfilerFileCollectionObserver(
+                        taskDAO, responseObserver, sourceReceiver, jfrMaxSize, minFrameTotalPerMillion);
     }
 
     @Override
@@ -34,7 +34,7 @@ import org.apache.skywalking.oap.server.core.source.SourceReceiver;
 import org.apache.skywalking.oap.server.core.storage.profiling.asyncprofiler.IAsyncProfilerTaskQueryDAO;
 import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
 import org.apache.skywalking.oap.server.library.jfr.type.JFREventType;
-import org.apache.skywalking.oap.server.library.jfr.parser.JFRParser;
+import org.apache.skywalking.oap.server.library.jfr.parser.JFRStreamParser;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -49,18 +49,21 @@ public class AsyncProfilerByteBufCollectionObserver implements StreamObserver<As
     private final IAsyncProfilerTaskQueryDAO taskDAO;
     private final SourceReceiver sourceReceiver;
     private final int jfrMaxSize;
+    private final int minFrameTotalPerMillion;
     private final StreamObserver<AsyncProfilerCollectionResponse> responseObserver;
 
     private AsyncProfilerCollectionMetaData taskMetaData;
-    private ByteBuffer buf;
+    private JFRStreamParser parser;
 
     public AsyncProfilerByteBufCollectionObserver(IAsyncProfilerTaskQueryDAO taskDAO,
                                                   StreamObserver<AsyncProfilerCollectionResponse> responseObserver,
-                                                  SourceReceiver sourceReceiver, int jfrMaxSize) {
+                                                  SourceReceiver sourceReceiver, int jfrMaxSize,
+                                                  int minFrameTotalPerMillion) {
         this.sourceReceiver = sourceReceiver;
         this.taskDAO = taskDAO;
         this.responseObserver = responseObserver;
         this.jfrMaxSize = jfrMaxSize;
+        this.minFrameTotalPerMillion = minFrameTotalPerMillion;
     }
 
     @Override
@@ -71,7 +74,8 @@ public class AsyncProfilerByteBufCollectionObserver implements StreamObserver<As
             if (AsyncProfilingStatus.PROFILING_SUCCESS.equals(taskMetaData.getType())) {
                 int size = taskMetaData.getContentSize();
                 if (jfrMaxSize >= size) {
-                    buf = ByteBuffer.allocate(size);
+                    // The chunks are parsed once they are received, only the chunk being received is buffered
+                    parser = JFRStreamParser.inMemory(new Arguments(), Math.min(size, jfrMaxSize));
                     // Not setting type means telling the client that it can upload jfr files
                     responseObserver.onNext(AsyncProfilerCollectionResponse.newBuilder().build());
                 } else {
@@ -84,13 +88,22 @@ public class AsyncProfilerByteBufCollectionObserver implements StreamObserver<As
                 recordAsyncProfilerTaskLog(taskMetaData.getTask(), taskMetaData.getInstanceId(),
                         AsyncProfilerTaskLogOperationType.EXECUTION_TASK_ERROR);
             }
-        } else if (asyncProfilerData.hasContent()) {
-            asyncProfilerData.getContent().copyTo(buf);
+        } else if (asyncProfilerData.hasContent() && Objects.nonNull(parser)) {
+            try {
+                for (ByteBuffer content : asyncProfilerData.getContent().asReadOnlyByteBufferList()) {
+                    parser.write(content);
+                }
+            } catch (IOException e) {
+                closeParser();
+                throw e;
+            }
         }
     }
 
     @Override
+    @SneakyThrows
     public void onError(Throwable throwable) {
+        closeParser();
         Status status = Status.fromThrowable(throwable);
         if (Status.CANCELLED.getCode() == status.getCode()) {
             if (log.isDebugEnabled()) {
@@ -105,13 +118,16 @@ public class AsyncProfilerByteBufCollectionObserver implements StreamObserver<As
     @SneakyThrows
     public void onCompleted() {
         responseObserver.onCompleted();
-        if (Objects.nonNull(buf)) {
-            buf.flip();
-            parseAndStorageData(taskMetaData, buf);
+        if (Objects.nonNull(parser)) {
+            try {
+                parseAndStorageData(taskMetaData, parser);
+            } finally {
+                closeParser();
+            }
         }
     }
 
-    private void parseAndStorageData(AsyncProfilerCollectionMetaData taskMetaData, ByteBuffer buf) throws IOException {
+    private void parseAndStorageData(AsyncProfilerCollectionMetaData taskMetaData, JFRStreamParser parser) throws IOException {
         AsyncProfilerTask task = taskMetaData.getTask();
         if (task == null) {
             log.error("AsyncProfiler instanceId:{} has not been assigned a task but still uploaded data", taskMetaData.getInstanceId());
@@ -120,17 +136,17 @@ public class AsyncProfilerByteBufCollectionObserver implements StreamObserver<As
 
         recordAsyncProfilerTaskLog(task, taskMetaData.getInstanceId(), AsyncProfilerTaskLogOperationType.EXECUTION_FINISHED);
 
-        parseJFRAndStorage(taskMetaData, buf);
+        parseJFRAndStorage(taskMetaData, parser);
     }
 
     public void parseJFRAndStorage(AsyncProfilerCollectionMetaData taskMetaData,
-                                   ByteBuffer buf) throws IOException {
+                                   JFRStreamParser parser) throws IOException {
         AsyncProfilerTask task = taskMetaData.getTask();
-        Arguments arguments = new Arguments();
-        Map<JFREventType, FrameTree> event2treeMap = JFRParser.dumpTree(buf, arguments);
+        Map<JFREventType, FrameTree> event2treeMap = parser.finish();
         for (Map.Entry<JFREventType, FrameTree> entry : event2treeMap.entrySet()) {
             JFREventType event = entry.getKey();
             FrameTree tree = entry.getValue();
+            tree.prune(minFrameTotalPerMillion);
             JFRProfilingData data = new JFRProfilingData();
             data.setEventType(event);
             data.setFrameTree(tree);
@@ -140,4 +156,11 @@ public class AsyncProfilerByteBufCollectionObserver implements StreamObserver<As
             sourceReceiver.receive(data);
         }
     }
+
+    private void closeParser() throws IOException {
+        if (Objects.nonNull(parser)) {
+            parser.close();
+            parser = null;
+        }
+    }
 }
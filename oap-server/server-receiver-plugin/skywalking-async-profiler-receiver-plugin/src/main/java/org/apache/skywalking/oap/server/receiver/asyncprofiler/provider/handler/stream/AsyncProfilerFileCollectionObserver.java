@@ -34,10 +34,10 @@ import org.apache.skywalking.oap.server.core.source.SourceReceiver;
 import org.apache.skywalking.oap.server.core.storage.profiling.asyncprofiler.IAsyncProfilerTaskQueryDAO;
 import org.apache.skywalking.oap.server.library.jfr.type.FrameTree;
 import org.apache.skywalking.oap.server.library.jfr.type.JFREventType;
-import org.apache.skywalking.oap.server.library.jfr.parser.JFRParser;
+import org.apache.skywalking.oap.server.library.jfr.parser.JFRStreamParser;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
@@ -51,19 +51,21 @@ public class AsyncProfilerFileCollectionObserver implements StreamObserver<Async
     private final IAsyncProfilerTaskQueryDAO taskDAO;
     private final SourceReceiver sourceReceiver;
     private final int jfrMaxSize;
+    private final int minFrameTotalPerMillion;
     private final StreamObserver<AsyncProfilerCollectionResponse> responseObserver;
 
     private AsyncProfilerCollectionMetaData taskMetaData;
-    private Path tempFile;
-    private FileOutputStream fileOutputStream;
+    private JFRStreamParser parser;
 
     public AsyncProfilerFileCollectionObserver(IAsyncProfilerTaskQueryDAO taskDAO,
                                                StreamObserver<AsyncProfilerCollectionResponse> responseObserver,
-                                               SourceReceiver sourceReceiver, int jfrMaxSize) {
+                                               SourceReceiver sourceReceiver, int jfrMaxSize,
+                                               int minFrameTotalPerMillion) {
         this.sourceReceiver = sourceReceiver;
         this.taskDAO = taskDAO;
         this.responseObserver = responseObserver;
         this.jfrMaxSize = jfrMaxSize;
+        this.minFrameTotalPerMillion = minFrameTotalPerMillion;
     }
 
     @Override
@@ -74,8 +76,10 @@ public class AsyncProfilerFileCollectionObserver implements StreamObserver<Async
             AsyncProfilerTask task = taskMetaData.getTask();
             if (AsyncProfilingStatus.PROFILING_SUCCESS.equals(taskMetaData.getType())) {
                 if (jfrMaxSize >= taskMetaData.getContentSize()) {
-                    tempFile = Files.createTempFile(task.getId() + taskMetaData.getInstanceId() + System.currentTimeMillis(), ".jfr");
-                    fileOutputStream = new FileOutputStream(tempFile.toFile());
+                    Path tempFile = Files.createTempFile(task.getId() + taskMetaData.getInstanceId() + System.currentTimeMillis(), ".jfr");
+                    // The chunks are parsed once they are received, the temp file only keeps the chunk being received
+                    parser = JFRStreamParser.mappedFile(
+                            tempFile, new Arguments(), Math.min(taskMetaData.getContentSize(), jfrMaxSize));
                     // Not setting type means telling the client that it can upload jfr files
                     responseObserver.onNext(AsyncProfilerCollectionResponse.newBuilder().build());
                 } else {
@@ -88,13 +92,22 @@ public class AsyncProfilerFileCollectionObserver implements StreamObserver<Async
                 recordAsyncProfilerTaskLog(task, taskMetaData.getInstanceId(),
                         AsyncProfilerTaskLogOperationType.EXECUTION_TASK_ERROR);
             }
-        } else if (asyncProfilerData.hasContent()) {
-            fileOutputStream.write(asyncProfilerData.getContent().toByteArray());
+        } else if (asyncProfilerData.hasContent() && Objects.nonNull(parser)) {
+            try {
+                for (ByteBuffer content : asyncProfilerData.getContent().asReadOnlyByteBufferList()) {
+                    parser.write(content);
+                }
+            } catch (IOException e) {
+                closeParser();
+                throw e;
+            }
         }
     }
 
     @Override
+    @SneakyThrows
     public void onError(Throwable throwable) {
+        closeParser();
         Status status = Status.fromThrowable(throwable);
         if (Status.CANCELLED.getCode() == status.getCode()) {
             if (log.isDebugEnabled()) {
@@ -110,16 +123,16 @@ public class AsyncProfilerFileCollectionObserver implements StreamObserver<Async
     public void onCompleted() {
         responseObserver.onCompleted();
 
-        if (Objects.nonNull(tempFile)) {
-            fileOutputStream.close();
-            parseAndStorageData(taskMetaData, tempFile.toAbsolutePath().toString());
-            if (!tempFile.toFile().delete()) {
-                log.warn("Failed to delete temp JFR file {}", tempFile.toAbsolutePath());
+        if (Objects.nonNull(parser)) {
+            try {
+                parseAndStorageData(taskMetaData, parser);
+            } finally {
+                closeParser();
             }
         }
     }
 
-    private void parseAndStorageData(AsyncProfilerCollectionMetaData taskMetaData, String fileName) throws IOException {
+    private void parseAndStorageData(AsyncProfilerCollectionMetaData taskMetaData, JFRStreamParser parser) throws IOException {
         AsyncProfilerTask task = taskMetaData.getTask();
         if (task == null) {
             log.error("AsyncProfiler instanceId:{} has not been assigned a task but still uploaded data", taskMetaData.getInstanceId());
@@ -128,17 +141,17 @@ public class AsyncProfilerFileCollectionObserver implements StreamObserver<Async
 
         recordAsyncProfilerTaskLog(task, taskMetaData.getInstanceId(), AsyncProfilerTaskLogOperationType.EXECUTION_FINISHED);
 
-        parseJFRAndStorage(taskMetaData, fileName);
+        parseJFRAndStorage(taskMetaData, parser);
     }
 
     public void parseJFRAndStorage(AsyncProfilerCollectionMetaData taskMetaData,
-                                   String fileName) throws IOException {
+                                   JFRStreamParser parser) throws IOException {
         AsyncProfilerTask task = taskMetaData.getTask();
-        Arguments arguments = new Arguments();
-        Map<JFREventType, FrameTree> event2treeMap = JFRParser.dumpTree(fileName, arguments);
+        Map<JFREventType, FrameTree> event2treeMap = parser.finish();
         for (Map.Entry<JFREventType, FrameTree> entry : event2treeMap.entrySet()) {
             JFREventType event = entry.getKey();
             FrameTree tree = entry.getValue();
+            tree.prune(minFrameTotalPerMillion);
             JFRProfilingData data = new JFRProfilingData();
             data.setEventType(event);
             data.setFrameTree(tree);
@@ -148,4 +161,12 @@ public class AsyncProfilerFileCollectionObserver implements StreamObserver<Async
             sourceReceiver.receive(data);
         }
     }
-}
\ No newline at end of file
+
+    private void closeParser() throws IOException {
+        if (Objects.nonNull(parser)) {
+            // The temp file is deleted with the parser
+            parser.close();
+            parser = null;
+        }
+    }
+}
@@ -43,4 +43,10 @@ public class PprofModuleConfig extends ModuleConfig {
      * insufficient memory, but it may report an error due to no volume mounting.
      */
     private boolean memoryParserEnabled = true;
+    /**
+     * Frames whose total is less than this ratio of the whole tree are pruned before the tree is stored, in parts per
+     * million. They are too narrow to be seen in the flame graph, e.g. 100 prunes the frames below 0.01%.
+     * default is 0, all frames are kept.
+     */
+    private int minFrameTotalPerMillion = 0;
 }
@@ -69,7 +69,8 @@ public class PprofModuleProvider extends ModuleProvider {
                                                               .provider()
                                                               .getService(GRPCHandlerRegister.class);
         PprofServiceHandler pprofServiceHandler = new PprofServiceHandler(
-            getManager(), config.getPprofMaxSize(), config.isMemoryParserEnabled());
+            getManager(), config.getPprofMaxSize(), config.isMemoryParserEnabled(),
+            config.getMinFrameTotalPerMillion());
         grpcHandlerRegister.addHandler(pprofServiceHandler);
     }
 
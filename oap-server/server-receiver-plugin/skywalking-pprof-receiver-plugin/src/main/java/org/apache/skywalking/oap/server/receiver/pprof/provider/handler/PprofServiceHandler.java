@@ -58,21 +58,25 @@ public class PprofServiceHandler extends PprofTaskGrpc.PprofTaskImplBase impleme
     private final PprofTaskCache taskCache;
     private final int pprofMaxSize;
     private final boolean memoryParserEnabled;
+    private final int minFrameTotalPerMillion;
 
-    public PprofServiceHandler(ModuleManager moduleManager, int pprofMaxSize, boolean memoryParserEnabled) {
+    public PprofServiceHandler(ModuleManager moduleManager, int pprofMaxSize, boolean memoryParserEnabled,
+                               int minFrameTotalPerMillion) {
         this.taskDAO = moduleManager.find(StorageModule.NAME).provider().getService(IPprofTaskQueryDAO.class);
         this.commandService = moduleManager.find(CoreModule.NAME).provider().getService(CommandService.class);
         this.sourceReceiver = moduleManager.find(CoreModule.NAME).provider().getService(SourceReceiver.class);
         this.taskCache = moduleManager.find(CoreModule.NAME).provider().getService(PprofTaskCache.class);
         this.pprofMaxSize = pprofMaxSize;
         this.memoryParserEnabled = memoryParserEnabled;
+        this.minFrameTotalPerMillion = minFrameTotalPerMillion;
     }
 
     @Override
     public StreamObserver<PprofData> collect(StreamObserver<PprofCollectionResponse> responseObserver) {
         return memoryParserEnabled ? new PprofByteBufCollectionObserver(
-            taskDAO, responseObserver, sourceReceiver, pprofMaxSize) : new PprofFileCollectionObserver(
-            taskDAO, responseObserver, sourceReceiver, pprofMaxSize);
+            taskDAO, responseObserver, sourceReceiver, pprofMaxSize, minFrameTotalPerMillion)
+            : new PprofFileCollectionObserver(
+            taskDAO, responseObserver, sourceReceiver, pprofMaxSize, minFrameTotalPerMillion);
     }
 
     @Override
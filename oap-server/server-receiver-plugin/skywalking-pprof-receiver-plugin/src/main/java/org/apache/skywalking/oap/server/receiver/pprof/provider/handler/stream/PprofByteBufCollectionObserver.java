@@ -45,16 +45,19 @@ public class PprofByteBufCollectionObserver implements StreamObserver<PprofData>
     private final StreamObserver<PprofCollectionResponse> responseObserver;
     private final SourceReceiver sourceReceiver;
     private final int pprofMaxSize;
+    private final int minFrameTotalPerMillion;
     private PprofCollectionMetaData taskMetaData;
     private ByteBuffer buf;
 
     public PprofByteBufCollectionObserver(IPprofTaskQueryDAO taskDAO,
                                           StreamObserver<PprofCollectionResponse> responseObserver,
-                                          SourceReceiver sourceReceiver, int pprofMaxSize) {
+                                          SourceReceiver sourceReceiver, int pprofMaxSize,
+                                          int minFrameTotalPerMillion) {
         this.taskDAO = taskDAO;
         this.responseObserver = responseObserver;
         this.sourceReceiver = sourceReceiver;
         this.pprofMaxSize = pprofMaxSize;
+        this.minFrameTotalPerMillion = minFrameTotalPerMillion;
     }
 
     @Override
@@ -145,6 +148,7 @@ public class PprofByteBufCollectionObserver implements StreamObserver<PprofData>
     public void parsePprofAndStorage(PprofCollectionMetaData taskMetaData, ByteBuffer buf) throws IOException {
         PprofTask task = taskMetaData.getTask();
         FrameTree tree = PprofParser.dumpTree(buf);
+        tree.prune(minFrameTotalPerMillion);
         PprofProfilingData data = new PprofProfilingData();
         data.setEventType(PprofEventType.valueOfString(task.getEvents().name()));
         data.setFrameTree(tree);
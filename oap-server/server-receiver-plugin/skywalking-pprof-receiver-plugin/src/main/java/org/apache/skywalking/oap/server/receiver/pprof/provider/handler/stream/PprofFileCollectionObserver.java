@@ -48,17 +48,20 @@ public class PprofFileCollectionObserver implements StreamObserver<PprofData> {
     private final StreamObserver<PprofCollectionResponse> responseObserver;
     private final SourceReceiver sourceReceiver;
     private final int pprofMaxSize;
+    private final int minFrameTotalPerMillion;
     private PprofCollectionMetaData taskMetaData;
     private Path tempFile;
     private FileOutputStream fileOutputStream;
 
     public PprofFileCollectionObserver(IPprofTaskQueryDAO taskDAO,
                                        StreamObserver<PprofCollectionResponse> responseObserver,
-                                       SourceReceiver sourceReceiver, int pprofMaxSize) {
+                                       SourceReceiver sourceReceiver, int pprofMaxSize,
+                                       int minFrameTotalPerMillion) {
         this.taskDAO = taskDAO;
         this.responseObserver = responseObserver;
         this.sourceReceiver = sourceReceiver;
         this.pprofMaxSize = pprofMaxSize;
+        this.minFrameTotalPerMillion = minFrameTotalPerMillion;
     }
 
     @SneakyThrows
@@ -168,6 +171,7 @@ public class PprofFileCollectionObserver implements StreamObserver<PprofData> {
                                      String fileName) throws IOException {
         PprofTask task = taskMetaData.getTask();
         FrameTree tree = PprofParser.dumpTree(fileName);
+        tree.prune(minFrameTotalPerMillion);
         PprofProfilingData data = new PprofProfilingData();
         data.setEventType(PprofEventType.valueOfString(task.getEvents().name()));
         data.setFrameTree(tree);
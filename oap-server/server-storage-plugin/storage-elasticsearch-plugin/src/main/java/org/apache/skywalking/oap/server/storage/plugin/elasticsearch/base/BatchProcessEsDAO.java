@@ -102,8 +102,10 @@ public class BatchProcessEsDAO extends EsDAO implements IBatchDAO {
     @Override
     public void endOfFlush() {
         // Flush forcibly due to this kind of metrics has been pushed into the bulk processor.
+        // Wait for the bulks, so the persistence round ends after the data is written, as the synchronous flush did.
+        // The failed requests have been logged by the bulk processor.
         if (bulkProcessor != null) {
-            bulkProcessor.flush();
+            bulkProcessor.flush().join();
         }
     }
 }